@@ -0,0 +1,44 @@
+package dev.slimevr.benchmark;
+
+import dev.slimevr.autobone.AutoBone;
+import dev.slimevr.autobone.errors.AutoBoneException;
+import dev.slimevr.poserecorder.PoseFrames;
+import dev.slimevr.unit.SyntheticPoseFrames;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * One AutoBone epoch over a lower body recording of 500 frames, serially and
+ * with parallel workers, solving frames from the trackers or the pose cache.
+ * Building the cache is part of each run.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AutoBoneBenchmark {
+
+	@Param({ "1", "4" })
+	public int workers;
+
+	@Param({ "false", "true" })
+	public boolean poseCache;
+
+	private PoseFrames frames;
+	private AutoBone autoBone;
+
+	@Setup
+	public void setup() {
+		frames = SyntheticPoseFrames.create(SyntheticPoseFrames.LOWER_BODY, 500, 1);
+		autoBone = new AutoBone();
+		autoBone.numEpochs = 1;
+		autoBone.parallelWorkers = workers;
+		autoBone.usePoseCache = poseCache;
+	}
+
+	@Benchmark
+	public AutoBone.AutoBoneResults epoch() throws AutoBoneException {
+		return autoBone.processFrames(frames, false, 1.7f, null);
+	}
+}
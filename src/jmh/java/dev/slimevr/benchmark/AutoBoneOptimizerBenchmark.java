@@ -0,0 +1,41 @@
+package dev.slimevr.benchmark;
+
+import dev.slimevr.autobone.AutoBone;
+import dev.slimevr.autobone.AutoBoneOptimizer;
+import dev.slimevr.autobone.errors.AutoBoneException;
+import dev.slimevr.poserecorder.PoseFrames;
+import dev.slimevr.unit.SyntheticPoseFrames;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Ten AutoBone epochs over a lower body recording of 500 frames with each
+ * optimizer, including building the pose cache or linear model. The final
+ * errors are compared in AutoBoneOptimizerTests.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AutoBoneOptimizerBenchmark {
+
+	@Param({ "PROBE", "SGD", "MOMENTUM", "ADAM" })
+	public AutoBoneOptimizer optimizer;
+
+	private PoseFrames frames;
+	private AutoBone autoBone;
+
+	@Setup
+	public void setup() {
+		frames = SyntheticPoseFrames.create(SyntheticPoseFrames.LOWER_BODY, 500, 1);
+		autoBone = new AutoBone();
+		autoBone.numEpochs = 10;
+		autoBone.optimizer = optimizer;
+	}
+
+	@Benchmark
+	public AutoBone.AutoBoneResults train() throws AutoBoneException {
+		return autoBone.processFrames(frames, false, 1.7f, null);
+	}
+}
@@ -0,0 +1,109 @@
+package dev.slimevr.benchmark;
+
+import com.google.flatbuffers.FlatBufferBuilder;
+import dev.slimevr.poserecorder.PoseFrameSkeleton;
+import dev.slimevr.protocol.DataFeedBuilder;
+import dev.slimevr.unit.SyntheticPoseFrames;
+import dev.slimevr.vr.Device;
+import dev.slimevr.vr.processor.ComputedHumanPoseTracker;
+import dev.slimevr.vr.processor.skeleton.PoseSnapshot;
+import dev.slimevr.vr.processor.skeleton.PoseSnapshotPool;
+import dev.slimevr.vr.trackers.IMUTracker;
+import dev.slimevr.vr.trackers.Tracker;
+import dev.slimevr.vr.trackers.TrackerRole;
+import dev.slimevr.vr.trackers.udp.UDPDevice;
+import io.eiren.util.collections.FastList;
+import org.openjdk.jmh.annotations.*;
+import solarxr_protocol.data_feed.DataFeedConfigT;
+import solarxr_protocol.data_feed.device_data.DeviceDataMaskT;
+import solarxr_protocol.data_feed.tracker.TrackerDataMaskT;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Building SolarXR data feed updates the way
+ * {@link dev.slimevr.protocol.DataFeedHandler} does, for a full body skeleton
+ * and a number of connected devices
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DataFeedBenchmark {
+
+	@Param({ "8", "32" })
+	public int devices;
+
+	private PoseFrameSkeleton skeleton;
+	private PoseSnapshot pose;
+	private final List<Device> deviceList = new FastList<>();
+	private final List<Tracker> syntheticTrackers = new FastList<>();
+	private final DataFeedConfigT config = new DataFeedConfigT();
+
+	@Setup
+	public void setup() throws Exception {
+		skeleton = new PoseFrameSkeleton(
+			SyntheticPoseFrames.create(SyntheticPoseFrames.FULL_BODY, 1, 1).getTrackers(),
+			null
+		);
+		skeleton.updatePose();
+		pose = new PoseSnapshotPool().publish(skeleton, null);
+
+		for (int i = 0; i < devices; ++i) {
+			InetAddress address = InetAddress.getByAddress(new byte[] { 10, 0, 0, (byte) i });
+			UDPDevice device = new UDPDevice(new InetSocketAddress(address, 6969), address);
+			device.name = "udp://benchmark" + i;
+			device.getTrackers()
+				.add(
+					new IMUTracker(
+						device,
+						Tracker.getNextLocalTrackerId(),
+						0,
+						device.name + "/0",
+						device.name + "/0",
+						null,
+						null
+					)
+				);
+			deviceList.add(device);
+		}
+		for (TrackerRole role : TrackerRole.values()) {
+			ComputedHumanPoseTracker tracker = skeleton.getComputedTracker(role);
+			if (tracker != null)
+				syntheticTrackers.add(tracker);
+		}
+
+		TrackerDataMaskT trackerMask = new TrackerDataMaskT();
+		trackerMask.setInfo(true);
+		trackerMask.setStatus(true);
+		trackerMask.setRotation(true);
+		trackerMask.setPosition(true);
+		trackerMask.setTemp(true);
+		DeviceDataMaskT deviceMask = new DeviceDataMaskT();
+		deviceMask.setDeviceData(true);
+		deviceMask.setTrackerData(trackerMask);
+		config.setDataMask(deviceMask);
+		config.setSyntheticTrackersMask(trackerMask);
+		config.setBoneMask(true);
+	}
+
+	@Benchmark
+	public int createBonesData() {
+		FlatBufferBuilder fbb = new FlatBufferBuilder(300);
+		int bones = DataFeedBuilder.createBonesData(fbb, true, pose);
+		fbb.finish(bones);
+		return fbb.offset();
+	}
+
+	@Benchmark
+	public int buildDatafeed() {
+		FlatBufferBuilder fbb = new FlatBufferBuilder(300);
+		int update = DataFeedBuilder
+			.createDataFeedUpdate(fbb, config, deviceList, syntheticTrackers, pose);
+		fbb.finish(update);
+		return fbb.offset();
+	}
+}
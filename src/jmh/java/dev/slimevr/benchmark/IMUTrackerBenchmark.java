@@ -0,0 +1,59 @@
+package dev.slimevr.benchmark;
+
+import com.jme3.math.Quaternion;
+import dev.slimevr.vr.trackers.IMUTracker;
+import dev.slimevr.vr.trackers.Tracker;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Receiving a rotation packet and reading the filtered rotation. Run with
+ * {@code -prof gc}, dataTick should allocate nothing with any filter.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class IMUTrackerBenchmark {
+
+	@Param({ "INTERPOLATION", "ONE_EURO" })
+	public String filterType;
+
+	@Param({ "0", "5", "50" })
+	public int filterTicks;
+
+	private IMUTracker tracker;
+	private final Quaternion[] rotations = new Quaternion[64];
+	private final Quaternion store = new Quaternion();
+	private int index = 0;
+
+	@Setup
+	public void setup() {
+		tracker = new IMUTracker(
+			null,
+			Tracker.getNextLocalTrackerId(),
+			0,
+			"benchmark/0",
+			"benchmark/0",
+			null,
+			null
+		);
+		tracker.setFilter(filterType, 0.5f, filterTicks);
+		for (int i = 0; i < rotations.length; ++i)
+			rotations[i] = new Quaternion().fromAngles(i * 0.01f, i * 0.02f, 0);
+	}
+
+	@Benchmark
+	public void dataTick() {
+		tracker.rotQuaternion.set(rotations[index++ & 63]);
+		tracker.dataTick();
+	}
+
+	@Benchmark
+	public Quaternion dataTickAndRead() {
+		dataTick();
+		tracker.getRotation(store);
+		return store;
+	}
+}
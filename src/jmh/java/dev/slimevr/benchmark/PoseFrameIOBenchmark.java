@@ -0,0 +1,46 @@
+package dev.slimevr.benchmark;
+
+import dev.slimevr.poserecorder.PoseFrameIO;
+import dev.slimevr.poserecorder.PoseFrames;
+import dev.slimevr.unit.SyntheticPoseFrames;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Writing and reading a full body recording of 1000 frames in memory
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PoseFrameIOBenchmark {
+
+	private PoseFrames frames;
+	private byte[] recording;
+	private final ByteArrayOutputStream output = new ByteArrayOutputStream(1 << 20);
+
+	@Setup
+	public void setup() {
+		frames = SyntheticPoseFrames.create(SyntheticPoseFrames.FULL_BODY, 1000, 1);
+		PoseFrameIO.writeFrames(new DataOutputStream(output), frames);
+		recording = output.toByteArray();
+	}
+
+	@Benchmark
+	public int writeFrames() {
+		output.reset();
+		PoseFrameIO.writeFrames(new DataOutputStream(output), frames);
+		return output.size();
+	}
+
+	@Benchmark
+	public PoseFrames readFrames() {
+		return PoseFrameIO
+			.readFrames(new DataInputStream(new ByteArrayInputStream(recording)));
+	}
+}
@@ -0,0 +1,37 @@
+package dev.slimevr.benchmark;
+
+import dev.slimevr.poserecorder.PoseFrameSkeleton;
+import dev.slimevr.unit.SyntheticPoseFrames;
+import dev.slimevr.vr.processor.skeleton.PoseSnapshot;
+import dev.slimevr.vr.processor.skeleton.PoseSnapshotPool;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Publishing a pose snapshot of a full body skeleton, which should not
+ * allocate once the pool is warm
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PoseSnapshotBenchmark {
+
+	private PoseFrameSkeleton skeleton;
+	private final PoseSnapshotPool pool = new PoseSnapshotPool();
+
+	@Setup
+	public void setup() {
+		skeleton = new PoseFrameSkeleton(
+			SyntheticPoseFrames.create(SyntheticPoseFrames.FULL_BODY, 1, 1).getTrackers(),
+			null
+		);
+		skeleton.updatePose();
+	}
+
+	@Benchmark
+	public PoseSnapshot publish() {
+		return pool.publish(skeleton, null);
+	}
+}
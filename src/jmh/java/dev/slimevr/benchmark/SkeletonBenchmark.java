@@ -0,0 +1,43 @@
+package dev.slimevr.benchmark;
+
+import dev.slimevr.poserecorder.PoseFrameSkeleton;
+import dev.slimevr.poserecorder.PoseFrames;
+import dev.slimevr.unit.SyntheticPoseFrames;
+import dev.slimevr.vr.processor.TransformNode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * {@link dev.slimevr.vr.processor.skeleton.HumanSkeleton#updatePose()} with
+ * different sets of trackers, every invocation poses the next frame
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SkeletonBenchmark {
+
+	private static final int FRAMES = 500;
+
+	@Param({ "HMD_ONLY", "LOWER_BODY", "FULL_BODY" })
+	public String trackers;
+
+	private PoseFrameSkeleton skeleton;
+	private int frame = 0;
+
+	@Setup
+	public void setup() {
+		PoseFrames frames = SyntheticPoseFrames
+			.create(SyntheticPoseFrames.getTrackerSet(trackers), FRAMES, 1);
+		skeleton = new PoseFrameSkeleton(frames.getTrackers(), null);
+	}
+
+	@Benchmark
+	public TransformNode updatePose() {
+		skeleton.setCursor(frame);
+		frame = (frame + 1) % FRAMES;
+		skeleton.updatePose();
+		return skeleton.getRootNode();
+	}
+}
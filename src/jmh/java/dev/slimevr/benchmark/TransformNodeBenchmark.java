@@ -0,0 +1,65 @@
+package dev.slimevr.benchmark;
+
+import com.jme3.math.Quaternion;
+import dev.slimevr.poserecorder.PoseFrameSkeleton;
+import dev.slimevr.unit.SyntheticPoseFrames;
+import dev.slimevr.vr.processor.TransformNode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * {@link TransformNode#update()} propagation through the human skeleton's node
+ * tree and through a larger balanced tree, with every node recomputed or with
+ * nothing changed since the last update
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TransformNodeBenchmark {
+
+	@Param({ "SKELETON", "BINARY_TREE_255" })
+	public String tree;
+
+	private TransformNode root;
+
+	@Setup
+	public void setup() {
+		if ("SKELETON".equals(tree)) {
+			root = new PoseFrameSkeleton(
+				SyntheticPoseFrames
+					.create(SyntheticPoseFrames.FULL_BODY, 1, 1)
+					.getTrackers(),
+				null
+			)
+				.getRootNode();
+		} else {
+			root = createTree(8, new Quaternion().fromAngles(0.1f, 0.2f, 0.3f));
+		}
+	}
+
+	private static TransformNode createTree(int depth, Quaternion rotation) {
+		TransformNode node = new TransformNode("Node", true);
+		node.localTransform.setRotation(rotation);
+		node.localTransform.setTranslation(0f, -0.1f, 0.05f);
+		if (depth > 1) {
+			node.attachChild(createTree(depth - 1, rotation));
+			node.attachChild(createTree(depth - 1, rotation));
+		}
+		return node;
+	}
+
+	@Benchmark
+	public TransformNode update() {
+		root.markDirty();
+		root.update();
+		return root;
+	}
+
+	@Benchmark
+	public TransformNode updateUnchanged() {
+		root.update();
+		return root;
+	}
+}
@@ -0,0 +1,160 @@
+package dev.slimevr.benchmark;
+
+import dev.slimevr.vr.trackers.udp.UDPDevice;
+import dev.slimevr.vr.trackers.udp.UDPPacket;
+import dev.slimevr.vr.trackers.udp.UDPPacket17RotationData;
+import dev.slimevr.vr.trackers.udp.UDPProtocolParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * {@link UDPProtocolParser#parse(ByteBuffer, UDPDevice)} for every packet type
+ * trackers send, with and without packet reuse
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UDPProtocolParserBenchmark {
+
+	@Param(
+		{ "HEARTBEAT", "ROTATION", "HANDSHAKE", "PING_PONG", "SERIAL", "BATTERY_LEVEL", "TAP",
+			"ERROR", "SENSOR_INFO", "ROTATION_2", "ROTATION_DATA", "MAGNETOMETER_ACCURACY",
+			"SIGNAL_STRENGTH", "TEMPERATURE" }
+	)
+	public String packet;
+
+	@Param({ "true", "false" })
+	public boolean reusePackets;
+
+	private final ByteBuffer buf = ByteBuffer.allocate(512).order(ByteOrder.BIG_ENDIAN);
+	private UDPProtocolParser parser;
+	private UDPDevice device;
+	private int length;
+	private long packetNumber = 0;
+
+	@Setup
+	public void setup() {
+		parser = new UDPProtocolParser(reusePackets);
+		device = new UDPDevice(
+			new InetSocketAddress(InetAddress.getLoopbackAddress(), 6969),
+			InetAddress.getLoopbackAddress()
+		);
+		buf.clear();
+		writePacket(packet);
+		length = buf.position();
+	}
+
+	private void writePacket(String type) {
+		switch (type) {
+			case "HEARTBEAT":
+				start(UDPProtocolParser.PACKET_HEARTBEAT);
+				break;
+			case "ROTATION":
+				start(UDPProtocolParser.PACKET_ROTATION);
+				putRotation();
+				break;
+			case "HANDSHAKE":
+				start(UDPProtocolParser.PACKET_HANDSHAKE);
+				buf.putInt(0); // Board type
+				buf.putInt(0); // IMU type
+				buf.putInt(0); // MCU type
+				buf.putInt(0); // IMU info
+				buf.putInt(0);
+				buf.putInt(0);
+				buf.putInt(10); // Firmware build
+				byte[] firmware = "benchmark".getBytes(StandardCharsets.US_ASCII);
+				buf.put((byte) firmware.length);
+				buf.put(firmware);
+				buf.put(new byte[] { 1, 2, 3, 4, 5, 6 });
+				break;
+			case "PING_PONG":
+				start(UDPProtocolParser.PACKET_PING_PONG);
+				buf.putInt(12345);
+				break;
+			case "SERIAL":
+				start(UDPProtocolParser.PACKET_SERIAL);
+				byte[] serial = "[INFO ] Calibration done".getBytes(StandardCharsets.US_ASCII);
+				buf.putInt(serial.length);
+				buf.put(serial);
+				break;
+			case "BATTERY_LEVEL":
+				start(UDPProtocolParser.PACKET_BATTERY_LEVEL);
+				buf.putFloat(4.0f);
+				buf.putFloat(0.8f);
+				break;
+			case "TAP":
+				start(UDPProtocolParser.PACKET_TAP);
+				buf.put((byte) 0);
+				buf.put((byte) 1);
+				break;
+			case "ERROR":
+				start(UDPProtocolParser.PACKET_ERROR);
+				buf.put((byte) 0);
+				buf.put((byte) 1);
+				break;
+			case "SENSOR_INFO":
+				start(UDPProtocolParser.PACKET_SENSOR_INFO);
+				buf.put((byte) 0);
+				buf.put((byte) 1);
+				buf.put((byte) 0);
+				break;
+			case "ROTATION_2":
+				start(UDPProtocolParser.PACKET_ROTATION_2);
+				putRotation();
+				break;
+			case "ROTATION_DATA":
+				start(UDPProtocolParser.PACKET_ROTATION_DATA);
+				buf.put((byte) 0);
+				buf.put((byte) UDPPacket17RotationData.DATA_TYPE_NORMAL);
+				putRotation();
+				buf.put((byte) 3);
+				break;
+			case "MAGNETOMETER_ACCURACY":
+				start(UDPProtocolParser.PACKET_MAGNETOMETER_ACCURACY);
+				buf.put((byte) 0);
+				buf.putFloat(1.5f);
+				break;
+			case "SIGNAL_STRENGTH":
+				start(UDPProtocolParser.PACKET_SIGNAL_STRENGTH);
+				buf.put((byte) 0);
+				buf.put((byte) -60);
+				break;
+			case "TEMPERATURE":
+				start(UDPProtocolParser.PACKET_TEMPERATURE);
+				buf.put((byte) 0);
+				buf.putFloat(36.6f);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown packet type " + type);
+		}
+	}
+
+	private void start(int packetId) {
+		buf.putInt(packetId);
+		buf.putLong(0);
+	}
+
+	private void putRotation() {
+		buf.putFloat(0f);
+		buf.putFloat(0f);
+		buf.putFloat(0.7071f);
+		buf.putFloat(0.7071f);
+	}
+
+	@Benchmark
+	public UDPPacket parse() throws IOException {
+		buf.clear();
+		// Every packet must look newer than the last one to the device
+		buf.putLong(4, ++packetNumber);
+		buf.limit(length);
+		return parser.parse(buf, device);
+	}
+}
@@ -7,11 +7,17 @@ import dev.slimevr.platform.windows.WindowsNamedPipeBridge;
 import dev.slimevr.poserecorder.BVHRecorder;
 import dev.slimevr.protocol.ProtocolAPI;
 import dev.slimevr.serial.SerialHandler;
+import dev.slimevr.util.ServerMetrics;
+import dev.slimevr.util.ServerMetrics.Stage;
+import dev.slimevr.util.TickScheduler;
 import dev.slimevr.util.ann.VRServerThread;
 import dev.slimevr.vr.DeviceManager;
 import dev.slimevr.vr.processor.HumanPoseProcessor;
+import dev.slimevr.vr.processor.SkeletonSolver;
 import dev.slimevr.vr.processor.skeleton.Skeleton;
 import dev.slimevr.vr.trackers.*;
+import dev.slimevr.vr.trackers.udp.TrackersNIOUDPServer;
+import dev.slimevr.vr.trackers.udp.TrackersShardedUDPServer;
 import dev.slimevr.vr.trackers.udp.TrackersUDPServer;
 import dev.slimevr.websocketapi.WebSocketVRBridge;
 import io.eiren.util.OperatingSystem;
@@ -27,6 +33,7 @@ import java.io.*;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.function.Consumer;
 
@@ -37,6 +44,7 @@ public class VRServer extends Thread {
 	public final YamlFile config = new YamlFile();
 	public final HMDTracker hmdTracker;
 	private final List<Tracker> trackers = new FastList<>();
+	private final Map<Long, Tracker> trackersById = new ConcurrentHashMap<>();
 	private final TrackersUDPServer trackersServer;
 	private final List<Bridge> bridges = new FastList<>();
 	private final Queue<Runnable> tasks = new LinkedBlockingQueue<>();
@@ -49,7 +57,10 @@ public class VRServer extends Thread {
 	private final SerialHandler serialHandler;
 	private final AutoBoneHandler autoBoneHandler;
 	private final ProtocolAPI protocolAPI;
+	private final TickScheduler tickScheduler;
+	private final ServerMetrics metrics;
 	private final String configPath;
+	private volatile long tickTimeNanos = 0;
 
 	public VRServer() {
 		this("vrconfig.yml");
@@ -60,6 +71,18 @@ public class VRServer extends Thread {
 		this.configPath = configPath;
 		loadConfig();
 
+		int maxTickRate = config.getInt("server.maxTickRate", TickScheduler.DEFAULT_MAX_TICK_RATE);
+		tickScheduler = new TickScheduler(
+			TickScheduler.Mode.getByName(config.getString("server.tickMode", "FIXED")),
+			maxTickRate,
+			config.getLong("server.idleTimeoutMs", TickScheduler.DEFAULT_IDLE_TIMEOUT_MS)
+		);
+		metrics = new ServerMetrics(
+			maxTickRate,
+			config.getLong("server.metrics.windowMs", 10000L),
+			config.getBoolean("server.metrics.log", false)
+		);
+
 		deviceManager = new DeviceManager(this);
 
 		serialHandler = new SerialHandler();
@@ -69,12 +92,42 @@ public class VRServer extends Thread {
 		hmdTracker = new HMDTracker("HMD");
 		hmdTracker.position.set(0, 1.8f, 0); // Set starting position for easier
 												// debugging
-		// TODO Multiple processors
-		humanPoseProcessor = new HumanPoseProcessor(this, hmdTracker);
+		int skeletonCount = Math.max(1, config.getInt("skeleton.count", 1));
+		humanPoseProcessor = new HumanPoseProcessor(
+			this,
+			hmdTracker,
+			skeletonCount,
+			config
+				.getInt(
+					"skeleton.solverThreads",
+					Math.min(skeletonCount - 1, Runtime.getRuntime().availableProcessors() - 1)
+				)
+		);
 		shareTrackers = humanPoseProcessor.getComputedTrackers();
 
 		// Start server for SlimeVR trackers
-		trackersServer = new TrackersUDPServer(6969, "Sensors UDP server", this::registerTracker);
+		int udpShards = config.getInt("server.udpShards", 1);
+		if (udpShards > 1) {
+			TrackersShardedUDPServer.ShardMode shardMode = TrackersShardedUDPServer.ShardMode
+				.getByName(config.getString("server.udpShardMode", "REUSEPORT"));
+			trackersServer = new TrackersShardedUDPServer(
+				6969,
+				"Sensors UDP server",
+				this::registerTracker,
+				config.getInt("server.udpBatchSize", TrackersNIOUDPServer.DEFAULT_BATCH_SIZE),
+				udpShards,
+				shardMode != null ? shardMode : TrackersShardedUDPServer.ShardMode.REUSEPORT
+			);
+		} else if ("NIO".equalsIgnoreCase(config.getString("server.udpEngine", "BLOCKING"))) {
+			trackersServer = new TrackersNIOUDPServer(
+				6969,
+				"Sensors UDP server",
+				this::registerTracker,
+				config.getInt("server.udpBatchSize", TrackersNIOUDPServer.DEFAULT_BATCH_SIZE)
+			);
+		} else {
+			trackersServer = new TrackersUDPServer(6969, "Sensors UDP server", this::registerTracker);
+		}
 
 		// OpenVR bridge currently only supports Windows
 		if (OperatingSystem.getCurrentPlatform() == OperatingSystem.WINDOWS) {
@@ -156,6 +209,18 @@ public class VRServer extends Thread {
 		}
 	}
 
+	/**
+	 * @return index of the skeleton the tracker is bound to, without creating
+	 * a config for it
+	 */
+	@ThreadSafe
+	public int getTrackerSkeleton(Tracker tracker) {
+		synchronized (configuration) {
+			TrackerConfig config = configuration.get(tracker.getName());
+			return config != null ? config.skeleton : 0;
+		}
+	}
+
 	private void loadConfig() {
 		try {
 			config.load(new FileInputStream(new File(this.configPath)));
@@ -243,36 +308,60 @@ public class VRServer extends Thread {
 	public void run() {
 		trackersServer.start();
 		while (true) {
-			// final long start = System.currentTimeMillis();
+			tickTimeNanos = System.nanoTime();
+			metrics.tickStarted();
 			do {
 				Runnable task = tasks.poll();
 				if (task == null)
 					break;
 				task.run();
 			} while (true);
+			metrics.stageFinished(Stage.TASKS);
 			for (Runnable task : onTick) {
 				task.run();
 			}
+			metrics.stageFinished(Stage.ON_TICK);
 			for (Bridge bridge : bridges) {
 				bridge.dataRead();
 			}
+			metrics.stageFinished(Stage.BRIDGE_READ);
 			for (Tracker tracker : trackers) {
 				tracker.tick();
 			}
+			metrics.stageFinished(Stage.TRACKER_TICK);
 			humanPoseProcessor.update();
+			for (int i = 0; i < humanPoseProcessor.getSkeletonCount(); ++i) {
+				SkeletonSolver solver = humanPoseProcessor.getSolver(i);
+				Skeleton skeleton = solver.getSkeleton();
+				if (skeleton != null) {
+					metrics.poseNodesUpdated(skeleton.getNodeUpdateStats());
+					metrics.skeletonSolved(i, solver.getLastSolveNanos());
+				}
+			}
+			metrics.stageFinished(Stage.POSE_UPDATE);
 			for (Bridge bridge : bridges) {
 				bridge.dataWrite();
 			}
-			// final long time = System.currentTimeMillis() - start;
-			try {
-				Thread.sleep(1); // 1000Hz
-			} catch (InterruptedException e) {}
+			metrics.stageFinished(Stage.BRIDGE_WRITE);
+			metrics.tickFinished();
+			tickScheduler.awaitNextTick();
 		}
 	}
 
 	@ThreadSafe
 	public void queueTask(Runnable r) {
 		tasks.add(r);
+		tickScheduler.signal();
+	}
+
+	/**
+	 * Wakes up the server thread because new tracker or bridge data is
+	 * available
+	 */
+	@ThreadSafe
+	public void newDataAvailable() {
+		metrics.dataReceived();
+		tickScheduler.signal();
 	}
 
 	@VRServerThread
@@ -286,6 +375,15 @@ public class VRServer extends Thread {
 		tracker.loadConfig(config);
 		queueTask(() -> {
 			trackers.add(tracker);
+			// First registered tracker wins, same as the old linear search
+			trackersById
+				.putIfAbsent(
+					trackerKey(
+						tracker.getDevice() != null ? tracker.getDevice().getId() : -1,
+						tracker.getTrackerNum()
+					),
+					tracker
+				);
 			trackerAdded(tracker);
 			for (Consumer<Tracker> tc : newTrackersConsumers) {
 				tc.accept(tracker);
@@ -293,6 +391,25 @@ public class VRServer extends Thread {
 		});
 	}
 
+	/**
+	 * Enables or disables evaluating IMU tracker rotations at the tick time
+	 *
+	 * @see IMUTracker#setInterpolation(boolean, float, float)
+	 */
+	public void updateTrackersInterpolation(boolean enabled, float latencyMs) {
+		config.setProperty("filters.timeInterpolation.enabled", enabled);
+		config.setProperty("filters.timeInterpolation.latencyMs", latencyMs);
+		saveConfig();
+
+		float maxPredictionMs = config.getFloat("filters.timeInterpolation.maxPredictionMs", 10f);
+		for (Tracker t : this.getAllTrackers()) {
+			Tracker tracker = t.get();
+			if (tracker instanceof IMUTracker) {
+				((IMUTracker) tracker).setInterpolation(enabled, latencyMs, maxPredictionMs);
+			}
+		}
+	}
+
 	public void updateTrackersFilters(TrackerFilters filter, float amount, int ticks) {
 		config.setProperty("filters.type", filter.name());
 		config.setProperty("filters.amount", amount);
@@ -329,28 +446,23 @@ public class VRServer extends Thread {
 		return new FastList<>(trackers);
 	}
 
+	@ThreadSafe
 	public Tracker getTrackerById(TrackerIdT id) {
-		for (Tracker tracker : trackers) {
-			if (tracker.getTrackerNum() != id.getTrackerNum()) {
-				continue;
-			}
-
-			// Handle synthetic devices
-			if (id.getDeviceId() == null && tracker.getDevice() == null) {
-				return tracker;
-			}
+		return trackersById
+			.get(
+				trackerKey(
+					id.getDeviceId() != null ? id.getDeviceId().getId() : -1,
+					id.getTrackerNum()
+				)
+			);
+	}
 
-			if (
-				tracker.getDevice() != null
-					&& id.getDeviceId() != null
-					&& id.getDeviceId().getId() == tracker.getDevice().getId()
-			) {
-				// This is a physical tracker, and both device id and the
-				// tracker num match
-				return tracker;
-			}
-		}
-		return null;
+	/**
+	 * Packs a device id and tracker number into one key, synthetic trackers
+	 * without a device use -1 as device id, real devices never have it
+	 */
+	private static long trackerKey(int deviceId, int trackerNum) {
+		return ((long) deviceId << 32) | (trackerNum & 0xFFFFFFFFL);
 	}
 
 	public BVHRecorder getBvhRecorder() {
@@ -376,4 +488,21 @@ public class VRServer extends Thread {
 	public DeviceManager getDeviceManager() {
 		return deviceManager;
 	}
+
+	public TickScheduler getTickScheduler() {
+		return tickScheduler;
+	}
+
+	public ServerMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * @return {@link System#nanoTime()} when the current tick started, or 0
+	 * before the first tick
+	 */
+	@ThreadSafe
+	public long getTickTimeNanos() {
+		return tickTimeNanos;
+	}
 }
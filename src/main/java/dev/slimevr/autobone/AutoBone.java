@@ -4,14 +4,13 @@ import com.jme3.math.FastMath;
 import com.jme3.math.Vector3f;
 import dev.slimevr.VRServer;
 import dev.slimevr.autobone.errors.*;
+import dev.slimevr.poserecorder.PoseFrameCache;
 import dev.slimevr.poserecorder.PoseFrameIO;
-import dev.slimevr.poserecorder.PoseFrameSkeleton;
 import dev.slimevr.poserecorder.PoseFrameTracker;
 import dev.slimevr.poserecorder.PoseFrames;
 import dev.slimevr.vr.processor.HumanPoseProcessor;
 import dev.slimevr.vr.processor.TransformNode;
 import dev.slimevr.vr.processor.skeleton.*;
-import dev.slimevr.vr.trackers.TrackerRole;
 import io.eiren.util.StringUtils;
 import io.eiren.util.collections.FastList;
 import io.eiren.util.logging.LogManager;
@@ -23,6 +22,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -112,6 +115,32 @@ public class AutoBone {
 	public float positionOffsetErrorFactor = 0.0f;
 	// #endregion
 
+	/**
+	 * Workers training concurrently on mini-batches of frame pairs, 1 to
+	 * train serially
+	 */
+	public int parallelWorkers = 1;
+	/**
+	 * Frame pairs per mini-batch when training in parallel
+	 */
+	public int batchSize = 64;
+
+	/**
+	 * Solve the recording's frames once instead of in every epoch
+	 */
+	public boolean usePoseCache = true;
+
+	/**
+	 * How lengths are adjusted on each frame pair, gradient based optimizers
+	 * train serially on a {@link LinearPoseModel} of the recording
+	 */
+	public AutoBoneOptimizer optimizer = AutoBoneOptimizer.PROBE;
+	/**
+	 * Learning rate of gradient based optimizers, 0 or less to use the
+	 * optimizer's default
+	 */
+	public float learningRate = -1f;
+
 	public boolean randomizeFrameOrder = true;
 	public boolean scaleEachStep = true;
 
@@ -137,6 +166,15 @@ public class AutoBone {
 
 	private final Random rand = new Random();
 
+	/**
+	 * Creates an AutoBone with default settings that isn't connected to a
+	 * server, for processing recordings offline
+	 */
+	public AutoBone() {
+		this.server = null;
+		reloadConfigValues();
+	}
+
 	public AutoBone(VRServer server) {
 		this.server = server;
 		reloadConfigValues();
@@ -168,6 +206,14 @@ public class AutoBone {
 		this.positionOffsetErrorFactor = server.config
 			.getFloat("autobone.positionOffsetErrorFactor", this.positionOffsetErrorFactor);
 
+		this.parallelWorkers = server.config
+			.getInt("autobone.parallelWorkers", this.parallelWorkers);
+		this.batchSize = server.config.getInt("autobone.batchSize", this.batchSize);
+		this.usePoseCache = server.config.getBoolean("autobone.poseCache", this.usePoseCache);
+		this.optimizer = AutoBoneOptimizer
+			.getByName(server.config.getString("autobone.optimizer", this.optimizer.name()));
+		this.learningRate = server.config.getFloat("autobone.learningRate", this.learningRate);
+
 		this.calcInitError = server.config.getBoolean("autobone.calculateInitialError", true);
 		this.targetHeight = server.config.getFloat("autobone.manualTargetHeight", -1f);
 	}
@@ -181,6 +227,14 @@ public class AutoBone {
 		return loadDir;
 	}
 
+	/**
+	 * Seeds the order frame pairs are trained in, so runs on the same
+	 * recording with the same settings give the same lengths
+	 */
+	public void setRandomSeed(long seed) {
+		rand.setSeed(seed);
+	}
+
 	public void reloadConfigValues() {
 		reloadConfigValues(null);
 	}
@@ -496,254 +550,396 @@ public class AutoBone {
 		reloadConfigValues(trackers); // Reload configs and detect chest tracker
 										// from the first frame
 
-		final PoseFrameSkeleton skeleton1 = new PoseFrameSkeleton(
-			trackers,
-			null
-		);
-		final PoseFrameSkeleton skeleton2 = new PoseFrameSkeleton(
-			trackers,
-			null
-		);
-
-		EnumMap<BoneType, Float> intermediateOffsets = new EnumMap<BoneType, Float>(
-			offsets
-		);
-
-		AutoBoneTrainingStep trainingStep = new AutoBoneTrainingStep(
-			targetHeight,
-			skeleton1,
-			skeleton2,
-			frames,
-			intermediateOffsets
-		);
+		// Workers get the target height as given, same as the training step
+		// always did
+		AutoBoneOptimizer optimizer = this.optimizer;
+		AutoBoneWorker[] workers = null;
+		AutoBoneGradient gradient = null;
+		GradientOptimizer gradientOptimizer = null;
+		if (optimizer.usesGradient()) {
+			BoneType[] bones = offsets.keySet().toArray(new BoneType[0]);
+			LinearPoseModel model = new LinearPoseModel(this, frames, bones, offsets);
+			gradient = new AutoBoneGradient(this, model, frames, targetHeight);
+			gradientOptimizer = new GradientOptimizer(optimizer, bones.length);
+		} else {
+			int workerCount = Math.max(1, parallelWorkers);
+			workers = new AutoBoneWorker[workerCount];
+			for (int i = 0; i < workerCount; ++i)
+				workers[i] = new AutoBoneWorker(this, frames, targetHeight);
+			if (usePoseCache) {
+				// Frames are solved once, epochs only change lengths
+				PoseFrameCache cache = workers[0].createPoseCache(frameCount);
+				for (AutoBoneWorker worker : workers)
+					worker.setPoseCache(cache);
+			}
+		}
+		float baseLearningRate = learningRate > 0f ? learningRate : optimizer.defaultLearningRate;
 
 		// If target height isn't specified, auto-detect
 		if (targetHeight < 0f) {
 			targetHeight = getTargetHeight(frames);
 		}
 
-		// Epoch loop, each epoch is one full iteration over the full dataset
-		for (int epoch = calcInitError ? -1 : 0; epoch < numEpochs; epoch++) {
-			float sumError = 0f;
-			int errorCount = 0;
+		ForkJoinPool pool = workers != null && workers.length > 1
+			? new ForkJoinPool(workers.length)
+			: null;
+		try {
+			// Epoch loop, each epoch is one full iteration over the full
+			// dataset
+			for (int epoch = calcInitError ? -1 : 0; epoch < numEpochs; epoch++) {
+				float rateMultiplier = epoch >= 0 ? FastMath.pow(adjustRateMultiplier, epoch) : 0f;
+				float adjustRate = initialAdjustRate * rateMultiplier;
+
+				int[] pairs = getFramePairs(frameCount);
+				float avgError;
+				if (gradient != null) {
+					avgError = trainEpochGradient(
+						gradient,
+						gradientOptimizer,
+						pairs,
+						baseLearningRate * rateMultiplier,
+						targetHeight
+					);
+				} else if (pool != null) {
+					avgError = trainEpochParallel(pool, workers, pairs, adjustRate, targetHeight);
+				} else {
+					avgError = trainEpoch(workers[0], pairs, adjustRate, targetHeight);
+				}
 
-			float adjustRate = epoch >= 0
-				? (initialAdjustRate * FastMath.pow(adjustRateMultiplier, epoch))
-				: 0f;
+				LogManager.info("[AutoBone] Epoch " + (epoch + 1) + " average error: " + avgError);
 
-			int[] randomFrameIndices = null;
-			if (randomizeFrameOrder) {
-				randomFrameIndices = new int[frameCount];
+				applyConfig(legacyConfigs);
+				if (epochCallback != null) {
+					epochCallback.accept(new Epoch(epoch + 1, numEpochs, avgError, legacyConfigs));
+				}
+			}
+		} finally {
+			if (pool != null)
+				pool.shutdown();
+		}
 
-				int zeroPos = -1;
-				for (int i = 0; i < frameCount; i++) {
-					int index = rand.nextInt(frameCount);
+		float finalHeight = sumSelectConfigs(heightOffsets, offsets);
+		LogManager
+			.info(
+				"[AutoBone] Target height: "
+					+ targetHeight
+					+ " New height: "
+					+ finalHeight
+			);
 
-					if (i > 0) {
-						while (index == zeroPos || randomFrameIndices[index] > 0) {
-							index = rand.nextInt(frameCount);
-						}
-					} else {
-						zeroPos = index;
-					}
+		return new AutoBoneResults(finalHeight, targetHeight, legacyConfigs);
+	}
 
-					randomFrameIndices[index] = i;
+	/**
+	 * Lists the frame pairs of one epoch, comparing frames a certain number
+	 * of frames apart
+	 *
+	 * @return cursors of the first and second frame of each pair, interleaved
+	 */
+	private int[] getFramePairs(int frameCount) {
+		int[] randomFrameIndices = null;
+		if (randomizeFrameOrder) {
+			randomFrameIndices = new int[frameCount];
+
+			int zeroPos = -1;
+			for (int i = 0; i < frameCount; i++) {
+				int index = rand.nextInt(frameCount);
+
+				if (i > 0) {
+					while (index == zeroPos || randomFrameIndices[index] > 0) {
+						index = rand.nextInt(frameCount);
+					}
+				} else {
+					zeroPos = index;
 				}
+
+				randomFrameIndices[index] = i;
 			}
+		}
 
-			// Iterate over the frames using a cursor and an offset for
-			// comparing frames a
-			// certain number of frames apart
+		FastList<Integer> pairs = new FastList<>();
+		for (
+			int cursorOffset = minDataDistance; cursorOffset <= maxDataDistance
+				&& cursorOffset < frameCount;
+			cursorOffset++
+		) {
 			for (
-				int cursorOffset = minDataDistance; cursorOffset <= maxDataDistance
-					&& cursorOffset < frameCount;
-				cursorOffset++
+				int frameCursor = 0; frameCursor < frameCount - cursorOffset;
+				frameCursor += cursorIncrement
 			) {
-				for (
-					int frameCursor = 0; frameCursor < frameCount - cursorOffset;
-					frameCursor += cursorIncrement
-				) {
-					int frameCursor2 = frameCursor + cursorOffset;
-
-					applyConfig(skeleton1.skeletonConfig);
-					skeleton2.skeletonConfig.setConfigs(skeleton1.skeletonConfig);
-
-					if (randomizeFrameOrder) {
-						trainingStep
-							.setCursors(
-								randomFrameIndices[frameCursor],
-								randomFrameIndices[frameCursor2]
-							);
-					} else {
-						trainingStep.setCursors(frameCursor, frameCursor2);
-					}
-
-					skeleton1.setCursor(trainingStep.getCursor1());
-					skeleton2.setCursor(trainingStep.getCursor2());
-
-					skeleton1.updatePose();
-					skeleton2.updatePose();
-
-					float totalLength = getLengthSum(offsets);
-					float curHeight = sumSelectConfigs(heightOffsets, offsets);
-					trainingStep.setCurrentHeight(curHeight);
-
-					float errorDeriv = getErrorDeriv(trainingStep);
-					float error = errorFunc(errorDeriv);
-
-					// In case of fire
-					if (Float.isNaN(error) || Float.isInfinite(error)) {
-						// Extinguish
-						LogManager
-							.warning(
-								"[AutoBone] Error value is invalid, resetting variables to recover"
-							);
-						reloadConfigValues(trackers);
+				int frameCursor2 = frameCursor + cursorOffset;
+				if (randomizeFrameOrder) {
+					pairs.add(randomFrameIndices[frameCursor]);
+					pairs.add(randomFrameIndices[frameCursor2]);
+				} else {
+					pairs.add(frameCursor);
+					pairs.add(frameCursor2);
+				}
+			}
+		}
 
-						// Reset error sum values
-						sumError = 0f;
-						errorCount = 0;
+		int[] result = new int[pairs.size()];
+		for (int i = 0; i < result.length; ++i)
+			result[i] = pairs.get(i);
+		return result;
+	}
 
-						// Continue on new data
-						continue;
-					}
+	/**
+	 * Trains on every pair in order, applying each step before the next one
+	 *
+	 * @return the average error of the epoch
+	 */
+	private float trainEpoch(
+		AutoBoneWorker worker,
+		int[] pairs,
+		float adjustRate,
+		float targetHeight
+	) throws AutoBoneException {
+		float sumError = 0f;
+		int errorCount = 0;
+		for (int i = 0; i < pairs.length; i += 2) {
+			float errorDeriv = trainPair(worker, pairs[i], pairs[i + 1], adjustRate, targetHeight);
+
+			if (Float.isNaN(errorDeriv)) {
+				// Reset error sum values
+				sumError = 0f;
+				errorCount = 0;
+
+				// Continue on new data
+				continue;
+			}
 
-					// Store the error count for logging purposes
-					sumError += errorDeriv;
-					errorCount++;
+			// Store the error count for logging purposes
+			sumError += errorDeriv;
+			errorCount++;
+		}
 
-					float adjustVal = error * adjustRate;
+		// Calculate average error over the epoch
+		return errorCount > 0 ? sumError / errorCount : -1f;
+	}
 
-					// If there is no adjustment whatsoever, skip this
-					if (adjustVal == 0f) {
-						continue;
-					}
+	/**
+	 * Trains on one pair and applies the lengths that lowered the error
+	 *
+	 * @return the error derivative before adjusting, NaN if it was invalid and
+	 * the offsets were reset
+	 */
+	float trainPair(
+		AutoBoneWorker worker,
+		int cursor1,
+		int cursor2,
+		float adjustRate,
+		float targetHeight
+	) throws AutoBoneException {
+		float errorDeriv = worker.step(cursor1, cursor2, offsets, adjustRate);
 
-					Vector3f slideLeft = skeleton2
-						.getComputedTracker(TrackerRole.LEFT_FOOT).position
-							.subtract(
-								skeleton1.getComputedTracker(TrackerRole.LEFT_FOOT).position
-							);
+		if (Float.isNaN(errorDeriv)) {
+			// Extinguish
+			LogManager
+				.warning("[AutoBone] Error value is invalid, resetting variables to recover");
+			reloadConfigValues();
+			return Float.NaN;
+		}
 
-					Vector3f slideRight = skeleton2
-						.getComputedTracker(TrackerRole.RIGHT_FOOT).position
-							.subtract(
-								skeleton1
-									.getComputedTracker(TrackerRole.RIGHT_FOOT).position
-							);
+		if (worker.isAdjusted()) {
+			offsets.putAll(worker.getNewLengths());
+			if (scaleEachStep) {
+				scaleToTargetHeight(targetHeight);
+			}
+		}
+		return errorDeriv;
+	}
 
-					intermediateOffsets.putAll(offsets);
-					for (Entry<BoneType, Float> entry : offsets.entrySet()) {
-						// Skip adjustment if the epoch is before starting (for
-						// logging only)
-						if (epoch < 0) {
-							break;
+	/**
+	 * Trains on mini-batches of {@link #batchSize} pairs. The pairs of a batch
+	 * are evaluated concurrently against the same offsets, then the length
+	 * changes are summed in pair order, so the results don't depend on the
+	 * number of workers or their timing.
+	 *
+	 * @return the average error of the epoch
+	 */
+	private float trainEpochParallel(
+		ForkJoinPool pool,
+		AutoBoneWorker[] workers,
+		int[] pairs,
+		float adjustRate,
+		float targetHeight
+	) throws AutoBoneException {
+		BoneType[] bones = offsets.keySet().toArray(new BoneType[0]);
+		int batchSize = Math.max(1, this.batchSize);
+		float[] errors = new float[batchSize];
+		boolean[] adjusted = new boolean[batchSize];
+		// Length change of each bone for each pair of the batch
+		float[][] deltas = new float[batchSize][bones.length];
+		EnumMap<BoneType, Float> batchOffsets = new EnumMap<>(offsets);
+
+		float sumError = 0f;
+		int errorCount = 0;
+		int pairCount = pairs.length / 2;
+		for (int batchStart = 0; batchStart < pairCount; batchStart += batchSize) {
+			int batchEnd = Math.min(batchStart + batchSize, pairCount);
+			int batchLength = batchEnd - batchStart;
+			batchOffsets.clear();
+			batchOffsets.putAll(offsets);
+
+			// Every worker takes a contiguous share of the batch
+			List<Callable<Void>> tasks = new FastList<>(workers.length);
+			int share = (batchLength + workers.length - 1) / workers.length;
+			for (int w = 0; w < workers.length; ++w) {
+				AutoBoneWorker worker = workers[w];
+				int from = w * share;
+				int to = Math.min(from + share, batchLength);
+				if (from >= to)
+					break;
+				int pairOffset = batchStart;
+				tasks.add(() -> {
+					for (int i = from; i < to; ++i) {
+						int pair = (pairOffset + i) * 2;
+						errors[i] = worker
+							.step(pairs[pair], pairs[pair + 1], batchOffsets, adjustRate);
+						adjusted[i] = worker.isAdjusted();
+						EnumMap<BoneType, Float> newLengths = worker.getNewLengths();
+						for (int b = 0; b < bones.length; ++b) {
+							Float newLength = newLengths.get(bones[b]);
+							deltas[i][b] = newLength != null
+								? newLength - batchOffsets.get(bones[b])
+								: 0f;
 						}
+					}
+					return null;
+				});
+			}
+			for (Future<Void> future : pool.invokeAll(tasks)) {
+				try {
+					future.get();
+				} catch (ExecutionException e) {
+					if (e.getCause() instanceof AutoBoneException)
+						throw (AutoBoneException) e.getCause();
+					throw new AutoBoneException(e.getCause());
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new AutoBoneException(e);
+				}
+			}
 
-						float originalLength = entry.getValue();
-						boolean isHeightVar = heightOffsets.contains(entry.getKey());
-
-						float leftDotProduct = getDotProductDiff(
-							skeleton1,
-							skeleton2,
-							entry.getKey(),
-							false,
-							slideLeft
-						);
-
-						float rightDotProduct = getDotProductDiff(
-							skeleton1,
-							skeleton2,
-							entry.getKey(),
-							true,
-							slideRight
+			// Reduce in pair order
+			boolean anyAdjusted = false;
+			for (int i = 0; i < batchLength; ++i) {
+				if (Float.isNaN(errors[i])) {
+					LogManager
+						.warning(
+							"[AutoBone] Error value is invalid, resetting variables to recover"
 						);
+					reloadConfigValues();
+					sumError = 0f;
+					errorCount = 0;
+					// The rest of the batch was computed from the bad values
+					anyAdjusted = false;
+					break;
+				}
+				sumError += errors[i];
+				errorCount++;
+				if (!adjusted[i])
+					continue;
+				anyAdjusted = true;
+				for (int b = 0; b < bones.length; ++b) {
+					if (deltas[i][b] != 0f) {
+						float length = offsets.get(bones[b]) + deltas[i][b];
+						offsets.put(bones[b], Math.max(length, 0.01f));
+					}
+				}
+			}
 
-						float dotLength = originalLength
-							* ((leftDotProduct + rightDotProduct) / 2f);
-
-						// Scale by the ratio for smooth adjustment and more
-						// stable results
-						float curAdjustVal = (adjustVal * -dotLength) / totalLength;
-						float newLength = originalLength + curAdjustVal;
-
-						// No small or negative numbers!!! Bad algorithm!
-						if (newLength < 0.01f) {
-							continue;
-						}
-
-						// Apply new offset length
-						intermediateOffsets.put(entry.getKey(), newLength);
-						applyConfig(skeleton1.skeletonConfig, intermediateOffsets);
-						skeleton2.skeletonConfig.setConfigs(skeleton1.skeletonConfig);
+			if (anyAdjusted && scaleEachStep) {
+				scaleToTargetHeight(targetHeight);
+			}
+		}
 
-						// Update the skeleton poses for the new offset length
-						skeleton1.updatePose();
-						skeleton2.updatePose();
+		return errorCount > 0 ? sumError / errorCount : -1f;
+	}
 
-						float newHeight = isHeightVar ? curHeight + curAdjustVal : curHeight;
-						trainingStep.setCurrentHeight(newHeight);
+	/**
+	 * Trains on every pair in order with a gradient based optimizer, one
+	 * optimizer step per pair
+	 *
+	 * @return the average error of the epoch
+	 */
+	private float trainEpochGradient(
+		AutoBoneGradient gradient,
+		GradientOptimizer optimizer,
+		int[] pairs,
+		float learningRate,
+		float targetHeight
+	) {
+		BoneType[] bones = gradient.getBones();
+		float[] lengths = new float[bones.length];
+		float[] derivatives = new float[bones.length];
+		for (int b = 0; b < bones.length; ++b)
+			lengths[b] = offsets.get(bones[b]);
+
+		float sumError = 0f;
+		int errorCount = 0;
+		for (int i = 0; i < pairs.length; i += 2) {
+			float errorDeriv = gradient.evaluate(pairs[i], pairs[i + 1], lengths, derivatives);
+
+			if (Float.isNaN(errorDeriv) || Float.isInfinite(errorDeriv)) {
+				LogManager
+					.warning("[AutoBone] Error value is invalid, resetting variables to recover");
+				reloadConfigValues();
+				optimizer.reset();
+				for (int b = 0; b < bones.length; ++b)
+					lengths[b] = offsets.get(bones[b]);
+				sumError = 0f;
+				errorCount = 0;
+				continue;
+			}
 
-						float newErrorDeriv = getErrorDeriv(trainingStep);
+			sumError += errorDeriv;
+			errorCount++;
 
-						if (newErrorDeriv < errorDeriv) {
-							entry.setValue(newLength);
-						}
+			if (learningRate <= 0f || errorDeriv == 0f) {
+				continue;
+			}
 
-						// Reset the length to minimize bias in other variables,
-						// it's applied later
-						intermediateOffsets.put(entry.getKey(), originalLength);
-						applyConfig(skeleton1.skeletonConfig, intermediateOffsets);
-						skeleton2.skeletonConfig.setConfigs(skeleton1.skeletonConfig);
-					}
+			// Gradient of the mean square error
+			for (int b = 0; b < bones.length; ++b)
+				derivatives[b] *= errorDeriv;
+			optimizer.step(lengths, derivatives, learningRate);
 
-					if (scaleEachStep) {
-						float stepHeight = sumSelectConfigs(heightOffsets, offsets);
+			for (int b = 0; b < bones.length; ++b)
+				offsets.put(bones[b], Math.max(lengths[b], 0.01f));
+			if (scaleEachStep) {
+				scaleToTargetHeight(targetHeight);
+			}
+			for (int b = 0; b < bones.length; ++b)
+				lengths[b] = offsets.get(bones[b]);
+		}
 
-						if (stepHeight > 0f) {
-							float stepHeightDiff = targetHeight - stepHeight;
-							for (Entry<BoneType, Float> entry : offsets.entrySet()) {
-								// Only height variables
-								if (
-									entry.getKey() == BoneType.NECK
-										|| !heightOffsets.contains(entry.getKey())
-								)
-									continue;
+		return errorCount > 0 ? sumError / errorCount : -1f;
+	}
 
-								float length = entry.getValue();
+	private void scaleToTargetHeight(float targetHeight) {
+		float stepHeight = sumSelectConfigs(heightOffsets, offsets);
 
-								// Multiply the diff by the length to height
-								// ratio
-								float adjVal = stepHeightDiff * (length / stepHeight);
+		if (stepHeight > 0f) {
+			float stepHeightDiff = targetHeight - stepHeight;
+			for (Entry<BoneType, Float> entry : offsets.entrySet()) {
+				// Only height variables
+				if (
+					entry.getKey() == BoneType.NECK
+						|| !heightOffsets.contains(entry.getKey())
+				)
+					continue;
 
-								// Scale the length to fit the target height
-								entry.setValue(Math.max(length + (adjVal / 2f), 0.01f));
-							}
-						}
-					}
-				}
-			}
+				float length = entry.getValue();
 
-			// Calculate average error over the epoch
-			float avgError = errorCount > 0 ? sumError / errorCount : -1f;
-			LogManager.info("[AutoBone] Epoch " + (epoch + 1) + " average error: " + avgError);
+				// Multiply the diff by the length to height ratio
+				float adjVal = stepHeightDiff * (length / stepHeight);
 
-			applyConfig(legacyConfigs);
-			if (epochCallback != null) {
-				epochCallback.accept(new Epoch(epoch + 1, numEpochs, avgError, legacyConfigs));
+				// Scale the length to fit the target height
+				entry.setValue(Math.max(length + (adjVal / 2f), 0.01f));
 			}
 		}
-
-		float finalHeight = sumSelectConfigs(heightOffsets, offsets);
-		LogManager
-			.info(
-				"[AutoBone] Target height: "
-					+ targetHeight
-					+ " New height: "
-					+ finalHeight
-			);
-
-		return new AutoBoneResults(finalHeight, targetHeight, legacyConfigs);
 	}
 
 	protected float getErrorDeriv(AutoBoneTrainingStep trainingStep) throws AutoBoneException {
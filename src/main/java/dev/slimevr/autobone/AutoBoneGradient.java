@@ -0,0 +1,429 @@
+package dev.slimevr.autobone;
+
+import com.jme3.math.FastMath;
+import com.jme3.math.Vector3f;
+import dev.slimevr.poserecorder.PoseFrameTracker;
+import dev.slimevr.poserecorder.PoseFrames;
+import dev.slimevr.poserecorder.TrackerFrame;
+import dev.slimevr.poserecorder.TrackerFrameData;
+import dev.slimevr.vr.processor.skeleton.BoneType;
+import dev.slimevr.vr.processor.skeleton.SkeletonConfig;
+import dev.slimevr.vr.trackers.TrackerRole;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+
+
+/**
+ * The same weighted error as {@link AutoBone#getErrorDeriv}, evaluated on a
+ * {@link LinearPoseModel} together with its gradient by every length.
+ * <p>
+ * Position based errors are differentiated in closed form through the
+ * model, absolute values use their sign. The body proportion error only
+ * depends on the lengths, so it's differentiated numerically without
+ * solving anything.
+ */
+public class AutoBoneGradient {
+
+	private static final float PROPORTION_STEP = 1e-3f;
+
+	private final AutoBone autoBone;
+	private final LinearPoseModel model;
+	private final List<PoseFrameTracker> trackers;
+	private final BoneType[] bones;
+	private final boolean[] heightBones;
+	private final float targetHeight;
+	private final int leftFoot;
+	private final int rightFoot;
+
+	private final SkeletonConfig proportionConfig = new SkeletonConfig(false);
+	private final EnumMap<BoneType, Float> proportionLengths = new EnumMap<>(BoneType.class);
+	private final Vector3f[] feet = {
+		new Vector3f(), new Vector3f(), new Vector3f(), new Vector3f()
+	};
+	private final int[] feetFrames = new int[4];
+	private final int[] feetRoles = new int[4];
+	private final float[] distances = new float[4];
+	private final Vector3f position1 = new Vector3f();
+	private final Vector3f position2 = new Vector3f();
+	private final Vector3f direction = new Vector3f();
+
+	/**
+	 * @param targetHeight the height for the height error, as given to the
+	 * training step
+	 */
+	public AutoBoneGradient(
+		AutoBone autoBone,
+		LinearPoseModel model,
+		PoseFrames frames,
+		float targetHeight
+	) {
+		this.autoBone = autoBone;
+		this.model = model;
+		this.trackers = frames.getTrackers();
+		this.bones = model.getBones();
+		this.targetHeight = targetHeight;
+		heightBones = new boolean[bones.length];
+		for (int b = 0; b < bones.length; ++b)
+			heightBones[b] = autoBone.heightOffsets.contains(bones[b]);
+		leftFoot = model.getRoleIndex(TrackerRole.LEFT_FOOT);
+		rightFoot = model.getRoleIndex(TrackerRole.RIGHT_FOOT);
+	}
+
+	/**
+	 * @param lengths lengths in the order of {@link LinearPoseModel#getBones()}
+	 * @param gradient filled with the derivative of the returned error by
+	 * every length
+	 * @return the weighted error of the frame pair
+	 */
+	public float evaluate(int cursor1, int cursor2, float[] lengths, float[] gradient) {
+		Arrays.fill(gradient, 0f);
+		float totalError = 0f;
+		float sumWeight = 0f;
+
+		// Left and right foot of the first frame, then of the second
+		feetFrames[0] = cursor1;
+		feetFrames[1] = cursor1;
+		feetFrames[2] = cursor2;
+		feetFrames[3] = cursor2;
+		feetRoles[0] = leftFoot;
+		feetRoles[1] = rightFoot;
+		feetRoles[2] = leftFoot;
+		feetRoles[3] = rightFoot;
+		for (int i = 0; i < 4; ++i)
+			model.getPosition(feetFrames[i], feetRoles[i], lengths, feet[i]);
+
+		if (autoBone.slideErrorFactor > 0f) {
+			totalError += slideError(autoBone.slideErrorFactor, gradient)
+				* autoBone.slideErrorFactor;
+			sumWeight += autoBone.slideErrorFactor;
+		}
+
+		if (autoBone.offsetSlideErrorFactor > 0f) {
+			totalError += offsetSlideError(autoBone.offsetSlideErrorFactor, gradient)
+				* autoBone.offsetSlideErrorFactor;
+			sumWeight += autoBone.offsetSlideErrorFactor;
+		}
+
+		if (autoBone.footHeightOffsetErrorFactor > 0f) {
+			totalError += footHeightError(autoBone.footHeightOffsetErrorFactor, gradient)
+				* autoBone.footHeightOffsetErrorFactor;
+			sumWeight += autoBone.footHeightOffsetErrorFactor;
+		}
+
+		if (autoBone.bodyProportionErrorFactor > 0f) {
+			totalError += bodyProportionError(
+				lengths,
+				autoBone.bodyProportionErrorFactor,
+				gradient
+			) * autoBone.bodyProportionErrorFactor;
+			sumWeight += autoBone.bodyProportionErrorFactor;
+		}
+
+		if (autoBone.heightErrorFactor > 0f) {
+			totalError += heightError(lengths, autoBone.heightErrorFactor, gradient)
+				* autoBone.heightErrorFactor;
+			sumWeight += autoBone.heightErrorFactor;
+		}
+
+		if (autoBone.positionErrorFactor > 0f) {
+			// Both frames are averaged, so each gets half the weight
+			float frameWeight = autoBone.positionErrorFactor / 2f;
+			float error = (positionError(cursor1, lengths, frameWeight, gradient)
+				+ positionError(cursor2, lengths, frameWeight, gradient)) / 2f;
+			totalError += error * autoBone.positionErrorFactor;
+			sumWeight += autoBone.positionErrorFactor;
+		}
+
+		if (autoBone.positionOffsetErrorFactor > 0f) {
+			totalError += positionOffsetError(
+				cursor1,
+				cursor2,
+				lengths,
+				autoBone.positionOffsetErrorFactor,
+				gradient
+			) * autoBone.positionOffsetErrorFactor;
+			sumWeight += autoBone.positionOffsetErrorFactor;
+		}
+
+		if (sumWeight <= 0f)
+			return 0f;
+		for (int b = 0; b < gradient.length; ++b)
+			gradient[b] /= sumWeight;
+		return totalError / sumWeight;
+	}
+
+	/**
+	 * @see LinearPoseModel#getBones()
+	 */
+	public BoneType[] getBones() {
+		return bones;
+	}
+
+	// #region Errors, each adds weight * its derivative to the gradient
+
+	/**
+	 * @see dev.slimevr.autobone.errors.SlideError
+	 */
+	private float slideError(float weight, float[] gradient) {
+		return (distance(0, 2, weight / 4f, gradient) + distance(1, 3, weight / 4f, gradient))
+			/ 4f;
+	}
+
+	/**
+	 * @see dev.slimevr.autobone.errors.OffsetSlideError
+	 */
+	private float offsetSlideError(float weight, float[] gradient) {
+		distances[0] = feet[0].distance(feet[1]);
+		distances[1] = feet[2].distance(feet[3]);
+		distances[2] = feet[0].distance(feet[3]);
+		distances[3] = feet[2].distance(feet[1]);
+
+		float error = 0f;
+		for (int i = 0; i < 4; ++i) {
+			float sign = 0f;
+			for (int j = 0; j < 4; ++j) {
+				if (j > i)
+					error += FastMath.abs(distances[i] - distances[j]);
+				sign += Math.signum(distances[i] - distances[j]);
+			}
+			if (sign == 0f)
+				continue;
+			float distanceWeight = weight * sign / 12f;
+			switch (i) {
+				case 0:
+					distance(0, 1, distanceWeight, gradient);
+					break;
+				case 1:
+					distance(2, 3, distanceWeight, gradient);
+					break;
+				case 2:
+					distance(0, 3, distanceWeight, gradient);
+					break;
+				default:
+					distance(2, 1, distanceWeight, gradient);
+					break;
+			}
+		}
+		return error / 12f;
+	}
+
+	/**
+	 * @see dev.slimevr.autobone.errors.FootHeightOffsetError
+	 */
+	private float footHeightError(float weight, float[] gradient) {
+		float error = 0f;
+		for (int i = 0; i < 4; ++i) {
+			float sign = 0f;
+			for (int j = 0; j < 4; ++j) {
+				if (j > i)
+					error += FastMath.abs(feet[i].y - feet[j].y);
+				sign += Math.signum(feet[i].y - feet[j].y);
+			}
+			if (sign != 0f) {
+				model
+					.addGradient(
+						feetFrames[i],
+						feetRoles[i],
+						0f,
+						1f,
+						0f,
+						weight * sign / 12f,
+						gradient
+					);
+			}
+		}
+		return error / 12f;
+	}
+
+	/**
+	 * @see dev.slimevr.autobone.errors.BodyProportionError
+	 */
+	private float bodyProportionError(float[] lengths, float weight, float[] gradient) {
+		float error = bodyProportionError(lengths);
+		for (int b = 0; b < bones.length; ++b) {
+			float length = lengths[b];
+			lengths[b] = length + PROPORTION_STEP;
+			float above = bodyProportionError(lengths);
+			lengths[b] = length - PROPORTION_STEP;
+			float below = bodyProportionError(lengths);
+			lengths[b] = length;
+			gradient[b] += weight * (above - below) / (2f * PROPORTION_STEP);
+		}
+		return error;
+	}
+
+	private float bodyProportionError(float[] lengths) {
+		for (int b = 0; b < bones.length; ++b)
+			proportionLengths.put(bones[b], lengths[b]);
+		autoBone.applyConfig(proportionConfig, proportionLengths);
+		return autoBone.bodyProportionError.getBodyProportionError(proportionConfig);
+	}
+
+	/**
+	 * @see dev.slimevr.autobone.errors.HeightError
+	 */
+	private float heightError(float[] lengths, float weight, float[] gradient) {
+		float height = 0f;
+		for (int b = 0; b < bones.length; ++b) {
+			if (heightBones[b])
+				height += lengths[b];
+		}
+		float sign = Math.signum(targetHeight - height);
+		for (int b = 0; b < bones.length; ++b) {
+			if (heightBones[b])
+				gradient[b] -= weight * sign;
+		}
+		return FastMath.abs(targetHeight - height);
+	}
+
+	/**
+	 * @see dev.slimevr.autobone.errors.PositionError
+	 */
+	private float positionError(int cursor, float[] lengths, float weight, float[] gradient) {
+		int count = 0;
+		for (PoseFrameTracker tracker : trackers) {
+			if (getRecordedRole(tracker.safeGetFrame(cursor)) >= 0)
+				count++;
+		}
+		if (count == 0)
+			return 0f;
+
+		float error = 0f;
+		for (PoseFrameTracker tracker : trackers) {
+			TrackerFrame frame = tracker.safeGetFrame(cursor);
+			int role = getRecordedRole(frame);
+			if (role < 0)
+				continue;
+			model.getPosition(cursor, role, lengths, position1);
+			error += positionDistance(cursor, role, position1, frame, weight / count, gradient);
+		}
+		return error / count;
+	}
+
+	/**
+	 * @see dev.slimevr.autobone.errors.PositionOffsetError
+	 */
+	private float positionOffsetError(
+		int cursor1,
+		int cursor2,
+		float[] lengths,
+		float weight,
+		float[] gradient
+	) {
+		int count = 0;
+		for (PoseFrameTracker tracker : trackers) {
+			if (
+				getRecordedRole(tracker.safeGetFrame(cursor1)) >= 0
+					&& getRecordedRole(tracker.safeGetFrame(cursor2)) >= 0
+			)
+				count++;
+		}
+		if (count == 0)
+			return 0f;
+
+		float error = 0f;
+		for (PoseFrameTracker tracker : trackers) {
+			TrackerFrame frame1 = tracker.safeGetFrame(cursor1);
+			TrackerFrame frame2 = tracker.safeGetFrame(cursor2);
+			int role1 = getRecordedRole(frame1);
+			int role2 = getRecordedRole(frame2);
+			if (role1 < 0 || role2 < 0)
+				continue;
+			model.getPosition(cursor1, role1, lengths, position1);
+			model.getPosition(cursor2, role2, lengths, position2);
+			float dist1 = position1.distance(frame1.position);
+			float dist2 = position2.distance(frame2.position);
+			error += FastMath.abs(dist2 - dist1);
+
+			float sign = Math.signum(dist2 - dist1);
+			if (sign != 0f) {
+				float offsetWeight = weight * sign / count;
+				positionDistance(cursor2, role2, position2, frame2, offsetWeight, gradient);
+				positionDistance(cursor1, role1, position1, frame1, -offsetWeight, gradient);
+			}
+		}
+		return error / count;
+	}
+
+	// #endregion
+
+	/**
+	 * @return the modelled role of a recorded tracker position, -1 if there's
+	 * none
+	 */
+	private int getRecordedRole(TrackerFrame frame) {
+		if (
+			frame == null
+				|| !frame.hasData(TrackerFrameData.POSITION)
+				|| frame.designation.trackerRole.isEmpty()
+		) {
+			return -1;
+		}
+		return model.getRoleIndex(frame.designation.trackerRole.get());
+	}
+
+	/**
+	 * Distance between two of the feet, adding its derivative times the
+	 * weight to the gradient
+	 */
+	private float distance(int foot1, int foot2, float weight, float[] gradient) {
+		feet[foot2].subtract(feet[foot1], direction);
+		float distance = direction.length();
+		if (distance > 0f && weight != 0f) {
+			direction.divideLocal(distance);
+			model
+				.addGradient(
+					feetFrames[foot2],
+					feetRoles[foot2],
+					direction.x,
+					direction.y,
+					direction.z,
+					weight,
+					gradient
+				);
+			model
+				.addGradient(
+					feetFrames[foot1],
+					feetRoles[foot1],
+					direction.x,
+					direction.y,
+					direction.z,
+					-weight,
+					gradient
+				);
+		}
+		return distance;
+	}
+
+	/**
+	 * Distance between a computed and a recorded position, adding its
+	 * derivative times the weight to the gradient
+	 */
+	private float positionDistance(
+		int cursor,
+		int role,
+		Vector3f position,
+		TrackerFrame frame,
+		float weight,
+		float[] gradient
+	) {
+		position.subtract(frame.position, direction);
+		float distance = direction.length();
+		if (distance > 0f && weight != 0f) {
+			direction.divideLocal(distance);
+			model
+				.addGradient(
+					cursor,
+					role,
+					direction.x,
+					direction.y,
+					direction.z,
+					weight,
+					gradient
+				);
+		}
+		return distance;
+	}
+}
@@ -87,6 +87,20 @@ public class AutoBoneHandler {
 		return autoBone.getLengthsString();
 	}
 
+	public AutoBoneOptimizer getOptimizer() {
+		return autoBone.optimizer;
+	}
+
+	/**
+	 * Selects how the next processing adjusts the lengths and saves it as the
+	 * autobone.optimizer setting
+	 */
+	public void setOptimizer(AutoBoneOptimizer optimizer) {
+		autoBone.optimizer = optimizer;
+		server.config.setProperty("autobone.optimizer", optimizer.name());
+		server.saveConfig();
+	}
+
 	private AutoBoneResults processFrames(PoseFrames frames) throws AutoBoneException {
 		return autoBone
 			.processFrames(frames, autoBone.calcInitError, autoBone.targetHeight, (epoch) -> {
@@ -146,14 +160,24 @@ public class AutoBoneHandler {
 				// 1000 samples at 20 ms per sample is 20 seconds
 				int sampleCount = server.config.getInt("autobone.sampleCount", 1000);
 				long sampleRate = server.config.getLong("autobone.sampleRateMs", 20L);
+				StreamingAutoBone streamingAutoBone = createStreamingAutoBone();
 				Future<PoseFrames> framesFuture = poseRecorder
-					.startFrameRecording(sampleCount, sampleRate, progress -> {
-						announceProcessStatus(
-							AutoBoneProcessType.RECORD,
-							progress.frame,
-							progress.totalFrames
-						);
-					});
+					.startFrameRecording(
+						sampleCount,
+						sampleRate,
+						server.getAllTrackers(),
+						progress -> {
+							announceProcessStatus(
+								AutoBoneProcessType.RECORD,
+								progress.frame,
+								progress.totalFrames
+							);
+						},
+						streamingAutoBone != null ? streamingAutoBone.getFrameQueue() : null
+					);
+				if (streamingAutoBone != null) {
+					processStreaming(streamingAutoBone, framesFuture, sampleCount);
+				}
 				PoseFrames frames = framesFuture.get();
 				LogManager.info("[AutoBone] Done recording!");
 
@@ -186,10 +210,98 @@ public class AutoBoneHandler {
 			);
 			LogManager.severe("[AutoBone] Failed recording!", e);
 		} finally {
+			// In case recording failed before training while recording started
+			if (autoBoneThread == Thread.currentThread()) {
+				autoBoneThread = null;
+			}
 			recordingThread = null;
 		}
 	}
 
+	/**
+	 * Sets up training while recording if autobone.streaming is enabled and
+	 * no processing is running, it then counts as the running processing
+	 *
+	 * @return null to only record
+	 */
+	private StreamingAutoBone createStreamingAutoBone() {
+		if (!server.config.getBoolean("autobone.streaming", false)) {
+			return null;
+		}
+
+		autoBoneLock.lock();
+		try {
+			if (autoBoneThread != null) {
+				LogManager
+					.warning("[AutoBone] Already processing, recording without training");
+				return null;
+			}
+			autoBoneThread = Thread.currentThread();
+		} finally {
+			autoBoneLock.unlock();
+		}
+
+		StreamingAutoBone streamingAutoBone = new StreamingAutoBone(
+			autoBone,
+			server.config.getInt("autobone.streamingQueueSize", 256)
+		);
+		streamingAutoBone.windowSize = server.config
+			.getInt("autobone.streamingWindow", streamingAutoBone.windowSize);
+		streamingAutoBone.publishInterval = server.config
+			.getInt("autobone.streamingPublishInterval", streamingAutoBone.publishInterval);
+		return streamingAutoBone;
+	}
+
+	/**
+	 * Trains on the frames as they're recorded, returns once the recording
+	 * stopped with the lengths already applied to the AutoBone
+	 */
+	private void processStreaming(
+		StreamingAutoBone streamingAutoBone,
+		Future<PoseFrames> framesFuture,
+		int sampleCount
+	) {
+		try {
+			announceProcessStatus(AutoBoneProcessType.PROCESS, "Processing while recording...");
+			AutoBoneResults results = streamingAutoBone
+				.train(framesFuture, sampleCount, autoBone.targetHeight, (epoch) -> {
+					listeners.forEach(listener -> {
+						listener.onAutoBoneEpoch(epoch);
+					});
+				});
+
+			if (results == null) {
+				announceProcessStatus(
+					AutoBoneProcessType.PROCESS,
+					"No frames were recorded",
+					true,
+					false
+				);
+				return;
+			}
+
+			LogManager.info("[AutoBone] Length values: " + autoBone.getLengthsString());
+			listeners.forEach(listener -> {
+				listener.onAutoBoneEnd(autoBone.legacyConfigs);
+			});
+
+			announceProcessStatus(AutoBoneProcessType.PROCESS, "Done processing!", true, true);
+		} catch (Exception e) {
+			if (e instanceof InterruptedException) {
+				Thread.currentThread().interrupt();
+			}
+			announceProcessStatus(
+				AutoBoneProcessType.PROCESS,
+				String.format("Processing failed: %s", e.getMessage()),
+				true,
+				false
+			);
+			LogManager.severe("[AutoBone] Failed adjustment while recording!", e);
+		} finally {
+			autoBoneThread = null;
+		}
+	}
+
 	public void saveRecording() {
 		saveRecordingLock.lock();
 
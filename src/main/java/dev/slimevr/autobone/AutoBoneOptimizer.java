@@ -0,0 +1,45 @@
+package dev.slimevr.autobone;
+
+/**
+ * How AutoBone adjusts the bone lengths on each frame pair
+ */
+public enum AutoBoneOptimizer {
+	/**
+	 * Tries a step for each bone and keeps the ones that lowered the error,
+	 * solving both skeletons again for every bone
+	 */
+	PROBE(0f),
+	/**
+	 * Plain gradient descent on the gradient of {@link LinearPoseModel}
+	 */
+	SGD(0.05f),
+	/**
+	 * Gradient descent with momentum
+	 */
+	MOMENTUM(0.01f),
+	/**
+	 * Adam, steps are about the learning rate in meters regardless of the
+	 * error's scale
+	 */
+	ADAM(0.001f);
+
+	public final float defaultLearningRate;
+
+	AutoBoneOptimizer(float defaultLearningRate) {
+		this.defaultLearningRate = defaultLearningRate;
+	}
+
+	public boolean usesGradient() {
+		return this != PROBE;
+	}
+
+	public static AutoBoneOptimizer getByName(String name) {
+		if (name != null) {
+			for (AutoBoneOptimizer optimizer : values()) {
+				if (optimizer.name().equalsIgnoreCase(name))
+					return optimizer;
+			}
+		}
+		return PROBE;
+	}
+}
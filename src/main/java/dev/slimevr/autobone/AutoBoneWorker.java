@@ -0,0 +1,177 @@
+package dev.slimevr.autobone;
+
+import com.jme3.math.Vector3f;
+import dev.slimevr.autobone.errors.AutoBoneException;
+import dev.slimevr.poserecorder.PoseFrameCache;
+import dev.slimevr.poserecorder.PoseFrameSkeleton;
+import dev.slimevr.poserecorder.PoseFrames;
+import dev.slimevr.vr.processor.skeleton.BoneType;
+import dev.slimevr.vr.trackers.TrackerRole;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+
+/**
+ * Evaluates AutoBone training steps on its own pair of skeletons. A step only
+ * reads the offsets it's given, so several workers can train on the same
+ * recording concurrently.
+ */
+public class AutoBoneWorker {
+
+	private final AutoBone autoBone;
+	private final PoseFrameSkeleton skeleton1;
+	private final PoseFrameSkeleton skeleton2;
+	private final AutoBoneTrainingStep trainingStep;
+	private final EnumMap<BoneType, Float> intermediateOffsets;
+	private final EnumMap<BoneType, Float> newLengths = new EnumMap<>(BoneType.class);
+	private boolean adjusted = false;
+
+	public AutoBoneWorker(AutoBone autoBone, PoseFrames frames, float targetHeight) {
+		this.autoBone = autoBone;
+		skeleton1 = new PoseFrameSkeleton(frames.getTrackers(), null);
+		skeleton2 = new PoseFrameSkeleton(frames.getTrackers(), null);
+		intermediateOffsets = new EnumMap<>(autoBone.offsets);
+		trainingStep = new AutoBoneTrainingStep(
+			targetHeight,
+			skeleton1,
+			skeleton2,
+			frames,
+			intermediateOffsets
+		);
+	}
+
+	/**
+	 * Solves both frames with the given offsets and tries adjusting each
+	 * bone. Lengths that lowered the error are put into
+	 * {@link #getNewLengths()}, the offsets aren't changed.
+	 *
+	 * @param adjustRate 0 to only measure the error
+	 * @return the error derivative before adjusting, invalid values are
+	 * returned without adjusting
+	 */
+	public float step(int cursor1, int cursor2, Map<BoneType, Float> offsets, float adjustRate)
+		throws AutoBoneException {
+		newLengths.clear();
+		adjusted = false;
+
+		autoBone.applyConfig(skeleton1.skeletonConfig, offsets);
+		skeleton2.skeletonConfig.setConfigs(skeleton1.skeletonConfig);
+
+		trainingStep.setCursors(cursor1, cursor2);
+		skeleton1.setCursor(cursor1);
+		skeleton2.setCursor(cursor2);
+
+		skeleton1.updatePose();
+		skeleton2.updatePose();
+
+		float totalLength = autoBone.getLengthSum(offsets);
+		float curHeight = autoBone.sumSelectConfigs(autoBone.heightOffsets, offsets);
+		trainingStep.setCurrentHeight(curHeight);
+
+		float errorDeriv = autoBone.getErrorDeriv(trainingStep);
+		float error = AutoBone.errorFunc(errorDeriv);
+
+		// In case of fire
+		if (Float.isNaN(error) || Float.isInfinite(error)) {
+			return Float.NaN;
+		}
+
+		float adjustVal = error * adjustRate;
+
+		// If there is no adjustment whatsoever, skip this
+		if (adjustVal == 0f) {
+			return errorDeriv;
+		}
+		adjusted = true;
+
+		Vector3f slideLeft = skeleton2
+			.getComputedTracker(TrackerRole.LEFT_FOOT).position
+				.subtract(skeleton1.getComputedTracker(TrackerRole.LEFT_FOOT).position);
+
+		Vector3f slideRight = skeleton2
+			.getComputedTracker(TrackerRole.RIGHT_FOOT).position
+				.subtract(skeleton1.getComputedTracker(TrackerRole.RIGHT_FOOT).position);
+
+		intermediateOffsets.clear();
+		intermediateOffsets.putAll(offsets);
+		for (Entry<BoneType, Float> entry : offsets.entrySet()) {
+			float originalLength = entry.getValue();
+			boolean isHeightVar = autoBone.heightOffsets.contains(entry.getKey());
+
+			float leftDotProduct = autoBone
+				.getDotProductDiff(skeleton1, skeleton2, entry.getKey(), false, slideLeft);
+
+			float rightDotProduct = autoBone
+				.getDotProductDiff(skeleton1, skeleton2, entry.getKey(), true, slideRight);
+
+			float dotLength = originalLength * ((leftDotProduct + rightDotProduct) / 2f);
+
+			// Scale by the ratio for smooth adjustment and more stable results
+			float curAdjustVal = (adjustVal * -dotLength) / totalLength;
+			float newLength = originalLength + curAdjustVal;
+
+			// No small or negative numbers!!! Bad algorithm!
+			if (newLength < 0.01f) {
+				continue;
+			}
+
+			// Apply new offset length
+			intermediateOffsets.put(entry.getKey(), newLength);
+			autoBone.applyConfig(skeleton1.skeletonConfig, intermediateOffsets);
+			skeleton2.skeletonConfig.setConfigs(skeleton1.skeletonConfig);
+
+			// Update the skeleton poses for the new offset length
+			skeleton1.updatePose();
+			skeleton2.updatePose();
+
+			float newHeight = isHeightVar ? curHeight + curAdjustVal : curHeight;
+			trainingStep.setCurrentHeight(newHeight);
+
+			float newErrorDeriv = autoBone.getErrorDeriv(trainingStep);
+
+			if (newErrorDeriv < errorDeriv) {
+				newLengths.put(entry.getKey(), newLength);
+			}
+
+			// Reset the length to minimize bias in other variables, it's
+			// applied later
+			intermediateOffsets.put(entry.getKey(), originalLength);
+			autoBone.applyConfig(skeleton1.skeletonConfig, intermediateOffsets);
+			skeleton2.skeletonConfig.setConfigs(skeleton1.skeletonConfig);
+		}
+
+		return errorDeriv;
+	}
+
+	/**
+	 * @see PoseFrameSkeleton#createPoseCache(int)
+	 */
+	public PoseFrameCache createPoseCache(int frameCount) {
+		return skeleton1.createPoseCache(frameCount);
+	}
+
+	/**
+	 * Replays frames from the cache instead of solving them from the
+	 * trackers, the cache can be shared by workers
+	 */
+	public void setPoseCache(PoseFrameCache cache) {
+		skeleton1.setPoseCache(cache);
+		skeleton2.setPoseCache(cache);
+	}
+
+	/**
+	 * @return whether the last step tried adjusting bones
+	 */
+	public boolean isAdjusted() {
+		return adjusted;
+	}
+
+	/**
+	 * @return lengths the last step found better, by bone
+	 */
+	public EnumMap<BoneType, Float> getNewLengths() {
+		return newLengths;
+	}
+}
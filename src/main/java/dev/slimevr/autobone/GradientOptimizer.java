@@ -0,0 +1,79 @@
+package dev.slimevr.autobone;
+
+import java.util.Arrays;
+
+
+/**
+ * Gradient descent state of one training run, for the gradient based
+ * {@link AutoBoneOptimizer} types
+ */
+public class GradientOptimizer {
+
+	public static final float MOMENTUM = 0.9f;
+	public static final float BETA1 = 0.9f;
+	public static final float BETA2 = 0.999f;
+	public static final float EPSILON = 1e-8f;
+
+	private final AutoBoneOptimizer type;
+	// Velocity for momentum, first moment for Adam
+	private final float[] moment;
+	// Second moment for Adam
+	private final float[] squaredMoment;
+	private float beta1Power = 1f;
+	private float beta2Power = 1f;
+
+	public GradientOptimizer(AutoBoneOptimizer type, int parameterCount) {
+		if (!type.usesGradient())
+			throw new IllegalArgumentException(type + " doesn't use gradients");
+		this.type = type;
+		moment = new float[parameterCount];
+		squaredMoment = new float[parameterCount];
+	}
+
+	/**
+	 * Moves the parameters against the gradient
+	 */
+	public void step(float[] parameters, float[] gradient, float learningRate) {
+		switch (type) {
+			case SGD:
+				for (int i = 0; i < parameters.length; ++i)
+					parameters[i] -= learningRate * gradient[i];
+				break;
+
+			case MOMENTUM:
+				for (int i = 0; i < parameters.length; ++i) {
+					moment[i] = MOMENTUM * moment[i] + gradient[i];
+					parameters[i] -= learningRate * moment[i];
+				}
+				break;
+
+			case ADAM:
+				beta1Power *= BETA1;
+				beta2Power *= BETA2;
+				float correction1 = 1f - beta1Power;
+				float correction2 = 1f - beta2Power;
+				for (int i = 0; i < parameters.length; ++i) {
+					moment[i] = BETA1 * moment[i] + (1f - BETA1) * gradient[i];
+					squaredMoment[i] = BETA2 * squaredMoment[i]
+						+ (1f - BETA2) * gradient[i] * gradient[i];
+					float m = moment[i] / correction1;
+					float v = squaredMoment[i] / correction2;
+					parameters[i] -= learningRate * m / ((float) Math.sqrt(v) + EPSILON);
+				}
+				break;
+
+			default:
+				break;
+		}
+	}
+
+	/**
+	 * Forgets the accumulated moments, for when the parameters were reset
+	 */
+	public void reset() {
+		Arrays.fill(moment, 0f);
+		Arrays.fill(squaredMoment, 0f);
+		beta1Power = 1f;
+		beta2Power = 1f;
+	}
+}
@@ -0,0 +1,214 @@
+package dev.slimevr.autobone;
+
+import com.jme3.math.Vector3f;
+import dev.slimevr.poserecorder.PoseFrameSkeleton;
+import dev.slimevr.poserecorder.PoseFrameTracker;
+import dev.slimevr.poserecorder.PoseFrames;
+import dev.slimevr.poserecorder.TrackerFrame;
+import dev.slimevr.vr.processor.ComputedHumanPoseTracker;
+import dev.slimevr.vr.processor.skeleton.BoneType;
+import dev.slimevr.vr.trackers.TrackerRole;
+import io.eiren.util.collections.FastList;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Positions of the computed trackers in every frame of a recording as an
+ * affine function of the adjusted bone lengths.
+ * <p>
+ * The rotations of a frame don't depend on the lengths, and every length only
+ * scales a fixed offset along the chain, so a computed tracker's position is
+ * {@code c + sum(J[b] * length[b])} exactly. The terms are found once by
+ * solving each frame with every length moved, after that positions and their
+ * derivatives cost a few multiplications instead of a skeleton solve.
+ */
+public class LinearPoseModel {
+
+	// Lengths only enter linearly, the step size just has to be safe for
+	// float precision
+	private static final float STEP = 0.1f;
+
+	private final BoneType[] bones;
+	private final TrackerRole[] roles;
+	private final int[] roleIndices = new int[TrackerRole.values().length];
+	private final int frameCount;
+	private final int termCount;
+	// [frame][role][term][xyz], term 0 is the constant and term b + 1 the
+	// derivative for bone b
+	private final float[] terms;
+
+	/**
+	 * @param bones the lengths the model is a function of, in the order of
+	 * the length arrays
+	 * @param lengths lengths of all bones to solve the recording with, lengths
+	 * of bones that aren't modelled stay fixed
+	 */
+	public LinearPoseModel(
+		AutoBone autoBone,
+		PoseFrames frames,
+		BoneType[] bones,
+		Map<BoneType, Float> lengths
+	) {
+		this.bones = bones.clone();
+		this.frameCount = frames.getMaxFrameCount();
+		this.termCount = bones.length + 1;
+
+		PoseFrameSkeleton skeleton = new PoseFrameSkeleton(frames.getTrackers(), null);
+		this.roles = findRoles(skeleton, frames.getTrackers());
+		Arrays.fill(roleIndices, -1);
+		for (int r = 0; r < roles.length; ++r)
+			roleIndices[roles[r].ordinal()] = r;
+
+		// Rotations are the same for every length, solve them once
+		skeleton.setPoseCache(skeleton.createPoseCache(frameCount));
+
+		terms = new float[frameCount * roles.length * termCount * 3];
+		EnumMap<BoneType, Float> moved = new EnumMap<>(BoneType.class);
+		moved.putAll(lengths);
+		solveFrames(autoBone, skeleton, moved, 0);
+		for (int b = 0; b < bones.length; ++b) {
+			float length = moved.get(bones[b]);
+			moved.put(bones[b], length + STEP);
+			solveFrames(autoBone, skeleton, moved, b + 1);
+			moved.put(bones[b], length);
+		}
+
+		// Turn the moved positions into derivatives and the base position into
+		// the constant term
+		for (int frame = 0; frame < frameCount; ++frame) {
+			for (int r = 0; r < roles.length; ++r) {
+				int base = index(frame, r, 0);
+				for (int b = 0; b < bones.length; ++b) {
+					int o = base + (b + 1) * 3;
+					for (int axis = 0; axis < 3; ++axis) {
+						terms[o + axis] = (terms[o + axis] - terms[base + axis]) / STEP;
+					}
+				}
+				// Only once every derivative was taken from the base position
+				for (int b = 0; b < bones.length; ++b) {
+					int o = base + (b + 1) * 3;
+					float length = moved.get(bones[b]);
+					for (int axis = 0; axis < 3; ++axis) {
+						terms[base + axis] -= terms[o + axis] * length;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Feet are always modelled for the slide errors, other roles when a
+	 * recorded tracker has them and the skeleton computes them
+	 */
+	private static TrackerRole[] findRoles(
+		PoseFrameSkeleton skeleton,
+		List<PoseFrameTracker> trackers
+	) {
+		FastList<TrackerRole> roles = new FastList<>();
+		roles.add(TrackerRole.LEFT_FOOT);
+		roles.add(TrackerRole.RIGHT_FOOT);
+		for (PoseFrameTracker tracker : trackers) {
+			for (TrackerFrame frame : tracker) {
+				if (frame == null || frame.designation == null)
+					continue;
+				TrackerRole role = frame.designation.trackerRole.orElse(null);
+				if (
+					role != null
+						&& !roles.contains(role)
+						&& skeleton.getComputedTracker(role) != null
+				) {
+					roles.add(role);
+				}
+			}
+		}
+		return roles.toArray(new TrackerRole[0]);
+	}
+
+	private void solveFrames(
+		AutoBone autoBone,
+		PoseFrameSkeleton skeleton,
+		Map<BoneType, Float> lengths,
+		int term
+	) {
+		autoBone.applyConfig(skeleton.skeletonConfig, lengths);
+		ComputedHumanPoseTracker[] computed = new ComputedHumanPoseTracker[roles.length];
+		for (int r = 0; r < roles.length; ++r)
+			computed[r] = skeleton.getComputedTracker(roles[r]);
+
+		for (int frame = 0; frame < frameCount; ++frame) {
+			skeleton.setCursor(frame);
+			skeleton.updatePose();
+			for (int r = 0; r < roles.length; ++r) {
+				Vector3f position = computed[r].position;
+				int o = index(frame, r, term);
+				terms[o] = position.x;
+				terms[o + 1] = position.y;
+				terms[o + 2] = position.z;
+			}
+		}
+	}
+
+	private int index(int frame, int role, int term) {
+		return ((frame * roles.length + role) * termCount + term) * 3;
+	}
+
+	/**
+	 * @return the index of the role for the other methods, -1 if it isn't
+	 * modelled
+	 */
+	public int getRoleIndex(TrackerRole role) {
+		return roleIndices[role.ordinal()];
+	}
+
+	/**
+	 * Position of a computed tracker in a frame for the given lengths
+	 */
+	public Vector3f getPosition(int frame, int role, float[] lengths, Vector3f store) {
+		int base = index(frame, role, 0);
+		float x = terms[base];
+		float y = terms[base + 1];
+		float z = terms[base + 2];
+		for (int b = 0; b < bones.length; ++b) {
+			int o = base + (b + 1) * 3;
+			x += terms[o] * lengths[b];
+			y += terms[o + 1] * lengths[b];
+			z += terms[o + 2] * lengths[b];
+		}
+		return store.set(x, y, z);
+	}
+
+	/**
+	 * Adds the derivative of {@code weight * dot(direction, position)} by
+	 * every length to the gradient
+	 */
+	public void addGradient(
+		int frame,
+		int role,
+		float directionX,
+		float directionY,
+		float directionZ,
+		float weight,
+		float[] gradient
+	) {
+		int base = index(frame, role, 0);
+		for (int b = 0; b < bones.length; ++b) {
+			int o = base + (b + 1) * 3;
+			gradient[b] += weight
+				* (directionX * terms[o]
+					+ directionY * terms[o + 1]
+					+ directionZ * terms[o + 2]);
+		}
+	}
+
+	public BoneType[] getBones() {
+		return bones;
+	}
+
+	public int getFrameCount() {
+		return frameCount;
+	}
+}
@@ -0,0 +1,265 @@
+package dev.slimevr.autobone;
+
+import com.jme3.math.FastMath;
+import dev.slimevr.autobone.AutoBone.AutoBoneResults;
+import dev.slimevr.autobone.AutoBone.Epoch;
+import dev.slimevr.autobone.errors.AutoBoneException;
+import dev.slimevr.poserecorder.PoseFrameTracker;
+import dev.slimevr.poserecorder.PoseFrames;
+import dev.slimevr.poserecorder.PoseRecorder.StreamedFrame;
+import dev.slimevr.poserecorder.TrackerFrame;
+import io.eiren.util.collections.FastList;
+import io.eiren.util.logging.LogManager;
+
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+
+/**
+ * Trains AutoBone while the recording is still running. The
+ * {@link dev.slimevr.poserecorder.PoseRecorder} pushes every recorded frame
+ * into {@link #getFrameQueue()}, the training thread appends them to its own
+ * copy of the recording and trains on the pairs ending at each new frame.
+ * While it waits for frames, it keeps training on random pairs from the most
+ * recent {@link #windowSize} frames, so the lengths are usable as soon as the
+ * recording stops. Frames the recorder had to leave out of the stream break
+ * the copy into runs, pairs never span two runs as their distance wouldn't
+ * match the recorded time step.
+ * <p>
+ * Live estimates are published as epochs every {@link #publishInterval}
+ * frames, the adjust rate decays per estimate like it does per epoch. An
+ * instance trains on one recording.
+ */
+public class StreamingAutoBone {
+
+	private static final long POLL_MS = 5L;
+	/**
+	 * Frames to wait for every tracker to have data before training starts
+	 * without the ones that don't
+	 */
+	private static final int MAX_STARTUP_FRAMES = 10;
+
+	private final AutoBone autoBone;
+	private final BlockingQueue<StreamedFrame> frameQueue;
+	private final Random random = new Random();
+
+	/**
+	 * Recent frames to pick pairs from while waiting for new frames
+	 */
+	public int windowSize = 200;
+	/**
+	 * Frames between published estimates
+	 */
+	public int publishInterval = 50;
+
+	private PoseFrames frames;
+	// The trackers of frames that had data when training started
+	private PoseFrames trainingFrames;
+	private AutoBoneWorker worker;
+	private int frameCount = 0;
+	// First frame after the last gap in the stream and the recording cursor
+	// of the latest frame
+	private int runStart = 0;
+	private int lastCursor = -1;
+	private int estimate = 0;
+	private float sumError = 0f;
+	private int errorCount = 0;
+
+	public StreamingAutoBone(AutoBone autoBone, int queueCapacity) {
+		this.autoBone = autoBone;
+		this.frameQueue = new ArrayBlockingQueue<>(queueCapacity);
+	}
+
+	/**
+	 * @see dev.slimevr.poserecorder.PoseRecorder#startFrameRecording
+	 */
+	public BlockingQueue<StreamedFrame> getFrameQueue() {
+		return frameQueue;
+	}
+
+	/**
+	 * Trains until the recording is done and every frame it queued is used
+	 *
+	 * @param recording completes or is cancelled when the recording stops
+	 * @param expectedFrames frames the recording will have, for the estimate
+	 * count
+	 * @param targetHeight the target height, or less than 0 to detect it once
+	 * the first frame arrived
+	 * @param epochCallback receives each live estimate
+	 * @return the results of the frames recorded, null if there were none
+	 */
+	public AutoBoneResults train(
+		Future<?> recording,
+		int expectedFrames,
+		float targetHeight,
+		Consumer<Epoch> epochCallback
+	) throws AutoBoneException, InterruptedException {
+		autoBone.reloadConfigValues();
+		int totalEstimates = Math.max(1, expectedFrames / Math.max(1, publishInterval));
+
+		while (true) {
+			// Only wait when there's nothing to refine
+			boolean canRefine = worker != null
+				&& frameCount - runStart > autoBone.minDataDistance;
+			StreamedFrame frame = canRefine
+				? frameQueue.poll()
+				: frameQueue.poll(POLL_MS, TimeUnit.MILLISECONDS);
+
+			if (frame == null) {
+				if (recording.isDone() && frameQueue.isEmpty())
+					break;
+				if (canRefine)
+					refine(targetHeight);
+				continue;
+			}
+
+			addFrame(frame);
+			if (worker == null) {
+				if (!startTraining(frame.frames))
+					continue;
+				if (targetHeight < 0f)
+					targetHeight = autoBone.getTargetHeight(trainingFrames);
+			}
+
+			// Pairs ending at the new frame
+			int cursor2 = frameCount - 1;
+			int maxDistance = Math.min(autoBone.maxDataDistance, cursor2 - runStart);
+			for (int distance = autoBone.minDataDistance; distance <= maxDistance; distance++) {
+				trainPair(cursor2 - distance, cursor2, targetHeight);
+			}
+
+			if (frameCount % Math.max(1, publishInterval) == 0)
+				publish(totalEstimates, epochCallback);
+		}
+
+		if (worker == null)
+			return null;
+		publish(Math.max(totalEstimates, estimate + 1), epochCallback);
+
+		float finalHeight = autoBone.sumSelectConfigs(autoBone.heightOffsets, autoBone.offsets);
+		LogManager
+			.info(
+				"[AutoBone] Streamed "
+					+ frameCount
+					+ " frames, target height: "
+					+ targetHeight
+					+ " new height: "
+					+ finalHeight
+			);
+		return autoBone.new AutoBoneResults(finalHeight, targetHeight, autoBone.legacyConfigs);
+	}
+
+	private void addFrame(StreamedFrame streamed) {
+		if (lastCursor >= 0 && streamed.cursor != lastCursor + 1)
+			runStart = frameCount;
+		lastCursor = streamed.cursor;
+
+		TrackerFrame[] frame = streamed.frames;
+		if (frames == null) {
+			FastList<PoseFrameTracker> trackers = new FastList<>(frame.length);
+			for (int i = 0; i < frame.length; ++i)
+				trackers.add(new PoseFrameTracker("Tracker " + i, windowSize));
+			frames = new PoseFrames(trackers);
+		}
+		for (int i = 0; i < frame.length; ++i)
+			frames.getTrackers().get(i).addFrame(frame[i]);
+		frameCount++;
+	}
+
+	/**
+	 * The skeleton binds trackers by the designation of their current frame,
+	 * so it's built on the first frame with data for every tracker. Trackers
+	 * without data by then, like disconnected ones, are left out.
+	 */
+	private boolean startTraining(TrackerFrame[] frame) {
+		FastList<PoseFrameTracker> trackers = new FastList<>(frame.length);
+		for (int i = 0; i < frame.length; ++i) {
+			if (frame[i] != null)
+				trackers.add(frames.getTrackers().get(i));
+		}
+		if (
+			trackers.isEmpty()
+				|| (trackers.size() < frame.length && frameCount < MAX_STARTUP_FRAMES)
+		)
+			return false;
+		if (trackers.size() < frame.length) {
+			LogManager
+				.info(
+					"[AutoBone] Streaming without "
+						+ (frame.length - trackers.size())
+						+ " of "
+						+ frame.length
+						+ " trackers, they have no data"
+				);
+		}
+
+		for (PoseFrameTracker tracker : trackers)
+			tracker.setCursor(frameCount - 1);
+		trainingFrames = new PoseFrames(trackers);
+		worker = new AutoBoneWorker(autoBone, trainingFrames, autoBone.targetHeight);
+		return true;
+	}
+
+	/**
+	 * Trains on a random pair from the window
+	 */
+	private void refine(float targetHeight) throws AutoBoneException {
+		int windowStart = Math.max(runStart, frameCount - Math.max(2, windowSize));
+		int distance = autoBone.minDataDistance
+			+ random.nextInt(Math.max(1, autoBone.maxDataDistance - autoBone.minDataDistance + 1));
+		int span = frameCount - windowStart - distance;
+		if (span <= 0)
+			return;
+		int cursor1 = windowStart + random.nextInt(span);
+		trainPair(cursor1, cursor1 + distance, targetHeight);
+	}
+
+	private void trainPair(int cursor1, int cursor2, float targetHeight)
+		throws AutoBoneException {
+		float adjustRate = autoBone.initialAdjustRate
+			* FastMath.pow(autoBone.adjustRateMultiplier, estimate);
+		float errorDeriv = autoBone.trainPair(worker, cursor1, cursor2, adjustRate, targetHeight);
+		if (Float.isNaN(errorDeriv)) {
+			sumError = 0f;
+			errorCount = 0;
+			return;
+		}
+		sumError += errorDeriv;
+		errorCount++;
+	}
+
+	private void publish(int totalEstimates, Consumer<Epoch> epochCallback) {
+		float avgError = errorCount > 0 ? sumError / errorCount : -1f;
+		sumError = 0f;
+		errorCount = 0;
+		estimate++;
+
+		LogManager
+			.info(
+				"[AutoBone] Estimate "
+					+ estimate
+					+ " ("
+					+ frameCount
+					+ " frames) average error: "
+					+ avgError
+			);
+		autoBone.applyConfig(autoBone.legacyConfigs);
+		if (epochCallback != null) {
+			Epoch epoch = autoBone.new Epoch(
+				estimate,
+				totalEstimates,
+				avgError,
+				autoBone.legacyConfigs
+			);
+			epochCallback.accept(epoch);
+		}
+	}
+
+	public int getFrameCount() {
+		return frameCount;
+	}
+}
@@ -0,0 +1,427 @@
+package dev.slimevr.autobone.sweep;
+
+import com.jme3.math.Vector3f;
+import dev.slimevr.autobone.AutoBone;
+import dev.slimevr.autobone.AutoBone.AutoBoneResults;
+import dev.slimevr.autobone.AutoBoneOptimizer;
+import dev.slimevr.poserecorder.PoseFrameSkeleton;
+import dev.slimevr.poserecorder.PoseFrames;
+import dev.slimevr.vr.trackers.TrackerRole;
+import io.eiren.util.StringUtils;
+import io.eiren.util.collections.FastList;
+import org.apache.commons.cli.*;
+import org.apache.commons.lang3.tuple.Pair;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Headless batch runner that trains AutoBone with every configuration of a
+ * {@link SweepSpace} on a set of recordings and ranks the configurations.
+ * <p>
+ * Recordings are decoded once and shared read-only by all runs,
+ * configurations run in parallel, each on one thread. A configuration's
+ * score is the slide error of the trained lengths over consecutive frames
+ * plus the height error, both in meters and averaged over the recordings, so
+ * configurations with different error factors are still comparable.
+ */
+public class AutoBoneSweep {
+
+	private final List<Pair<String, PoseFrames>> recordings;
+	private final float[] targetHeights;
+	private final int threads;
+
+	/**
+	 * Applied to every run before the swept parameters
+	 */
+	public AutoBoneOptimizer optimizer = AutoBoneOptimizer.PROBE;
+	public boolean randomizeFrameOrder = true;
+	/**
+	 * Seeds the frame order of each recording. Every configuration trains on
+	 * the same order, so they're compared on equal terms and a configuration
+	 * scores the same in any sweep with the same seed.
+	 */
+	public long seed = 0L;
+
+	/**
+	 * @param targetHeight the target height for every recording, less than 0
+	 * to detect it from each recording once
+	 */
+	public AutoBoneSweep(
+		List<Pair<String, PoseFrames>> recordings,
+		float targetHeight,
+		int threads
+	) {
+		if (recordings.isEmpty())
+			throw new IllegalArgumentException("No recordings to sweep on");
+		this.recordings = recordings;
+		this.threads = Math.max(1, threads);
+		targetHeights = new float[recordings.size()];
+		AutoBone autoBone = new AutoBone();
+		for (int i = 0; i < targetHeights.length; ++i) {
+			targetHeights[i] = targetHeight >= 0f
+				? targetHeight
+				: autoBone.getTargetHeight(recordings.get(i).getValue());
+		}
+	}
+
+	/**
+	 * Evaluates every configuration
+	 *
+	 * @return the results ranked from best to worst
+	 */
+	public List<Result> run(List<EnumMap<SweepParameter, Double>> configs)
+		throws InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "AutoBone sweep");
+			thread.setDaemon(true);
+			return thread;
+		});
+		AtomicInteger done = new AtomicInteger();
+		try {
+			List<Future<Result>> futures = new FastList<>(configs.size());
+			for (EnumMap<SweepParameter, Double> config : configs) {
+				futures.add(executor.submit(() -> {
+					Result result = evaluate(config);
+					System.out
+						.println(
+							"[Sweep] "
+								+ done.incrementAndGet()
+								+ "/"
+								+ configs.size()
+								+ " "
+								+ result
+						);
+					return result;
+				}));
+			}
+
+			List<Result> results = new FastList<>(configs.size());
+			for (Future<Result> future : futures) {
+				try {
+					results.add(future.get());
+				} catch (ExecutionException e) {
+					// evaluate() catches everything a run can throw
+					throw new IllegalStateException(e.getCause());
+				}
+			}
+			results
+				.sort(
+					Comparator
+						.comparingDouble(Result::getScore)
+						.thenComparingLong(result -> result.runtimeNanos)
+				);
+			return results;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Trains on every recording with the configuration
+	 */
+	public Result evaluate(EnumMap<SweepParameter, Double> config) {
+		Result result = new Result(config);
+		float slideError = 0f;
+		float heightError = 0f;
+		for (int i = 0; i < recordings.size(); ++i) {
+			PoseFrames frames = recordings.get(i).getValue();
+			AutoBone autoBone = new AutoBone();
+			autoBone.optimizer = optimizer;
+			autoBone.randomizeFrameOrder = randomizeFrameOrder;
+			autoBone.setRandomSeed(seed + i);
+			for (Entry<SweepParameter, Double> entry : config.entrySet())
+				entry.getKey().apply(autoBone, entry.getValue());
+
+			long start = System.nanoTime();
+			try {
+				AutoBoneResults results = autoBone
+					.processFrames(frames, false, targetHeights[i], null);
+				result.runtimeNanos += System.nanoTime() - start;
+				slideError += getSlideError(autoBone, frames);
+				heightError += results.getHeightDifference();
+			} catch (Exception e) {
+				result.runtimeNanos += System.nanoTime() - start;
+				result.error = recordings.get(i).getKey() + ": " + e;
+				return result;
+			}
+		}
+		result.slideError = slideError / recordings.size();
+		result.heightError = heightError / recordings.size();
+		if (!Float.isFinite(result.slideError) || !Float.isFinite(result.heightError))
+			result.error = "Invalid lengths";
+		return result;
+	}
+
+	/**
+	 * Average slide of the feet between consecutive frames with the AutoBone's
+	 * current lengths, same as {@link dev.slimevr.autobone.errors.SlideError}
+	 */
+	public static float getSlideError(AutoBone autoBone, PoseFrames frames) {
+		PoseFrameSkeleton skeleton = new PoseFrameSkeleton(frames.getTrackers(), null);
+		autoBone.applyConfig(skeleton.skeletonConfig);
+		Vector3f leftFoot = skeleton.getComputedTracker(TrackerRole.LEFT_FOOT).position;
+		Vector3f rightFoot = skeleton.getComputedTracker(TrackerRole.RIGHT_FOOT).position;
+		Vector3f lastLeftFoot = new Vector3f();
+		Vector3f lastRightFoot = new Vector3f();
+
+		int frameCount = frames.getMaxFrameCount();
+		float sum = 0f;
+		for (int frame = 0; frame < frameCount; ++frame) {
+			skeleton.setCursor(frame);
+			skeleton.updatePose();
+			if (frame > 0) {
+				// Half the distance of each foot, averaged between both feet
+				sum += (leftFoot.distance(lastLeftFoot) + rightFoot.distance(lastRightFoot)) / 4f;
+			}
+			lastLeftFoot.set(leftFoot);
+			lastRightFoot.set(rightFoot);
+		}
+		return frameCount > 1 ? sum / (frameCount - 1) : 0f;
+	}
+
+	public static void writeCsv(List<Result> results, List<SweepParameter> parameters, File file)
+		throws IOException {
+		try (
+			PrintWriter writer = new PrintWriter(
+				Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)
+			)
+		) {
+			StringBuilder header = new StringBuilder(
+				"rank,score,slide_error,height_error,runtime_ms"
+			);
+			for (SweepParameter parameter : parameters)
+				header.append(',').append(parameter.name);
+			writer.println(header.append(",error"));
+
+			for (int i = 0; i < results.size(); ++i) {
+				Result result = results.get(i);
+				StringBuilder line = new StringBuilder();
+				line
+					.append(i + 1)
+					.append(',')
+					.append(format(result.getScore()))
+					.append(',')
+					.append(format(result.slideError))
+					.append(',')
+					.append(format(result.heightError))
+					.append(',')
+					.append(result.runtimeNanos / 1_000_000L);
+				for (SweepParameter parameter : parameters) {
+					Double value = result.config.get(parameter);
+					line.append(',').append(value != null ? format(value) : "");
+				}
+				line.append(',');
+				if (result.error != null)
+					line.append('"').append(result.error.replace("\"", "\"\"")).append('"');
+				writer.println(line);
+			}
+		}
+	}
+
+	public static void writeJson(List<Result> results, File file) throws IOException {
+		JSONArray array = new JSONArray();
+		for (int i = 0; i < results.size(); ++i) {
+			Result result = results.get(i);
+			JSONObject object = new JSONObject();
+			object.put("rank", i + 1);
+			object.put("score", jsonNumber(result.getScore()));
+			object.put("slideError", jsonNumber(result.slideError));
+			object.put("heightError", jsonNumber(result.heightError));
+			object.put("runtimeMs", result.runtimeNanos / 1_000_000L);
+			JSONObject parameters = new JSONObject();
+			for (Entry<SweepParameter, Double> entry : result.config.entrySet())
+				parameters.put(entry.getKey().name, entry.getValue().doubleValue());
+			object.put("parameters", parameters);
+			object.put("error", result.error != null ? result.error : JSONObject.NULL);
+			array.put(object);
+		}
+		Files.write(file.toPath(), array.toString(2).getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static Object jsonNumber(double value) {
+		// JSON has no infinity or NaN
+		return Double.isFinite(value) ? (Object) value : JSONObject.NULL;
+	}
+
+	private static String format(double value) {
+		return Double.isFinite(value) ? String.format(Locale.ROOT, "%.6g", value) : "";
+	}
+
+	public static class Result {
+
+		public final EnumMap<SweepParameter, Double> config;
+		// Averages over the recordings, in meters
+		public float slideError = Float.NaN;
+		public float heightError = Float.NaN;
+		// Total training time over the recordings
+		public long runtimeNanos = 0L;
+		// Why the configuration failed, null if it didn't
+		public String error = null;
+
+		public Result(EnumMap<SweepParameter, Double> config) {
+			this.config = config;
+		}
+
+		/**
+		 * @return the slide error plus the height error, infinite if the
+		 * configuration failed
+		 */
+		public double getScore() {
+			if (error != null)
+				return Double.POSITIVE_INFINITY;
+			return slideError + heightError;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder builder = new StringBuilder();
+			for (Entry<SweepParameter, Double> entry : config.entrySet()) {
+				if (builder.length() > 0)
+					builder.append(", ");
+				builder.append(entry.getKey().name).append('=').append(format(entry.getValue()));
+			}
+			builder.append(" -> ");
+			if (error != null) {
+				builder.append("failed: ").append(error);
+			} else {
+				builder
+					.append("score ")
+					.append(StringUtils.prettyNumber((float) getScore(), 6))
+					.append(" in ")
+					.append(runtimeNanos / 1_000_000L)
+					.append(" ms");
+			}
+			return builder.toString();
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		CommandLineParser parser = new DefaultParser();
+		HelpFormatter formatter = new HelpFormatter();
+		Options options = new Options();
+		options
+			.addOption(
+				new Option("p", "param", true, "values as name=a,b,c or name=min:max[:count]")
+			);
+		options.addOption(new Option("s", "space", true, "file with one name=values per line"));
+		options.addOption(new Option("m", "mode", true, "GRID or RANDOM search (GRID)"));
+		options.addOption(new Option("n", "samples", true, "random search configurations (20)"));
+		options
+			.addOption(new Option(null, "seed", true, "random search and frame order seed (0)"));
+		options.addOption(new Option("t", "threads", true, "configurations at once (CPU count)"));
+		options.addOption(new Option("o", "out", true, "report path without extension"));
+		options.addOption(new Option(null, "target-height", true, "target height (detected)"));
+		options.addOption(new Option(null, "optimizer", true, "AutoBone optimizer (PROBE)"));
+		options.addOption(new Option(null, "ordered", false, "don't shuffle frame pairs"));
+		options.addOption(new Option("h", "help", false, "Show help"));
+
+		CommandLine cmd;
+		try {
+			cmd = parser.parse(options, args);
+		} catch (ParseException e) {
+			System.out.println(e.getMessage());
+			formatter.printHelp("autobone-sweep", options);
+			System.exit(1);
+			return;
+		}
+		if (cmd.hasOption("help")) {
+			formatter.printHelp("autobone-sweep", options);
+			return;
+		}
+
+		List<String> specs = new FastList<>();
+		if (cmd.hasOption("space")) {
+			specs
+				.addAll(
+					Files
+						.readAllLines(
+							new File(cmd.getOptionValue("space")).toPath(),
+							StandardCharsets.UTF_8
+						)
+				);
+		}
+		String[] params = cmd.getOptionValues("param");
+		if (params != null) {
+			for (String param : params)
+				specs.add(param);
+		}
+		SweepSpace space = SweepSpace.parse(specs);
+
+		List<EnumMap<SweepParameter, Double>> configs;
+		if ("random".equalsIgnoreCase(cmd.getOptionValue("mode", "grid"))) {
+			configs = space
+				.random(
+					Integer.parseInt(cmd.getOptionValue("samples", "20")),
+					Long.parseLong(cmd.getOptionValue("seed", "0"))
+				);
+		} else {
+			configs = space.grid();
+		}
+
+		List<Pair<String, PoseFrames>> recordings = new AutoBone().loadRecordings();
+		if (recordings.isEmpty()) {
+			System.out
+				.println(
+					"[Sweep] No recordings found in \"" + AutoBone.getLoadDir().getPath() + "\""
+				);
+			System.exit(1);
+			return;
+		}
+
+		int threads = Integer
+			.parseInt(
+				cmd
+					.getOptionValue(
+						"threads",
+						String.valueOf(Runtime.getRuntime().availableProcessors())
+					)
+			);
+		AutoBoneSweep sweep = new AutoBoneSweep(
+			recordings,
+			Float.parseFloat(cmd.getOptionValue("target-height", "-1")),
+			threads
+		);
+		sweep.optimizer = AutoBoneOptimizer.getByName(cmd.getOptionValue("optimizer", "PROBE"));
+		sweep.randomizeFrameOrder = !cmd.hasOption("ordered");
+		sweep.seed = Long.parseLong(cmd.getOptionValue("seed", "0"));
+
+		System.out
+			.println(
+				"[Sweep] "
+					+ configs.size()
+					+ " configurations on "
+					+ recordings.size()
+					+ " recordings with "
+					+ threads
+					+ " threads"
+			);
+		List<Result> results = sweep.run(configs);
+
+		List<SweepParameter> parameters = new FastList<>();
+		for (SweepSpace.Dimension dimension : space.getDimensions())
+			parameters.add(dimension.parameter);
+		String out = cmd.getOptionValue("out", "AutoBoneSweep");
+		writeCsv(results, parameters, new File(out + ".csv"));
+		writeJson(results, new File(out + ".json"));
+		System.out.println("[Sweep] Report written to " + out + ".csv and " + out + ".json");
+		if (!results.isEmpty())
+			System.out.println("[Sweep] Best: " + results.get(0));
+	}
+}
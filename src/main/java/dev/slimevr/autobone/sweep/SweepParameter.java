@@ -0,0 +1,107 @@
+package dev.slimevr.autobone.sweep;
+
+import dev.slimevr.autobone.AutoBone;
+
+import java.util.function.ObjDoubleConsumer;
+
+
+/**
+ * AutoBone settings a sweep can vary, named like their fields
+ */
+public enum SweepParameter {
+	NUM_EPOCHS("numEpochs", true, (autoBone, value) -> autoBone.numEpochs = (int) value),
+	INITIAL_ADJUST_RATE(
+		"initialAdjustRate",
+		false,
+		(autoBone, value) -> autoBone.initialAdjustRate = (float) value
+	),
+	ADJUST_RATE_MULTIPLIER(
+		"adjustRateMultiplier",
+		false,
+		(autoBone, value) -> autoBone.adjustRateMultiplier = (float) value
+	),
+	CURSOR_INCREMENT(
+		"cursorIncrement",
+		true,
+		(autoBone, value) -> autoBone.cursorIncrement = (int) value
+	),
+	MIN_DATA_DISTANCE(
+		"minDataDistance",
+		true,
+		(autoBone, value) -> autoBone.minDataDistance = (int) value
+	),
+	MAX_DATA_DISTANCE(
+		"maxDataDistance",
+		true,
+		(autoBone, value) -> autoBone.maxDataDistance = (int) value
+	),
+	SLIDE_ERROR_FACTOR(
+		"slideErrorFactor",
+		false,
+		(autoBone, value) -> autoBone.slideErrorFactor = (float) value
+	),
+	OFFSET_SLIDE_ERROR_FACTOR(
+		"offsetSlideErrorFactor",
+		false,
+		(autoBone, value) -> autoBone.offsetSlideErrorFactor = (float) value
+	),
+	FOOT_HEIGHT_OFFSET_ERROR_FACTOR(
+		"footHeightOffsetErrorFactor",
+		false,
+		(autoBone, value) -> autoBone.footHeightOffsetErrorFactor = (float) value
+	),
+	BODY_PROPORTION_ERROR_FACTOR(
+		"bodyProportionErrorFactor",
+		false,
+		(autoBone, value) -> autoBone.bodyProportionErrorFactor = (float) value
+	),
+	HEIGHT_ERROR_FACTOR(
+		"heightErrorFactor",
+		false,
+		(autoBone, value) -> autoBone.heightErrorFactor = (float) value
+	),
+	POSITION_ERROR_FACTOR(
+		"positionErrorFactor",
+		false,
+		(autoBone, value) -> autoBone.positionErrorFactor = (float) value
+	),
+	POSITION_OFFSET_ERROR_FACTOR(
+		"positionOffsetErrorFactor",
+		false,
+		(autoBone, value) -> autoBone.positionOffsetErrorFactor = (float) value
+	),
+	LEARNING_RATE(
+		"learningRate",
+		false,
+		(autoBone, value) -> autoBone.learningRate = (float) value
+	);
+
+	public final String name;
+	public final boolean integer;
+	private final ObjDoubleConsumer<AutoBone> setter;
+
+	SweepParameter(String name, boolean integer, ObjDoubleConsumer<AutoBone> setter) {
+		this.name = name;
+		this.integer = integer;
+		this.setter = setter;
+	}
+
+	/**
+	 * @return the value as it will be applied, integers are rounded
+	 */
+	public double normalize(double value) {
+		return integer ? Math.round(value) : value;
+	}
+
+	public void apply(AutoBone autoBone, double value) {
+		setter.accept(autoBone, normalize(value));
+	}
+
+	public static SweepParameter getByName(String name) {
+		for (SweepParameter parameter : values()) {
+			if (parameter.name.equalsIgnoreCase(name) || parameter.name().equalsIgnoreCase(name))
+				return parameter;
+		}
+		return null;
+	}
+}
@@ -0,0 +1,184 @@
+package dev.slimevr.autobone.sweep;
+
+import io.eiren.util.collections.FastList;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Random;
+
+
+/**
+ * The values a sweep tries for each parameter. Each parameter is given as
+ * {@code name=spec}, where spec is one of
+ * <ul>
+ * <li>{@code a,b,c} to try exactly these values</li>
+ * <li>{@code min:max:count} for count evenly spaced values, or any value in
+ * the range for random search</li>
+ * <li>{@code min:max} for any value in the range, only for random
+ * search</li>
+ * </ul>
+ * Parameters that aren't given keep AutoBone's defaults.
+ */
+public class SweepSpace {
+
+	private final List<Dimension> dimensions = new FastList<>();
+
+	public static SweepSpace parse(List<String> specs) {
+		SweepSpace space = new SweepSpace();
+		for (String spec : specs) {
+			spec = spec.trim();
+			if (spec.isEmpty() || spec.startsWith("#"))
+				continue;
+			space.add(Dimension.parse(spec));
+		}
+		return space;
+	}
+
+	public void add(Dimension dimension) {
+		for (Dimension other : dimensions) {
+			if (other.parameter == dimension.parameter)
+				throw new IllegalArgumentException(
+					"Parameter " + dimension.parameter.name + " is given twice"
+				);
+		}
+		dimensions.add(dimension);
+	}
+
+	public List<Dimension> getDimensions() {
+		return dimensions;
+	}
+
+	/**
+	 * @return every combination of the values of all parameters
+	 */
+	public List<EnumMap<SweepParameter, Double>> grid() {
+		int[] indices = new int[dimensions.size()];
+		int total = 1;
+		for (Dimension dimension : dimensions) {
+			total = Math.multiplyExact(total, dimension.getGridValues().length);
+		}
+
+		List<EnumMap<SweepParameter, Double>> configs = new FastList<>(total);
+		for (int i = 0; i < total; ++i) {
+			EnumMap<SweepParameter, Double> config = new EnumMap<>(SweepParameter.class);
+			for (int d = 0; d < dimensions.size(); ++d) {
+				Dimension dimension = dimensions.get(d);
+				config.put(dimension.parameter, dimension.getGridValues()[indices[d]]);
+			}
+			configs.add(config);
+
+			// Count up like an odometer, the last parameter changes fastest
+			for (int d = dimensions.size() - 1; d >= 0; --d) {
+				if (++indices[d] < dimensions.get(d).getGridValues().length)
+					break;
+				indices[d] = 0;
+			}
+		}
+		return configs;
+	}
+
+	/**
+	 * @return configurations with every parameter drawn independently
+	 */
+	public List<EnumMap<SweepParameter, Double>> random(int samples, long seed) {
+		Random random = new Random(seed);
+		List<EnumMap<SweepParameter, Double>> configs = new FastList<>(samples);
+		for (int i = 0; i < samples; ++i) {
+			EnumMap<SweepParameter, Double> config = new EnumMap<>(SweepParameter.class);
+			for (Dimension dimension : dimensions)
+				config.put(dimension.parameter, dimension.sample(random));
+			configs.add(config);
+		}
+		return configs;
+	}
+
+	public static class Dimension {
+
+		public final SweepParameter parameter;
+		// Null for a range without a count
+		private final double[] values;
+		// Only for ranges
+		private final double min;
+		private final double max;
+
+		private Dimension(SweepParameter parameter, double[] values, double min, double max) {
+			this.parameter = parameter;
+			this.values = values;
+			this.min = min;
+			this.max = max;
+		}
+
+		public static Dimension values(SweepParameter parameter, double... values) {
+			if (values.length == 0)
+				throw new IllegalArgumentException("No values for " + parameter.name);
+			double[] normalized = new double[values.length];
+			for (int i = 0; i < values.length; ++i)
+				normalized[i] = parameter.normalize(values[i]);
+			return new Dimension(parameter, normalized, Double.NaN, Double.NaN);
+		}
+
+		/**
+		 * @param count values for grid search, 0 to only allow random search
+		 */
+		public static Dimension range(SweepParameter parameter, double min, double max, int count) {
+			if (!(min <= max))
+				throw new IllegalArgumentException("Empty range for " + parameter.name);
+			double[] values = null;
+			if (count > 0) {
+				values = new double[count];
+				for (int i = 0; i < count; ++i) {
+					double value = count > 1 ? min + (max - min) * i / (count - 1) : min;
+					values[i] = parameter.normalize(value);
+				}
+			}
+			return new Dimension(parameter, values, min, max);
+		}
+
+		public static Dimension parse(String spec) {
+			int equals = spec.indexOf('=');
+			if (equals < 0)
+				throw new IllegalArgumentException("Expected name=values: " + spec);
+			String name = spec.substring(0, equals).trim();
+			SweepParameter parameter = SweepParameter.getByName(name);
+			if (parameter == null)
+				throw new IllegalArgumentException("Unknown parameter: " + name);
+
+			String valueSpec = spec.substring(equals + 1).trim();
+			try {
+				if (valueSpec.contains(":")) {
+					String[] parts = valueSpec.split(":");
+					if (parts.length < 2 || parts.length > 3)
+						throw new IllegalArgumentException("Expected min:max[:count]: " + spec);
+					int count = parts.length == 3 ? Integer.parseInt(parts[2].trim()) : 0;
+					return range(
+						parameter,
+						Double.parseDouble(parts[0].trim()),
+						Double.parseDouble(parts[1].trim()),
+						count
+					);
+				}
+				String[] parts = valueSpec.split(",");
+				double[] values = new double[parts.length];
+				for (int i = 0; i < parts.length; ++i)
+					values[i] = Double.parseDouble(parts[i].trim());
+				return values(parameter, values);
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Invalid number in " + spec, e);
+			}
+		}
+
+		public double[] getGridValues() {
+			if (values == null)
+				throw new IllegalArgumentException(
+					parameter.name + " is a range without a count, grid search needs min:max:count"
+				);
+			return values;
+		}
+
+		public double sample(Random random) {
+			if (Double.isNaN(min))
+				return values[random.nextInt(values.length)];
+			return parameter.normalize(min + (max - min) * random.nextDouble());
+		}
+	}
+}
@@ -6,6 +6,7 @@ import dev.slimevr.Main;
 import dev.slimevr.bridge.ProtobufMessages.TrackerStatus;
 import dev.slimevr.bridge.ProtobufMessages.*;
 import dev.slimevr.util.ann.VRServerThread;
+import dev.slimevr.vr.processor.skeleton.PoseSnapshot;
 import dev.slimevr.vr.trackers.*;
 import io.eiren.util.ann.Synchronize;
 import io.eiren.util.ann.ThreadSafe;
@@ -46,6 +47,7 @@ public abstract class ProtobufBridge<T extends VRTracker> implements Bridge {
 	@BridgeThread
 	protected void messageReceived(ProtobufMessage message) {
 		inputQueue.add(message);
+		Main.vrServer.newDataAvailable();
 	}
 
 	@ThreadSafe
@@ -91,14 +93,40 @@ public abstract class ProtobufBridge<T extends VRTracker> implements Bridge {
 							// always process at the
 			// speed of the other side
 			return;
+		PoseSnapshot pose = Main.vrServer != null
+			? Main.vrServer.humanPoseProcessor.getPoseSnapshot()
+			: null;
 		for (ShareableTracker tracker : sharedTrackers) {
-			writeTrackerUpdate(tracker);
+			writeTrackerUpdate(tracker, pose);
 		}
 	}
 
+	/**
+	 * Sends computed trackers from the pose snapshot if they're in it, other
+	 * trackers directly
+	 */
 	@VRServerThread
-	protected void writeTrackerUpdate(ShareableTracker localTracker) {
+	protected void writeTrackerUpdate(ShareableTracker localTracker, PoseSnapshot pose) {
 		Position.Builder builder = Position.newBuilder().setTrackerId(localTracker.getTrackerId());
+		int poseIndex = pose != null ? pose.getTrackerIndex(localTracker.getTrackerId()) : -1;
+		if (poseIndex >= 0) {
+			pose.getTrackerPosition(poseIndex, vec1);
+			pose.getTrackerRotation(poseIndex, quat1);
+			builder.setX(vec1.x);
+			builder.setY(vec1.y);
+			builder.setZ(vec1.z);
+			builder.setQx(quat1.getX());
+			builder.setQy(quat1.getY());
+			builder.setQz(quat1.getZ());
+			builder.setQw(quat1.getW());
+		} else {
+			writeTrackerPose(localTracker, builder);
+		}
+		sendMessage(ProtobufMessage.newBuilder().setPosition(builder).build());
+	}
+
+	@VRServerThread
+	private void writeTrackerPose(ShareableTracker localTracker, Position.Builder builder) {
 		if (localTracker.getPosition(vec1)) {
 			builder.setX(vec1.x);
 			builder.setY(vec1.y);
@@ -110,7 +138,6 @@ public abstract class ProtobufBridge<T extends VRTracker> implements Bridge {
 			builder.setQz(quat1.getZ());
 			builder.setQw(quat1.getW());
 		}
-		sendMessage(ProtobufMessage.newBuilder().setPosition(builder).build());
 	}
 
 	@VRServerThread
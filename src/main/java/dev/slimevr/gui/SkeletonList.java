@@ -7,6 +7,7 @@ import dev.slimevr.VRServer;
 import dev.slimevr.gui.swing.EJBagNoStretch;
 import dev.slimevr.util.ann.VRServerThread;
 import dev.slimevr.vr.processor.TransformNode;
+import dev.slimevr.vr.processor.skeleton.PoseSnapshot;
 import dev.slimevr.vr.processor.skeleton.Skeleton;
 import io.eiren.util.StringUtils;
 import io.eiren.util.ann.ThreadSafe;
@@ -20,15 +21,18 @@ import java.util.List;
 public class SkeletonList extends EJBagNoStretch {
 
 	private static final long UPDATE_DELAY = 50;
+	private final VRServer server;
 	private final VRServerGUI gui;
 	private final List<NodeStatus> nodes = new FastList<>();
 	Quaternion q = new Quaternion();
 	Vector3f v = new Vector3f();
 	float[] angles = new float[3];
 	private long lastUpdate = 0;
+	private Skeleton skeleton;
 
 	public SkeletonList(VRServer server, VRServerGUI gui) {
 		super(false, true);
+		this.server = server;
 		this.gui = gui;
 
 		setAlignmentY(TOP_ALIGNMENT);
@@ -40,6 +44,7 @@ public class SkeletonList extends EJBagNoStretch {
 		java.awt.EventQueue.invokeLater(() -> {
 			removeAll();
 			nodes.clear();
+			skeleton = newSkeleton;
 
 			add(new JLabel("Joint"), c(0, 0, 2));
 			add(new JLabel("X"), c(1, 0, 2));
@@ -65,15 +70,22 @@ public class SkeletonList extends EJBagNoStretch {
 			return;
 		lastUpdate = System.currentTimeMillis();
 		java.awt.EventQueue.invokeLater(() -> {
-			for (NodeStatus node : nodes) {
-				node.update();
+			PoseSnapshot snapshot = server.humanPoseProcessor.acquirePoseSnapshot();
+			if (snapshot == null)
+				return;
+			// Rows are rebuilt when the skeleton changes, wait for its pose
+			if (snapshot.getSkeleton() == skeleton) {
+				for (NodeStatus node : nodes) {
+					node.update(snapshot);
+				}
 			}
+			snapshot.release();
 		});
 	}
 
 	private class NodeStatus {
 
-		TransformNode n;
+		final int index;
 		JLabel x;
 		JLabel y;
 		JLabel z;
@@ -82,7 +94,7 @@ public class SkeletonList extends EJBagNoStretch {
 		JLabel a3;
 
 		public NodeStatus(TransformNode node, int n) {
-			this.n = node;
+			this.index = n - 1;
 			add(new JLabel(node.getName()), c(0, n, 2, GridBagConstraints.FIRST_LINE_START));
 			add(x = new JLabel("0"), c(1, n, 2, GridBagConstraints.FIRST_LINE_START));
 			add(y = new JLabel("0"), c(2, n, 2, GridBagConstraints.FIRST_LINE_START));
@@ -92,9 +104,9 @@ public class SkeletonList extends EJBagNoStretch {
 			add(a3 = new JLabel("0"), c(6, n, 2, GridBagConstraints.FIRST_LINE_START));
 		}
 
-		public void update() {
-			n.worldTransform.getTranslation(v);
-			n.worldTransform.getRotation(q);
+		public void update(PoseSnapshot snapshot) {
+			snapshot.getNodePosition(index, v);
+			snapshot.getNodeRotation(index, q);
 			q.toAngles(angles);
 
 			x.setText(StringUtils.prettyNumber(v.x, 2));
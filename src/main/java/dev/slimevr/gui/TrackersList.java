@@ -497,7 +497,8 @@ public class TrackersList extends EJBoxNoStretch {
 						);
 				}
 				if (rotQuat != null) {
-					imu.rotQuaternion.toAngles(angles);
+					imu.getRawRotation(q);
+					q.toAngles(angles);
 					rotQuat
 						.setText(
 							StringUtils.prettyNumber(angles[0] * FastMath.RAD_TO_DEG, 0)
@@ -0,0 +1,95 @@
+package dev.slimevr.poserecorder;
+
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+import dev.slimevr.vr.processor.TransformNode;
+
+
+/**
+ * Local transforms of a skeleton's nodes for every frame of a recording,
+ * packed into primitive arrays. Tracker rotations never change between
+ * training epochs, only bone lengths do, so frames are solved from the
+ * trackers once and then only loaded.
+ * <p>
+ * Holds the local rotation of every node and the translation of root nodes,
+ * the other translations come from the bone lengths. Only valid for
+ * skeletons with the same trackers and toggles as the one it was made from.
+ * Loading doesn't change the cache, so skeletons on several threads can share
+ * one.
+ *
+ * @see PoseFrameSkeleton#createPoseCache(int)
+ */
+public class PoseFrameCache {
+
+	private final int frameCount;
+	private final int nodeCount;
+	private final int[] roots;
+	private final float[] rotations;
+	private final float[] translations;
+
+	PoseFrameCache(TransformNode[] nodes, int frameCount) {
+		this.frameCount = frameCount;
+		this.nodeCount = nodes.length;
+		int rootCount = 0;
+		for (TransformNode node : nodes) {
+			if (node.getParent() == null)
+				rootCount++;
+		}
+		roots = new int[rootCount];
+		rootCount = 0;
+		for (int i = 0; i < nodes.length; ++i) {
+			if (nodes[i].getParent() == null)
+				roots[rootCount++] = i;
+		}
+		rotations = new float[frameCount * nodeCount * 4];
+		translations = new float[frameCount * roots.length * 3];
+	}
+
+	void store(int frame, TransformNode[] nodes) {
+		int r = frame * nodeCount * 4;
+		for (TransformNode node : nodes) {
+			Quaternion rotation = node.localTransform.getRotation();
+			rotations[r++] = rotation.getX();
+			rotations[r++] = rotation.getY();
+			rotations[r++] = rotation.getZ();
+			rotations[r++] = rotation.getW();
+		}
+		int t = frame * roots.length * 3;
+		for (int root : roots) {
+			Vector3f translation = nodes[root].localTransform.getTranslation();
+			translations[t++] = translation.x;
+			translations[t++] = translation.y;
+			translations[t++] = translation.z;
+		}
+	}
+
+	/**
+	 * Sets the local transforms of the nodes to the given frame
+	 *
+	 * @param nodes nodes in the same order as when the cache was made
+	 * @return false if the frame isn't cached
+	 */
+	public boolean load(int frame, TransformNode[] nodes) {
+		if (frame < 0 || frame >= frameCount || nodes.length != nodeCount)
+			return false;
+		int r = frame * nodeCount * 4;
+		for (TransformNode node : nodes) {
+			node.localTransform
+				.getRotation()
+				.set(rotations[r], rotations[r + 1], rotations[r + 2], rotations[r + 3]);
+			r += 4;
+		}
+		int t = frame * roots.length * 3;
+		for (int root : roots) {
+			nodes[root].localTransform
+				.getTranslation()
+				.set(translations[t], translations[t + 1], translations[t + 2]);
+			t += 3;
+		}
+		return true;
+	}
+
+	public int getFrameCount() {
+		return frameCount;
+	}
+}
@@ -2,6 +2,7 @@ package dev.slimevr.poserecorder;
 
 import dev.slimevr.VRServer;
 import dev.slimevr.vr.processor.ComputedHumanPoseTracker;
+import dev.slimevr.vr.processor.TransformNode;
 import dev.slimevr.vr.processor.skeleton.HumanSkeleton;
 import dev.slimevr.vr.processor.skeleton.SkeletonConfigValue;
 import dev.slimevr.vr.trackers.Tracker;
@@ -13,6 +14,8 @@ import java.util.Map;
 public class PoseFrameSkeleton extends HumanSkeleton {
 
 	private int frameCursor = 0;
+	private PoseFrameCache poseCache;
+	private TransformNode[] poseCacheNodes;
 
 	protected PoseFrameSkeleton(List<? extends ComputedHumanPoseTracker> computedTrackers) {
 		super(computedTrackers);
@@ -75,6 +78,41 @@ public class PoseFrameSkeleton extends HumanSkeleton {
 		return frameCursor;
 	}
 
+	/**
+	 * Solves the local transforms of the first frames once, for replaying
+	 * them while only bone lengths change
+	 */
+	public PoseFrameCache createPoseCache(int frameCount) {
+		TransformNode[] nodes = getAllNodes();
+		PoseFrameCache cache = new PoseFrameCache(nodes, frameCount);
+		int cursor = frameCursor;
+		for (int frame = 0; frame < frameCount; ++frame) {
+			frameCursor = frame;
+			super.updateLocalTransforms();
+			cache.store(frame, nodes);
+		}
+		frameCursor = cursor;
+		return cache;
+	}
+
+	/**
+	 * Loads cached frames instead of solving them from the trackers
+	 *
+	 * @param cache made by a skeleton with the same trackers and toggles, null
+	 * to solve from the trackers again
+	 */
+	public void setPoseCache(PoseFrameCache cache) {
+		poseCache = cache;
+		poseCacheNodes = cache != null ? getAllNodes() : null;
+	}
+
+	@Override
+	protected void updateLocalTransforms() {
+		if (poseCache != null && poseCache.load(frameCursor, poseCacheNodes))
+			return;
+		super.updateLocalTransforms();
+	}
+
 	// Get tracker for specific frame
 	@Override
 	protected Tracker trackerPreUpdate(Tracker tracker) {
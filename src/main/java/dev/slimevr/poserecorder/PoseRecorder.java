@@ -1,6 +1,7 @@
 package dev.slimevr.poserecorder;
 
 import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
@@ -28,6 +29,22 @@ public class PoseRecorder {
 		}
 	}
 
+	/**
+	 * Frames of all recorded trackers for one tick, as streamed while
+	 * recording
+	 */
+	public static class StreamedFrame {
+
+		/** Index of the frame in the recording */
+		public final int cursor;
+		public final TrackerFrame[] frames;
+
+		public StreamedFrame(int cursor, TrackerFrame[] frames) {
+			this.cursor = cursor;
+			this.frames = frames;
+		}
+	}
+
 	protected PoseFrames poseFrame = null;
 
 	protected int numFrames = -1;
@@ -37,6 +54,8 @@ public class PoseRecorder {
 
 	protected CompletableFuture<PoseFrames> currentRecording;
 	protected Consumer<RecordingProgress> currentFrameCallback;
+	protected Queue<StreamedFrame> currentFrameQueue;
+	protected int droppedFrames = 0;
 
 	protected final VRServer server;
 	FastList<Pair<Tracker, PoseFrameTracker>> trackers = new FastList<Pair<Tracker, PoseFrameTracker>>();
@@ -84,9 +103,20 @@ public class PoseRecorder {
 			// A stopped recording will be accounted for by an empty "trackers"
 			// list
 			int cursor = frameCursor++;
-			for (Pair<Tracker, PoseFrameTracker> tracker : trackers) {
+			Queue<StreamedFrame> frameQueue = currentFrameQueue;
+			TrackerFrame[] frames = frameQueue != null ? new TrackerFrame[trackers.size()] : null;
+			for (int i = 0; i < trackers.size(); ++i) {
+				Pair<Tracker, PoseFrameTracker> tracker = trackers.get(i);
 				// Add a frame for each tracker
-				tracker.getRight().addFrame(cursor, tracker.getLeft());
+				TrackerFrame frame = tracker.getRight().addFrame(cursor, tracker.getLeft());
+				if (frames != null)
+					frames[i] = frame;
+			}
+
+			// Never wait for a consumer on the server thread, a full queue
+			// drops the frame from the stream but not from the recording
+			if (frameQueue != null && !frameQueue.offer(new StreamedFrame(cursor, frames))) {
+				droppedFrames++;
 			}
 
 			if (currentFrameCallback != null) {
@@ -125,6 +155,22 @@ public class PoseRecorder {
 		long intervalMs,
 		List<Tracker> trackers,
 		Consumer<RecordingProgress> frameCallback
+	) {
+		return startFrameRecording(numFrames, intervalMs, trackers, frameCallback, null);
+	}
+
+	/**
+	 * @param frameQueue receives the frames of all recorded trackers each
+	 * tick, in the order of the recording's trackers. Must not block, frames
+	 * are left out of the stream when it's full, the cursors of the following
+	 * frames show the gap.
+	 */
+	public synchronized Future<PoseFrames> startFrameRecording(
+		int numFrames,
+		long intervalMs,
+		List<Tracker> trackers,
+		Consumer<RecordingProgress> frameCallback,
+		Queue<StreamedFrame> frameQueue
 	) {
 		if (numFrames < 1) {
 			throw new IllegalArgumentException("numFrames must at least have a value of 1");
@@ -178,6 +224,8 @@ public class PoseRecorder {
 			);
 
 		currentFrameCallback = frameCallback;
+		currentFrameQueue = frameQueue;
+		droppedFrames = 0;
 		currentRecording = new CompletableFuture<PoseFrames>();
 		return currentRecording;
 	}
@@ -188,6 +236,7 @@ public class PoseRecorder {
 			// Stop the recording, returning the frames recorded
 			currentRecording.complete(poseFrame);
 		}
+		logDroppedFrames();
 
 		numFrames = -1;
 		frameCursor = 0;
@@ -201,6 +250,7 @@ public class PoseRecorder {
 			// Cancel the current recording and return nothing
 			currentRecording.cancel(true);
 		}
+		logDroppedFrames();
 
 		numFrames = -1;
 		frameCursor = 0;
@@ -208,6 +258,19 @@ public class PoseRecorder {
 		poseFrame = null;
 	}
 
+	private void logDroppedFrames() {
+		if (droppedFrames > 0) {
+			LogManager
+				.warning(
+					"[PoseRecorder] "
+						+ droppedFrames
+						+ " frames were left out of the stream, the consumer was too slow"
+				);
+		}
+		droppedFrames = 0;
+		currentFrameQueue = null;
+	}
+
 	public synchronized boolean isReadyToRecord() {
 		return server.getTrackersCount() > 0;
 	}
@@ -2,13 +2,15 @@ package dev.slimevr.posestreamer;
 
 import com.jme3.math.FastMath;
 import com.jme3.math.Quaternion;
-import com.jme3.math.Transform;
 import com.jme3.math.Vector3f;
 import dev.slimevr.vr.processor.TransformNode;
+import dev.slimevr.vr.processor.skeleton.PoseSnapshot;
 import dev.slimevr.vr.processor.skeleton.Skeleton;
 import org.apache.commons.lang3.StringUtils;
 
 import java.io.*;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
 
 public class BVHFileStream extends PoseDataStream {
@@ -22,9 +24,12 @@ public class BVHFileStream extends PoseDataStream {
 
 	private float[] angleBuf = new float[3];
 	private Quaternion rotBuf = new Quaternion();
+	private final Vector3f posBuf = new Vector3f();
 
 	private Skeleton wrappedSkeleton;
 	private TransformNodeWrapper rootNode;
+	// Indices of the skeleton's nodes in its pose snapshots
+	private final Map<TransformNode, Integer> nodeIndices = new IdentityHashMap<>();
 
 	public BVHFileStream(OutputStream outputStream) {
 		super(outputStream);
@@ -65,6 +70,12 @@ public class BVHFileStream extends PoseDataStream {
 		wrappedSkeleton = skeleton;
 		rootNode = wrapper;
 
+		nodeIndices.clear();
+		TransformNode[] nodes = skeleton.getAllNodes();
+		for (int i = 0; i < nodes.length; ++i) {
+			nodeIndices.put(nodes[i], i);
+		}
+
 		return wrapper;
 	}
 
@@ -197,10 +208,23 @@ public class BVHFileStream extends PoseDataStream {
 		return angles;
 	}
 
-	private void writeNodeHierarchyRotation(TransformNodeWrapper node, Quaternion inverseRootRot)
-		throws IOException {
-		Transform transform = node.worldTransform;
+	private Quaternion getWorldRotation(
+		TransformNodeWrapper node,
+		PoseSnapshot pose,
+		Quaternion store
+	) {
+		Integer index = pose != null ? nodeIndices.get(node.wrappedNode) : null;
+		if (index != null) {
+			return pose.getNodeRotation(index, store);
+		}
+		return node.worldTransform.getRotation(store);
+	}
 
+	private void writeNodeHierarchyRotation(
+		TransformNodeWrapper node,
+		Quaternion inverseRootRot,
+		PoseSnapshot pose
+	) throws IOException {
 		/*
 		 * if (node.hasReversedHierarchy()) { for (TransformNodeWrapper
 		 * childNode : node.children) { // If the hierarchy is fully reversed,
@@ -209,7 +233,7 @@ public class BVHFileStream extends PoseDataStream {
 		 * childNode.worldTransform; break; } } }
 		 */
 
-		rotBuf = transform.getRotation(rotBuf);
+		rotBuf = getWorldRotation(node, pose, rotBuf);
 
 		// Adjust to local rotation
 		if (inverseRootRot != null) {
@@ -234,7 +258,8 @@ public class BVHFileStream extends PoseDataStream {
 
 		// Get inverse rotation for child local rotations
 		if (!node.children.isEmpty()) {
-			Quaternion inverseRot = transform.getRotation().inverse();
+			Quaternion inverseRot = getWorldRotation(node, pose, new Quaternion())
+				.inverseLocal();
 			for (TransformNodeWrapper childNode : node.children) {
 				if (childNode.children.isEmpty()) {
 					// If it's an end node, skip
@@ -243,20 +268,32 @@ public class BVHFileStream extends PoseDataStream {
 
 				// Add spacing
 				writer.write(" ");
-				writeNodeHierarchyRotation(childNode, inverseRot);
+				writeNodeHierarchyRotation(childNode, inverseRot, pose);
 			}
 		}
 	}
 
 	@Override
 	public void writeFrame(Skeleton skeleton) throws IOException {
+		writeFrame(skeleton, null);
+	}
+
+	@Override
+	public void writeFrame(PoseSnapshot pose) throws IOException {
+		writeFrame(pose.getSkeleton(), pose);
+	}
+
+	private void writeFrame(Skeleton skeleton, PoseSnapshot pose) throws IOException {
 		if (skeleton == null) {
 			throw new NullPointerException("skeleton must not be null");
 		}
 
 		TransformNodeWrapper rootNode = wrapSkeletonIfNew(skeleton);
 
-		Vector3f rootPos = rootNode.worldTransform.getTranslation();
+		Integer rootIndex = pose != null ? nodeIndices.get(rootNode.wrappedNode) : null;
+		Vector3f rootPos = rootIndex != null
+			? pose.getNodePosition(rootIndex, posBuf)
+			: rootNode.worldTransform.getTranslation();
 
 		// Write root position
 		writer
@@ -268,7 +305,7 @@ public class BVHFileStream extends PoseDataStream {
 					+ rootPos.getZ() * POSITION_SCALE
 					+ " "
 			);
-		writeNodeHierarchyRotation(rootNode, null);
+		writeNodeHierarchyRotation(rootNode, null, pose);
 
 		writer.newLine();
 
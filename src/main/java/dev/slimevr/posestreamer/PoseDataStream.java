@@ -1,5 +1,6 @@
 package dev.slimevr.posestreamer;
 
+import dev.slimevr.vr.processor.skeleton.PoseSnapshot;
 import dev.slimevr.vr.processor.skeleton.Skeleton;
 
 import java.io.*;
@@ -27,6 +28,14 @@ public abstract class PoseDataStream implements AutoCloseable {
 
 	abstract void writeFrame(Skeleton skeleton) throws IOException;
 
+	/**
+	 * Writes the pose of a snapshot, streams that don't support snapshots
+	 * read its skeleton instead
+	 */
+	void writeFrame(PoseSnapshot pose) throws IOException {
+		writeFrame(pose.getSkeleton());
+	}
+
 	public void writeFooter(Skeleton skeleton) throws IOException {
 	}
 
@@ -1,5 +1,6 @@
 package dev.slimevr.posestreamer;
 
+import dev.slimevr.vr.processor.skeleton.PoseSnapshot;
 import dev.slimevr.vr.processor.skeleton.Skeleton;
 import io.eiren.util.logging.LogManager;
 
@@ -24,13 +25,26 @@ public class PoseStreamer {
 		}
 
 		try {
-			poseFileStream.writeFrame(skeleton);
+			PoseSnapshot pose = getPoseSnapshot();
+			if (pose != null) {
+				poseFileStream.writeFrame(pose);
+			} else {
+				poseFileStream.writeFrame(skeleton);
+			}
 		} catch (Exception e) {
 			// Handle any exceptions without crashing the program
 			LogManager.severe("[PoseStreamer] Exception while saving frame", e);
 		}
 	}
 
+	/**
+	 * @return the published pose of the skeleton to write, or null to read
+	 * the skeleton itself
+	 */
+	protected PoseSnapshot getPoseSnapshot() {
+		return null;
+	}
+
 	public synchronized long getFrameInterval() {
 		return frameRecordingInterval;
 	}
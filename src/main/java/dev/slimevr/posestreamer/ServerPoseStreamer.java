@@ -2,6 +2,7 @@ package dev.slimevr.posestreamer;
 
 import dev.slimevr.VRServer;
 import dev.slimevr.util.ann.VRServerThread;
+import dev.slimevr.vr.processor.skeleton.PoseSnapshot;
 import dev.slimevr.vr.processor.skeleton.Skeleton;
 
 
@@ -27,4 +28,11 @@ public class ServerPoseStreamer extends TickPoseStreamer {
 	public void onTick() {
 		super.doTick();
 	}
+
+	@VRServerThread
+	@Override
+	protected PoseSnapshot getPoseSnapshot() {
+		PoseSnapshot pose = server.humanPoseProcessor.getPoseSnapshot();
+		return pose != null && pose.getSkeleton() == skeleton ? pose : null;
+	}
 }
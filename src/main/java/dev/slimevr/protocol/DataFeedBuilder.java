@@ -4,9 +4,10 @@ import com.google.flatbuffers.FlatBufferBuilder;
 import com.jme3.math.Quaternion;
 import com.jme3.math.Vector3f;
 import dev.slimevr.vr.Device;
-import dev.slimevr.vr.processor.skeleton.BoneInfo;
+import dev.slimevr.vr.processor.skeleton.PoseSnapshot;
 import dev.slimevr.vr.trackers.*;
 import solarxr_protocol.data_feed.Bone;
+import solarxr_protocol.data_feed.DataFeedConfigT;
 import solarxr_protocol.data_feed.DataFeedUpdate;
 import solarxr_protocol.data_feed.device_data.DeviceData;
 import solarxr_protocol.data_feed.device_data.DeviceDataMaskT;
@@ -274,26 +275,26 @@ public class DataFeedBuilder {
 		return DataFeedUpdate.createDevicesVector(fbb, devicesDataOffsets);
 	}
 
+	/**
+	 * @param pose bones to send, none if null
+	 */
 	public static int createBonesData(
 		FlatBufferBuilder fbb,
 		boolean shouldSend,
-		List<BoneInfo> boneInfos
+		PoseSnapshot pose
 	) {
 		if (!shouldSend) {
 			return 0;
 		}
 
-		var boneOffsets = new int[boneInfos.size()];
-		for (var i = 0; i < boneInfos.size(); ++i) {
-			var bi = boneInfos.get(i);
-
-			var headPosG = bi.tailNode.getParent().worldTransform.getTranslation();
-			var rotG = bi.getGlobalRotation();
-
-			// TODO: figure out why this value is stale, so that we don't need
-			// to recalculate it all the time, since thats not performant.
-			bi.updateLength();
-			var length = bi.length;
+		var boneCount = pose != null ? pose.getBoneCount() : 0;
+		var boneOffsets = new int[boneCount];
+		var headPosG = new Vector3f();
+		var rotG = new Quaternion();
+		for (var i = 0; i < boneCount; ++i) {
+			pose.getBoneHeadPosition(i, headPosG);
+			pose.getBoneRotation(i, rotG);
+			var length = pose.getBoneLength(i);
 
 			Bone.startBone(fbb);
 
@@ -308,7 +309,7 @@ public class DataFeedBuilder {
 			Bone.addRotationG(fbb, rotGOffset);
 			var headPosGOffset = Vec3f.createVec3f(fbb, headPosG.x, headPosG.y, headPosG.z);
 			Bone.addHeadPositionG(fbb, headPosGOffset);
-			Bone.addBodyPart(fbb, bi.boneType.bodyPart);
+			Bone.addBodyPart(fbb, pose.getBoneType(i).bodyPart);
 			Bone.addBoneLength(fbb, length);
 
 			boneOffsets[i] = Bone.endBone(fbb);
@@ -316,4 +317,21 @@ public class DataFeedBuilder {
 
 		return DataFeedUpdate.createBonesVector(fbb, boneOffsets);
 	}
+
+	public static int createDataFeedUpdate(
+		FlatBufferBuilder fbb,
+		DataFeedConfigT config,
+		List<Device> devices,
+		List<Tracker> syntheticTrackers,
+		PoseSnapshot pose
+	) {
+		int devicesOffset = DataFeedBuilder
+			.createDevicesData(fbb, config.getDataMask(), devices);
+		int trackersOffset = DataFeedBuilder
+			.createSyntheticTrackersData(fbb, config.getSyntheticTrackersMask(), syntheticTrackers);
+		int bonesOffset = DataFeedBuilder
+			.createBonesData(fbb, config.getBoneMask(), pose);
+
+		return DataFeedUpdate.createDataFeedUpdate(fbb, devicesOffset, trackersOffset, bonesOffset);
+	}
 }
@@ -1,6 +1,7 @@
 package dev.slimevr.protocol;
 
 import com.google.flatbuffers.FlatBufferBuilder;
+import dev.slimevr.vr.processor.skeleton.PoseSnapshot;
 import io.eiren.util.logging.LogManager;
 import solarxr_protocol.MessageBundle;
 import solarxr_protocol.data_feed.*;
@@ -67,34 +68,25 @@ public class DataFeedHandler extends ProtocolHandler<DataFeedMessageHeader> {
 	}
 
 	public int buildDatafeed(FlatBufferBuilder fbb, DataFeedConfigT config) {
-		int devicesOffset = DataFeedBuilder
-			.createDevicesData(
-				fbb,
-				config.getDataMask(),
-				this.api.server
-					.getDeviceManager()
-					.getDevices()
-			);
-		int trackersOffset = DataFeedBuilder
-			.createSyntheticTrackersData(
-				fbb,
-				config.getSyntheticTrackersMask(),
-				this.api.server
-					.getAllTrackers()
-					.stream()
-					.filter(tracker -> tracker.get().getDevice() == null)
-					.collect(Collectors.toList())
-			);
-
-		var s = this.api.server.humanPoseProcessor.getSkeleton();
-		int bonesOffset = DataFeedBuilder
-			.createBonesData(
-				fbb,
-				config.getBoneMask(),
-				s.currentBoneInfo
-			);
-
-		return DataFeedUpdate.createDataFeedUpdate(fbb, devicesOffset, trackersOffset, bonesOffset);
+		// Polls come from connection threads, so always take a reference
+		PoseSnapshot pose = this.api.server.humanPoseProcessor.acquirePoseSnapshot();
+		try {
+			return DataFeedBuilder
+				.createDataFeedUpdate(
+					fbb,
+					config,
+					this.api.server.getDeviceManager().getDevices(),
+					this.api.server
+						.getAllTrackers()
+						.stream()
+						.filter(tracker -> tracker.get().getDevice() == null)
+						.collect(Collectors.toList()),
+					pose
+				);
+		} finally {
+			if (pose != null)
+				pose.release();
+		}
 	}
 
 	public void sendDataFeedUpdate() {
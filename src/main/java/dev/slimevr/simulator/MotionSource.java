@@ -0,0 +1,19 @@
+package dev.slimevr.simulator;
+
+import com.jme3.math.Quaternion;
+import io.eiren.util.ann.ThreadSafe;
+
+
+/**
+ * Supplies the rotations simulated sensors stream to the server
+ */
+public interface MotionSource {
+
+	/**
+	 * @param sensor index of the sensor in the whole fleet
+	 * @param timeNanos time since the simulation started
+	 * @param store quaternion to write the sensor's raw IMU rotation to
+	 */
+	@ThreadSafe
+	void getRotation(int sensor, long timeNanos, Quaternion store);
+}
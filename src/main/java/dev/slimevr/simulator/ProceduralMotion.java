@@ -0,0 +1,24 @@
+package dev.slimevr.simulator;
+
+import com.jme3.math.FastMath;
+import com.jme3.math.Quaternion;
+
+
+/**
+ * Slow sinusoidal swinging on all axes, every sensor with a different phase so
+ * no two sensors send the same rotation
+ */
+public class ProceduralMotion implements MotionSource {
+
+	@Override
+	public void getRotation(int sensor, long timeNanos, Quaternion store) {
+		float t = timeNanos / 1e9f;
+		float phase = sensor * 0.37f;
+		store
+			.fromAngles(
+				0.6f * FastMath.sin(FastMath.TWO_PI * 0.5f * t + phase),
+				0.3f * FastMath.sin(FastMath.TWO_PI * 0.2f * t + phase),
+				0.4f * FastMath.sin(FastMath.TWO_PI * 0.7f * t + phase)
+			);
+	}
+}
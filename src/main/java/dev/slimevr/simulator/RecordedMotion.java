@@ -0,0 +1,78 @@
+package dev.slimevr.simulator;
+
+import com.jme3.math.FastMath;
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+import dev.slimevr.poserecorder.PoseFrameIO;
+import dev.slimevr.poserecorder.PoseFrameTracker;
+import dev.slimevr.poserecorder.PoseFrames;
+import dev.slimevr.poserecorder.TrackerFrame;
+import dev.slimevr.poserecorder.TrackerFrameData;
+import io.eiren.util.collections.FastList;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+
+/**
+ * Loops the tracker rotations of a recording, sensors are assigned to the
+ * recorded trackers round robin
+ */
+public class RecordedMotion implements MotionSource {
+
+	/**
+	 * Inverse of the IMU to SteamVR axes change the UDP server applies, so the
+	 * server ends up with the recorded rotations
+	 */
+	private static final Quaternion serverOffsetInverse = new Quaternion()
+		.fromAngleAxis(-FastMath.HALF_PI, Vector3f.UNIT_X)
+		.inverse();
+
+	private final Quaternion[][] rotations;
+	private final long frameIntervalNanos;
+
+	public RecordedMotion(PoseFrames frames, long frameIntervalMs) {
+		List<Quaternion[]> trackers = new FastList<>();
+		for (PoseFrameTracker tracker : frames.getTrackers()) {
+			int frameCount = tracker.getFrameCount();
+			if (frameCount == 0)
+				continue;
+			Quaternion[] trackerRotations = new Quaternion[frameCount];
+			boolean hasRotation = false;
+			for (int i = 0; i < frameCount; ++i) {
+				TrackerFrame frame = tracker.safeGetFrame(i);
+				if (frame != null && frame.hasData(TrackerFrameData.ROTATION)) {
+					trackerRotations[i] = serverOffsetInverse.mult(frame.rotation);
+					hasRotation = true;
+				} else {
+					trackerRotations[i] = new Quaternion();
+				}
+			}
+			if (hasRotation)
+				trackers.add(trackerRotations);
+		}
+		if (trackers.isEmpty())
+			throw new IllegalArgumentException("Recording has no tracker rotations");
+		this.rotations = trackers.toArray(new Quaternion[0][]);
+		this.frameIntervalNanos = Math.max(1L, frameIntervalMs) * 1000000L;
+	}
+
+	public static RecordedMotion load(File file, long frameIntervalMs) throws IOException {
+		PoseFrames frames = PoseFrameIO.readFromFile(file);
+		if (frames == null)
+			throw new IOException("Can't read recording " + file);
+		return new RecordedMotion(frames, frameIntervalMs);
+	}
+
+	@Override
+	public void getRotation(int sensor, long timeNanos, Quaternion store) {
+		Quaternion[] trackerRotations = rotations[sensor % rotations.length];
+		int frame = (int) ((timeNanos / frameIntervalNanos) % trackerRotations.length);
+		store.set(trackerRotations[frame]);
+	}
+
+	public int getTrackerCount() {
+		return rotations.length;
+	}
+}
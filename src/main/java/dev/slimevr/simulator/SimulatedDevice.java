@@ -0,0 +1,227 @@
+package dev.slimevr.simulator;
+
+import com.jme3.math.Quaternion;
+import dev.slimevr.vr.trackers.udp.UDPPacket17RotationData;
+import dev.slimevr.vr.trackers.udp.UDPProtocolParser;
+import io.eiren.util.ann.ThreadSafe;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Virtual SlimeVR tracker board speaking the UDP protocol: handshake, sensor
+ * info, rotation data, battery level and ping replies.
+ * <p>
+ * Must be updated by a single thread, only the statistics can be read from
+ * others.
+ */
+public class SimulatedDevice {
+
+	private static final long HANDSHAKE_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+	private static final long BATTERY_INTERVAL = TimeUnit.SECONDS.toNanos(5);
+	private static final int FIRMWARE_BUILD = 10;
+	private static final int SEND_TIMES_MASK = 4095;
+
+	private final int index;
+	private final int sensors;
+	private final int firstSensor;
+	private final DatagramChannel channel;
+	private final ByteBuffer sendBuffer = ByteBuffer.allocate(512).order(ByteOrder.BIG_ENDIAN);
+	private final ByteBuffer receiveBuffer = ByteBuffer
+		.allocate(512)
+		.order(ByteOrder.BIG_ENDIAN);
+	private final Quaternion rotation = new Quaternion();
+	/**
+	 * Send time of recent packets by packet number
+	 */
+	private final long[] sendTimes = new long[SEND_TIMES_MASK + 1];
+	private SocketAddress serverAddress;
+	private long packetNumber = 0;
+	private long lastHandshake = 0;
+	private long lastBattery = 0;
+	private volatile boolean connected = false;
+	private volatile long sentPackets = 0;
+	private volatile long answeredPings = 0;
+
+	/**
+	 * @param firstSensor fleet-wide index of this device's first sensor
+	 * @param localAddress address to send from, the server tells devices
+	 * apart by their address
+	 */
+	public SimulatedDevice(
+		int index,
+		int sensors,
+		int firstSensor,
+		InetAddress localAddress,
+		SocketAddress serverAddress
+	)
+		throws IOException {
+		this.index = index;
+		this.sensors = sensors;
+		this.firstSensor = firstSensor;
+		this.serverAddress = serverAddress;
+		this.channel = DatagramChannel.open();
+		channel.bind(new InetSocketAddress(localAddress, 0));
+		channel.configureBlocking(false);
+	}
+
+	/**
+	 * Handles the server's packets, then sends what's due: handshakes until
+	 * the server answers, after that one rotation per sensor and the battery
+	 * level now and then
+	 *
+	 * @param now {@link System#nanoTime()}
+	 * @param elapsed time since the simulation started
+	 */
+	public void update(long now, long elapsed, MotionSource motion) throws IOException {
+		receive();
+		if (!connected) {
+			if (now - lastHandshake >= HANDSHAKE_INTERVAL || lastHandshake == 0) {
+				lastHandshake = now;
+				sendHandshake();
+			}
+			return;
+		}
+		for (int i = 0; i < sensors; ++i) {
+			motion.getRotation(firstSensor + i, elapsed, rotation);
+			sendRotation(i, now);
+		}
+		if (now - lastBattery >= BATTERY_INTERVAL) {
+			lastBattery = now;
+			sendBattery();
+		}
+	}
+
+	private void receive() throws IOException {
+		while (true) {
+			receiveBuffer.clear();
+			SocketAddress sender = channel.receive(receiveBuffer);
+			if (sender == null)
+				break;
+			receiveBuffer.flip();
+			if (receiveBuffer.remaining() < 4)
+				continue;
+			if (receiveBuffer.get(0) == UDPProtocolParser.PACKET_HANDSHAKE) {
+				// Handshake response isn't a regular packet, it starts with a
+				// single byte. Keep talking to whichever port answered, the
+				// server may have moved us to another one
+				serverAddress = sender;
+				if (!connected) {
+					connected = true;
+					for (int i = 0; i < sensors; ++i)
+						sendSensorInfo(i);
+				}
+				continue;
+			}
+			int packetId = receiveBuffer.getInt();
+			if (packetId == UDPProtocolParser.PACKET_PING_PONG && receiveBuffer.remaining() >= 12) {
+				receiveBuffer.getLong();
+				sendPong(receiveBuffer.getInt());
+			}
+		}
+	}
+
+	private void startPacket(int packetId) {
+		sendBuffer.clear();
+		sendBuffer.putInt(packetId);
+		sendBuffer.putLong(++packetNumber);
+	}
+
+	private void send() throws IOException {
+		sendBuffer.flip();
+		channel.send(sendBuffer, serverAddress);
+		sentPackets++;
+	}
+
+	private void sendHandshake() throws IOException {
+		sendBuffer.clear();
+		sendBuffer.putInt(UDPProtocolParser.PACKET_HANDSHAKE);
+		sendBuffer.putLong(0);
+		sendBuffer.putInt(0); // Board type
+		sendBuffer.putInt(0); // IMU type
+		sendBuffer.putInt(0); // MCU type
+		sendBuffer.putInt(0); // IMU info
+		sendBuffer.putInt(0);
+		sendBuffer.putInt(0);
+		sendBuffer.putInt(FIRMWARE_BUILD);
+		byte[] firmware = "simulator".getBytes(StandardCharsets.US_ASCII);
+		sendBuffer.put((byte) firmware.length);
+		sendBuffer.put(firmware);
+		sendBuffer.put((byte) 0x5E);
+		sendBuffer.put((byte) 0x51);
+		sendBuffer.putInt(index);
+		send();
+	}
+
+	private void sendSensorInfo(int sensor) throws IOException {
+		startPacket(UDPProtocolParser.PACKET_SENSOR_INFO);
+		sendBuffer.put((byte) sensor);
+		sendBuffer.put((byte) 1); // Status OK
+		sendBuffer.put((byte) 0); // Sensor type
+		send();
+	}
+
+	private void sendRotation(int sensor, long now) throws IOException {
+		startPacket(UDPProtocolParser.PACKET_ROTATION_DATA);
+		sendTimes[(int) (packetNumber & SEND_TIMES_MASK)] = now;
+		sendBuffer.put((byte) sensor);
+		sendBuffer.put((byte) UDPPacket17RotationData.DATA_TYPE_NORMAL);
+		sendBuffer.putFloat(rotation.getX());
+		sendBuffer.putFloat(rotation.getY());
+		sendBuffer.putFloat(rotation.getZ());
+		sendBuffer.putFloat(rotation.getW());
+		sendBuffer.put((byte) 3); // Calibration info
+		send();
+	}
+
+	private void sendBattery() throws IOException {
+		startPacket(UDPProtocolParser.PACKET_BATTERY_LEVEL);
+		sendBuffer.putFloat(4.0f); // Voltage
+		sendBuffer.putFloat(0.8f); // Level
+		send();
+	}
+
+	private void sendPong(int pingId) throws IOException {
+		startPacket(UDPProtocolParser.PACKET_PING_PONG);
+		sendBuffer.putInt(pingId);
+		send();
+		answeredPings++;
+	}
+
+	/**
+	 * @return {@link System#nanoTime()} the packet was sent at, only valid
+	 * for recently sent packets
+	 */
+	@ThreadSafe
+	public long getSendTime(long packetNumber) {
+		return sendTimes[(int) (packetNumber & SEND_TIMES_MASK)];
+	}
+
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	public InetAddress getLocalAddress() throws IOException {
+		return ((InetSocketAddress) channel.getLocalAddress()).getAddress();
+	}
+
+	public boolean isConnected() {
+		return connected;
+	}
+
+	public long getSentPackets() {
+		return sentPackets;
+	}
+
+	public long getAnsweredPings() {
+		return answeredPings;
+	}
+}
@@ -0,0 +1,387 @@
+package dev.slimevr.simulator;
+
+import dev.slimevr.util.LatencyHistogram;
+import dev.slimevr.vr.trackers.udp.*;
+import io.eiren.util.StringUtils;
+import io.eiren.util.collections.FastList;
+import io.eiren.util.logging.LogManager;
+import org.apache.commons.cli.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+
+/**
+ * Headless stand-in for a fleet of SlimeVR trackers: N virtual devices with M
+ * sensors each stream rotations at a fixed rate to a server on this machine.
+ * <p>
+ * With {@code --local} the simulator starts its own UDP server in the same
+ * process and also reports what the server saw: processed rotations, packets
+ * lost or rejected as out of order by {@link UDPDevice#isNextPacket(long)},
+ * and latency from a packet being sent to it being processed.
+ */
+public class TrackerFleetSimulator {
+
+	private final List<SimulatedDevice> devices;
+	private final MotionSource motion;
+	private final long periodNanos;
+	private final Thread[] threads;
+	private volatile boolean running = false;
+	private long startTime;
+
+	/**
+	 * @param rate rotations per second each sensor sends
+	 * @param threadCount number of threads sending for the devices
+	 */
+	public TrackerFleetSimulator(
+		List<SimulatedDevice> devices,
+		MotionSource motion,
+		int rate,
+		int threadCount
+	) {
+		this.devices = devices;
+		this.motion = motion;
+		this.periodNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, rate);
+		this.threads = new Thread[Math.max(1, Math.min(threadCount, devices.size()))];
+		for (int i = 0; i < threads.length; ++i) {
+			int thread = i;
+			threads[i] = new Thread(() -> runSender(thread), "Simulator sender " + i);
+			threads[i].setDaemon(true);
+		}
+	}
+
+	private void runSender(int thread) {
+		long next = System.nanoTime();
+		while (running) {
+			long now = System.nanoTime();
+			for (int i = thread; i < devices.size(); i += threads.length) {
+				try {
+					devices.get(i).update(now, now - startTime, motion);
+				} catch (IOException e) {
+					LogManager.warning("[Simulator] Error sending from device " + i, e);
+				}
+			}
+			next += periodNanos;
+			long wait = next - System.nanoTime();
+			if (wait > 0)
+				LockSupport.parkNanos(wait);
+			else if (wait < -periodNanos)
+				// Fell behind, skip ticks instead of catching up in a burst
+				next = System.nanoTime();
+		}
+	}
+
+	public void start() {
+		startTime = System.nanoTime();
+		running = true;
+		for (Thread thread : threads)
+			thread.start();
+	}
+
+	public void stop() throws InterruptedException {
+		running = false;
+		for (Thread thread : threads)
+			thread.join();
+	}
+
+	public long getSentPackets() {
+		long sent = 0;
+		for (SimulatedDevice device : devices)
+			sent += device.getSentPackets();
+		return sent;
+	}
+
+	public long getAnsweredPings() {
+		long pings = 0;
+		for (SimulatedDevice device : devices)
+			pings += device.getAnsweredPings();
+		return pings;
+	}
+
+	public int getConnectedDevices() {
+		int connected = 0;
+		for (SimulatedDevice device : devices) {
+			if (device.isConnected())
+				connected++;
+		}
+		return connected;
+	}
+
+	/**
+	 * What the in-process server saw, updated from its receiving threads
+	 */
+	private static class LocalServerStats {
+
+		private final LongAdder rotations = new LongAdder();
+		private final LatencyHistogram latency = new LatencyHistogram();
+		private final Map<InetAddress, SimulatedDevice> devicesByAddress = new ConcurrentHashMap<>();
+
+		void packetProcessed(UDPPacket packet, UDPDevice connection) {
+			if (
+				connection == null
+					|| packet.getPacketId() != UDPProtocolParser.PACKET_ROTATION_DATA
+			)
+				return;
+			rotations.increment();
+			SimulatedDevice device = devicesByAddress.get(connection.ipAddress);
+			if (device == null)
+				return;
+			long latencyNs = System.nanoTime() - device.getSendTime(connection.lastPacketNumber);
+			synchronized (latency) {
+				latency.record(latencyNs);
+			}
+		}
+	}
+
+	private static TrackersUDPServer createLocalServer(
+		CommandLine cmd,
+		int port,
+		LocalServerStats stats
+	) {
+		int shards = Integer.parseInt(cmd.getOptionValue("shards", "1"));
+		if ("BLOCKING".equalsIgnoreCase(cmd.getOptionValue("engine", "NIO"))) {
+			return new TrackersUDPServer(port, "Simulator UDP server", tracker -> {
+			}) {
+				@Override
+				protected void onPacketProcessed(UDPPacket packet, UDPDevice connection) {
+					stats.packetProcessed(packet, connection);
+				}
+
+				@Override
+				protected void onDataReceived() {
+				}
+
+				@Override
+				protected void onNewDevice(UDPDevice device) {
+				}
+			};
+		}
+		TrackersShardedUDPServer.ShardMode mode = TrackersShardedUDPServer.ShardMode
+			.getByName(cmd.getOptionValue("shard-mode", "REUSEPORT"));
+		if (mode == null || shards <= 1)
+			mode = TrackersShardedUDPServer.ShardMode.PORTS; // Plain NIO server
+		return new TrackersShardedUDPServer(
+			port,
+			"Simulator UDP server",
+			tracker -> {
+			},
+			TrackersNIOUDPServer.DEFAULT_BATCH_SIZE,
+			shards,
+			mode
+		) {
+			@Override
+			protected void onPacketProcessed(UDPPacket packet, UDPDevice connection) {
+				stats.packetProcessed(packet, connection);
+			}
+
+			@Override
+			protected void onDataReceived() {
+			}
+
+			@Override
+			protected void onNewDevice(UDPDevice device) {
+				assignShard(device);
+			}
+		};
+	}
+
+	/**
+	 * @return a distinct address for every device on loopback, the wildcard
+	 * address otherwise
+	 */
+	private static InetAddress getDeviceAddress(InetAddress serverAddress, int device)
+		throws IOException {
+		if (!serverAddress.isLoopbackAddress())
+			return null;
+		int address = 0x7F000002 + device;
+		return InetAddress
+			.getByAddress(
+				new byte[] { (byte) (address >>> 24), (byte) (address >>> 16),
+					(byte) (address >>> 8), (byte) address }
+			);
+	}
+
+	private static String us(long ns) {
+		return StringUtils.prettyNumber(ns / 1000f, 1);
+	}
+
+	public static void main(String[] args) throws Exception {
+		CommandLineParser parser = new DefaultParser();
+		HelpFormatter formatter = new HelpFormatter();
+		Options options = new Options();
+		options.addOption(new Option("n", "devices", true, "number of devices (10)"));
+		options.addOption(new Option("m", "sensors", true, "sensors per device (3)"));
+		options.addOption(new Option("r", "rate", true, "rotations per second per sensor (100)"));
+		options.addOption(new Option("d", "duration", true, "seconds to run, 0 runs forever (30)"));
+		options.addOption(new Option(null, "host", true, "server address (127.0.0.1)"));
+		options.addOption(new Option("p", "port", true, "server port (6969)"));
+		options.addOption(new Option("f", "pfr", true, "loop rotations from a .pfr recording"));
+		options
+			.addOption(
+				new Option(null, "pfr-interval", true, "ms between recording frames (20)")
+			);
+		options.addOption(new Option("t", "threads", true, "sending threads (CPU count)"));
+		options.addOption(new Option("l", "local", false, "start a UDP server in this process"));
+		options.addOption(new Option(null, "engine", true, "local server engine, NIO or BLOCKING"));
+		options.addOption(new Option(null, "shards", true, "local NIO server shards (1)"));
+		options.addOption(new Option(null, "shard-mode", true, "REUSEPORT or PORTS"));
+		options.addOption(new Option("h", "help", false, "Show help"));
+
+		CommandLine cmd;
+		try {
+			cmd = parser.parse(options, args);
+		} catch (ParseException e) {
+			System.out.println(e.getMessage());
+			formatter.printHelp("simulator", options);
+			System.exit(1);
+			return;
+		}
+		if (cmd.hasOption("help")) {
+			formatter.printHelp("simulator", options);
+			return;
+		}
+
+		int deviceCount = Integer.parseInt(cmd.getOptionValue("devices", "10"));
+		int sensors = Integer.parseInt(cmd.getOptionValue("sensors", "3"));
+		int rate = Integer.parseInt(cmd.getOptionValue("rate", "100"));
+		long duration = Long.parseLong(cmd.getOptionValue("duration", "30"));
+		int port = Integer.parseInt(cmd.getOptionValue("port", "6969"));
+		int threads = Integer
+			.parseInt(
+				cmd
+					.getOptionValue(
+						"threads",
+						String.valueOf(Runtime.getRuntime().availableProcessors())
+					)
+			);
+		InetAddress host = InetAddress.getByName(cmd.getOptionValue("host", "127.0.0.1"));
+
+		MotionSource motion;
+		if (cmd.hasOption("pfr")) {
+			RecordedMotion recorded = RecordedMotion
+				.load(
+					new File(cmd.getOptionValue("pfr")),
+					Long.parseLong(cmd.getOptionValue("pfr-interval", "20"))
+				);
+			System.out
+				.println(
+					"[Simulator] Looping " + recorded.getTrackerCount() + " recorded trackers"
+				);
+			motion = recorded;
+		} else {
+			motion = new ProceduralMotion();
+		}
+
+		LocalServerStats stats = null;
+		TrackersUDPServer server = null;
+		if (cmd.hasOption("local")) {
+			stats = new LocalServerStats();
+			server = createLocalServer(cmd, port, stats);
+			server.setDaemon(true);
+			server.start();
+			Thread.sleep(200L);
+		}
+
+		if (!host.isLoopbackAddress())
+			System.out
+				.println(
+					"[Simulator] Server isn't on loopback, all devices share one address and the server will see them as one device"
+				);
+		InetSocketAddress serverAddress = new InetSocketAddress(host, port);
+		List<SimulatedDevice> devices = new FastList<>(deviceCount);
+		for (int i = 0; i < deviceCount; ++i) {
+			SimulatedDevice device = new SimulatedDevice(
+				i,
+				sensors,
+				i * sensors,
+				getDeviceAddress(host, i),
+				serverAddress
+			);
+			devices.add(device);
+			if (stats != null)
+				stats.devicesByAddress.put(device.getLocalAddress(), device);
+		}
+
+		TrackerFleetSimulator simulator = new TrackerFleetSimulator(devices, motion, rate, threads);
+		System.out
+			.println(
+				"[Simulator] "
+					+ deviceCount
+					+ " devices x "
+					+ sensors
+					+ " sensors at "
+					+ rate
+					+ " Hz to "
+					+ serverAddress
+			);
+		simulator.start();
+
+		long start = System.nanoTime();
+		long lastSent = 0;
+		long lastRotations = 0;
+		long totalLatencyCount = 0;
+		long worstLatencyP99 = 0;
+		while (duration <= 0 || System.nanoTime() - start < TimeUnit.SECONDS.toNanos(duration)) {
+			Thread.sleep(1000L);
+			long sent = simulator.getSentPackets();
+			StringBuilder sb = new StringBuilder();
+			sb.append("[Simulator] connected ").append(simulator.getConnectedDevices());
+			sb.append('/').append(deviceCount);
+			sb.append(", sent ").append(sent - lastSent).append(" packets/s");
+			sb.append(", pongs ").append(simulator.getAnsweredPings());
+			lastSent = sent;
+			if (stats != null) {
+				long rotations = stats.rotations.sum();
+				long lost = 0;
+				long outOfOrder = 0;
+				List<UDPDevice> connections = server.getConnections();
+				synchronized (connections) {
+					for (UDPDevice connection : connections) {
+						lost += connection.lostPackets;
+						outOfOrder += connection.outOfOrderPackets;
+					}
+				}
+				sb.append(" | server processed ").append(rotations - lastRotations);
+				sb.append(" rotations/s, lost ").append(lost);
+				sb.append(", out of order ").append(outOfOrder);
+				lastRotations = rotations;
+				synchronized (stats.latency) {
+					LatencyHistogram latency = stats.latency;
+					long p99 = latency.getValueAtPercentile(99);
+					sb.append(", latency p50/p99/max ");
+					sb.append(us(latency.getValueAtPercentile(50))).append('/');
+					sb.append(us(p99)).append('/');
+					sb.append(us(latency.getMax())).append(" us");
+					totalLatencyCount += latency.getTotalCount();
+					worstLatencyP99 = Math.max(worstLatencyP99, p99);
+					latency.reset();
+				}
+			}
+			System.out.println(sb);
+		}
+		simulator.stop();
+
+		long elapsed = System.nanoTime() - start;
+		StringBuilder sb = new StringBuilder();
+		sb.append("[Simulator] Done, sent ").append(simulator.getSentPackets());
+		sb.append(" packets, ").append(simulator.getSentPackets() * 1000000000L / elapsed);
+		sb.append(" packets/s");
+		if (stats != null) {
+			sb.append(", server processed ").append(stats.rotations.sum());
+			sb.append(" rotations, ").append(totalLatencyCount).append(" latency samples");
+			sb.append(", worst p99 ").append(us(worstLatencyP99)).append(" us");
+		}
+		System.out.println(sb);
+		for (SimulatedDevice device : devices)
+			device.close();
+		System.exit(0);
+	}
+}
@@ -0,0 +1,98 @@
+package dev.slimevr.util;
+
+import java.util.Arrays;
+
+
+/**
+ * Fixed-size log-linear histogram of non-negative long values (nanoseconds),
+ * similar in spirit to HdrHistogram. Values are stored with ~3% precision,
+ * recording never allocates.
+ * <p>
+ * Not thread safe, meant to be recorded and read by the same thread.
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT >> 1;
+	private static final int MAX_SHIFT = 63 - (SUB_BUCKET_BITS - 1);
+
+	private final long[] counts = new long[MAX_SHIFT * SUB_BUCKET_HALF + SUB_BUCKET_COUNT];
+	private long totalCount = 0;
+	private long sum = 0;
+	private long min = Long.MAX_VALUE;
+	private long max = 0;
+
+	private static int indexOf(long value) {
+		if (value < SUB_BUCKET_COUNT)
+			return (int) value;
+		int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+		return shift * SUB_BUCKET_HALF + (int) (value >>> shift);
+	}
+
+	private static long highestValueAt(int index) {
+		if (index < SUB_BUCKET_COUNT)
+			return index;
+		int shift = index / SUB_BUCKET_HALF - 1;
+		long sub = index - shift * SUB_BUCKET_HALF;
+		return ((sub + 1) << shift) - 1;
+	}
+
+	public void record(long value) {
+		if (value < 0)
+			value = 0;
+		counts[indexOf(value)]++;
+		totalCount++;
+		sum += value;
+		if (value < min)
+			min = value;
+		if (value > max)
+			max = value;
+	}
+
+	public void reset() {
+		if (totalCount == 0)
+			return;
+		Arrays.fill(counts, 0);
+		totalCount = 0;
+		sum = 0;
+		min = Long.MAX_VALUE;
+		max = 0;
+	}
+
+	public long getTotalCount() {
+		return totalCount;
+	}
+
+	public long getMin() {
+		return totalCount == 0 ? 0 : min;
+	}
+
+	public long getMax() {
+		return max;
+	}
+
+	public double getMean() {
+		return totalCount == 0 ? 0 : (double) sum / totalCount;
+	}
+
+	/**
+	 * @param percentile from 0 to 100
+	 * @return the highest value equivalent to the bucket holding the given
+	 * percentile, capped by the maximum recorded value
+	 */
+	public long getValueAtPercentile(double percentile) {
+		if (totalCount == 0)
+			return 0;
+		long target = (long) Math.ceil(percentile / 100.0 * totalCount);
+		if (target < 1)
+			target = 1;
+		long seen = 0;
+		for (int i = 0; i < counts.length; ++i) {
+			seen += counts[i];
+			if (seen >= target)
+				return Math.min(highestValueAt(i), max);
+		}
+		return max;
+	}
+}
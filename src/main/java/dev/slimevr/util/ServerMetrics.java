@@ -0,0 +1,278 @@
+package dev.slimevr.util;
+
+import dev.slimevr.util.ann.VRServerThread;
+import dev.slimevr.vr.processor.TransformNode;
+import io.eiren.util.StringUtils;
+import io.eiren.util.ann.ThreadSafe;
+import io.eiren.util.logging.LogManager;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Records where time goes in the VRServer tick: per-stage timings, whole tick
+ * time, interval between ticks and latency from new data arriving to bridges
+ * being written. Also tracks how many skeleton node updates were skipped
+ * because nothing changed, and how long each skeleton takes to solve.
+ * <p>
+ * Histograms are recorded on the VRServer thread only. Every window a
+ * {@link Summary} is published for other threads and optionally logged.
+ */
+public class ServerMetrics {
+
+	public enum Stage {
+		TASKS("tasks"),
+		ON_TICK("onTick"),
+		BRIDGE_READ("bridgeRead"),
+		TRACKER_TICK("trackerTick"),
+		POSE_UPDATE("poseUpdate"),
+		BRIDGE_WRITE("bridgeWrite"),;
+
+		public static final Stage[] values = values();
+
+		public final String label;
+
+		Stage(String label) {
+			this.label = label;
+		}
+	}
+
+	private final LatencyHistogram[] stages = new LatencyHistogram[Stage.values.length];
+	private final LatencyHistogram tickTime = new LatencyHistogram();
+	private final LatencyHistogram tickInterval = new LatencyHistogram();
+	private final LatencyHistogram endToEnd = new LatencyHistogram();
+	private LatencyHistogram[] skeletons = new LatencyHistogram[0];
+	private final AtomicLong oldestDataTime = new AtomicLong(0);
+	private final int targetTickRate;
+	private final long windowNs;
+	private final boolean log;
+	private long windowStart = 0;
+	private long tickStart = 0;
+	private long lastTickStart = 0;
+	private long stageStart = 0;
+	private long tickDataTime = 0;
+	private long poseNodesSolved = 0;
+	private long poseNodesSkipped = 0;
+	private volatile Summary lastSummary = null;
+
+	public ServerMetrics(int targetTickRate, long windowMs, boolean log) {
+		this.targetTickRate = targetTickRate;
+		this.windowNs = TimeUnit.MILLISECONDS.toNanos(Math.max(100L, windowMs));
+		this.log = log;
+		for (int i = 0; i < stages.length; ++i)
+			stages[i] = new LatencyHistogram();
+	}
+
+	/**
+	 * Marks that new data arrived, the next tick will measure the latency
+	 * until its output is written to bridges
+	 */
+	@ThreadSafe
+	public void dataReceived() {
+		long now = System.nanoTime();
+		oldestDataTime.compareAndSet(0, now == 0 ? 1 : now);
+	}
+
+	@VRServerThread
+	public void tickStarted() {
+		long now = System.nanoTime();
+		if (windowStart == 0)
+			windowStart = now;
+		if (lastTickStart != 0)
+			tickInterval.record(now - lastTickStart);
+		lastTickStart = now;
+		tickStart = now;
+		stageStart = now;
+		tickDataTime = oldestDataTime.getAndSet(0);
+	}
+
+	@VRServerThread
+	public void stageFinished(Stage stage) {
+		long now = System.nanoTime();
+		stages[stage.ordinal()].record(now - stageStart);
+		stageStart = now;
+	}
+
+	/**
+	 * Adds node update counts of the skeleton to the current window and
+	 * resets them
+	 */
+	@VRServerThread
+	public void poseNodesUpdated(TransformNode.UpdateStats stats) {
+		poseNodesSolved += stats.solved;
+		poseNodesSkipped += stats.skipped;
+		stats.reset();
+	}
+
+	/**
+	 * Records how long one skeleton took to solve in this tick
+	 */
+	@VRServerThread
+	public void skeletonSolved(int skeleton, long nanos) {
+		if (skeleton >= skeletons.length) {
+			LatencyHistogram[] grown = Arrays.copyOf(skeletons, skeleton + 1);
+			for (int i = skeletons.length; i < grown.length; ++i)
+				grown[i] = new LatencyHistogram();
+			skeletons = grown;
+		}
+		skeletons[skeleton].record(nanos);
+	}
+
+	@VRServerThread
+	public void tickFinished() {
+		long now = System.nanoTime();
+		tickTime.record(now - tickStart);
+		if (tickDataTime != 0)
+			endToEnd.record(now - tickDataTime);
+		if (now - windowStart >= windowNs) {
+			Summary summary = new Summary(this, now - windowStart);
+			lastSummary = summary;
+			if (log)
+				LogManager.info("[VRServer] " + summary);
+			reset(now);
+		}
+	}
+
+	private void reset(long now) {
+		for (LatencyHistogram h : stages)
+			h.reset();
+		tickTime.reset();
+		tickInterval.reset();
+		endToEnd.reset();
+		for (LatencyHistogram h : skeletons)
+			h.reset();
+		poseNodesSolved = 0;
+		poseNodesSkipped = 0;
+		windowStart = now;
+	}
+
+	/**
+	 * @return the summary of the last complete window or null if no window
+	 * has completed yet
+	 */
+	@ThreadSafe
+	public Summary getLastSummary() {
+		return lastSummary;
+	}
+
+	/**
+	 * Immutable digest of one metrics window, times are in nanoseconds
+	 */
+	public static class Summary {
+
+		public final long windowNs;
+		public final long ticks;
+		public final float tickRate;
+		public final int targetTickRate;
+		public final long[] stageP50 = new long[Stage.values.length];
+		public final long[] stageP99 = new long[Stage.values.length];
+		public final long[] stageMax = new long[Stage.values.length];
+		public final long tickP50;
+		public final long tickP99;
+		public final long tickMax;
+		public final long intervalP99;
+		public final long latencyP50;
+		public final long latencyP99;
+		public final long latencyMax;
+		/**
+		 * Solve time percentiles of each skeleton
+		 */
+		public final long[] skeletonP50;
+		public final long[] skeletonP99;
+		public final long[] skeletonMax;
+		/**
+		 * Share of skeleton node updates skipped because nothing changed
+		 */
+		public final float poseNodeHitRate;
+
+		private Summary(ServerMetrics metrics, long windowNs) {
+			this.windowNs = windowNs;
+			this.ticks = metrics.tickTime.getTotalCount();
+			this.tickRate = ticks * 1e9f / windowNs;
+			this.targetTickRate = metrics.targetTickRate;
+			for (int i = 0; i < Stage.values.length; ++i) {
+				LatencyHistogram h = metrics.stages[i];
+				stageP50[i] = h.getValueAtPercentile(50);
+				stageP99[i] = h.getValueAtPercentile(99);
+				stageMax[i] = h.getMax();
+			}
+			this.tickP50 = metrics.tickTime.getValueAtPercentile(50);
+			this.tickP99 = metrics.tickTime.getValueAtPercentile(99);
+			this.tickMax = metrics.tickTime.getMax();
+			this.intervalP99 = metrics.tickInterval.getValueAtPercentile(99);
+			this.latencyP50 = metrics.endToEnd.getValueAtPercentile(50);
+			this.latencyP99 = metrics.endToEnd.getValueAtPercentile(99);
+			this.latencyMax = metrics.endToEnd.getMax();
+			int skeletons = metrics.skeletons.length;
+			this.skeletonP50 = new long[skeletons];
+			this.skeletonP99 = new long[skeletons];
+			this.skeletonMax = new long[skeletons];
+			for (int i = 0; i < skeletons; ++i) {
+				LatencyHistogram h = metrics.skeletons[i];
+				skeletonP50[i] = h.getValueAtPercentile(50);
+				skeletonP99[i] = h.getValueAtPercentile(99);
+				skeletonMax[i] = h.getMax();
+			}
+			long poseNodes = metrics.poseNodesSolved + metrics.poseNodesSkipped;
+			this.poseNodeHitRate = poseNodes == 0
+				? 0f
+				: (float) metrics.poseNodesSkipped / poseNodes;
+		}
+
+		/**
+		 * @return the stage with the highest 99th percentile time
+		 */
+		public Stage getSlowestStage() {
+			int slowest = 0;
+			for (int i = 1; i < stageP99.length; ++i) {
+				if (stageP99[i] > stageP99[slowest])
+					slowest = i;
+			}
+			return Stage.values[slowest];
+		}
+
+		public boolean isBelowTarget() {
+			return tickRate < targetTickRate * 0.95f;
+		}
+
+		private static String us(long ns) {
+			return StringUtils.prettyNumber(ns / 1000f, 1);
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder();
+			sb.append("Tick rate ").append(StringUtils.prettyNumber(tickRate, 1)).append(" Hz");
+			if (isBelowTarget())
+				sb.append(" (below target ").append(targetTickRate).append(" Hz)");
+			sb.append(", tick p50/p99/max ");
+			sb.append(us(tickP50)).append('/').append(us(tickP99)).append('/').append(us(tickMax));
+			sb.append(" us, interval p99 ").append(us(intervalP99));
+			sb.append(" us, latency p50/p99/max ");
+			sb
+				.append(us(latencyP50))
+				.append('/')
+				.append(us(latencyP99))
+				.append('/')
+				.append(us(latencyMax));
+			sb.append(" us, stages p99:");
+			for (Stage stage : Stage.values) {
+				sb.append(' ').append(stage.label).append('=').append(us(stageP99[stage.ordinal()]));
+			}
+			sb.append(" us, slowest ").append(getSlowestStage().label);
+			if (skeletonP99.length > 1) {
+				sb.append(", skeletons p99/max:");
+				for (int i = 0; i < skeletonP99.length; ++i) {
+					sb.append(' ').append(i).append('=');
+					sb.append(us(skeletonP99[i])).append('/').append(us(skeletonMax[i]));
+				}
+				sb.append(" us");
+			}
+			sb.append(", pose nodes skipped ");
+			sb.append(StringUtils.prettyNumber(poseNodeHitRate * 100f, 1)).append('%');
+			return sb.toString();
+		}
+	}
+}
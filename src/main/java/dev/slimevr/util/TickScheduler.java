@@ -0,0 +1,101 @@
+package dev.slimevr.util;
+
+import dev.slimevr.util.ann.VRServerThread;
+import io.eiren.util.ann.ThreadSafe;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+
+/**
+ * Decides when the VRServer thread runs its next tick.
+ * <p>
+ * In {@link Mode#FIXED} mode the server sleeps for 1 ms after each tick, like
+ * it always did. In {@link Mode#EVENT} mode the server parks until someone
+ * calls {@link #signal()} (new tracker data, bridge input or a queued task),
+ * never ticking faster than the maximum tick rate, and wakes up on its own
+ * after the idle timeout so time-based consumers keep running.
+ */
+public class TickScheduler {
+
+	public enum Mode {
+		FIXED,
+		EVENT;
+
+		public static Mode getByName(String name) {
+			if (name != null) {
+				for (Mode mode : values()) {
+					if (mode.name().equalsIgnoreCase(name))
+						return mode;
+				}
+			}
+			return FIXED;
+		}
+	}
+
+	public static final int DEFAULT_MAX_TICK_RATE = 1000;
+	public static final long DEFAULT_IDLE_TIMEOUT_MS = 10L;
+
+	private final AtomicBoolean pending = new AtomicBoolean(false);
+	private final Mode mode;
+	private final long minTickIntervalNs;
+	private final long idleTimeoutNs;
+	private volatile Thread waiter;
+	private long lastTickStart = 0;
+
+	public TickScheduler(Mode mode, int maxTickRate, long idleTimeoutMs) {
+		this.mode = mode;
+		this.minTickIntervalNs = TimeUnit.SECONDS.toNanos(1) / Math.max(1, maxTickRate);
+		this.idleTimeoutNs = TimeUnit.MILLISECONDS
+			.toNanos(Math.max(1L, idleTimeoutMs));
+	}
+
+	/**
+	 * Notifies the server thread that there is work to do. Cheap enough to be
+	 * called for every received packet, only the first call after a tick
+	 * actually unparks the server thread.
+	 */
+	@ThreadSafe
+	public void signal() {
+		if (mode != Mode.EVENT)
+			return;
+		if (pending.compareAndSet(false, true)) {
+			Thread t = waiter;
+			if (t != null)
+				LockSupport.unpark(t);
+		}
+	}
+
+	/**
+	 * Blocks the calling thread until the next tick should be started
+	 */
+	@VRServerThread
+	public void awaitNextTick() {
+		if (mode != Mode.EVENT) {
+			try {
+				Thread.sleep(1); // 1000Hz
+			} catch (InterruptedException e) {}
+			return;
+		}
+		waiter = Thread.currentThread();
+		long now = System.nanoTime();
+		// Respect maximum tick rate even if signals keep coming
+		long earliest = lastTickStart + minTickIntervalNs;
+		while (now < earliest) {
+			LockSupport.parkNanos(this, earliest - now);
+			now = System.nanoTime();
+		}
+		long deadline = lastTickStart + idleTimeoutNs;
+		while (!pending.get() && now < deadline) {
+			LockSupport.parkNanos(this, deadline - now);
+			now = System.nanoTime();
+		}
+		pending.set(false);
+		lastTickStart = now;
+	}
+
+	public Mode getMode() {
+		return mode;
+	}
+}
@@ -0,0 +1,222 @@
+package dev.slimevr.vr.processor;
+
+import com.jme3.math.Quaternion;
+import com.jme3.math.Transform;
+import com.jme3.math.Vector3f;
+import io.eiren.util.collections.FastList;
+
+import java.util.List;
+
+
+/**
+ * Computes world transforms of {@link TransformNode} trees in one loop over
+ * flat arrays instead of walking the node graph.
+ * <p>
+ * The trees are flattened once into a topologically sorted index array, so
+ * every parent comes before its children. Rotations, translations and scales
+ * are kept as structure of arrays. Nodes stay the view for existing callers:
+ * {@link #update(int)} reads their local transforms and writes their world
+ * transforms back. The math is the same as {@link TransformNode#update()},
+ * operation for operation, so both give identical results.
+ * <p>
+ * The topology is captured on construction, build a new solver after
+ * attaching or detaching nodes.
+ */
+public class FlatTransformSolver {
+
+	private final TransformNode[] nodes;
+	private final int[] parents;
+	private final boolean[] localRotation;
+	/**
+	 * First node index of every root, with the node count at the end
+	 */
+	private final int[] rootStarts;
+
+	private final float[] localRot;
+	private final float[] localPos;
+	private final float[] localScale;
+	private final float[] worldRot;
+	private final float[] worldPos;
+	private final float[] worldScale;
+
+	public FlatTransformSolver(TransformNode... roots) {
+		List<TransformNode> sorted = new FastList<>();
+		List<Integer> parentList = new FastList<>();
+		rootStarts = new int[roots.length + 1];
+		for (int r = 0; r < roots.length; ++r) {
+			rootStarts[r] = sorted.size();
+			flatten(roots[r], -1, sorted, parentList);
+		}
+		int count = sorted.size();
+		rootStarts[roots.length] = count;
+
+		nodes = sorted.toArray(new TransformNode[count]);
+		parents = new int[count];
+		localRotation = new boolean[count];
+		for (int i = 0; i < count; ++i) {
+			parents[i] = parentList.get(i);
+			localRotation[i] = nodes[i].localRotation;
+		}
+
+		localRot = new float[count * 4];
+		localPos = new float[count * 3];
+		localScale = new float[count * 3];
+		worldRot = new float[count * 4];
+		worldPos = new float[count * 3];
+		worldScale = new float[count * 3];
+	}
+
+	private static void flatten(
+		TransformNode node,
+		int parent,
+		List<TransformNode> sorted,
+		List<Integer> parentList
+	) {
+		int index = sorted.size();
+		sorted.add(node);
+		parentList.add(parent);
+		for (TransformNode child : node.children)
+			flatten(child, index, sorted, parentList);
+	}
+
+	public int getNodeCount() {
+		return nodes.length;
+	}
+
+	public int getRootCount() {
+		return rootStarts.length - 1;
+	}
+
+	/**
+	 * Updates world transforms of the tree of the root at the given index, in
+	 * the order the roots were passed to the constructor
+	 *
+	 * @return number of nodes updated
+	 */
+	public int update(int root) {
+		return update(rootStarts[root], rootStarts[root + 1]);
+	}
+
+	/**
+	 * Updates world transforms of all trees
+	 *
+	 * @return number of nodes updated
+	 */
+	public int updateAll() {
+		return update(0, nodes.length);
+	}
+
+	private int update(int start, int end) {
+		gatherLocal(start, end);
+		solve(start, end);
+		scatterWorld(start, end);
+		return end - start;
+	}
+
+	private void gatherLocal(int start, int end) {
+		for (int i = start; i < end; ++i) {
+			Transform local = nodes[i].localTransform;
+			Quaternion rot = local.getRotation();
+			Vector3f pos = local.getTranslation();
+			Vector3f scale = local.getScale();
+			int r = i * 4;
+			int v = i * 3;
+			localRot[r] = rot.getX();
+			localRot[r + 1] = rot.getY();
+			localRot[r + 2] = rot.getZ();
+			localRot[r + 3] = rot.getW();
+			localPos[v] = pos.x;
+			localPos[v + 1] = pos.y;
+			localPos[v + 2] = pos.z;
+			localScale[v] = scale.x;
+			localScale[v + 1] = scale.y;
+			localScale[v + 2] = scale.z;
+		}
+	}
+
+	private void scatterWorld(int start, int end) {
+		for (int i = start; i < end; ++i) {
+			Transform world = nodes[i].worldTransform;
+			int r = i * 4;
+			int v = i * 3;
+			world.getRotation().set(worldRot[r], worldRot[r + 1], worldRot[r + 2], worldRot[r + 3]);
+			world.getTranslation().set(worldPos[v], worldPos[v + 1], worldPos[v + 2]);
+			world.getScale().set(worldScale[v], worldScale[v + 1], worldScale[v + 2]);
+		}
+	}
+
+	/**
+	 * Same math as {@link Transform#combineWithParent(Transform)} and
+	 * {@link TransformNode#combineWithParentGlobalRotation(Transform)}, with
+	 * the expressions of {@link Quaternion#mult(Quaternion, Quaternion)} and
+	 * {@link Quaternion#multLocal(Vector3f)} kept in the same order so the
+	 * results match bit for bit
+	 */
+	private void solve(int start, int end) {
+		for (int i = start; i < end; ++i) {
+			int r = i * 4;
+			int v = i * 3;
+			float rx = localRot[r];
+			float ry = localRot[r + 1];
+			float rz = localRot[r + 2];
+			float rw = localRot[r + 3];
+			float tx = localPos[v];
+			float ty = localPos[v + 1];
+			float tz = localPos[v + 2];
+			float sx = localScale[v];
+			float sy = localScale[v + 1];
+			float sz = localScale[v + 2];
+
+			int parent = parents[i];
+			if (parent >= 0) {
+				int pr = parent * 4;
+				int pv = parent * 3;
+				float x = worldRot[pr];
+				float y = worldRot[pr + 1];
+				float z = worldRot[pr + 2];
+				float w = worldRot[pr + 3];
+				float psx = worldScale[pv];
+				float psy = worldScale[pv + 1];
+				float psz = worldScale[pv + 2];
+
+				sx *= psx;
+				sy *= psy;
+				sz *= psz;
+
+				if (localRotation[i]) {
+					float qx = rx, qy = ry, qz = rz, qw = rw;
+					rx = x * qw + y * qz - z * qy + w * qx;
+					ry = -x * qz + y * qw + z * qx + w * qy;
+					rz = x * qy - y * qx + z * qw + w * qz;
+					rw = -x * qx - y * qy - z * qz + w * qw;
+				}
+
+				tx *= psx;
+				ty *= psy;
+				tz *= psz;
+
+				float newX = w * w * tx + 2 * y * w * tz - 2 * z * w * ty + x * x * tx
+					+ 2 * y * x * ty + 2 * z * x * tz - z * z * tx - y * y * tx;
+				float newY = 2 * x * y * tx + y * y * ty + 2 * z * y * tz + 2 * w * z * tx
+					- z * z * ty + w * w * ty - 2 * x * w * tz - x * x * ty;
+				float newZ = 2 * x * z * tx + 2 * y * z * ty + z * z * tz - 2 * w * y * tx
+					- y * y * tz + 2 * w * x * ty - x * x * tz + w * w * tz;
+
+				tx = newX + worldPos[pv];
+				ty = newY + worldPos[pv + 1];
+				tz = newZ + worldPos[pv + 2];
+			}
+
+			worldRot[r] = rx;
+			worldRot[r + 1] = ry;
+			worldRot[r + 2] = rz;
+			worldRot[r + 3] = rw;
+			worldPos[v] = tx;
+			worldPos[v + 1] = ty;
+			worldPos[v + 2] = tz;
+			worldScale[v] = sx;
+			worldScale[v + 1] = sy;
+			worldScale[v + 2] = sz;
+		}
+	}
+}
@@ -3,7 +3,7 @@ package dev.slimevr.vr.processor;
 import dev.slimevr.VRServer;
 import dev.slimevr.util.ann.VRServerThread;
 import dev.slimevr.vr.processor.skeleton.Skeleton;
-import dev.slimevr.vr.processor.skeleton.HumanSkeleton;
+import dev.slimevr.vr.processor.skeleton.PoseSnapshot;
 import dev.slimevr.vr.processor.skeleton.SkeletonConfig;
 import dev.slimevr.vr.processor.skeleton.SkeletonConfigValue;
 import dev.slimevr.vr.trackers.*;
@@ -12,135 +12,120 @@ import io.eiren.util.collections.FastList;
 
 import java.util.List;
 import java.util.function.Consumer;
-
-
+import java.util.function.IntConsumer;
+
+
+/**
+ * Solves the skeletons of every tracked person. Each tracker is bound to one
+ * skeleton by its config, skeleton 0 is the primary one shared with the
+ * bridges and edited by the skeleton settings.
+ * <p>
+ * With more than one skeleton, they are solved in parallel on a bounded
+ * {@link PoseSolverPool} each tick, and {@link #update()} returns once all of
+ * them are done so bridges see complete results.
+ */
 public class HumanPoseProcessor {
 
 	private final VRServer server;
-	private final List<ComputedHumanPoseTracker> computedTrackers = new FastList<>();
+	private final SkeletonSolver[] solvers;
 	private final List<Consumer<Skeleton>> onSkeletonUpdated = new FastList<>();
-	private Skeleton skeleton;
+	private final PoseSolverPool solverPool;
+	private final IntConsumer solveTask = this::solve;
 
 	public HumanPoseProcessor(VRServer server, HMDTracker hmd) {
+		this(server, hmd, 1, 0);
+	}
+
+	/**
+	 * @param skeletonCount number of people to track
+	 * @param solverThreads worker threads solving skeletons alongside the
+	 * VRServer thread
+	 */
+	public HumanPoseProcessor(
+		VRServer server,
+		HMDTracker hmd,
+		int skeletonCount,
+		int solverThreads
+	) {
 		this.server = server;
-		computedTrackers
-			.add(
-				new ComputedHumanPoseTracker(
-					Tracker.getNextLocalTrackerId(),
-					ComputedHumanPoseTrackerPosition.WAIST,
-					TrackerRole.WAIST
-				)
-			);
-		computedTrackers
-			.add(
-				new ComputedHumanPoseTracker(
-					Tracker.getNextLocalTrackerId(),
-					ComputedHumanPoseTrackerPosition.LEFT_FOOT,
-					TrackerRole.LEFT_FOOT
-				)
-			);
-		computedTrackers
-			.add(
-				new ComputedHumanPoseTracker(
-					Tracker.getNextLocalTrackerId(),
-					ComputedHumanPoseTrackerPosition.RIGHT_FOOT,
-					TrackerRole.RIGHT_FOOT
-				)
-			);
-		computedTrackers
-			.add(
-				new ComputedHumanPoseTracker(
-					Tracker.getNextLocalTrackerId(),
-					ComputedHumanPoseTrackerPosition.CHEST,
-					TrackerRole.CHEST
-				)
-			);
-		computedTrackers
-			.add(
-				new ComputedHumanPoseTracker(
-					Tracker.getNextLocalTrackerId(),
-					ComputedHumanPoseTrackerPosition.LEFT_KNEE,
-					TrackerRole.LEFT_KNEE
-				)
-			);
-		computedTrackers
-			.add(
-				new ComputedHumanPoseTracker(
-					Tracker.getNextLocalTrackerId(),
-					ComputedHumanPoseTrackerPosition.RIGHT_KNEE,
-					TrackerRole.RIGHT_KNEE
-				)
-			);
-		computedTrackers
-			.add(
-				new ComputedHumanPoseTracker(
-					Tracker.getNextLocalTrackerId(),
-					ComputedHumanPoseTrackerPosition.LEFT_ELBOW,
-					TrackerRole.LEFT_ELBOW
-				)
-			);
-		computedTrackers
-			.add(
-				new ComputedHumanPoseTracker(
-					Tracker.getNextLocalTrackerId(),
-					ComputedHumanPoseTrackerPosition.RIGHT_ELBOW,
-					TrackerRole.RIGHT_ELBOW
-				)
-			);
-		computedTrackers
-			.add(
-				new ComputedHumanPoseTracker(
-					Tracker.getNextLocalTrackerId(),
-					ComputedHumanPoseTrackerPosition.LEFT_HAND,
-					TrackerRole.LEFT_HAND
-				)
-			);
-		computedTrackers
-			.add(
-				new ComputedHumanPoseTracker(
-					Tracker.getNextLocalTrackerId(),
-					ComputedHumanPoseTrackerPosition.RIGHT_HAND,
-					TrackerRole.RIGHT_HAND
-				)
-			);
+		solvers = new SkeletonSolver[Math.max(1, skeletonCount)];
+		for (int i = 0; i < solvers.length; ++i)
+			solvers[i] = new SkeletonSolver(server, i);
+		solverPool = new PoseSolverPool(
+			"Pose solver",
+			Math.min(solverThreads, solvers.length - 1)
+		);
 	}
 
 	public Skeleton getSkeleton() {
-		return skeleton;
+		return solvers[0].getSkeleton();
+	}
+
+	@ThreadSafe
+	public int getSkeletonCount() {
+		return solvers.length;
+	}
+
+	@ThreadSafe
+	public SkeletonSolver getSolver(int index) {
+		return solvers[index];
+	}
+
+	/**
+	 * @return the pose published after the last update, or null if there
+	 * was no update yet. Valid until the next update.
+	 */
+	@VRServerThread
+	public PoseSnapshot getPoseSnapshot() {
+		return solvers[0].getPoseSnapshots().getCurrent();
+	}
+
+	/**
+	 * @return the pose published after the last update, or null if there
+	 * was no update yet. Must be released after reading.
+	 */
+	@ThreadSafe
+	public PoseSnapshot acquirePoseSnapshot() {
+		return solvers[0].acquirePoseSnapshot();
 	}
 
 	@VRServerThread
 	public void addSkeletonUpdatedCallback(Consumer<Skeleton> consumer) {
 		onSkeletonUpdated.add(consumer);
+		Skeleton skeleton = getSkeleton();
 		if (skeleton != null)
 			consumer.accept(skeleton);
 	}
 
 	@ThreadSafe
 	public void setSkeletonConfig(SkeletonConfigValue key, float newLength) {
+		Skeleton skeleton = getSkeleton();
 		if (skeleton != null)
 			skeleton.getSkeletonConfig().setConfig(key, newLength);
 	}
 
 	@ThreadSafe
 	public void resetSkeletonConfig(SkeletonConfigValue key) {
+		Skeleton skeleton = getSkeleton();
 		if (skeleton != null)
 			skeleton.resetSkeletonConfig(key);
 	}
 
 	@ThreadSafe
 	public void resetAllSkeletonConfigs() {
+		Skeleton skeleton = getSkeleton();
 		if (skeleton != null)
 			skeleton.resetAllSkeletonConfigs();
 	}
 
 	@ThreadSafe
 	public SkeletonConfig getSkeletonConfig() {
-		return skeleton.getSkeletonConfig();
+		return getSkeleton().getSkeletonConfig();
 	}
 
 	@ThreadSafe
 	public float getSkeletonConfig(SkeletonConfigValue key) {
+		Skeleton skeleton = getSkeleton();
 		if (skeleton != null) {
 			return skeleton.getSkeletonConfig().getConfig(key);
 		}
@@ -149,7 +134,7 @@ public class HumanPoseProcessor {
 
 	@ThreadSafe
 	public List<? extends ShareableTracker> getComputedTrackers() {
-		return computedTrackers;
+		return solvers[0].getComputedTrackers();
 	}
 
 	@VRServerThread
@@ -164,34 +149,47 @@ public class HumanPoseProcessor {
 
 	@VRServerThread
 	private void updateSekeltonModel() {
-		disconnectAllTrackers();
-		skeleton = new HumanSkeleton(server, computedTrackers);
+		List<List<Tracker>> trackers = new FastList<>(solvers.length);
+		for (int i = 0; i < solvers.length; ++i)
+			trackers.add(new FastList<>());
+		for (Tracker tracker : server.getAllTrackers()) {
+			int index = server.getTrackerSkeleton(tracker);
+			// Trackers bound to a skeleton that isn't enabled go to the
+			// primary one
+			trackers.get(index >= 0 && index < solvers.length ? index : 0).add(tracker);
+		}
+		for (int i = 0; i < solvers.length; ++i)
+			solvers[i].rebuild(trackers.get(i));
+
+		Skeleton skeleton = getSkeleton();
 		for (Consumer<Skeleton> sc : onSkeletonUpdated)
 			sc.accept(skeleton);
 	}
 
 	@VRServerThread
-	private void disconnectAllTrackers() {
-		for (ComputedHumanPoseTracker t : computedTrackers) {
-			t.setStatus(TrackerStatus.DISCONNECTED);
-		}
+	public void update() {
+		solverPool.run(solvers.length, solveTask);
 	}
 
-	@VRServerThread
-	public void update() {
-		if (skeleton != null)
-			skeleton.updatePose();
+	private void solve(int index) {
+		solvers[index].solve();
 	}
 
 	@VRServerThread
 	public void resetTrackers() {
-		if (skeleton != null)
-			skeleton.resetTrackersFull();
+		for (SkeletonSolver solver : solvers) {
+			Skeleton skeleton = solver.getSkeleton();
+			if (skeleton != null)
+				skeleton.resetTrackersFull();
+		}
 	}
 
 	@VRServerThread
 	public void resetTrackersYaw() {
-		if (skeleton != null)
-			skeleton.resetTrackersYaw();
+		for (SkeletonSolver solver : solvers) {
+			Skeleton skeleton = solver.getSkeleton();
+			if (skeleton != null)
+				skeleton.resetTrackersYaw();
+		}
 	}
 }
@@ -0,0 +1,92 @@
+package dev.slimevr.vr.processor;
+
+import dev.slimevr.util.ann.VRServerThread;
+import io.eiren.util.logging.LogManager;
+
+import java.util.concurrent.Phaser;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+
+/**
+ * Bounded set of daemon threads that run a batch of indexed tasks together
+ * with the calling thread and return once all of them are done.
+ * <p>
+ * The threads are kept between batches and synchronized with a reusable
+ * {@link Phaser}, so running a batch doesn't allocate. Everything done before
+ * {@link #run(int, IntConsumer)} is visible to the tasks, and everything the
+ * tasks did is visible after it returns.
+ */
+public class PoseSolverPool {
+
+	private final Phaser phaser;
+	private final Thread[] workers;
+	private final AtomicInteger nextIndex = new AtomicInteger();
+	// Written before the start barrier, read by the workers after it
+	private IntConsumer task;
+	private int taskCount;
+
+	/**
+	 * @param threads worker threads in addition to the calling thread, 0 to
+	 * run every batch on the calling thread
+	 */
+	public PoseSolverPool(String name, int threads) {
+		threads = Math.max(0, threads);
+		phaser = new Phaser(threads + 1);
+		workers = new Thread[threads];
+		for (int i = 0; i < threads; ++i) {
+			workers[i] = new Thread(this::workerLoop, name + " " + i);
+			workers[i].setDaemon(true);
+			workers[i].start();
+		}
+	}
+
+	/**
+	 * Calls the task with every index from 0 to count - 1 on the pool and the
+	 * calling thread. Must only be called from one thread at a time.
+	 */
+	@VRServerThread
+	public void run(int count, IntConsumer task) {
+		if (workers.length == 0 || count <= 1) {
+			for (int i = 0; i < count; ++i)
+				runTask(task, i);
+			return;
+		}
+		this.task = task;
+		this.taskCount = count;
+		nextIndex.set(0);
+		phaser.arriveAndAwaitAdvance();
+		work();
+		phaser.arriveAndAwaitAdvance();
+		this.task = null;
+	}
+
+	private void workerLoop() {
+		while (true) {
+			phaser.arriveAndAwaitAdvance();
+			work();
+			phaser.arriveAndAwaitAdvance();
+		}
+	}
+
+	private void work() {
+		IntConsumer task = this.task;
+		int count = this.taskCount;
+		int i;
+		while ((i = nextIndex.getAndIncrement()) < count)
+			runTask(task, i);
+	}
+
+	private static void runTask(IntConsumer task, int index) {
+		try {
+			task.accept(index);
+		} catch (Throwable t) {
+			// A failing task must not keep the others waiting at the barrier
+			LogManager.severe("[PoseSolverPool] Task " + index + " failed", t);
+		}
+	}
+
+	public int getThreadCount() {
+		return workers.length;
+	}
+}
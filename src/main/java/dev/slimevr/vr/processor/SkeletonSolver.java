@@ -0,0 +1,101 @@
+package dev.slimevr.vr.processor;
+
+import dev.slimevr.VRServer;
+import dev.slimevr.vr.processor.skeleton.HumanSkeleton;
+import dev.slimevr.vr.processor.skeleton.PoseSnapshot;
+import dev.slimevr.vr.processor.skeleton.PoseSnapshotPool;
+import dev.slimevr.vr.processor.skeleton.Skeleton;
+import dev.slimevr.vr.trackers.Tracker;
+import dev.slimevr.vr.trackers.TrackerRole;
+import dev.slimevr.vr.trackers.TrackerStatus;
+import io.eiren.util.collections.FastList;
+
+import java.util.List;
+
+
+/**
+ * One person tracked by the {@link HumanPoseProcessor}: a skeleton bound to
+ * its own trackers and HMD, its computed trackers and published poses.
+ * <p>
+ * {@link #solve()} may run on a pose solver worker while the VRServer thread
+ * waits for it, everything else runs on the VRServer thread. Trackers belong
+ * to a single skeleton, so solvers never read the same tracker concurrently.
+ */
+public class SkeletonSolver {
+
+	public final int index;
+	private final VRServer server;
+	private final List<ComputedHumanPoseTracker> computedTrackers = new FastList<>();
+	private final PoseSnapshotPool poseSnapshots = new PoseSnapshotPool();
+	private Skeleton skeleton;
+	private long lastSolveNanos = 0;
+
+	public SkeletonSolver(VRServer server, int index) {
+		this.server = server;
+		this.index = index;
+		addComputedTracker(ComputedHumanPoseTrackerPosition.WAIST, TrackerRole.WAIST);
+		addComputedTracker(ComputedHumanPoseTrackerPosition.LEFT_FOOT, TrackerRole.LEFT_FOOT);
+		addComputedTracker(ComputedHumanPoseTrackerPosition.RIGHT_FOOT, TrackerRole.RIGHT_FOOT);
+		addComputedTracker(ComputedHumanPoseTrackerPosition.CHEST, TrackerRole.CHEST);
+		addComputedTracker(ComputedHumanPoseTrackerPosition.LEFT_KNEE, TrackerRole.LEFT_KNEE);
+		addComputedTracker(ComputedHumanPoseTrackerPosition.RIGHT_KNEE, TrackerRole.RIGHT_KNEE);
+		addComputedTracker(ComputedHumanPoseTrackerPosition.LEFT_ELBOW, TrackerRole.LEFT_ELBOW);
+		addComputedTracker(ComputedHumanPoseTrackerPosition.RIGHT_ELBOW, TrackerRole.RIGHT_ELBOW);
+		addComputedTracker(ComputedHumanPoseTrackerPosition.LEFT_HAND, TrackerRole.LEFT_HAND);
+		addComputedTracker(ComputedHumanPoseTrackerPosition.RIGHT_HAND, TrackerRole.RIGHT_HAND);
+	}
+
+	private void addComputedTracker(ComputedHumanPoseTrackerPosition position, TrackerRole role) {
+		computedTrackers
+			.add(new ComputedHumanPoseTracker(Tracker.getNextLocalTrackerId(), position, role));
+	}
+
+	/**
+	 * Builds a new skeleton for the trackers bound to this solver
+	 */
+	public void rebuild(List<? extends Tracker> trackers) {
+		for (ComputedHumanPoseTracker t : computedTrackers) {
+			t.setStatus(TrackerStatus.DISCONNECTED);
+		}
+		skeleton = new HumanSkeleton(server, trackers, computedTrackers);
+	}
+
+	/**
+	 * Updates the pose and publishes it
+	 */
+	public void solve() {
+		Skeleton skeleton = this.skeleton;
+		if (skeleton == null)
+			return;
+		long start = System.nanoTime();
+		skeleton.updatePose();
+		poseSnapshots.publish(skeleton, computedTrackers);
+		lastSolveNanos = System.nanoTime() - start;
+	}
+
+	public Skeleton getSkeleton() {
+		return skeleton;
+	}
+
+	public List<ComputedHumanPoseTracker> getComputedTrackers() {
+		return computedTrackers;
+	}
+
+	public PoseSnapshotPool getPoseSnapshots() {
+		return poseSnapshots;
+	}
+
+	/**
+	 * @see PoseSnapshotPool#acquire()
+	 */
+	public PoseSnapshot acquirePoseSnapshot() {
+		return poseSnapshots.acquire();
+	}
+
+	/**
+	 * @return how long the last {@link #solve()} took
+	 */
+	public long getLastSolveNanos() {
+		return lastSolveNanos;
+	}
+}
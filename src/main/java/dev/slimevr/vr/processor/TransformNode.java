@@ -15,6 +15,11 @@ public class TransformNode {
 	public boolean localRotation = false;
 	protected TransformNode parent;
 	protected String name;
+	/**
+	 * Local transform the world transform was last computed from
+	 */
+	private final Transform solvedLocalTransform = new Transform();
+	private boolean dirty = true;
 
 	public TransformNode(String name, boolean localRotation) {
 		this.name = name;
@@ -32,6 +37,7 @@ public class TransformNode {
 
 		this.children.add(node);
 		node.parent = this;
+		node.dirty = true;
 	}
 
 	public TransformNode getParent() {
@@ -39,14 +45,58 @@ public class TransformNode {
 	}
 
 	public void update() {
-		updateWorldTransforms(); // Call update on each frame because we have
-									// relatively few nodes
+		update(false, null);
+	}
+
+	/**
+	 * Updates world transforms of this node and its children. Subtrees whose
+	 * local transforms didn't change since their last update are skipped, so
+	 * trackers without new samples and unchanged offsets cost a comparison.
+	 *
+	 * @param stats counts recomputed and skipped nodes, may be null
+	 */
+	public void update(UpdateStats stats) {
+		update(false, stats);
+	}
+
+	private void update(boolean parentChanged, UpdateStats stats) {
+		boolean changed = parentChanged || dirty || !isLocalTransformSolved();
+		if (changed) {
+			updateWorldTransforms();
+			solvedLocalTransform.set(localTransform);
+			dirty = false;
+		}
+		if (stats != null) {
+			if (changed)
+				stats.solved++;
+			else
+				stats.skipped++;
+		}
 		for (TransformNode node : children) {
-			node.update();
+			node.update(changed, stats);
 		}
 	}
 
-	protected synchronized void updateWorldTransforms() {
+	private boolean isLocalTransformSolved() {
+		return localTransform.getRotation().equals(solvedLocalTransform.getRotation())
+			&& localTransform.getTranslation().equals(solvedLocalTransform.getTranslation())
+			&& localTransform.getScale().equals(solvedLocalTransform.getScale());
+	}
+
+	/**
+	 * Forces the world transform of this node and its children to be
+	 * recomputed on the next update, needed if it was written elsewhere
+	 */
+	public void markDirty() {
+		dirty = true;
+	}
+
+	/**
+	 * Not synchronized, only the thread updating the skeleton may read world
+	 * transforms directly. Other threads should read published
+	 * {@link dev.slimevr.vr.processor.skeleton.PoseSnapshot}s.
+	 */
+	protected void updateWorldTransforms() {
 		if (parent == null) {
 			worldTransform.set(localTransform);
 		} else {
@@ -82,11 +132,35 @@ public class TransformNode {
 	public void detachWithChildren() {
 		for (TransformNode child : children) {
 			child.parent = null;
+			child.dirty = true;
 		}
 		this.children.clear();
 		if (this.parent != null) {
 			this.parent.children.remove(this);
 		}
 		this.parent = null;
+		this.dirty = true;
+	}
+
+	/**
+	 * Counts nodes recomputed and skipped by {@link #update(UpdateStats)}
+	 */
+	public static class UpdateStats {
+
+		public long solved = 0;
+		public long skipped = 0;
+
+		/**
+		 * @return share of node updates skipped because nothing changed
+		 */
+		public float getHitRate() {
+			long total = solved + skipped;
+			return total == 0 ? 0f : (float) skipped / total;
+		}
+
+		public void reset() {
+			solved = 0;
+			skipped = 0;
+		}
 	}
 }
@@ -1,6 +1,7 @@
 package dev.slimevr.vr.processor.skeleton;
 
 import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
 
 import dev.slimevr.vr.processor.TransformNode;
 
@@ -15,7 +16,13 @@ public class BoneInfo {
 	// this might make more sense to be `BodyPart` or something.
 	public final BoneType boneType;
 	public final TransformNode tailNode;
+	/**
+	 * Updated when skeleton offsets change
+	 */
 	public float length;
+	// Updated once per pose update by updatePose()
+	private final Quaternion globalRotation = new Quaternion();
+	private final Vector3f headPosition = new Vector3f();
 
 	/**
 	 * Creates a `BoneInfo`.
@@ -28,6 +35,7 @@ public class BoneInfo {
 		this.boneType = boneType;
 		this.tailNode = tailNode;
 		updateLength();
+		updatePose();
 	}
 
 	/**
@@ -50,15 +58,39 @@ public class BoneInfo {
 		return rot;
 	}
 
-	public Quaternion getGlobalRotation() {
-		var rot = this.tailNode.getParent().worldTransform.getRotation();
+	/**
+	 * Recomputes the global rotation and head position from the world
+	 * transforms of the skeleton, called after every pose update
+	 */
+	public void updatePose() {
+		TransformNode headNode = this.tailNode.getParent();
+		if (headNode == null) {
+			return;
+		}
+		headPosition.set(headNode.worldTransform.getTranslation());
+		globalRotation.set(headNode.worldTransform.getRotation());
 		if (this.boneType == BoneType.LEFT_FOOT || this.boneType == BoneType.RIGHT_FOOT) {
-			rot = rot.mult(Quaternion.X_90_DEG);
+			globalRotation.multLocal(Quaternion.X_90_DEG);
 		}
 		if (this.boneType == BoneType.LEFT_LOWER_ARM || this.boneType == BoneType.RIGHT_LOWER_ARM) {
-			rot = rot.mult(Quaternion.X_180_DEG);
+			globalRotation.multLocal(Quaternion.X_180_DEG);
 		}
-		return rot;
+	}
+
+	/**
+	 * @return global rotation as of the last pose update, must not be
+	 * modified
+	 */
+	public Quaternion getGlobalRotation() {
+		return globalRotation;
+	}
+
+	public Quaternion getGlobalRotation(Quaternion store) {
+		return store.set(globalRotation);
+	}
+
+	public Vector3f getHeadPosition(Vector3f store) {
+		return store.set(headPosition);
 	}
 
 }
@@ -7,10 +7,12 @@ import dev.slimevr.VRServer;
 import dev.slimevr.util.ann.VRServerThread;
 import dev.slimevr.vr.processor.ComputedHumanPoseTracker;
 import dev.slimevr.vr.processor.ComputedHumanPoseTrackerPosition;
+import dev.slimevr.vr.processor.FlatTransformSolver;
 import dev.slimevr.vr.processor.TransformNode;
 import dev.slimevr.vr.trackers.*;
 import io.eiren.util.collections.FastList;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -121,6 +123,15 @@ public class HumanSkeleton extends Skeleton implements SkeletonConfigCallback {
 	protected boolean extendedKneeModel = true;
 	protected boolean forceArmsFromHMD = false;
 	protected boolean sendAllBones = false;
+	// Solve node transforms over flat arrays instead of walking the nodes
+	protected boolean flatSolverEnabled = false;
+	// Rebuilt on the next update after the nodes were reassembled
+	private FlatTransformSolver flatSolver;
+	// Run a compiled SkeletonTopology instead of the hand written updates
+	protected boolean topologyPlanEnabled = false;
+	// Compiled on the next update after trackers or toggles changed
+	private SkeletonPlan plan;
+	private Map<String, TransformNode> nodesByName;
 
 	// Extended Spine Model values
 	protected float waistChestHipAveraging = 0.5f;
@@ -154,7 +165,26 @@ public class HumanSkeleton extends Skeleton implements SkeletonConfigCallback {
 	) {
 		this(computedTrackers);
 		setTrackersFromServer(server);
+		loadServerConfig(server);
+	}
+
+	/**
+	 * Skeleton with the server's settings for a subset of its trackers
+	 */
+	public HumanSkeleton(
+		VRServer server,
+		List<? extends Tracker> trackers,
+		List<? extends ComputedHumanPoseTracker> computedTrackers
+	) {
+		this(trackers, computedTrackers);
+		loadServerConfig(server);
+	}
+
+	private void loadServerConfig(VRServer server) {
 		skeletonConfig.loadFromConfig(server.config);
+		flatSolverEnabled = server.config.getBoolean("skeleton.flatSolver", flatSolverEnabled);
+		topologyPlanEnabled = server.config
+			.getBoolean("skeleton.topologyPlan", topologyPlanEnabled);
 	}
 
 	public HumanSkeleton(
@@ -204,85 +234,44 @@ public class HumanSkeleton extends Skeleton implements SkeletonConfigCallback {
 			}
 		}
 
-		// #region Assemble skeleton from hmd to hip
-		hmdNode.attachChild(headNode);
-		headNode.attachChild(neckNode);
-		neckNode.attachChild(chestNode);
-		chestNode.attachChild(waistNode);
-		waistNode.attachChild(hipNode);
-		// #endregion
-
-		// #region Assemble skeleton from hips to feet
-		hipNode.attachChild(leftHipNode);
-		hipNode.attachChild(rightHipNode);
-
-		leftHipNode.attachChild(leftKneeNode);
-		rightHipNode.attachChild(rightKneeNode);
-
-		leftKneeNode.attachChild(leftAnkleNode);
-		rightKneeNode.attachChild(rightAnkleNode);
-
-		leftAnkleNode.attachChild(leftFootNode);
-		rightAnkleNode.attachChild(rightFootNode);
-		// #endregion
-
-		// #region Attach tracker nodes for tracker offsets
-		chestNode.attachChild(trackerChestNode);
-		hipNode.attachChild(trackerWaistNode);
-
-		leftKneeNode.attachChild(trackerLeftKneeNode);
-		rightKneeNode.attachChild(trackerRightKneeNode);
-
-		leftFootNode.attachChild(trackerLeftFootNode);
-		rightFootNode.attachChild(trackerRightFootNode);
-		// #endregion
+		SkeletonTopology.HUMAN
+			.attach(
+				getNodesByName(),
+				false,
+				isTrackingLeftArmFromController(),
+				isTrackingRightArmFromController()
+			);
 
 		// Attach arms
 		assembleSkeletonArms(false);
 	}
 
 	protected void assembleSkeletonArms(boolean reset) {
+		flatSolver = null;
+		plan = null;
 		if (reset) {
 			for (TransformNode node : getArmNodes()) {
 				node.detachWithChildren();
 			}
 		}
 
-		// #region Assemble skeleton arms
-		neckNode.attachChild(leftShoulderHeadNode);
-		neckNode.attachChild(rightShoulderHeadNode);
-
-		leftShoulderHeadNode.attachChild(leftShoulderTailNode);
-		rightShoulderHeadNode.attachChild(rightShoulderTailNode);
-
-		if (isTrackingLeftArmFromController()) {
-			leftWristNode.attachChild(leftElbowNode);
-			leftControllerNode.attachChild(leftWristNode);
-
-		} else {
-			leftShoulderTailNode.attachChild(leftElbowNode);
-			leftElbowNode.attachChild(leftWristNode);
-			leftWristNode.attachChild(leftHandNode);
-
-		}
-		if (isTrackingRightArmFromController()) {
-			rightWristNode.attachChild(rightElbowNode);
-			rightControllerNode.attachChild(rightWristNode);
-		} else {
-			rightShoulderTailNode.attachChild(rightElbowNode);
-			rightElbowNode.attachChild(rightWristNode);
-			rightWristNode.attachChild(rightHandNode);
+		SkeletonTopology.HUMAN
+			.attach(
+				getNodesByName(),
+				true,
+				isTrackingLeftArmFromController(),
+				isTrackingRightArmFromController()
+			);
+	}
 
+	private Map<String, TransformNode> getNodesByName() {
+		if (nodesByName == null) {
+			nodesByName = new HashMap<>();
+			for (TransformNode node : getAllNodes()) {
+				nodesByName.put(node.getName(), node);
+			}
 		}
-		// #endregion
-
-		// #region Attach tracker nodes for tracker offsets
-		leftElbowNode.attachChild(trackerLeftElbowNode);
-		rightElbowNode.attachChild(trackerRightElbowNode);
-
-		leftHandNode.attachChild(trackerLeftHandNode);
-		rightHandNode.attachChild(trackerRightHandNode);
-		// #endregion
+		return nodesByName;
 	}
 
 	/**
@@ -483,111 +472,29 @@ public class HumanSkeleton extends Skeleton implements SkeletonConfigCallback {
 
 	// #region Set trackers inputs
 	public void setTrackersFromList(List<? extends Tracker> trackers) {
-		this.hmdTracker = TrackerUtils
-			.findNonComputedHumanPoseTrackerForBodyPosition(
-				trackers,
-				TrackerPosition.HMD
-			);
-		this.leftControllerTracker = TrackerUtils
-			.findNonComputedHumanPoseTrackerForBodyPosition(
-				trackers,
-				TrackerPosition.LEFT_CONTROLLER
-			);
-		this.rightControllerTracker = TrackerUtils
-			.findNonComputedHumanPoseTrackerForBodyPosition(
-				trackers,
-				TrackerPosition.RIGHT_CONTROLLER
-			);
-		this.neckTracker = TrackerUtils
-			.findNonComputedHumanPoseTrackerForBodyPosition(
-				trackers,
-				TrackerPosition.NECK
-			);
-		this.chestTracker = TrackerUtils
-			.findNonComputedHumanPoseTrackerForBodyPosition(
-				trackers,
-				TrackerPosition.CHEST
-			);
-		this.waistTracker = TrackerUtils
-			.findNonComputedHumanPoseTrackerForBodyPosition(
-				trackers,
-				TrackerPosition.WAIST
-			);
-		this.hipTracker = TrackerUtils
-			.findNonComputedHumanPoseTrackerForBodyPosition(
-				trackers,
-				TrackerPosition.HIP
-			);
-		this.leftUpperLegTracker = TrackerUtils
-			.findNonComputedHumanPoseTrackerForBodyPosition(
-				trackers,
-				TrackerPosition.LEFT_UPPER_LEG
-			);
-		this.leftLowerLegTracker = TrackerUtils
-			.findNonComputedHumanPoseTrackerForBodyPosition(
-				trackers,
-				TrackerPosition.LEFT_LOWER_LEG
-			);
-		this.leftFootTracker = TrackerUtils
-			.findNonComputedHumanPoseTrackerForBodyPosition(
-				trackers,
-				TrackerPosition.LEFT_FOOT
-			);
-		this.rightUpperLegTracker = TrackerUtils
-			.findNonComputedHumanPoseTrackerForBodyPosition(
-				trackers,
-				TrackerPosition.RIGHT_UPPER_LEG
-			);
-		this.rightLowerLegTracker = TrackerUtils
-			.findNonComputedHumanPoseTrackerForBodyPosition(
-				trackers,
-				TrackerPosition.RIGHT_LOWER_LEG
-			);
-		this.rightFootTracker = TrackerUtils
-			.findNonComputedHumanPoseTrackerForBodyPosition(
-				trackers,
-				TrackerPosition.RIGHT_FOOT
-			);
-		this.leftLowerArmTracker = TrackerUtils
-			.findNonComputedHumanPoseTrackerForBodyPosition(
-				trackers,
-				TrackerPosition.LEFT_LOWER_ARM
-			);
-		this.rightLowerArmTracker = TrackerUtils
-			.findNonComputedHumanPoseTrackerForBodyPosition(
-				trackers,
-				TrackerPosition.RIGHT_LOWER_ARM
-			);
-		this.leftUpperArmTracker = TrackerUtils
-			.findNonComputedHumanPoseTrackerForBodyPosition(
-				trackers,
-				TrackerPosition.LEFT_UPPER_ARM
-			);
-		this.rightUpperArmTracker = TrackerUtils
-			.findNonComputedHumanPoseTrackerForBodyPosition(
-				trackers,
-				TrackerPosition.RIGHT_UPPER_ARM
-			);
-		this.leftHandTracker = TrackerUtils
-			.findNonComputedHumanPoseTrackerForBodyPosition(
-				trackers,
-				TrackerPosition.LEFT_HAND
-			);
-		this.rightHandTracker = TrackerUtils
-			.findNonComputedHumanPoseTrackerForBodyPosition(
-				trackers,
-				TrackerPosition.RIGHT_HAND
-			);
-		this.leftShoulderTracker = TrackerUtils
-			.findNonComputedHumanPoseTrackerForBodyPosition(
-				trackers,
-				TrackerPosition.LEFT_SHOULDER
-			);
-		this.rightShoulderTracker = TrackerUtils
-			.findNonComputedHumanPoseTrackerForBodyPosition(
-				trackers,
-				TrackerPosition.RIGHT_SHOULDER
-			);
+		Map<TrackerPosition, ? extends Tracker> byPosition = TrackerUtils
+			.mapNonComputedHumanPoseTrackersByBodyPosition(trackers);
+		this.hmdTracker = byPosition.get(TrackerPosition.HMD);
+		this.leftControllerTracker = byPosition.get(TrackerPosition.LEFT_CONTROLLER);
+		this.rightControllerTracker = byPosition.get(TrackerPosition.RIGHT_CONTROLLER);
+		this.neckTracker = byPosition.get(TrackerPosition.NECK);
+		this.chestTracker = byPosition.get(TrackerPosition.CHEST);
+		this.waistTracker = byPosition.get(TrackerPosition.WAIST);
+		this.hipTracker = byPosition.get(TrackerPosition.HIP);
+		this.leftUpperLegTracker = byPosition.get(TrackerPosition.LEFT_UPPER_LEG);
+		this.leftLowerLegTracker = byPosition.get(TrackerPosition.LEFT_LOWER_LEG);
+		this.leftFootTracker = byPosition.get(TrackerPosition.LEFT_FOOT);
+		this.rightUpperLegTracker = byPosition.get(TrackerPosition.RIGHT_UPPER_LEG);
+		this.rightLowerLegTracker = byPosition.get(TrackerPosition.RIGHT_LOWER_LEG);
+		this.rightFootTracker = byPosition.get(TrackerPosition.RIGHT_FOOT);
+		this.leftLowerArmTracker = byPosition.get(TrackerPosition.LEFT_LOWER_ARM);
+		this.rightLowerArmTracker = byPosition.get(TrackerPosition.RIGHT_LOWER_ARM);
+		this.leftUpperArmTracker = byPosition.get(TrackerPosition.LEFT_UPPER_ARM);
+		this.rightUpperArmTracker = byPosition.get(TrackerPosition.RIGHT_UPPER_ARM);
+		this.leftHandTracker = byPosition.get(TrackerPosition.LEFT_HAND);
+		this.rightHandTracker = byPosition.get(TrackerPosition.RIGHT_HAND);
+		this.leftShoulderTracker = byPosition.get(TrackerPosition.LEFT_SHOULDER);
+		this.rightShoulderTracker = byPosition.get(TrackerPosition.RIGHT_SHOULDER);
 
 		// Check for specific conditions and store them in booleans.
 		hasSpineTracker = chestTracker != null || waistTracker != null || hipTracker != null;
@@ -618,6 +525,7 @@ public class HumanSkeleton extends Skeleton implements SkeletonConfigCallback {
 	}
 
 	public void setComputedTracker(ComputedHumanPoseTracker tracker) {
+		plan = null;
 		switch (tracker.getTrackerRole()) {
 			case CHEST:
 				computedChestTracker = tracker;
@@ -663,6 +571,7 @@ public class HumanSkeleton extends Skeleton implements SkeletonConfigCallback {
 	// #endregion
 
 	public void fillNullComputedTrackers() {
+		plan = null;
 		if (computedWaistTracker == null) {
 			computedWaistTracker = new ComputedHumanPoseTracker(
 				Tracker.getNextLocalTrackerId(),
@@ -789,21 +698,214 @@ public class HumanSkeleton extends Skeleton implements SkeletonConfigCallback {
 		updateLocalTransforms();
 		updateRootTrackers();
 		updateComputedTrackers();
+		updateBones();
+	}
+
+	/**
+	 * Caches bone rotations once per pose update for all consumers
+	 */
+	protected void updateBones() {
+		for (BoneInfo bone : currentBoneInfo) {
+			bone.updatePose();
+		}
 	}
 	// #endregion
 
 	protected void updateRootTrackers() {
-		hmdNode.update();
+		if (flatSolverEnabled) {
+			updateRootTrackersFlat();
+			return;
+		}
+		hmdNode.update(nodeUpdateStats);
 		if (isTrackingLeftArmFromController()) {
-			leftControllerNode.update();
+			leftControllerNode.update(nodeUpdateStats);
 		}
 		if (isTrackingRightArmFromController()) {
-			rightControllerNode.update();
+			rightControllerNode.update(nodeUpdateStats);
+		}
+	}
+
+	private void updateRootTrackersFlat() {
+		if (flatSolver == null) {
+			flatSolver = new FlatTransformSolver(
+				hmdNode,
+				leftControllerNode,
+				rightControllerNode
+			);
+		}
+		// The flat solver is cheap enough to always update every node
+		nodeUpdateStats.solved += flatSolver.update(0);
+		if (isTrackingLeftArmFromController()) {
+			nodeUpdateStats.solved += flatSolver.update(1);
+		}
+		if (isTrackingRightArmFromController()) {
+			nodeUpdateStats.solved += flatSolver.update(2);
+		}
+	}
+
+	public boolean isFlatSolverEnabled() {
+		return flatSolverEnabled;
+	}
+
+	/**
+	 * Switches between walking the node graph and {@link FlatTransformSolver},
+	 * both give identical results
+	 */
+	public void setFlatSolverEnabled(boolean enabled) {
+		flatSolverEnabled = enabled;
+	}
+
+	public boolean isTopologyPlanEnabled() {
+		return topologyPlanEnabled;
+	}
+
+	/**
+	 * Switches between the hand written updates and running
+	 * {@link SkeletonTopology#HUMAN} compiled into a {@link SkeletonPlan},
+	 * both give identical results
+	 */
+	public void setTopologyPlanEnabled(boolean enabled) {
+		topologyPlanEnabled = enabled;
+	}
+
+	/**
+	 * @return the plan for the current trackers and toggles, compiled if they
+	 * changed since the last call
+	 */
+	public SkeletonPlan getPlan() {
+		if (plan == null) {
+			plan = new SkeletonPlan(this, SkeletonTopology.HUMAN, getNodesByName());
+		}
+		return plan;
+	}
+
+	/**
+	 * @return the input tracker at the given position, before
+	 * {@link #trackerPreUpdate(Tracker)}
+	 */
+	protected Tracker getInputTracker(TrackerPosition position) {
+		switch (position) {
+			case HMD:
+				return hmdTracker;
+			case NECK:
+				return neckTracker;
+			case CHEST:
+				return chestTracker;
+			case WAIST:
+				return waistTracker;
+			case HIP:
+				return hipTracker;
+			case LEFT_UPPER_LEG:
+				return leftUpperLegTracker;
+			case RIGHT_UPPER_LEG:
+				return rightUpperLegTracker;
+			case LEFT_LOWER_LEG:
+				return leftLowerLegTracker;
+			case RIGHT_LOWER_LEG:
+				return rightLowerLegTracker;
+			case LEFT_FOOT:
+				return leftFootTracker;
+			case RIGHT_FOOT:
+				return rightFootTracker;
+			case LEFT_CONTROLLER:
+				return leftControllerTracker;
+			case RIGHT_CONTROLLER:
+				return rightControllerTracker;
+			case LEFT_LOWER_ARM:
+				return leftLowerArmTracker;
+			case RIGHT_LOWER_ARM:
+				return rightLowerArmTracker;
+			case LEFT_UPPER_ARM:
+				return leftUpperArmTracker;
+			case RIGHT_UPPER_ARM:
+				return rightUpperArmTracker;
+			case LEFT_HAND:
+				return leftHandTracker;
+			case RIGHT_HAND:
+				return rightHandTracker;
+			case LEFT_SHOULDER:
+				return leftShoulderTracker;
+			case RIGHT_SHOULDER:
+				return rightShoulderTracker;
+		}
+		return null;
+	}
+
+	/**
+	 * Adds the steps of a topology modifier to a plan, if they apply to the
+	 * current trackers and toggles
+	 */
+	protected void compileModifier(
+		SkeletonTopology.Modifier modifier,
+		List<SkeletonPlan.Step> steps
+	) {
+		switch (modifier) {
+			case LEFT_EXTENDED_KNEE:
+				if (leftUpperLegTracker != null && leftLowerLegTracker != null && extendedKneeModel) {
+					steps
+						.add(
+							() -> updateExtendedKnee(leftHipNode, leftKneeNode, trackerLeftKneeNode)
+						);
+				}
+				break;
+			case RIGHT_EXTENDED_KNEE:
+				if (
+					rightUpperLegTracker != null && rightLowerLegTracker != null && extendedKneeModel
+				) {
+					steps
+						.add(
+							() -> updateExtendedKnee(
+								rightHipNode,
+								rightKneeNode,
+								trackerRightKneeNode
+							)
+						);
+				}
+				break;
+			case EXTENDED_SPINE:
+				if (
+					!extendedSpineModel
+						|| !hasSpineTracker
+						|| !((chestTracker != null && (waistTracker == null || hipTracker == null))
+							|| (waistTracker != null && hipTracker == null))
+				) {
+					break;
+				}
+				Tracker chest = chestTracker;
+				Tracker hip = hipTracker;
+				if (waistTracker == null) {
+					if (hip != null) {
+						steps
+							.add(
+								() -> updateWaistFromChestAndHip(
+									trackerPreUpdate(chest),
+									trackerPreUpdate(hip)
+								)
+							);
+					} else if (hasKneeTrackers) {
+						steps.add(() -> updateWaistFromChestAndPelvis(trackerPreUpdate(chest)));
+					}
+				}
+				if (hip == null && hasKneeTrackers) {
+					Tracker spine = TrackerUtils.getFirstAvailableTracker(waistTracker, chest);
+					steps.add(() -> updateHipFromSpineAndPelvis(trackerPreUpdate(spine)));
+				}
+				break;
+			case EXTENDED_PELVIS:
+				if (extendedPelvisModel && hasKneeTrackers) {
+					steps.add(this::updateExtendedPelvis);
+				}
+				break;
 		}
 	}
 
 	// #region Update the node transforms from the trackers
 	protected void updateLocalTransforms() {
+		if (topologyPlanEnabled) {
+			getPlan().updateLocalTransforms();
+			return;
+		}
+
 		// #region Pass all trackers through trackerPreUpdate for Autobone
 		Tracker hmdTracker = trackerPreUpdate(this.hmdTracker);
 
@@ -911,15 +1013,7 @@ public class HumanSkeleton extends Skeleton implements SkeletonConfigCallback {
 
 		// Extended left knee
 		if (leftUpperLegTracker != null && leftLowerLegTracker != null && extendedKneeModel) {
-			// Averages the knee's rotation with the local ankle's
-			// pitch and roll and apply to the tracker node.
-			leftHipNode.localTransform.getRotation(rotBuf1);
-			leftKneeNode.localTransform.getRotation(rotBuf2);
-
-			rotBuf2.set(extendedKneeYawRoll(rotBuf1.clone(), rotBuf2.clone()));
-
-			rotBuf1.slerpLocal(rotBuf2, kneeTrackerAnkleAveraging);
-			trackerLeftKneeNode.localTransform.setRotation(rotBuf1);
+			updateExtendedKnee(leftHipNode, leftKneeNode, trackerLeftKneeNode);
 		}
 
 		// Right Leg
@@ -952,15 +1046,7 @@ public class HumanSkeleton extends Skeleton implements SkeletonConfigCallback {
 
 		// Extended right knee
 		if (rightUpperLegTracker != null && rightLowerLegTracker != null && extendedKneeModel) {
-			// Averages the knee's rotation with the local ankle's
-			// pitch and roll and apply to the tracker node.
-			rightHipNode.localTransform.getRotation(rotBuf1);
-			rightKneeNode.localTransform.getRotation(rotBuf2);
-
-			rotBuf2.set(extendedKneeYawRoll(rotBuf1.clone(), rotBuf2.clone()));
-
-			rotBuf1.slerpLocal(rotBuf2, kneeTrackerAnkleAveraging);
-			trackerRightKneeNode.localTransform.setRotation(rotBuf1);
+			updateExtendedKnee(rightHipNode, rightKneeNode, trackerRightKneeNode);
 		}
 
 		// Extended spine
@@ -973,86 +1059,22 @@ public class HumanSkeleton extends Skeleton implements SkeletonConfigCallback {
 				// rotations
 				if (waistTracker == null) {
 					if (hipTracker != null) {
-						// Calculates waist from chest + hip
-						chestTracker.getRotation(rotBuf1);
-						hipTracker.getRotation(rotBuf2);
-
-						// Interpolate between the chest and the hip
-						rotBuf1.slerpLocal(rotBuf2, waistChestHipAveraging);
-						chestNode.localTransform.setRotation(rotBuf1);
+						updateWaistFromChestAndHip(chestTracker, hipTracker);
 					} else if (hasKneeTrackers) {
-						// Calculates waist from chest + pelvis
-						leftHipNode.localTransform.getRotation(rotBuf1);
-						rightHipNode.localTransform.getRotation(rotBuf2);
-						chestTracker.getRotation(rotBuf3);
-
-						// Get the rotation relative to where we expect the
-						// upper legs to be
-						rotBuf3.mult(FORWARD_QUATERNION, rotBuf4);
-						if (rotBuf4.dot(rotBuf1) < 0.0f) {
-							rotBuf1.negateLocal();
-						}
-						if (rotBuf4.dot(rotBuf2) < 0.0f) {
-							rotBuf2.negateLocal();
-						}
-
-						// Average the legs to calculate the pelvis
-						rotBuf1.nlerp(rotBuf2, 0.5f);
-
-						// Interpolate between the pelvis and the chest
-						rotBuf3.pureSlerpLocal(rotBuf1, waistChestPelvisAveraging);
-
-						chestNode.localTransform.setRotation(rotBuf3);
+						updateWaistFromChestAndPelvis(chestTracker);
 					}
 				}
 				if (hipTracker == null && hasKneeTrackers) {
-					// Calculates hip from (chest or waist) + pelvis
-					leftHipNode.localTransform.getRotation(rotBuf1);
-					rightHipNode.localTransform.getRotation(rotBuf2);
-					TrackerUtils
-						.getFirstAvailableTracker(waistTracker, chestTracker)
-						.getRotation(rotBuf3);
-
-					// Get the rotation relative to where we expect the
-					// upper legs to be
-					rotBuf3.mult(FORWARD_QUATERNION, rotBuf4);
-					if (rotBuf4.dot(rotBuf1) < 0.0f) {
-						rotBuf1.negateLocal();
-					}
-					if (rotBuf4.dot(rotBuf2) < 0.0f) {
-						rotBuf2.negateLocal();
-					}
-
-					// Average the legs to calculate the pelvis
-					rotBuf1.nlerp(rotBuf2, 0.5f);
-
-					// Interpolate between the pelvis and the chest
-					rotBuf3.pureSlerpLocal(rotBuf1, hipSpinePelvisAveraging);
-
-					waistNode.localTransform.setRotation(rotBuf3);
+					updateHipFromSpineAndPelvis(
+						TrackerUtils.getFirstAvailableTracker(waistTracker, chestTracker)
+					);
 				}
 			}
 		}
 
 		// Extended pelvis
 		if (extendedPelvisModel && hasKneeTrackers) {
-			// Average pelvis between two legs
-			leftHipNode.localTransform.getRotation(rotBuf1);
-			rightHipNode.localTransform.getRotation(rotBuf2);
-			rotBuf2.nlerp(rotBuf1, 0.5f);
-			waistNode.localTransform.getRotation(rotBuf1);
-
-			rotBuf2.slerpLocal(rotBuf1, pelvisHipAveraging);
-			hipNode.localTransform.setRotation(rotBuf2);
-
-			leftHipNode.localTransform.getRotation(rotBuf1);
-			rightHipNode.localTransform.getRotation(rotBuf2);
-			waistNode.localTransform.getRotation(rotBuf3);
-
-			rotBuf1.set(extendedPelvisYawRoll(rotBuf1.clone(), rotBuf2.clone(), rotBuf3.clone()));
-
-			rotBuf1.slerpLocal(rotBuf3, pelvisWaistTrackerAveraging);
-			trackerWaistNode.localTransform.setRotation(rotBuf1);
+			updateExtendedPelvis();
 		}
 
 		// Left arm
@@ -1155,6 +1177,112 @@ public class HumanSkeleton extends Skeleton implements SkeletonConfigCallback {
 		}
 	}
 
+	/**
+	 * Averages the knee's rotation with the local ankle's pitch and roll and
+	 * applies it to the knee tracker node
+	 */
+	private void updateExtendedKnee(
+		TransformNode hipNode,
+		TransformNode kneeNode,
+		TransformNode trackerKneeNode
+	) {
+		hipNode.localTransform.getRotation(rotBuf1);
+		kneeNode.localTransform.getRotation(rotBuf2);
+
+		rotBuf2.set(extendedKneeYawRoll(rotBuf1.clone(), rotBuf2.clone()));
+
+		rotBuf1.slerpLocal(rotBuf2, kneeTrackerAnkleAveraging);
+		trackerKneeNode.localTransform.setRotation(rotBuf1);
+	}
+
+	/**
+	 * Calculates the waist from the chest and hip trackers
+	 */
+	private void updateWaistFromChestAndHip(Tracker chestTracker, Tracker hipTracker) {
+		chestTracker.getRotation(rotBuf1);
+		hipTracker.getRotation(rotBuf2);
+
+		// Interpolate between the chest and the hip
+		rotBuf1.slerpLocal(rotBuf2, waistChestHipAveraging);
+		chestNode.localTransform.setRotation(rotBuf1);
+	}
+
+	/**
+	 * Calculates the waist from the chest tracker and the upper legs
+	 */
+	private void updateWaistFromChestAndPelvis(Tracker chestTracker) {
+		leftHipNode.localTransform.getRotation(rotBuf1);
+		rightHipNode.localTransform.getRotation(rotBuf2);
+		chestTracker.getRotation(rotBuf3);
+
+		// Get the rotation relative to where we expect the
+		// upper legs to be
+		rotBuf3.mult(FORWARD_QUATERNION, rotBuf4);
+		if (rotBuf4.dot(rotBuf1) < 0.0f) {
+			rotBuf1.negateLocal();
+		}
+		if (rotBuf4.dot(rotBuf2) < 0.0f) {
+			rotBuf2.negateLocal();
+		}
+
+		// Average the legs to calculate the pelvis
+		rotBuf1.nlerp(rotBuf2, 0.5f);
+
+		// Interpolate between the pelvis and the chest
+		rotBuf3.pureSlerpLocal(rotBuf1, waistChestPelvisAveraging);
+
+		chestNode.localTransform.setRotation(rotBuf3);
+	}
+
+	/**
+	 * Calculates the hip from the chest or waist tracker and the upper legs
+	 */
+	private void updateHipFromSpineAndPelvis(Tracker spineTracker) {
+		leftHipNode.localTransform.getRotation(rotBuf1);
+		rightHipNode.localTransform.getRotation(rotBuf2);
+		spineTracker.getRotation(rotBuf3);
+
+		// Get the rotation relative to where we expect the
+		// upper legs to be
+		rotBuf3.mult(FORWARD_QUATERNION, rotBuf4);
+		if (rotBuf4.dot(rotBuf1) < 0.0f) {
+			rotBuf1.negateLocal();
+		}
+		if (rotBuf4.dot(rotBuf2) < 0.0f) {
+			rotBuf2.negateLocal();
+		}
+
+		// Average the legs to calculate the pelvis
+		rotBuf1.nlerp(rotBuf2, 0.5f);
+
+		// Interpolate between the pelvis and the chest
+		rotBuf3.pureSlerpLocal(rotBuf1, hipSpinePelvisAveraging);
+
+		waistNode.localTransform.setRotation(rotBuf3);
+	}
+
+	/**
+	 * Averages the pelvis between the two legs
+	 */
+	private void updateExtendedPelvis() {
+		leftHipNode.localTransform.getRotation(rotBuf1);
+		rightHipNode.localTransform.getRotation(rotBuf2);
+		rotBuf2.nlerp(rotBuf1, 0.5f);
+		waistNode.localTransform.getRotation(rotBuf1);
+
+		rotBuf2.slerpLocal(rotBuf1, pelvisHipAveraging);
+		hipNode.localTransform.setRotation(rotBuf2);
+
+		leftHipNode.localTransform.getRotation(rotBuf1);
+		rightHipNode.localTransform.getRotation(rotBuf2);
+		waistNode.localTransform.getRotation(rotBuf3);
+
+		rotBuf1.set(extendedPelvisYawRoll(rotBuf1.clone(), rotBuf2.clone(), rotBuf3.clone()));
+
+		rotBuf1.slerpLocal(rotBuf3, pelvisWaistTrackerAveraging);
+		trackerWaistNode.localTransform.setRotation(rotBuf1);
+	}
+
 	/**
 	 * Rotates the first Quaternion to match its yaw and roll to the rotation of
 	 * the second Quaternion
@@ -1214,6 +1342,11 @@ public class HumanSkeleton extends Skeleton implements SkeletonConfigCallback {
 
 	// #region Update the output trackers
 	protected void updateComputedTrackers() {
+		if (topologyPlanEnabled) {
+			getPlan().updateComputedTrackers();
+			return;
+		}
+
 		if (computedChestTracker != null) {
 			computedChestTracker.position.set(trackerChestNode.worldTransform.getTranslation());
 			computedChestTracker.rotation.set(trackerChestNode.worldTransform.getRotation());
@@ -1304,6 +1437,7 @@ public class HumanSkeleton extends Skeleton implements SkeletonConfigCallback {
 		}
 
 		// Cache the values of these configs
+		plan = null;
 		switch (configToggle) {
 			case EXTENDED_SPINE_MODEL:
 				extendedSpineModel = newValue;
@@ -0,0 +1,259 @@
+package dev.slimevr.vr.processor.skeleton;
+
+import com.jme3.math.Quaternion;
+import com.jme3.math.Transform;
+import com.jme3.math.Vector3f;
+import dev.slimevr.util.ann.VRServerThread;
+import dev.slimevr.vr.processor.TransformNode;
+import dev.slimevr.vr.trackers.ComputedTracker;
+import io.eiren.util.ann.ThreadSafe;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Copy of the pose after a pose update: world transforms of all skeleton
+ * nodes in the order of {@link Skeleton#getAllNodes()}, bones with their
+ * lengths and computed trackers.
+ * <p>
+ * Snapshots are filled once per tick by {@link PoseSnapshotPool} on the
+ * VRServer thread, and don't change while published. Other threads must
+ * {@link #retain()} a snapshot before reading it and {@link #release()} it
+ * afterwards, so it can be recycled.
+ */
+public class PoseSnapshot {
+
+	private final PoseSnapshotPool pool;
+	private final AtomicInteger references = new AtomicInteger(0);
+	private long version;
+	private long timeNanos;
+	private Skeleton skeleton;
+
+	private String[] nodeNames = new String[0];
+	private float[] nodePositions = new float[0];
+	private float[] nodeRotations = new float[0];
+
+	private int boneCount;
+	private BoneType[] boneTypes = new BoneType[0];
+	private float[] boneHeadPositions = new float[0];
+	private float[] boneRotations = new float[0];
+	private float[] boneLengths = new float[0];
+
+	private int trackerCount;
+	private int[] trackerIds = new int[0];
+	private float[] trackerPositions = new float[0];
+	private float[] trackerRotations = new float[0];
+
+	PoseSnapshot(PoseSnapshotPool pool) {
+		this.pool = pool;
+	}
+
+	@VRServerThread
+	void fill(
+		long version,
+		Skeleton skeleton,
+		TransformNode[] nodes,
+		String[] nodeNames,
+		List<? extends ComputedTracker> trackers,
+		Vector3f posBuf,
+		Quaternion rotBuf
+	) {
+		this.version = version;
+		this.timeNanos = System.nanoTime();
+		this.skeleton = skeleton;
+
+		this.nodeNames = nodeNames;
+		if (nodePositions.length != nodes.length * 3) {
+			nodePositions = new float[nodes.length * 3];
+			nodeRotations = new float[nodes.length * 4];
+		}
+		for (int i = 0; i < nodes.length; ++i) {
+			Transform world = nodes[i].worldTransform;
+			putVector(nodePositions, i, world.getTranslation());
+			putQuaternion(nodeRotations, i, world.getRotation());
+		}
+
+		List<BoneInfo> bones = skeleton.currentBoneInfo;
+		boneCount = bones.size();
+		if (boneTypes.length < boneCount) {
+			boneTypes = new BoneType[boneCount];
+			boneHeadPositions = new float[boneCount * 3];
+			boneRotations = new float[boneCount * 4];
+			boneLengths = new float[boneCount];
+		}
+		for (int i = 0; i < boneCount; ++i) {
+			BoneInfo bone = bones.get(i);
+			boneTypes[i] = bone.boneType;
+			putVector(boneHeadPositions, i, bone.getHeadPosition(posBuf));
+			putQuaternion(boneRotations, i, bone.getGlobalRotation(rotBuf));
+			boneLengths[i] = bone.length;
+		}
+
+		trackerCount = trackers == null ? 0 : trackers.size();
+		if (trackerIds.length < trackerCount) {
+			trackerIds = new int[trackerCount];
+			trackerPositions = new float[trackerCount * 3];
+			trackerRotations = new float[trackerCount * 4];
+		}
+		for (int i = 0; i < trackerCount; ++i) {
+			ComputedTracker tracker = trackers.get(i);
+			trackerIds[i] = tracker.getTrackerId();
+			putVector(trackerPositions, i, tracker.position);
+			putQuaternion(trackerRotations, i, tracker.rotation);
+		}
+	}
+
+	private static void putVector(float[] array, int index, Vector3f v) {
+		array[index * 3] = v.x;
+		array[index * 3 + 1] = v.y;
+		array[index * 3 + 2] = v.z;
+	}
+
+	private static void putQuaternion(float[] array, int index, Quaternion q) {
+		array[index * 4] = q.getX();
+		array[index * 4 + 1] = q.getY();
+		array[index * 4 + 2] = q.getZ();
+		array[index * 4 + 3] = q.getW();
+	}
+
+	private static Vector3f getVector(float[] array, int index, Vector3f store) {
+		return store.set(array[index * 3], array[index * 3 + 1], array[index * 3 + 2]);
+	}
+
+	private static Quaternion getQuaternion(float[] array, int index, Quaternion store) {
+		return store
+			.set(
+				array[index * 4],
+				array[index * 4 + 1],
+				array[index * 4 + 2],
+				array[index * 4 + 3]
+			);
+	}
+
+	/**
+	 * Takes a reference to this snapshot, fails if it was already recycled
+	 */
+	@ThreadSafe
+	boolean retainIfPublished() {
+		int count;
+		do {
+			count = references.get();
+			if (count == 0)
+				return false;
+		} while (!references.compareAndSet(count, count + 1));
+		return true;
+	}
+
+	@ThreadSafe
+	void retainNew() {
+		references.set(1);
+	}
+
+	/**
+	 * Takes another reference to an already retained snapshot
+	 */
+	@ThreadSafe
+	public void retain() {
+		if (!retainIfPublished())
+			throw new IllegalStateException("Snapshot was already recycled");
+	}
+
+	/**
+	 * Drops a reference, the snapshot may be recycled after the last one
+	 */
+	@ThreadSafe
+	public void release() {
+		int count = references.decrementAndGet();
+		if (count == 0)
+			pool.recycle(this);
+		else if (count < 0)
+			throw new IllegalStateException("Snapshot released too many times");
+	}
+
+	/**
+	 * @return number of the pose update this snapshot was taken after,
+	 * increasing with every update
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * @return {@link System#nanoTime()} when the snapshot was taken
+	 */
+	public long getTimeNanos() {
+		return timeNanos;
+	}
+
+	public Skeleton getSkeleton() {
+		return skeleton;
+	}
+
+	public int getNodeCount() {
+		return nodeNames.length;
+	}
+
+	public String getNodeName(int node) {
+		return nodeNames[node];
+	}
+
+	public Vector3f getNodePosition(int node, Vector3f store) {
+		return getVector(nodePositions, node, store);
+	}
+
+	public Quaternion getNodeRotation(int node, Quaternion store) {
+		return getQuaternion(nodeRotations, node, store);
+	}
+
+	/**
+	 * @return number of bones, in the order of
+	 * {@link Skeleton#currentBoneInfo}
+	 */
+	public int getBoneCount() {
+		return boneCount;
+	}
+
+	public BoneType getBoneType(int bone) {
+		return boneTypes[bone];
+	}
+
+	public Vector3f getBoneHeadPosition(int bone, Vector3f store) {
+		return getVector(boneHeadPositions, bone, store);
+	}
+
+	/**
+	 * @see BoneInfo#getGlobalRotation(Quaternion)
+	 */
+	public Quaternion getBoneRotation(int bone, Quaternion store) {
+		return getQuaternion(boneRotations, bone, store);
+	}
+
+	public float getBoneLength(int bone) {
+		return boneLengths[bone];
+	}
+
+	public int getTrackerCount() {
+		return trackerCount;
+	}
+
+	/**
+	 * @return index of the computed tracker with the given id, or -1 if it's
+	 * not in this snapshot
+	 */
+	public int getTrackerIndex(int trackerId) {
+		for (int i = 0; i < trackerCount; ++i) {
+			if (trackerIds[i] == trackerId)
+				return i;
+		}
+		return -1;
+	}
+
+	public Vector3f getTrackerPosition(int tracker, Vector3f store) {
+		return getVector(trackerPositions, tracker, store);
+	}
+
+	public Quaternion getTrackerRotation(int tracker, Quaternion store) {
+		return getQuaternion(trackerRotations, tracker, store);
+	}
+}
@@ -0,0 +1,94 @@
+package dev.slimevr.vr.processor.skeleton;
+
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+import dev.slimevr.util.ann.VRServerThread;
+import dev.slimevr.vr.processor.TransformNode;
+import dev.slimevr.vr.trackers.ComputedTracker;
+import io.eiren.util.ann.ThreadSafe;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+
+/**
+ * Publishes one {@link PoseSnapshot} per pose update and recycles snapshots
+ * nobody reads anymore, so steady state publishing doesn't allocate.
+ * <p>
+ * The pool holds a reference to the current snapshot until the next one is
+ * published. Consumers on the VRServer thread can read
+ * {@link #getCurrent()} directly. Other threads use {@link #acquire()} and
+ * release the snapshot when done.
+ */
+public class PoseSnapshotPool {
+
+	private final Queue<PoseSnapshot> free = new ConcurrentLinkedQueue<>();
+	private final Vector3f posBuf = new Vector3f();
+	private final Quaternion rotBuf = new Quaternion();
+	private volatile PoseSnapshot current;
+	private long version = 0;
+	private Skeleton nodesSkeleton;
+	private TransformNode[] nodes;
+	private String[] nodeNames;
+
+	/**
+	 * Takes a snapshot of the skeleton and the computed trackers and makes
+	 * it the current one
+	 *
+	 * @param trackers computed trackers to copy, may be null
+	 */
+	@VRServerThread
+	public PoseSnapshot publish(Skeleton skeleton, List<? extends ComputedTracker> trackers) {
+		if (skeleton != nodesSkeleton) {
+			// Node order never changes for a skeleton
+			nodesSkeleton = skeleton;
+			nodes = skeleton.getAllNodes();
+			nodeNames = new String[nodes.length];
+			for (int i = 0; i < nodes.length; ++i)
+				nodeNames[i] = nodes[i].getName();
+		}
+
+		PoseSnapshot snapshot = free.poll();
+		if (snapshot == null)
+			snapshot = new PoseSnapshot(this);
+		snapshot.fill(++version, skeleton, nodes, nodeNames, trackers, posBuf, rotBuf);
+		snapshot.retainNew();
+
+		PoseSnapshot previous = current;
+		current = snapshot;
+		if (previous != null)
+			previous.release();
+		return snapshot;
+	}
+
+	/**
+	 * @return the current snapshot without taking a reference, only valid
+	 * until the next {@link #publish(Skeleton, List)}
+	 */
+	@VRServerThread
+	public PoseSnapshot getCurrent() {
+		return current;
+	}
+
+	/**
+	 * @return the current snapshot or null if nothing was published yet. It
+	 * must be released after reading.
+	 */
+	@ThreadSafe
+	public PoseSnapshot acquire() {
+		while (true) {
+			PoseSnapshot snapshot = current;
+			if (snapshot == null)
+				return null;
+			// Fails only if the snapshot was replaced and recycled meanwhile
+			if (snapshot.retainIfPublished())
+				return snapshot;
+		}
+	}
+
+	@ThreadSafe
+	void recycle(PoseSnapshot snapshot) {
+		free.add(snapshot);
+	}
+}
@@ -11,6 +11,7 @@ import io.eiren.util.ann.ThreadSafe;
 public abstract class Skeleton {
 
 	public final List<BoneInfo> currentBoneInfo = new ArrayList<>();
+	protected final TransformNode.UpdateStats nodeUpdateStats = new TransformNode.UpdateStats();
 
 	@VRServerThread
 	public abstract void updatePose();
@@ -39,4 +40,13 @@ public abstract class Skeleton {
 
 	@VRServerThread
 	public abstract void resetTrackersYaw();
+
+	/**
+	 * @return counts of node world transforms recomputed and skipped by pose
+	 * updates since the stats were last reset
+	 */
+	@VRServerThread
+	public TransformNode.UpdateStats getNodeUpdateStats() {
+		return nodeUpdateStats;
+	}
 }
@@ -0,0 +1,179 @@
+package dev.slimevr.vr.processor.skeleton;
+
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+import dev.slimevr.util.ann.VRServerThread;
+import dev.slimevr.vr.processor.ComputedHumanPoseTracker;
+import dev.slimevr.vr.processor.TransformNode;
+import dev.slimevr.vr.processor.skeleton.SkeletonTopology.Output;
+import dev.slimevr.vr.processor.skeleton.SkeletonTopology.Rule;
+import dev.slimevr.vr.trackers.Tracker;
+import dev.slimevr.vr.trackers.TrackerPosition;
+import io.eiren.util.collections.FastList;
+
+import java.util.Map;
+
+
+/**
+ * A {@link SkeletonTopology} compiled for the trackers and toggles of a
+ * {@link HumanSkeleton}. Which trackers are present and which fallbacks apply
+ * is decided once, so the steps run every tick without checking for missing
+ * trackers.
+ * <p>
+ * Plans don't notice tracker or toggle changes, the skeleton compiles a new
+ * one when they happen.
+ */
+public class SkeletonPlan {
+
+	/**
+	 * A single compiled step of updating the local transforms
+	 */
+	public interface Step {
+		void run();
+	}
+
+	private final HumanSkeleton skeleton;
+	private final Step[] steps;
+	private final ComputedHumanPoseTracker[] outputTrackers;
+	private final TransformNode[] outputNodes;
+	private final Vector3f posBuf = new Vector3f();
+	private final Quaternion rotBuf = new Quaternion();
+
+	public SkeletonPlan(
+		HumanSkeleton skeleton,
+		SkeletonTopology topology,
+		Map<String, TransformNode> nodes
+	) {
+		this.skeleton = skeleton;
+		boolean leftFromController = skeleton.isTrackingLeftArmFromController();
+		boolean rightFromController = skeleton.isTrackingRightArmFromController();
+
+		FastList<Step> steps = new FastList<>();
+		for (Rule rule : topology.getRules()) {
+			if (
+				!SkeletonTopology
+					.applies(rule.limb, rule.mode, leftFromController, rightFromController)
+			)
+				continue;
+			if (rule.modifier != null) {
+				skeleton.compileModifier(rule.modifier, steps);
+			} else {
+				Step step = compileRule(rule, nodes);
+				if (step != null)
+					steps.add(step);
+			}
+		}
+		this.steps = steps.toArray(new Step[0]);
+
+		FastList<ComputedHumanPoseTracker> trackers = new FastList<>();
+		FastList<TransformNode> trackerNodes = new FastList<>();
+		for (Output output : topology.getOutputs()) {
+			ComputedHumanPoseTracker tracker = skeleton.getComputedTracker(output.role);
+			if (tracker == null)
+				continue;
+			trackers.add(tracker);
+			trackerNodes.add(SkeletonTopology.getNode(nodes, output.node));
+		}
+		this.outputTrackers = trackers.toArray(new ComputedHumanPoseTracker[0]);
+		this.outputNodes = trackerNodes.toArray(new TransformNode[0]);
+	}
+
+	private Step compileRule(Rule rule, Map<String, TransformNode> nodes) {
+		TransformNode[] targets = new TransformNode[rule.targets.length];
+		for (int i = 0; i < targets.length; ++i)
+			targets[i] = SkeletonTopology.getNode(nodes, rule.targets[i]);
+
+		Tracker source = null;
+		if (rule.requires == null || skeleton.getInputTracker(rule.requires) != null) {
+			for (TrackerPosition position : rule.sources) {
+				source = skeleton.getInputTracker(position);
+				if (source != null)
+					break;
+			}
+		}
+
+		if (source != null) {
+			Tracker tracker = source;
+			if (rule.pose) {
+				return () -> {
+					Tracker t = skeleton.trackerPreUpdate(tracker);
+					t.getPosition(posBuf);
+					t.getRotation(rotBuf);
+					for (TransformNode target : targets) {
+						target.localTransform.setTranslation(posBuf);
+						target.localTransform.setRotation(rotBuf);
+					}
+				};
+			}
+			return () -> {
+				skeleton.trackerPreUpdate(tracker).getRotation(rotBuf);
+				setRotations(targets, rotBuf);
+			};
+		}
+
+		if (
+			rule.fallbackRequires != null
+				&& skeleton.getInputTracker(rule.fallbackRequires) == null
+		)
+			return null;
+
+		switch (rule.fallback) {
+			case IDENTITY:
+				return () -> {
+					for (TransformNode target : targets) {
+						if (rule.pose)
+							target.localTransform.setTranslation(Vector3f.ZERO);
+						target.localTransform.setRotation(Quaternion.IDENTITY);
+					}
+				};
+			case COPY: {
+				TransformNode from = SkeletonTopology.getNode(nodes, rule.fallbackNode);
+				return () -> {
+					from.localTransform.getRotation(rotBuf);
+					setRotations(targets, rotBuf);
+				};
+			}
+			case YAW: {
+				TransformNode from = SkeletonTopology.getNode(nodes, rule.fallbackNode);
+				return () -> {
+					from.localTransform.getRotation(rotBuf);
+					rotBuf.fromAngles(0, rotBuf.getYaw(), 0);
+					setRotations(targets, rotBuf);
+				};
+			}
+			default:
+				return null;
+		}
+	}
+
+	private static void setRotations(TransformNode[] targets, Quaternion rotation) {
+		for (TransformNode target : targets)
+			target.localTransform.setRotation(rotation);
+	}
+
+	/**
+	 * Sets the local transforms of the nodes from the input trackers
+	 */
+	@VRServerThread
+	public void updateLocalTransforms() {
+		for (Step step : steps)
+			step.run();
+	}
+
+	/**
+	 * Copies the world transforms of the nodes to the computed trackers
+	 */
+	@VRServerThread
+	public void updateComputedTrackers() {
+		for (int i = 0; i < outputTrackers.length; ++i) {
+			ComputedHumanPoseTracker tracker = outputTrackers[i];
+			tracker.position.set(outputNodes[i].worldTransform.getTranslation());
+			tracker.rotation.set(outputNodes[i].worldTransform.getRotation());
+			tracker.dataTick();
+		}
+	}
+
+	public int getStepCount() {
+		return steps.length;
+	}
+}
@@ -0,0 +1,472 @@
+package dev.slimevr.vr.processor.skeleton;
+
+import dev.slimevr.vr.processor.TransformNode;
+import dev.slimevr.vr.trackers.TrackerPosition;
+import dev.slimevr.vr.trackers.TrackerRole;
+import io.eiren.util.collections.FastList;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Data definition of a skeleton: how its nodes are linked, which input
+ * trackers drive which node rotations and which nodes the computed trackers
+ * are read from. Nodes are referenced by name.
+ * <p>
+ * A topology doesn't know which trackers are present. {@link SkeletonPlan}
+ * compiles it for the current trackers and toggles into a list of steps that
+ * run every tick.
+ */
+public class SkeletonTopology {
+
+	public static final SkeletonTopology HUMAN = createHuman();
+
+	public enum Limb {
+		BODY,
+		LEFT_ARM,
+		RIGHT_ARM,
+	}
+
+	/**
+	 * When a link or a rule applies, depending on how its arm is tracked
+	 */
+	public enum Mode {
+		ALWAYS,
+		FROM_CONTROLLER,
+		FROM_HMD,
+	}
+
+	/**
+	 * What a rotation rule does when none of its trackers are present
+	 */
+	public enum Fallback {
+		/** Leave the nodes as they are */
+		NONE,
+		/** Reset the nodes to identity (and zero translation for poses) */
+		IDENTITY,
+		/** Copy the local rotation of another node */
+		COPY,
+		/** Copy only the yaw of another node's local rotation */
+		YAW,
+	}
+
+	/**
+	 * Steps that are more than copying a tracker rotation, compiled by the
+	 * skeleton itself
+	 *
+	 * @see HumanSkeleton#compileModifier(Modifier, List)
+	 */
+	public enum Modifier {
+		LEFT_EXTENDED_KNEE,
+		RIGHT_EXTENDED_KNEE,
+		EXTENDED_SPINE,
+		EXTENDED_PELVIS,
+	}
+
+	public static class Link {
+
+		public final String parent;
+		public final String child;
+		public final Limb limb;
+		public final Mode mode;
+
+		public Link(String parent, String child, Limb limb, Mode mode) {
+			this.parent = parent;
+			this.child = child;
+			this.limb = limb;
+			this.mode = mode;
+		}
+	}
+
+	/**
+	 * Sets the local rotation (and translation for poses) of the target nodes
+	 * from the first present tracker of the sources, or applies a modifier
+	 */
+	public static class Rule {
+
+		public final String[] targets;
+		public final boolean pose;
+		public final Modifier modifier;
+		public TrackerPosition[] sources = new TrackerPosition[0];
+		public Limb limb = Limb.BODY;
+		public Mode mode = Mode.ALWAYS;
+		/** If set and not present, the rule always falls back */
+		public TrackerPosition requires;
+		public Fallback fallback = Fallback.NONE;
+		public String fallbackNode;
+		/** If set and not present, the rule doesn't fall back */
+		public TrackerPosition fallbackRequires;
+
+		private Rule(String[] targets, boolean pose, Modifier modifier) {
+			this.targets = targets;
+			this.pose = pose;
+			this.modifier = modifier;
+		}
+
+		public static Rule rotation(String... targets) {
+			return new Rule(targets, false, null);
+		}
+
+		public static Rule pose(String... targets) {
+			return new Rule(targets, true, null);
+		}
+
+		public static Rule modifier(Modifier modifier) {
+			return new Rule(new String[0], false, modifier);
+		}
+
+		/**
+		 * @param sources trackers in order of preference
+		 */
+		public Rule from(TrackerPosition... sources) {
+			this.sources = sources;
+			return this;
+		}
+
+		public Rule on(Limb limb, Mode mode) {
+			this.limb = limb;
+			this.mode = mode;
+			return this;
+		}
+
+		public Rule requires(TrackerPosition requires) {
+			this.requires = requires;
+			return this;
+		}
+
+		public Rule orIdentity() {
+			this.fallback = Fallback.IDENTITY;
+			return this;
+		}
+
+		public Rule orCopyOf(String node) {
+			this.fallback = Fallback.COPY;
+			this.fallbackNode = node;
+			return this;
+		}
+
+		public Rule orYawOf(String node) {
+			this.fallback = Fallback.YAW;
+			this.fallbackNode = node;
+			return this;
+		}
+
+		public Rule orYawOf(String node, TrackerPosition fallbackRequires) {
+			this.fallbackRequires = fallbackRequires;
+			return orYawOf(node);
+		}
+	}
+
+	public static class Output {
+
+		public final TrackerRole role;
+		public final String node;
+
+		public Output(TrackerRole role, String node) {
+			this.role = role;
+			this.node = node;
+		}
+	}
+
+	private final FastList<Link> links = new FastList<>();
+	private final FastList<Rule> rules = new FastList<>();
+	private final FastList<Output> outputs = new FastList<>();
+
+	public SkeletonTopology link(String parent, String child) {
+		return link(Limb.BODY, Mode.ALWAYS, parent, child);
+	}
+
+	public SkeletonTopology link(Limb limb, Mode mode, String parent, String child) {
+		links.add(new Link(parent, child, limb, mode));
+		return this;
+	}
+
+	/**
+	 * Adds a rule, rules are applied in the order they were added
+	 */
+	public SkeletonTopology rule(Rule rule) {
+		rules.add(rule);
+		return this;
+	}
+
+	public SkeletonTopology output(TrackerRole role, String node) {
+		outputs.add(new Output(role, node));
+		return this;
+	}
+
+	public List<Link> getLinks() {
+		return Collections.unmodifiableList(links);
+	}
+
+	public List<Rule> getRules() {
+		return Collections.unmodifiableList(rules);
+	}
+
+	public List<Output> getOutputs() {
+		return Collections.unmodifiableList(outputs);
+	}
+
+	/**
+	 * @return whether something on the given limb applies when the arms are
+	 * tracked as given
+	 */
+	public static boolean applies(
+		Limb limb,
+		Mode mode,
+		boolean leftFromController,
+		boolean rightFromController
+	) {
+		if (mode == Mode.ALWAYS || limb == Limb.BODY)
+			return true;
+		boolean fromController = limb == Limb.LEFT_ARM ? leftFromController : rightFromController;
+		return fromController == (mode == Mode.FROM_CONTROLLER);
+	}
+
+	/**
+	 * Attaches the linked nodes, in the order the links were added
+	 *
+	 * @param arms attach the links of the arms if true, otherwise the links
+	 * of the body
+	 */
+	public void attach(
+		Map<String, TransformNode> nodes,
+		boolean arms,
+		boolean leftFromController,
+		boolean rightFromController
+	) {
+		for (Link link : links) {
+			if (arms == (link.limb == Limb.BODY))
+				continue;
+			if (!applies(link.limb, link.mode, leftFromController, rightFromController))
+				continue;
+			getNode(nodes, link.parent).attachChild(getNode(nodes, link.child));
+		}
+	}
+
+	static TransformNode getNode(Map<String, TransformNode> nodes, String name) {
+		TransformNode node = nodes.get(name);
+		if (node == null)
+			throw new IllegalArgumentException("Unknown skeleton node: " + name);
+		return node;
+	}
+
+	private static SkeletonTopology createHuman() {
+		SkeletonTopology t = new SkeletonTopology();
+
+		// #region Links from the HMD to the feet
+		t.link("HMD", "Head");
+		t.link("Head", "Neck");
+		t.link("Neck", "Chest");
+		t.link("Chest", "Waist");
+		t.link("Waist", "Hip");
+
+		t.link("Hip", "Left-Hip");
+		t.link("Hip", "Right-Hip");
+		t.link("Left-Hip", "Left-Knee");
+		t.link("Right-Hip", "Right-Knee");
+		t.link("Left-Knee", "Left-Ankle");
+		t.link("Right-Knee", "Right-Ankle");
+		t.link("Left-Ankle", "Left-Foot");
+		t.link("Right-Ankle", "Right-Foot");
+
+		t.link("Chest", "Chest-Tracker");
+		t.link("Hip", "Waist-Tracker");
+		t.link("Left-Knee", "Left-Knee-Tracker");
+		t.link("Right-Knee", "Right-Knee-Tracker");
+		t.link("Left-Foot", "Left-Foot-Tracker");
+		t.link("Right-Foot", "Right-Foot-Tracker");
+		// #endregion
+
+		// #region Links of the arms
+		Limb left = Limb.LEFT_ARM;
+		Limb right = Limb.RIGHT_ARM;
+		t.link(left, Mode.ALWAYS, "Neck", "Left-Shoulder-Head");
+		t.link(right, Mode.ALWAYS, "Neck", "Right-Shoulder-Head");
+		t.link(left, Mode.ALWAYS, "Left-Shoulder-Head", "Left-Shoulder-Tail");
+		t.link(right, Mode.ALWAYS, "Right-Shoulder-Head", "Right-Shoulder-Tail");
+
+		t.link(left, Mode.FROM_CONTROLLER, "Left-Wrist", "Left-Elbow");
+		t.link(left, Mode.FROM_CONTROLLER, "Left-Controller", "Left-Wrist");
+		t.link(left, Mode.FROM_HMD, "Left-Shoulder-Tail", "Left-Elbow");
+		t.link(left, Mode.FROM_HMD, "Left-Elbow", "Left-Wrist");
+		t.link(left, Mode.FROM_HMD, "Left-Wrist", "Left-Hand");
+
+		t.link(right, Mode.FROM_CONTROLLER, "Right-Wrist", "Right-Elbow");
+		t.link(right, Mode.FROM_CONTROLLER, "Right-Controller", "Right-Wrist");
+		t.link(right, Mode.FROM_HMD, "Right-Shoulder-Tail", "Right-Elbow");
+		t.link(right, Mode.FROM_HMD, "Right-Elbow", "Right-Wrist");
+		t.link(right, Mode.FROM_HMD, "Right-Wrist", "Right-Hand");
+
+		t.link(left, Mode.ALWAYS, "Left-Elbow", "Left-Elbow-Tracker");
+		t.link(right, Mode.ALWAYS, "Right-Elbow", "Right-Elbow-Tracker");
+		t.link(left, Mode.ALWAYS, "Left-Hand", "Left-Hand-Tracker");
+		t.link(right, Mode.ALWAYS, "Right-Hand", "Right-Hand-Tracker");
+		// #endregion
+
+		// #region HMD, head and spine
+		t.rule(Rule.pose("HMD").from(TrackerPosition.HMD).orIdentity());
+		t
+			.rule(
+				Rule
+					.rotation("Head")
+					.from(TrackerPosition.NECK, TrackerPosition.HMD)
+					.requires(TrackerPosition.HMD)
+					.orIdentity()
+			);
+		// Without spine trackers, align the spine with the head's yaw
+		t
+			.rule(
+				Rule
+					.rotation("Neck", "Chest-Tracker")
+					.from(TrackerPosition.CHEST, TrackerPosition.WAIST, TrackerPosition.HIP)
+					.orYawOf("Head", TrackerPosition.HMD)
+			);
+		t
+			.rule(
+				Rule
+					.rotation("Chest")
+					.from(TrackerPosition.WAIST, TrackerPosition.HIP, TrackerPosition.CHEST)
+					.orYawOf("Head", TrackerPosition.HMD)
+			);
+		t
+			.rule(
+				Rule
+					.rotation("Waist", "Hip", "Waist-Tracker")
+					.from(TrackerPosition.HIP, TrackerPosition.WAIST, TrackerPosition.CHEST)
+					.orYawOf("Head", TrackerPosition.HMD)
+			);
+		// #endregion
+
+		// #region Legs, aligned with the hip's yaw without trackers
+		t
+			.rule(
+				Rule
+					.rotation("Left-Hip", "Left-Knee-Tracker")
+					.from(TrackerPosition.LEFT_UPPER_LEG)
+					.orYawOf("Hip")
+			);
+		t.rule(Rule.rotation("Left-Knee").from(TrackerPosition.LEFT_LOWER_LEG).orYawOf("Hip"));
+		t
+			.rule(
+				Rule
+					.rotation("Left-Ankle", "Left-Foot", "Left-Foot-Tracker")
+					.from(TrackerPosition.LEFT_FOOT)
+					.orCopyOf("Left-Knee")
+			);
+		t.rule(Rule.modifier(Modifier.LEFT_EXTENDED_KNEE));
+
+		t
+			.rule(
+				Rule
+					.rotation("Right-Hip", "Right-Knee-Tracker")
+					.from(TrackerPosition.RIGHT_UPPER_LEG)
+					.orYawOf("Hip")
+			);
+		t.rule(Rule.rotation("Right-Knee").from(TrackerPosition.RIGHT_LOWER_LEG).orYawOf("Hip"));
+		t
+			.rule(
+				Rule
+					.rotation("Right-Ankle", "Right-Foot", "Right-Foot-Tracker")
+					.from(TrackerPosition.RIGHT_FOOT)
+					.orCopyOf("Right-Knee")
+			);
+		t.rule(Rule.modifier(Modifier.RIGHT_EXTENDED_KNEE));
+
+		t.rule(Rule.modifier(Modifier.EXTENDED_SPINE));
+		t.rule(Rule.modifier(Modifier.EXTENDED_PELVIS));
+		// #endregion
+
+		// #region Arms
+		for (Limb arm : new Limb[] { Limb.LEFT_ARM, Limb.RIGHT_ARM }) {
+			boolean isLeft = arm == Limb.LEFT_ARM;
+			String side = isLeft ? "Left-" : "Right-";
+			TrackerPosition controller = isLeft
+				? TrackerPosition.LEFT_CONTROLLER
+				: TrackerPosition.RIGHT_CONTROLLER;
+			TrackerPosition shoulder = isLeft
+				? TrackerPosition.LEFT_SHOULDER
+				: TrackerPosition.RIGHT_SHOULDER;
+			TrackerPosition upperArm = isLeft
+				? TrackerPosition.LEFT_UPPER_ARM
+				: TrackerPosition.RIGHT_UPPER_ARM;
+			TrackerPosition lowerArm = isLeft
+				? TrackerPosition.LEFT_LOWER_ARM
+				: TrackerPosition.RIGHT_LOWER_ARM;
+			TrackerPosition hand = isLeft
+				? TrackerPosition.LEFT_HAND
+				: TrackerPosition.RIGHT_HAND;
+
+			// From the controller back to the shoulder
+			t
+				.rule(
+					Rule
+						.pose(side + "Controller")
+						.from(controller)
+						.on(arm, Mode.FROM_CONTROLLER)
+				);
+			t
+				.rule(
+					Rule
+						.rotation(side + "Wrist")
+						.from(lowerArm, upperArm)
+						.on(arm, Mode.FROM_CONTROLLER)
+				);
+			t
+				.rule(
+					Rule
+						.rotation(side + "Elbow", side + "Elbow-Tracker")
+						.from(upperArm, lowerArm)
+						.on(arm, Mode.FROM_CONTROLLER)
+				);
+
+			// From the shoulder to the hand
+			t
+				.rule(
+					Rule
+						.rotation(side + "Shoulder-Head")
+						.from(shoulder)
+						.on(arm, Mode.FROM_HMD)
+						.orCopyOf("Neck")
+				);
+			t
+				.rule(
+					Rule
+						.rotation(side + "Shoulder-Tail", side + "Elbow-Tracker")
+						.from(upperArm, lowerArm)
+						.on(arm, Mode.FROM_HMD)
+				);
+			t
+				.rule(
+					Rule
+						.rotation(side + "Elbow")
+						.from(lowerArm, upperArm)
+						.on(arm, Mode.FROM_HMD)
+				);
+			t
+				.rule(
+					Rule
+						.rotation(side + "Wrist", side + "Hand", side + "Hand-Tracker")
+						.from(hand)
+						.on(arm, Mode.FROM_HMD)
+				);
+		}
+		// #endregion
+
+		// #region Computed trackers
+		t.output(TrackerRole.CHEST, "Chest-Tracker");
+		t.output(TrackerRole.WAIST, "Waist-Tracker");
+		t.output(TrackerRole.LEFT_KNEE, "Left-Knee-Tracker");
+		t.output(TrackerRole.LEFT_FOOT, "Left-Foot-Tracker");
+		t.output(TrackerRole.RIGHT_KNEE, "Right-Knee-Tracker");
+		t.output(TrackerRole.RIGHT_FOOT, "Right-Foot-Tracker");
+		t.output(TrackerRole.LEFT_ELBOW, "Left-Elbow-Tracker");
+		t.output(TrackerRole.RIGHT_ELBOW, "Right-Elbow-Tracker");
+		t.output(TrackerRole.LEFT_HAND, "Left-Hand-Tracker");
+		t.output(TrackerRole.RIGHT_HAND, "Right-Hand-Tracker");
+		// #endregion
+
+		return t;
+	}
+}
@@ -14,10 +14,20 @@ public class IMUTracker
 	implements Tracker, TrackerWithTPS, TrackerWithBattery, TrackerWithWireless {
 
 	public static final float MAX_MAG_CORRECTION_ACCURACY = 5 * FastMath.RAD_TO_DEG;
+	public static final int MAX_FILTER_TICKS = 50;
+	/**
+	 * Samples used for time based interpolation, enough for the latency
+	 * budget at the highest tracker rates
+	 */
+	public static final int INTERPOLATION_SAMPLES = 16;
 
 	// public final Vector3f gyroVector = new Vector3f();
 	// public final Vector3f accelVector = new Vector3f();
 	public final Vector3f magVector = new Vector3f();
+	/**
+	 * Latest rotation, only for the thread receiving tracker data. Other
+	 * threads should use {@link #getRawRotation(Quaternion)}.
+	 */
 	public final Quaternion rotQuaternion = new Quaternion();
 	public final Quaternion rotMagQuaternion = new Quaternion();
 	public final Quaternion rotAdjust = new Quaternion();
@@ -29,7 +39,30 @@ public class IMUTracker
 	protected final String descriptiveName;
 	protected final TrackersUDPServer server;
 	protected final VRServer vrserver;
-	private final Quaternion buffQuat = new Quaternion();
+	private final RotationSampleSlot sampleSlot = new RotationSampleSlot();
+	/**
+	 * Received rotations for the movement filter and time based
+	 * interpolation
+	 */
+	private final RotationSampleHistory history = new RotationSampleHistory(
+		MAX_FILTER_TICKS + 1
+	);
+	/**
+	 * Rotations are read from the server, GUI and reset threads, each gets
+	 * its own copies of the samples
+	 */
+	private final ThreadLocal<ReadBuffers> readBuffers = ThreadLocal
+		.withInitial(() -> new ReadBuffers(history));
+	private final Quaternion filterBase = new Quaternion();
+	/**
+	 * Evaluates rotations at the server tick time, null if disabled
+	 */
+	private volatile RotationInterpolator interpolator;
+	/**
+	 * Adaptive filter run on received rotations, null unless the ONE_EURO
+	 * filter is selected
+	 */
+	private volatile OneEuroRotationFilter oneEuroFilter;
 	public int movementFilterTickCount = 0;
 	public float movementFilterAmount = 1f;
 	public int calibrationStatus = 0;
@@ -41,7 +74,6 @@ public class IMUTracker
 	private int signalStrength = -1;
 	public float temperature = 0;
 	public TrackerPosition bodyPosition = null;
-	protected CircularArrayList<Quaternion> previousRots;
 	protected Quaternion mounting = null;
 	protected TrackerStatus status = TrackerStatus.OK;
 	protected float confidence = 0;
@@ -96,14 +128,49 @@ public class IMUTracker
 				vrserver.config.getFloat("filters.amount", 0.3f),
 				vrserver.config.getInt("filters.tickCount", 1)
 			);
+			setInterpolation(
+				vrserver.config.getBoolean("filters.timeInterpolation.enabled", false),
+				vrserver.config.getFloat("filters.timeInterpolation.latencyMs", 10f),
+				vrserver.config.getFloat("filters.timeInterpolation.maxPredictionMs", 10f)
+			);
 		}
 	}
 
+	/**
+	 * Enables evaluating rotations at the server tick time from the
+	 * timestamped sample history, replacing the movement filter
+	 *
+	 * @param latencyMs how far in the past rotations are evaluated
+	 * @param maxPredictionMs how far past the last sample rotations may be
+	 * extrapolated
+	 */
+	public void setInterpolation(boolean enabled, float latencyMs, float maxPredictionMs) {
+		if (enabled) {
+			interpolator = new RotationInterpolator(
+				(long) (FastMath.clamp(latencyMs, 0, 100) * 1_000_000L),
+				(long) (FastMath.clamp(maxPredictionMs, 0, 100) * 1_000_000L)
+			);
+		} else {
+			interpolator = null;
+		}
+	}
+
+	public RotationInterpolator getInterpolator() {
+		return interpolator;
+	}
+
 	public void setFilter(String type, float amount, int ticks) {
 		amount = FastMath.clamp(amount, 0, 1f);
-		ticks = (int) FastMath.clamp(ticks, 0, 50);
+		ticks = (int) FastMath.clamp(ticks, 0, MAX_FILTER_TICKS);
+		oneEuroFilter = null;
 		if (type != null) {
 			switch (type) {
+				case "ONE_EURO":
+					// Filtered on receive, ticks aren't used
+					movementFilterAmount = 1f;
+					movementFilterTickCount = 0;
+					oneEuroFilter = OneEuroRotationFilter.fromIntensity(amount);
+					break;
 				case "INTERPOLATION":
 					movementFilterAmount = 1f - (amount / 1.6f);
 					movementFilterTickCount = ticks;
@@ -122,7 +189,6 @@ public class IMUTracker
 			movementFilterAmount = 1f;
 			movementFilterTickCount = 0;
 		}
-		previousRots = new CircularArrayList<Quaternion>(movementFilterTickCount + 1);
 	}
 
 	public Quaternion getMountingRotation() {
@@ -164,12 +230,25 @@ public class IMUTracker
 
 	@Override
 	public boolean getRotation(Quaternion store) {
-		if (movementFilterTickCount > 0 && movementFilterAmount != 1 && previousRots.size() > 0) {
-			buffQuat.set(previousRots.get(0));
-			buffQuat.slerpLocal(rotQuaternion, movementFilterAmount);
-			store.set(buffQuat);
+		ReadBuffers buffers = readBuffers.get();
+		RotationInterpolator interpolator = this.interpolator;
+		if (interpolator != null) {
+			history.read(buffers.history);
+			if (interpolator.evaluate(buffers.history, getEvaluationTime(), store)) {
+				store.multLocal(rotAdjust);
+				return true;
+			}
+		}
+		RotationSampleSlot.Sample sample = buffers.sample;
+		sampleSlot.read(sample);
+		if (oneEuroFilter != null && sample.hasFilterBase) {
+			store.set(sample.filterBase);
+		} else if (movementFilterTickCount > 0 && movementFilterAmount != 1 && sample.hasFilterBase) {
+			store.set(sample.filterBase);
+			store.slerpLocal(sample.rotation, movementFilterAmount);
+			store.normalizeLocal();
 		} else {
-			store.set(rotQuaternion);
+			store.set(sample.rotation);
 		}
 		// correction.mult(store, store); // Correction is not used now to
 		// prevent
@@ -178,6 +257,28 @@ public class IMUTracker
 		return true;
 	}
 
+	private long getEvaluationTime() {
+		long tickTime = vrserver != null ? vrserver.getTickTimeNanos() : 0;
+		return tickTime != 0 ? tickTime : System.nanoTime();
+	}
+
+	/**
+	 * Reads the latest received rotation without filtering and mounting
+	 * adjustment, safe to call from any thread
+	 */
+	public void getRawRotation(Quaternion store) {
+		RotationSampleSlot.Sample sample = readBuffers.get().sample;
+		sampleSlot.read(sample);
+		store.set(sample.rotation);
+	}
+
+	/**
+	 * @return number of rotation samples received so far
+	 */
+	public long getSampleVersion() {
+		return sampleSlot.getVersion();
+	}
+
 	public void getCorrection(Quaternion store) {
 		store.set(correction);
 	}
@@ -196,16 +297,36 @@ public class IMUTracker
 		return timer.getAverageFPS();
 	}
 
+	/**
+	 * Called by the thread receiving tracker data after
+	 * {@link #rotQuaternion} was updated, publishes the new sample to readers
+	 */
 	@Override
 	public void dataTick() {
+		dataTick(System.nanoTime());
+	}
+
+	/**
+	 * Same as {@link #dataTick()} for a sample received at the given time,
+	 * used to replay recordings
+	 */
+	public void dataTick(long timeNanos) {
 		timer.update();
 
-		if (movementFilterTickCount != 0) {
-			if (previousRots.size() > movementFilterTickCount) {
-				previousRots.remove(0);
-			}
-			previousRots.add(rotQuaternion.clone());
+		history.write(rotQuaternion, timeNanos);
+		OneEuroRotationFilter oneEuroFilter = this.oneEuroFilter;
+		boolean hasFilterBase;
+		if (oneEuroFilter != null) {
+			// Published in place of the filter base
+			filterBase.set(oneEuroFilter.filter(rotQuaternion, timeNanos));
+			hasFilterBase = true;
+		} else {
+			// The filter interpolates from the rotation received
+			// movementFilterTickCount samples ago
+			int ticks = movementFilterTickCount;
+			hasFilterBase = ticks != 0 && history.getRecent(ticks, filterBase);
 		}
+		sampleSlot.write(rotQuaternion, hasFilterBase ? filterBase : null, timeNanos);
 	}
 
 	@Override
@@ -252,7 +373,9 @@ public class IMUTracker
 			// During calibration set correction to match magnetometer readings
 			// exactly
 			// TODO : Correct only yaw
-			correction.set(rotQuaternion).inverseLocal().multLocal(rotMagQuaternion);
+			RotationSampleSlot.Sample sample = readBuffers.get().sample;
+			sampleSlot.read(sample);
+			correction.set(sample.rotation).inverseLocal().multLocal(rotMagQuaternion);
 		}
 	}
 
@@ -347,6 +470,19 @@ public class IMUTracker
 		this.signalStrength = signalStrength;
 	}
 
+	/**
+	 * A reading thread's copies of the latest sample and the history
+	 */
+	private static class ReadBuffers {
+
+		final RotationSampleSlot.Sample sample = new RotationSampleSlot.Sample();
+		final RotationSampleHistory.Samples history;
+
+		ReadBuffers(RotationSampleHistory history) {
+			this.history = history.newSamples(INTERPOLATION_SAMPLES);
+		}
+	}
+
 	public enum CalibrationAccuracy {
 
 		UNRELIABLE(0), LOW(1), MEDIUM(2), HIGH(3),;
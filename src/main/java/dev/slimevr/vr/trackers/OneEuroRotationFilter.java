@@ -0,0 +1,109 @@
+package dev.slimevr.vr.trackers;
+
+import com.jme3.math.FastMath;
+import com.jme3.math.Quaternion;
+
+
+/**
+ * One Euro filter on a rotation stream: a low-pass filter whose cutoff
+ * frequency rises with the angular speed. Slow movements and rest are smoothed
+ * hard, fast movements pass with little lag.
+ * <p>
+ * Only for the thread receiving the tracker's data, doesn't allocate.
+ *
+ * @see <a href="https://gery.casiez.net/1euro/">1€ Filter</a>
+ */
+public class OneEuroRotationFilter {
+
+	/** Cutoff at rest for the lowest and highest intensity */
+	public static final float LOW_INTENSITY_MIN_CUTOFF = 10f;
+	public static final float HIGH_INTENSITY_MIN_CUTOFF = 0.3f;
+	/** Cutoff increase in Hz per rad/s of angular speed */
+	public static final float DEFAULT_BETA = 0.5f;
+	public static final float DEFAULT_DERIVATIVE_CUTOFF = 1f;
+
+	private final float minCutoff;
+	private final float beta;
+	private final float derivativeCutoff;
+	private final Quaternion filtered = new Quaternion();
+	private final Quaternion previous = new Quaternion();
+	private final Quaternion buffQuat = new Quaternion();
+	private float speed = 0;
+	private long lastTimeNanos;
+	private boolean initialized = false;
+
+	/**
+	 * @param minCutoff cutoff frequency at rest, in Hz
+	 * @param beta cutoff increase in Hz per rad/s of angular speed
+	 * @param derivativeCutoff cutoff frequency for the angular speed, in Hz
+	 */
+	public OneEuroRotationFilter(float minCutoff, float beta, float derivativeCutoff) {
+		this.minCutoff = minCutoff;
+		this.beta = beta;
+		this.derivativeCutoff = derivativeCutoff;
+	}
+
+	/**
+	 * @param intensity filter intensity from 0 to 1, as set for the tracker
+	 * filters
+	 */
+	public static OneEuroRotationFilter fromIntensity(float intensity) {
+		intensity = FastMath.clamp(intensity, 0, 1);
+		// Interpolate geometrically, as the cutoff is a frequency
+		float minCutoff = LOW_INTENSITY_MIN_CUTOFF
+			* FastMath
+				.pow(HIGH_INTENSITY_MIN_CUTOFF / LOW_INTENSITY_MIN_CUTOFF, intensity);
+		return new OneEuroRotationFilter(minCutoff, DEFAULT_BETA, DEFAULT_DERIVATIVE_CUTOFF);
+	}
+
+	/**
+	 * Adds a sample and returns the filtered rotation
+	 *
+	 * @param timeNanos {@link System#nanoTime()} the sample was received at
+	 * @return the filtered rotation, only valid until the next call
+	 */
+	public Quaternion filter(Quaternion rotation, long timeNanos) {
+		if (!initialized) {
+			initialized = true;
+			filtered.set(rotation);
+			previous.set(rotation);
+			lastTimeNanos = timeNanos;
+			return filtered;
+		}
+		float dt = Math.max((timeNanos - lastTimeNanos) / 1_000_000_000f, 1e-4f);
+		lastTimeNanos = timeNanos;
+
+		float rawSpeed = angleBetween(previous, rotation) / dt;
+		previous.set(rotation);
+		speed += smoothingFactor(dt, derivativeCutoff) * (rawSpeed - speed);
+
+		float cutoff = minCutoff + beta * speed;
+		buffQuat.set(rotation);
+		filtered.slerpLocal(buffQuat, smoothingFactor(dt, cutoff));
+		// Close rotations are blended linearly, don't let the length drift
+		filtered.normalizeLocal();
+		return filtered;
+	}
+
+	public void reset() {
+		initialized = false;
+		speed = 0;
+	}
+
+	/**
+	 * @return the filtered angular speed in rad/s
+	 */
+	public float getSpeed() {
+		return speed;
+	}
+
+	private static float smoothingFactor(float dt, float cutoff) {
+		float tau = 1f / (FastMath.TWO_PI * cutoff);
+		return 1f / (1f + tau / dt);
+	}
+
+	private static float angleBetween(Quaternion a, Quaternion b) {
+		float dot = FastMath.abs(a.dot(b));
+		return 2f * FastMath.acos(Math.min(dot, 1f));
+	}
+}
@@ -0,0 +1,92 @@
+package dev.slimevr.vr.trackers;
+
+import com.jme3.math.Quaternion;
+
+
+/**
+ * Evaluates a tracker's rotation at an exact time from its timestamped
+ * {@link RotationSampleHistory}, instead of using whichever sample arrived
+ * last.
+ * <p>
+ * The rotation is evaluated a fixed latency budget in the past, so it can
+ * usually be interpolated between two received samples. Jitter in when
+ * packets arrive then doesn't show as steps in the output, and the added
+ * latency is constant. If no sample newer than that time arrived yet, the
+ * last two samples are extrapolated for at most the prediction limit.
+ * <p>
+ * Scratch rotations belong to the reader-owned
+ * {@link RotationSampleHistory.Samples}, so one interpolator can be used by
+ * several threads.
+ */
+public class RotationInterpolator {
+
+	private final long latencyNanos;
+	private final long maxPredictionNanos;
+
+	/**
+	 * @param latencyNanos how far in the past rotations are evaluated
+	 * @param maxPredictionNanos how far past the last sample rotations may be
+	 * extrapolated, 0 to hold the last sample
+	 */
+	public RotationInterpolator(long latencyNanos, long maxPredictionNanos) {
+		this.latencyNanos = Math.max(0, latencyNanos);
+		this.maxPredictionNanos = Math.max(0, maxPredictionNanos);
+	}
+
+	/**
+	 * @param timeNanos {@link System#nanoTime()} to evaluate the rotation for,
+	 * the latency budget is subtracted from it
+	 * @return false if there are no samples yet
+	 */
+	public boolean evaluate(
+		RotationSampleHistory.Samples samples,
+		long timeNanos,
+		Quaternion store
+	) {
+		int n = samples.count;
+		if (n == 0)
+			return false;
+		long[] times = samples.times;
+		long t = timeNanos - latencyNanos;
+		int last = n - 1;
+
+		if (n == 1 || t <= times[0]) {
+			// History is shorter than the latency budget
+			samples.getRotation(t <= times[0] ? 0 : last, store);
+			return true;
+		}
+
+		if (t >= times[last]) {
+			long span = times[last] - times[last - 1];
+			long ahead = Math.min(t - times[last], maxPredictionNanos);
+			if (span <= 0 || ahead == 0) {
+				samples.getRotation(last, store);
+				return true;
+			}
+			Quaternion rotBuf1 = samples.getRotation(last - 1, samples.rotBuf1);
+			Quaternion rotBuf2 = samples.getRotation(last, samples.rotBuf2);
+			store.slerp(rotBuf1, rotBuf2, 1f + ahead / (float) span);
+			store.normalizeLocal();
+			return true;
+		}
+
+		// times[0] < t < times[last], so a segment always contains t
+		int i = last - 1;
+		while (times[i] > t)
+			--i;
+		Quaternion rotBuf1 = samples.getRotation(i, samples.rotBuf1);
+		Quaternion rotBuf2 = samples.getRotation(i + 1, samples.rotBuf2);
+		store.slerp(rotBuf1, rotBuf2, (t - times[i]) / (float) (times[i + 1] - times[i]));
+		// Close rotations are blended linearly, which shortens them
+		store.normalizeLocal();
+		return true;
+	}
+
+	public long getLatencyNanos() {
+		return latencyNanos;
+	}
+
+	public long getMaxPredictionNanos() {
+		return maxPredictionNanos;
+	}
+}
@@ -0,0 +1,169 @@
+package dev.slimevr.vr.trackers;
+
+import com.jme3.math.Quaternion;
+import io.eiren.util.ann.ThreadSafe;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+
+/**
+ * Seqlock-protected ring of the last rotation samples of a tracker, with the
+ * time each one was received at.
+ * <p>
+ * Same rules as {@link RotationSampleSlot}: a single writer that never blocks,
+ * readers on any thread copy a consistent history into their own
+ * {@link Samples}. Samples are stored in primitive arrays, so adding one
+ * doesn't allocate.
+ */
+public class RotationSampleHistory {
+
+	private static final VarHandle SEQUENCE;
+
+	static {
+		try {
+			SEQUENCE = MethodHandles
+				.lookup()
+				.findVarHandle(RotationSampleHistory.class, "sequence", long.class);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	/**
+	 * Odd while the writer is adding a sample, accessed only through
+	 * {@link #SEQUENCE}
+	 */
+	@SuppressWarnings("unused")
+	private long sequence = 0;
+	private final int capacity;
+	private final float[] rotations;
+	private final long[] times;
+	private int head = 0;
+	private int count = 0;
+
+	public RotationSampleHistory(int capacity) {
+		if (capacity < 2)
+			throw new IllegalArgumentException("History must hold at least 2 samples");
+		this.capacity = capacity;
+		this.rotations = new float[capacity * 4];
+		this.times = new long[capacity];
+	}
+
+	/**
+	 * Adds a sample, dropping the oldest one if the history is full. Must
+	 * only be called from the single writer thread.
+	 *
+	 * @param timeNanos {@link System#nanoTime()} the sample was received at
+	 */
+	public void write(Quaternion rotation, long timeNanos) {
+		long seq = (long) SEQUENCE.getOpaque(this);
+		SEQUENCE.setOpaque(this, seq + 1);
+		VarHandle.storeStoreFence();
+		int i = head;
+		rotations[i * 4] = rotation.getX();
+		rotations[i * 4 + 1] = rotation.getY();
+		rotations[i * 4 + 2] = rotation.getZ();
+		rotations[i * 4 + 3] = rotation.getW();
+		times[i] = timeNanos;
+		head = (i + 1) % capacity;
+		if (count < capacity)
+			count++;
+		SEQUENCE.setRelease(this, seq + 2);
+	}
+
+	/**
+	 * Reads a recent sample. Must only be called from the single writer
+	 * thread.
+	 *
+	 * @param back how many samples before the newest one, clamped to the
+	 * oldest sample
+	 * @return false if there are no samples yet
+	 */
+	public boolean getRecent(int back, Quaternion store) {
+		if (count == 0)
+			return false;
+		int i = (head - 1 - Math.min(back, count - 1) + capacity) % capacity;
+		store
+			.set(
+				rotations[i * 4],
+				rotations[i * 4 + 1],
+				rotations[i * 4 + 2],
+				rotations[i * 4 + 3]
+			);
+		return true;
+	}
+
+	/**
+	 * Copies the newest samples that fit into the store, oldest sample first
+	 *
+	 * @param store copy to fill, made by {@link #newSamples(int)}
+	 */
+	@ThreadSafe
+	public void read(Samples store) {
+		while (true) {
+			long before = (long) SEQUENCE.getAcquire(this);
+			if ((before & 1) == 0) {
+				int n = Math.min(count, store.times.length);
+				int start = (head - n + capacity) % capacity;
+				for (int k = 0; k < n; ++k) {
+					int i = (start + k) % capacity;
+					store.times[k] = times[i];
+					store.rotations[k * 4] = rotations[i * 4];
+					store.rotations[k * 4 + 1] = rotations[i * 4 + 1];
+					store.rotations[k * 4 + 2] = rotations[i * 4 + 2];
+					store.rotations[k * 4 + 3] = rotations[i * 4 + 3];
+				}
+				VarHandle.loadLoadFence();
+				if ((long) SEQUENCE.getOpaque(this) == before) {
+					store.count = n;
+					return;
+				}
+			}
+			Thread.onSpinWait();
+		}
+	}
+
+	public Samples newSamples() {
+		return new Samples(capacity);
+	}
+
+	/**
+	 * @param capacity how many of the newest samples the copy holds
+	 */
+	public Samples newSamples(int capacity) {
+		return new Samples(Math.min(capacity, this.capacity));
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Reader-owned copy of a history, oldest sample first
+	 */
+	public static class Samples {
+
+		public final long[] times;
+		public final float[] rotations;
+		public int count = 0;
+		// Scratch for RotationInterpolator
+		final Quaternion rotBuf1 = new Quaternion();
+		final Quaternion rotBuf2 = new Quaternion();
+
+		public Samples(int capacity) {
+			this.times = new long[capacity];
+			this.rotations = new float[capacity * 4];
+		}
+
+		public Quaternion getRotation(int index, Quaternion store) {
+			return store
+				.set(
+					rotations[index * 4],
+					rotations[index * 4 + 1],
+					rotations[index * 4 + 2],
+					rotations[index * 4 + 3]
+				);
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package dev.slimevr.vr.trackers;
+
+import com.jme3.math.Quaternion;
+import io.eiren.util.ann.ThreadSafe;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+
+/**
+ * Seqlock-protected slot holding the latest rotation sample of a tracker.
+ * <p>
+ * There must be only one writer (the thread receiving the tracker's data),
+ * which never blocks. Readers on any thread always get a consistent sample,
+ * retrying in the rare case the writer published a new one while they were
+ * reading.
+ */
+public class RotationSampleSlot {
+
+	private static final VarHandle SEQUENCE;
+
+	static {
+		try {
+			SEQUENCE = MethodHandles
+				.lookup()
+				.findVarHandle(RotationSampleSlot.class, "sequence", long.class);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	/**
+	 * Odd while the writer is updating the sample, accessed only through
+	 * {@link #SEQUENCE}
+	 */
+	@SuppressWarnings("unused")
+	private long sequence = 0;
+	private float x, y, z, w = 1;
+	private float baseX, baseY, baseZ, baseW = 1;
+	private boolean hasBase = false;
+	private long timeNanos = 0;
+
+	/**
+	 * Publishes a new sample. Must only be called from the single writer
+	 * thread.
+	 *
+	 * @param rotation latest rotation
+	 * @param filterBase rotation the movement filter interpolates from, or
+	 * null if there is none
+	 * @param timeNanos {@link System#nanoTime()} the sample was received at
+	 */
+	public void write(Quaternion rotation, Quaternion filterBase, long timeNanos) {
+		long seq = (long) SEQUENCE.getOpaque(this);
+		SEQUENCE.setOpaque(this, seq + 1);
+		VarHandle.storeStoreFence();
+		x = rotation.getX();
+		y = rotation.getY();
+		z = rotation.getZ();
+		w = rotation.getW();
+		if (filterBase != null) {
+			baseX = filterBase.getX();
+			baseY = filterBase.getY();
+			baseZ = filterBase.getZ();
+			baseW = filterBase.getW();
+			hasBase = true;
+		} else {
+			hasBase = false;
+		}
+		this.timeNanos = timeNanos;
+		SEQUENCE.setRelease(this, seq + 2);
+	}
+
+	/**
+	 * Reads the latest consistent sample
+	 *
+	 * @param store sample to fill
+	 */
+	@ThreadSafe
+	public void read(Sample store) {
+		while (true) {
+			long before = (long) SEQUENCE.getAcquire(this);
+			if ((before & 1) == 0) {
+				float rx = x, ry = y, rz = z, rw = w;
+				float bx = baseX, by = baseY, bz = baseZ, bw = baseW;
+				boolean base = hasBase;
+				long time = timeNanos;
+				VarHandle.loadLoadFence();
+				if ((long) SEQUENCE.getOpaque(this) == before) {
+					store.rotation.set(rx, ry, rz, rw);
+					store.filterBase.set(bx, by, bz, bw);
+					store.hasFilterBase = base;
+					store.timeNanos = time;
+					store.version = before >>> 1;
+					return;
+				}
+			}
+			Thread.onSpinWait();
+		}
+	}
+
+	/**
+	 * @return number of samples published so far, changes every time a new
+	 * sample is written
+	 */
+	@ThreadSafe
+	public long getVersion() {
+		return (long) SEQUENCE.getAcquire(this) >>> 1;
+	}
+
+	/**
+	 * Reader-owned copy of a sample
+	 */
+	public static class Sample {
+
+		public final Quaternion rotation = new Quaternion();
+		public final Quaternion filterBase = new Quaternion();
+		public boolean hasFilterBase = false;
+		public long timeNanos = 0;
+		public long version = 0;
+	}
+}
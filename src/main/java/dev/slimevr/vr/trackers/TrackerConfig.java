@@ -12,6 +12,10 @@ public class TrackerConfig {
 	public final String customName;
 	public String designation;
 	public boolean hide;
+	/**
+	 * Index of the skeleton (tracked person) this tracker belongs to
+	 */
+	public int skeleton;
 	public Quaternion adjustment;
 	public String oldMountingRotation;
 	public Quaternion mountingRotation;
@@ -28,6 +32,7 @@ public class TrackerConfig {
 		this.customName = node.getString("customName");
 		this.designation = node.getString("designation");
 		this.hide = node.getBoolean("hide", false);
+		this.skeleton = node.getInt("skeleton", 0);
 		this.oldMountingRotation = node.getString("rotation");
 		YamlNode mountingRotationNode = node.getNode("mountingRotation");
 		if (mountingRotationNode != null) {
@@ -73,6 +78,10 @@ public class TrackerConfig {
 			configNode.setProperty("hide", hide);
 		else
 			configNode.removeProperty("hide");
+		if (skeleton != 0)
+			configNode.setProperty("skeleton", skeleton);
+		else
+			configNode.removeProperty("skeleton");
 		if (adjustment != null) {
 			configNode.setProperty("adj.x", adjustment.getX());
 			configNode.setProperty("adj.y", adjustment.getY());
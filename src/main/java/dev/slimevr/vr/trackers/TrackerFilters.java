@@ -4,7 +4,12 @@ public enum TrackerFilters {
 
 	NONE(0),
 	INTERPOLATION(1),
-	EXTRAPOLATION(2);
+	EXTRAPOLATION(2),
+	/**
+	 * Adaptive smoothing, see {@link OneEuroRotationFilter}. Uses only the
+	 * intensity.
+	 */
+	ONE_EURO(3);
 
 	public static final TrackerFilters[] values = values();
 
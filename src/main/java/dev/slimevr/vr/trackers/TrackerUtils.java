@@ -2,7 +2,9 @@ package dev.slimevr.vr.trackers;
 
 import dev.slimevr.vr.processor.ComputedHumanPoseTracker;
 
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 
 
 public class TrackerUtils {
@@ -51,6 +53,29 @@ public class TrackerUtils {
 		return null;
 	}
 
+	/**
+	 * Indexes allTrackers by body position in one pass, keeping the first
+	 * non-computed tracker for each position like
+	 * {@link #findNonComputedHumanPoseTrackerForBodyPosition(List, TrackerPosition)}
+	 * 
+	 * @return Map from position to tracker, positions without a tracker are
+	 * absent
+	 */
+	public static <T extends Tracker> Map<TrackerPosition, T> mapNonComputedHumanPoseTrackersByBodyPosition(
+		List<T> allTrackers
+	) {
+		Map<TrackerPosition, T> byPosition = new EnumMap<>(TrackerPosition.class);
+		for (T t : allTrackers) {
+			if (
+				t != null
+					&& t.getBodyPosition() != null
+					&& !(t instanceof ComputedHumanPoseTracker)
+			)
+				byPosition.putIfAbsent(t.getBodyPosition(), t);
+		}
+		return byPosition;
+	}
+
 	/**
 	 * Returns the first tracker that isn't null out of the 2 trackers passed as
 	 * arguments.
@@ -0,0 +1,196 @@
+package dev.slimevr.vr.trackers.udp;
+
+import dev.slimevr.vr.trackers.Tracker;
+import io.eiren.util.Util;
+import io.eiren.util.logging.LogManager;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.function.Consumer;
+
+
+/**
+ * Same as {@link TrackersUDPServer}, but receives on a non-blocking
+ * {@link DatagramChannel} woken up by a {@link Selector} into a direct buffer.
+ * Heartbeats, pings, timeout detection and serial flushing run on the same
+ * thread every {@link #KEEPUP_INTERVAL_MS}, the selector only waits until the
+ * next one is due.
+ * <p>
+ * Every wakeup drains all pending datagrams in batches of up to
+ * {@code batchSize} and notifies the server once per batch, so a burst of
+ * packets flushed by an access point costs one handoff instead of one per
+ * packet.
+ */
+public class TrackersNIOUDPServer extends TrackersUDPServer {
+
+	public static final int DEFAULT_BATCH_SIZE = 64;
+	public static final long KEEPUP_INTERVAL_MS = 500L;
+
+	private final ByteBuffer receiveBuffer = ByteBuffer
+		.allocateDirect(512)
+		.order(ByteOrder.BIG_ENDIAN);
+	private final boolean housekeeping;
+	private final int batchSize;
+
+	protected DatagramChannel channel = null;
+	protected volatile Selector selector = null;
+
+	public TrackersNIOUDPServer(int port, String name, Consumer<Tracker> trackersConsumer) {
+		this(port, name, trackersConsumer, DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * @param batchSize maximum number of datagrams processed before the
+	 * server is notified, 1 notifies for every datagram
+	 */
+	public TrackersNIOUDPServer(
+		int port,
+		String name,
+		Consumer<Tracker> trackersConsumer,
+		int batchSize
+	) {
+		super(port, name, trackersConsumer);
+		this.housekeeping = true;
+		this.batchSize = Math.max(1, batchSize);
+	}
+
+	/**
+	 * Creates a shard that only receives, housekeeping of the shared
+	 * connections is left to the owner
+	 */
+	protected TrackersNIOUDPServer(
+		int port,
+		String name,
+		TrackersUDPServer owner,
+		int batchSize
+	) {
+		super(port, name, owner);
+		this.housekeeping = false;
+		this.batchSize = Math.max(1, batchSize);
+	}
+
+	@Override
+	public void run() {
+		try {
+			channel = DatagramChannel.open();
+			channel.setOption(StandardSocketOptions.SO_BROADCAST, true);
+			configureChannel(channel);
+			channel.bind(new InetSocketAddress(port));
+			channel.configureBlocking(false);
+			selector = Selector.open();
+			channel.register(selector, SelectionKey.OP_READ);
+
+			lastKeepup = 0;
+			while (running) {
+				if (housekeeping) {
+					long untilKeepup = lastKeepup + KEEPUP_INTERVAL_MS - System.currentTimeMillis();
+					if (untilKeepup > 0)
+						selector.select(untilKeepup);
+					else
+						selector.selectNow();
+				} else {
+					selector.select();
+				}
+				selector.selectedKeys().clear();
+				// Keep going while batches come out full, the socket may
+				// still have pending datagrams
+				int received;
+				do {
+					received = receiveBatch();
+				} while (received == batchSize && !isKeepupDue());
+				if (isKeepupDue()) {
+					lastKeepup = System.currentTimeMillis();
+					housekeeping();
+				}
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+		} finally {
+			Util.close(selector);
+			Util.close(channel);
+		}
+	}
+
+	@Override
+	public void shutdown() {
+		super.shutdown();
+		Selector selector = this.selector;
+		if (selector != null)
+			selector.wakeup();
+	}
+
+	/**
+	 * Called before the channel is bound to the port
+	 */
+	protected void configureChannel(DatagramChannel channel) throws IOException {
+	}
+
+	/**
+	 * Reads and processes up to {@code batchSize} pending datagrams, then
+	 * notifies the server once if any of them had data
+	 *
+	 * @return number of datagrams read
+	 */
+	protected int receiveBatch() {
+		int count = 0;
+		boolean hadData = false;
+		while (count < batchSize) {
+			SocketAddress sender = null;
+			try {
+				receiveBuffer.clear();
+				sender = channel.receive(receiveBuffer);
+				if (sender == null)
+					break;
+				count++;
+				receiveBuffer.flip();
+				InetSocketAddress inetSender = (InetSocketAddress) sender;
+				UDPDevice connection = getConnection(inetSender.getAddress());
+				UDPPacket packet = parser.parse(receiveBuffer, connection);
+				if (packet != null) {
+					processPacket(
+						inetSender.getAddress(),
+						inetSender.getPort(),
+						packet,
+						connection
+					);
+					hadData = true;
+				}
+			} catch (Exception e) {
+				LogManager.warning("[TrackerServer] Error parsing packet from " + sender, e);
+				if (sender == null)
+					break; // Receiving itself failed, don't spin on it
+			}
+		}
+		if (hadData)
+			onDataReceived();
+		return count;
+	}
+
+	private boolean isKeepupDue() {
+		return housekeeping && lastKeepup + KEEPUP_INTERVAL_MS <= System.currentTimeMillis();
+	}
+
+	private void housekeeping() {
+		try {
+			if (!hasActiveTrackers()) {
+				sendDiscovery(receiveBuffer);
+			}
+			keepup(receiveBuffer);
+		} catch (Exception e) {
+			LogManager.warning("[TrackerServer] Error during housekeeping", e);
+		}
+	}
+
+	@Override
+	protected void send(ByteBuffer buf, SocketAddress address) throws IOException {
+		buf.flip();
+		channel.send(buf, address);
+	}
+}
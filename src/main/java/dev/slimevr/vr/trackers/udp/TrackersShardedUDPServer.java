@@ -0,0 +1,196 @@
+package dev.slimevr.vr.trackers.udp;
+
+import dev.slimevr.vr.trackers.Tracker;
+import io.eiren.util.logging.LogManager;
+
+import java.io.IOException;
+import java.net.StandardSocketOptions;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+
+/**
+ * Receives tracker data on several threads, each with its own socket, parser
+ * and buffers. Connections and trackers are shared between all shards, so the
+ * rest of the server sees one merged set of devices.
+ * <p>
+ * In {@link ShardMode#REUSEPORT} mode all shards bind the same port with
+ * SO_REUSEPORT and the OS pins every device to one shard by its address. In
+ * {@link ShardMode#PORTS} mode shard {@code i} listens on {@code port + i}.
+ * Handshakes arrive on the first port and every new device is assigned to a
+ * shard round robin. The handshake response comes from that shard's port, so
+ * the device sends all further packets there. REUSEPORT falls back to PORTS
+ * on platforms without SO_REUSEPORT, like Windows.
+ * <p>
+ * This server is shard 0 and runs the housekeeping for all connections.
+ */
+public class TrackersShardedUDPServer extends TrackersNIOUDPServer {
+
+	public enum ShardMode {
+		REUSEPORT,
+		PORTS,;
+
+		public static ShardMode getByName(String name) {
+			for (ShardMode mode : values()) {
+				if (mode.name().equalsIgnoreCase(name))
+					return mode;
+			}
+			return null;
+		}
+	}
+
+	private final ShardMode mode;
+	private final TrackersUDPServer[] shards;
+	private final AtomicInteger nextShard = new AtomicInteger();
+
+	public TrackersShardedUDPServer(
+		int port,
+		String name,
+		Consumer<Tracker> trackersConsumer,
+		int batchSize,
+		int shardCount,
+		ShardMode mode
+	) {
+		super(port, name, trackersConsumer, batchSize);
+		if (mode == ShardMode.REUSEPORT && !isReusePortSupported()) {
+			LogManager
+				.warning("[TrackerServer] SO_REUSEPORT isn't supported, using PORTS shard mode");
+			mode = ShardMode.PORTS;
+		}
+		this.mode = mode;
+		this.shards = new TrackersUDPServer[Math.max(1, shardCount)];
+		shards[0] = this;
+		for (int i = 1; i < shards.length; ++i) {
+			shards[i] = new Shard(
+				mode == ShardMode.PORTS ? port + i : port,
+				name + " shard " + i,
+				this,
+				batchSize
+			);
+		}
+	}
+
+	@Override
+	public void run() {
+		LogManager
+			.info(
+				"[TrackerServer] Receiving on "
+					+ shards.length
+					+ " shards, mode "
+					+ mode
+					+ ", port "
+					+ port
+			);
+		for (int i = 1; i < shards.length; ++i) {
+			shards[i].setDaemon(isDaemon());
+			shards[i].start();
+		}
+		try {
+			super.run();
+		} finally {
+			// Shards don't outlive the server running their housekeeping
+			for (int i = 1; i < shards.length; ++i) {
+				shards[i].shutdown();
+				try {
+					shards[i].join();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return true if datagram sockets on this platform can share a port
+	 * with SO_REUSEPORT
+	 */
+	public static boolean isReusePortSupported() {
+		try (DatagramChannel channel = DatagramChannel.open()) {
+			return channel.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT);
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	@Override
+	protected void configureChannel(DatagramChannel channel) throws IOException {
+		if (mode != ShardMode.REUSEPORT)
+			return;
+		if (!channel.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT))
+			throw new IOException("SO_REUSEPORT is not supported, use PORTS shard mode");
+		channel.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+	}
+
+	@Override
+	protected void onNewDevice(UDPDevice device) {
+		assignShard(device);
+		super.onNewDevice(device);
+	}
+
+	/**
+	 * Picks the shard a new device sends to, subclasses replacing
+	 * {@link #onNewDevice(UDPDevice)} must still call it
+	 */
+	protected void assignShard(UDPDevice device) {
+		if (mode == ShardMode.PORTS)
+			device.shard = Math.floorMod(nextShard.getAndIncrement(), shards.length);
+	}
+
+	@Override
+	protected TrackersUDPServer getSender(UDPDevice device) {
+		// With SO_REUSEPORT every shard's socket has the same port, any of
+		// them will do
+		if (mode == ShardMode.PORTS && device.shard < shards.length)
+			return shards[device.shard];
+		return this;
+	}
+
+	public int getShardCount() {
+		return shards.length;
+	}
+
+	public ShardMode getMode() {
+		return mode;
+	}
+
+	/**
+	 * Receiver thread of one shard, everything but receiving and parsing is
+	 * done by the owner
+	 */
+	private static class Shard extends TrackersNIOUDPServer {
+
+		private final TrackersShardedUDPServer server;
+
+		Shard(int port, String name, TrackersShardedUDPServer server, int batchSize) {
+			super(port, name, server, batchSize);
+			this.server = server;
+		}
+
+		@Override
+		protected void configureChannel(DatagramChannel channel) throws IOException {
+			server.configureChannel(channel);
+		}
+
+		@Override
+		protected void onNewDevice(UDPDevice device) {
+			server.onNewDevice(device);
+		}
+
+		@Override
+		protected void onDataReceived() {
+			server.onDataReceived();
+		}
+
+		@Override
+		protected void onPacketProcessed(UDPPacket packet, UDPDevice connection) {
+			server.onPacketProcessed(packet, connection);
+		}
+
+		@Override
+		protected TrackersUDPServer getSender(UDPDevice device) {
+			return server.getSender(device);
+		}
+	}
+}
@@ -10,6 +10,7 @@ import dev.slimevr.vr.trackers.ReferenceAdjustedTracker;
 import dev.slimevr.vr.trackers.Tracker;
 import dev.slimevr.vr.trackers.TrackerStatus;
 import io.eiren.util.Util;
+import io.eiren.util.ann.ThreadSafe;
 import io.eiren.util.collections.FastList;
 import io.eiren.util.logging.LogManager;
 import org.apache.commons.lang3.ArrayUtils;
@@ -19,6 +20,7 @@ import java.net.*;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 
 
@@ -35,23 +37,53 @@ public class TrackersUDPServer extends Thread {
 
 	private final Quaternion buf = new Quaternion();
 	private final Random random = new Random();
-	private final List<UDPDevice> connections = new FastList<>();
-	private final Map<InetAddress, UDPDevice> connectionsByAddress = new HashMap<>();
-	private final Map<String, UDPDevice> connectionsByMAC = new HashMap<>();
+	private final List<UDPDevice> connections;
+	/**
+	 * Read without locking by the receive loop, modified only while holding
+	 * the connections lock
+	 */
+	private final Map<InetAddress, UDPDevice> connectionsByAddress;
+	private final Map<String, UDPDevice> connectionsByMAC;
 	private final Consumer<Tracker> trackersConsumer;
-	private final int port;
-	private final ArrayList<SocketAddress> broadcastAddresses = new ArrayList<>();
-	private final UDPProtocolParser parser = new UDPProtocolParser();
+	/**
+	 * Server owning connections and trackers, this one unless it's a shard of
+	 * a sharded server
+	 */
+	protected final TrackersUDPServer owner;
+	protected final int port;
+	private final ArrayList<SocketAddress> broadcastAddresses;
+	protected final UDPProtocolParser parser = new UDPProtocolParser(true);
 	private final byte[] rcvBuffer = new byte[512];
 	private final ByteBuffer bb = ByteBuffer.wrap(rcvBuffer).order(ByteOrder.BIG_ENDIAN);
+	private final DatagramPacket receivePacket = new DatagramPacket(rcvBuffer, rcvBuffer.length);
+	private final DatagramPacket sendPacket = new DatagramPacket(rcvBuffer, 0);
+	private final UDPPacket0Heartbeat discoveryHeartbeat = new UDPPacket0Heartbeat();
+	private final UDPPacket1Heartbeat keepupHeartbeat = new UDPPacket1Heartbeat();
+
+	private final StringBuilder serialBuffer2 = new StringBuilder();
 
 	protected DatagramSocket socket = null;
+	/**
+	 * Set once the first sensor is set up, trackers are never removed from
+	 * connections
+	 */
+	protected volatile boolean activeTrackers = false;
+	/**
+	 * Cleared by {@link #shutdown()}, the receive loop exits once it sees it
+	 */
+	protected volatile boolean running = true;
 	protected long lastKeepup = System.currentTimeMillis();
+	protected long prevDiscoveryTime = System.currentTimeMillis();
 
 	public TrackersUDPServer(int port, String name, Consumer<Tracker> trackersConsumer) {
 		super(name);
 		this.port = port;
 		this.trackersConsumer = trackersConsumer;
+		this.owner = this;
+		this.connections = new FastList<>();
+		this.connectionsByAddress = new ConcurrentHashMap<>();
+		this.connectionsByMAC = new HashMap<>();
+		this.broadcastAddresses = new ArrayList<>();
 		try {
 			Enumeration<NetworkInterface> ifaces = NetworkInterface.getNetworkInterfaces();
 			while (ifaces.hasMoreElements()) {
@@ -93,6 +125,21 @@ public class TrackersUDPServer extends Thread {
 		}
 	}
 
+	/**
+	 * Creates a shard receiving on its own socket and parser, but sharing
+	 * connections and trackers with the owner
+	 */
+	protected TrackersUDPServer(int port, String name, TrackersUDPServer owner) {
+		super(name);
+		this.port = port;
+		this.trackersConsumer = owner.trackersConsumer;
+		this.owner = owner;
+		this.connections = owner.connections;
+		this.connectionsByAddress = owner.connectionsByAddress;
+		this.connectionsByMAC = owner.connectionsByMAC;
+		this.broadcastAddresses = owner.broadcastAddresses;
+	}
+
 	private static String packetToString(DatagramPacket packet) {
 		StringBuilder sb = new StringBuilder();
 		sb.append("DatagramPacket{");
@@ -106,23 +153,16 @@ public class TrackersUDPServer extends Thread {
 		return sb.toString();
 	}
 
-	private void setUpNewConnection(DatagramPacket handshakePacket, UDPPacket3Handshake handshake)
-		throws IOException {
-		LogManager
-			.info(
-				"[TrackerServer] Handshake received from "
-					+ handshakePacket.getAddress()
-					+ ":"
-					+ handshakePacket.getPort()
-			);
-		InetAddress addr = handshakePacket.getAddress();
-		UDPDevice connection;
-		synchronized (connections) {
-			connection = connectionsByAddress.get(addr);
-		}
+	private void setUpNewConnection(
+		InetAddress addr,
+		int port,
+		UDPPacket3Handshake handshake
+	) throws IOException {
+		LogManager.info("[TrackerServer] Handshake received from " + addr + ":" + port);
+		InetSocketAddress socketAddress = new InetSocketAddress(addr, port);
+		UDPDevice connection = getConnection(addr);
 		if (connection == null) {
-			connection = new UDPDevice(handshakePacket.getSocketAddress(), addr);
-			Main.vrServer.getDeviceManager().addDevice(connection);
+			connection = new UDPDevice(socketAddress, addr);
 			connection.firmwareBuild = handshake.firmwareBuild;
 			if (handshake.firmware == null || handshake.firmware.length() == 0) {
 				// Only old owoTrack doesn't report firmware and have different
@@ -135,19 +175,27 @@ public class TrackersUDPServer extends Thread {
 			connection.name = handshake.macString != null
 				? "udp://" + handshake.macString
 				: "udp:/"
-					+ handshakePacket.getAddress().toString();
-			connection.descriptiveName = "udp:/" + handshakePacket.getAddress().toString();
+					+ addr.toString();
+			connection.descriptiveName = "udp:/" + addr.toString();
 			int i = 0;
+			boolean setUpByOtherShard = false;
 			synchronized (connections) {
-				if (
+				UDPDevice existing = connectionsByAddress.get(addr);
+				if (existing != null) {
+					// Another shard received the same broadcast handshake
+					// first
+					connection = existing;
+					setUpByOtherShard = true;
+				} else if (
 					handshake.macString != null && connectionsByMAC.containsKey(handshake.macString)
 				) {
+					onNewDevice(connection);
 					UDPDevice previousConnection = connectionsByMAC.get(handshake.macString);
 					i = connections.indexOf(previousConnection);
 					connectionsByAddress.remove(previousConnection.ipAddress);
 					previousConnection.lastPacketNumber = 0;
 					previousConnection.ipAddress = addr;
-					previousConnection.address = handshakePacket.getSocketAddress();
+					previousConnection.address = socketAddress;
 					previousConnection.name = connection.name;
 					previousConnection.descriptiveName = connection.descriptiveName;
 					connectionsByAddress.put(addr, previousConnection);
@@ -156,7 +204,7 @@ public class TrackersUDPServer extends Thread {
 							"[TrackerServer] Tracker "
 								+ i
 								+ " handed over to address "
-								+ handshakePacket.getSocketAddress()
+								+ socketAddress
 								+ ". Board type: "
 								+ handshake.boardType
 								+ ", imu type: "
@@ -171,6 +219,7 @@ public class TrackersUDPServer extends Thread {
 								+ previousConnection.name
 						);
 				} else {
+					onNewDevice(connection);
 					i = connections.size();
 					connections.add(connection);
 					connectionsByAddress.put(addr, connection);
@@ -182,7 +231,7 @@ public class TrackersUDPServer extends Thread {
 							"[TrackerServer] Tracker "
 								+ i
 								+ " added with address "
-								+ handshakePacket.getSocketAddress()
+								+ socketAddress
 								+ ". Board type: "
 								+ handshake.boardType
 								+ ", imu type: "
@@ -198,7 +247,11 @@ public class TrackersUDPServer extends Thread {
 						);
 				}
 			}
-			if (connection.protocol == NetworkProtocol.OWO_LEGACY || connection.firmwareBuild < 9) {
+			if (
+				!setUpByOtherShard
+					&& (connection.protocol == NetworkProtocol.OWO_LEGACY
+						|| connection.firmwareBuild < 9)
+			) {
 				// Set up new sensor for older firmware
 				// Firmware after 7 should send sensor status packet and sensor
 				// will be created
@@ -209,7 +262,17 @@ public class TrackersUDPServer extends Thread {
 		bb.limit(bb.capacity());
 		bb.rewind();
 		parser.writeHandshakeResponse(bb, connection);
-		socket.send(new DatagramPacket(rcvBuffer, bb.position(), connection.address));
+		getSender(connection).send(bb, connection.address);
+	}
+
+	/**
+	 * Sends what was written to the buffer since its start without allocating
+	 * a new datagram
+	 */
+	protected void send(ByteBuffer buf, SocketAddress address) throws IOException {
+		sendPacket.setData(buf.array(), buf.arrayOffset(), buf.position());
+		sendPacket.setSocketAddress(address);
+		socket.send(sendPacket);
 	}
 
 	private void setUpSensor(UDPDevice connection, int trackerId, int sensorType, int sensorStatus)
@@ -239,6 +302,7 @@ public class TrackersUDPServer extends Thread {
 			);
 
 			connection.getTrackers().add(imu);
+			owner.activeTrackers = true;
 			trackersConsumer.accept(adjustedTracker);
 			LogManager
 				.info(
@@ -257,48 +321,28 @@ public class TrackersUDPServer extends Thread {
 
 	@Override
 	public void run() {
-		StringBuilder serialBuffer2 = new StringBuilder();
 		try {
 			socket = new DatagramSocket(port);
 
-			long prevPacketTime = System.currentTimeMillis();
 			socket.setSoTimeout(250);
-			while (true) {
+			while (running) {
 				DatagramPacket received = null;
 				try {
-					boolean hasActiveTrackers = false;
-					for (UDPDevice tracker : connections) {
-						if (tracker.getTrackers().size() > 0) {
-							hasActiveTrackers = true;
-							break;
-						}
-					}
-					if (!hasActiveTrackers) {
-						long discoveryPacketTime = System.currentTimeMillis();
-						if ((discoveryPacketTime - prevPacketTime) >= 2000) {
-							for (SocketAddress addr : broadcastAddresses) {
-								bb.limit(bb.capacity());
-								bb.rewind();
-								parser.write(bb, null, new UDPPacket0Heartbeat());
-								socket.send(new DatagramPacket(rcvBuffer, bb.position(), addr));
-							}
-							prevPacketTime = discoveryPacketTime;
-						}
+					if (!hasActiveTrackers()) {
+						sendDiscovery(bb);
 					}
 
-					received = new DatagramPacket(rcvBuffer, rcvBuffer.length);
+					received = receivePacket;
+					received.setData(rcvBuffer, 0, rcvBuffer.length);
 					socket.receive(received);
 					bb.limit(received.getLength());
 					bb.rewind();
 
-					UDPDevice connection;
-
-					synchronized (connections) {
-						connection = connectionsByAddress.get(received.getAddress());
-					}
+					UDPDevice connection = getConnection(received.getAddress());
 					UDPPacket packet = parser.parse(bb, connection);
 					if (packet != null) {
-						processPacket(received, packet, connection);
+						processPacket(received.getAddress(), received.getPort(), packet, connection);
+						onDataReceived();
 					}
 				} catch (SocketTimeoutException e) {} catch (Exception e) {
 					LogManager
@@ -309,59 +353,7 @@ public class TrackersUDPServer extends Thread {
 				}
 				if (lastKeepup + 500 < System.currentTimeMillis()) {
 					lastKeepup = System.currentTimeMillis();
-					synchronized (connections) {
-						for (UDPDevice conn : connections) {
-							bb.limit(bb.capacity());
-							bb.rewind();
-							parser.write(bb, conn, new UDPPacket1Heartbeat());
-							socket.send(new DatagramPacket(rcvBuffer, bb.position(), conn.address));
-							if (conn.lastPacket + 1000 < System.currentTimeMillis()) {
-								Iterator<Tracker> iterator = conn.getTrackers().iterator();
-								while (iterator.hasNext()) {
-									IMUTracker tracker = (IMUTracker) iterator.next();
-									if (tracker.getStatus() == TrackerStatus.OK)
-										tracker.setStatus(TrackerStatus.DISCONNECTED);
-								}
-								if (!conn.timedOut) {
-									conn.timedOut = true;
-									LogManager.info("[TrackerServer] Tracker timed out: " + conn);
-								}
-							} else {
-								conn.timedOut = false;
-								Iterator<Tracker> iterator = conn.getTrackers().iterator();
-								while (iterator.hasNext()) {
-									IMUTracker tracker = (IMUTracker) iterator.next();
-									if (tracker.getStatus() == TrackerStatus.DISCONNECTED)
-										tracker.setStatus(TrackerStatus.OK);
-								}
-							}
-							if (conn.serialBuffer.length() > 0) {
-								if (conn.lastSerialUpdate + 500L < System.currentTimeMillis()) {
-									serialBuffer2
-										.append('[')
-										.append(conn.name)
-										.append("] ")
-										.append(conn.serialBuffer);
-									System.out.println(serialBuffer2);
-									serialBuffer2.setLength(0);
-									conn.serialBuffer.setLength(0);
-								}
-							}
-							if (conn.lastPingPacketTime + 500 < System.currentTimeMillis()) {
-								conn.lastPingPacketId = random.nextInt();
-								conn.lastPingPacketTime = System.currentTimeMillis();
-								bb.limit(bb.capacity());
-								bb.rewind();
-								bb.putInt(10);
-								bb.putLong(0);
-								bb.putInt(conn.lastPingPacketId);
-								socket
-									.send(
-										new DatagramPacket(rcvBuffer, bb.position(), conn.address)
-									);
-							}
-						}
-					}
+					keepup(bb);
 				}
 			}
 		} catch (Exception e) {
@@ -371,14 +363,130 @@ public class TrackersUDPServer extends Thread {
 		}
 	}
 
-	protected void processPacket(DatagramPacket received, UDPPacket packet, UDPDevice connection)
-		throws IOException {
+	/**
+	 * Stops receiving, the thread exits within one socket timeout and closes
+	 * its socket
+	 */
+	public void shutdown() {
+		running = false;
+	}
+
+	/**
+	 * @return the server whose socket the device expects packets from
+	 */
+	protected TrackersUDPServer getSender(UDPDevice device) {
+		return this;
+	}
+
+	@ThreadSafe
+	protected UDPDevice getConnection(InetAddress address) {
+		return connectionsByAddress.get(address);
+	}
+
+	protected boolean hasActiveTrackers() {
+		return owner.activeTrackers;
+	}
+
+	/**
+	 * Broadcasts a heartbeat so trackers can find the server, at most every 2
+	 * seconds
+	 */
+	protected void sendDiscovery(ByteBuffer buf) throws IOException {
+		long discoveryPacketTime = System.currentTimeMillis();
+		if ((discoveryPacketTime - prevDiscoveryTime) >= 2000) {
+			for (SocketAddress addr : broadcastAddresses) {
+				buf.limit(buf.capacity());
+				buf.rewind();
+				parser.write(buf, null, discoveryHeartbeat);
+				send(buf, addr);
+			}
+			prevDiscoveryTime = discoveryPacketTime;
+		}
+	}
+
+	/**
+	 * Sends heartbeats and pings to all connections, detects timed out
+	 * trackers and flushes their serial output
+	 */
+	protected void keepup(ByteBuffer buf) throws IOException {
+		synchronized (connections) {
+			for (UDPDevice conn : connections) {
+				buf.limit(buf.capacity());
+				buf.rewind();
+				parser.write(buf, conn, keepupHeartbeat);
+				getSender(conn).send(buf, conn.address);
+				if (conn.lastPacket + 1000 < System.currentTimeMillis()) {
+					Iterator<Tracker> iterator = conn.getTrackers().iterator();
+					while (iterator.hasNext()) {
+						IMUTracker tracker = (IMUTracker) iterator.next();
+						if (tracker.getStatus() == TrackerStatus.OK)
+							tracker.setStatus(TrackerStatus.DISCONNECTED);
+					}
+					if (!conn.timedOut) {
+						conn.timedOut = true;
+						LogManager.info("[TrackerServer] Tracker timed out: " + conn);
+					}
+				} else {
+					conn.timedOut = false;
+					Iterator<Tracker> iterator = conn.getTrackers().iterator();
+					while (iterator.hasNext()) {
+						IMUTracker tracker = (IMUTracker) iterator.next();
+						if (tracker.getStatus() == TrackerStatus.DISCONNECTED)
+							tracker.setStatus(TrackerStatus.OK);
+					}
+				}
+				if (conn.serialBuffer.length() > 0) {
+					if (conn.lastSerialUpdate + 500L < System.currentTimeMillis()) {
+						serialBuffer2
+							.append('[')
+							.append(conn.name)
+							.append("] ")
+							.append(conn.serialBuffer);
+						System.out.println(serialBuffer2);
+						serialBuffer2.setLength(0);
+						conn.serialBuffer.setLength(0);
+					}
+				}
+				if (conn.lastPingPacketTime + 500 < System.currentTimeMillis()) {
+					conn.lastPingPacketId = random.nextInt();
+					conn.lastPingPacketTime = System.currentTimeMillis();
+					buf.limit(buf.capacity());
+					buf.rewind();
+					buf.putInt(10);
+					buf.putLong(0);
+					buf.putInt(conn.lastPingPacketId);
+					getSender(conn).send(buf, conn.address);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Called after a received packet was processed
+	 */
+	protected void onDataReceived() {
+		Main.vrServer.newDataAvailable();
+	}
+
+	/**
+	 * Called when a handshake from a new device was received
+	 */
+	protected void onNewDevice(UDPDevice device) {
+		Main.vrServer.getDeviceManager().addDevice(device);
+	}
+
+	protected void processPacket(
+		InetAddress senderAddress,
+		int senderPort,
+		UDPPacket packet,
+		UDPDevice connection
+	) throws IOException {
 		IMUTracker tracker = null;
 		switch (packet.getPacketId()) {
 			case UDPProtocolParser.PACKET_HEARTBEAT:
 				break;
 			case UDPProtocolParser.PACKET_HANDSHAKE:
-				setUpNewConnection(received, (UDPPacket3Handshake) packet);
+				setUpNewConnection(senderAddress, senderPort, (UDPPacket3Handshake) packet);
 				break;
 			case UDPProtocolParser.PACKET_ROTATION:
 			case UDPProtocolParser.PACKET_ROTATION_2:
@@ -441,16 +549,12 @@ public class TrackersUDPServer extends Thread {
 					break;
 				UDPPacket10PingPong ping = (UDPPacket10PingPong) packet;
 				if (connection.lastPingPacketId == ping.pingId) {
-					for (Tracker t : connection.getTrackers()) {
-						IMUTracker imuTracker = (IMUTracker) t;
-						imuTracker
-							.setPing(
-								(int) (System.currentTimeMillis()
-									- connection.lastPingPacketTime) / 2
-							);
-
-						imuTracker.dataTick();
-					}
+					// A pong carries no rotation, publishing a sample here
+					// would repeat the last one under a new time
+					int pingMs = (int) (System.currentTimeMillis()
+						- connection.lastPingPacketTime) / 2;
+					for (Tracker t : connection.getTrackers())
+						((IMUTracker) t).setPing(pingMs);
 				} else {
 					LogManager
 						.debug(
@@ -502,7 +606,9 @@ public class TrackersUDPServer extends Thread {
 				LogManager
 					.severe(
 						"[TrackerServer] Error received from "
-							+ received.getSocketAddress()
+							+ senderAddress
+							+ ":"
+							+ senderPort
 							+ ": "
 							+ error.errorNumber
 					);
@@ -522,7 +628,7 @@ public class TrackersUDPServer extends Thread {
 				bb.limit(bb.capacity());
 				bb.rewind();
 				parser.writeSensorInfoResponse(bb, connection, info);
-				socket.send(new DatagramPacket(rcvBuffer, bb.position(), connection.address));
+				getSender(connection).send(bb, connection.address);
 				LogManager
 					.info(
 						"[TrackerServer] Sensor info for "
@@ -559,9 +665,23 @@ public class TrackersUDPServer extends Thread {
 				LogManager.warning("[TrackerServer] Skipped packet " + packet);
 				break;
 		}
+		onPacketProcessed(packet, connection);
+	}
+
+	/**
+	 * Called on the receiving thread after a packet was processed
+	 *
+	 * @param connection device that sent the packet, null if it isn't known
+	 * yet
+	 */
+	protected void onPacketProcessed(UDPPacket packet, UDPDevice connection) {
 	}
 
 	public List<UDPDevice> getConnections() {
 		return connections;
 	}
+
+	public int getPort() {
+		return port;
+	}
 }
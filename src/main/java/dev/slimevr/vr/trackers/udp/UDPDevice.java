@@ -26,6 +26,16 @@ public class UDPDevice extends Device {
 	public NetworkProtocol protocol = null;
 	public int firmwareBuild = 0;
 	public boolean timedOut = false;
+	public int shard = 0;
+	/**
+	 * Packets skipped by the device's packet numbers, lost on the way or
+	 * dropped by the socket buffer
+	 */
+	public long lostPackets = 0;
+	/**
+	 * Packets rejected by {@link #isNextPacket(long)}
+	 */
+	public long outOfOrderPackets = 0;
 	private final FastList<Tracker> trackers = new FastList<>();
 
 	public UDPDevice(SocketAddress address, InetAddress ipAddress) {
@@ -35,8 +45,12 @@ public class UDPDevice extends Device {
 	}
 
 	public boolean isNextPacket(long packetId) {
-		if (packetId != 0 && packetId <= lastPacketNumber)
+		if (packetId != 0 && packetId <= lastPacketNumber) {
+			outOfOrderPackets++;
 			return false;
+		}
+		if (packetId > 0 && lastPacketNumber > 0)
+			lostPackets += packetId - lastPacketNumber - 1;
 		lastPacketNumber = packetId;
 		return true;
 	}
@@ -38,6 +38,8 @@ public class UDPPacket15SensorInfo extends UDPPacket implements SensorSpecificPa
 		sensorStatus = buf.get() & 0xFF;
 		if (buf.remaining() > 0)
 			sensorType = buf.get() & 0xFF;
+		else
+			sensorType = 0;
 	}
 
 	@Override
@@ -23,6 +23,13 @@ public class UDPPacket3Handshake extends UDPPacket {
 
 	@Override
 	public void readData(ByteBuffer buf) throws IOException {
+		// Packet instance can be reused, don't keep values from the last one
+		boardType = 0;
+		imuType = 0;
+		mcuType = 0;
+		firmwareBuild = 0;
+		firmware = null;
+		macString = null;
 		if (buf.remaining() > 0) {
 			byte[] mac = new byte[6];
 			if (buf.remaining() > 3)
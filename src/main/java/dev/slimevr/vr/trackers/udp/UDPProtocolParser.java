@@ -41,7 +41,23 @@ public class UDPProtocolParser {
 		System.arraycopy(str, 0, HANDSHAKE_BUFFER, 1, str.length);
 	}
 
+	private final boolean reusePackets;
+	private final UDPPacket[] packetsCache;
+
 	public UDPProtocolParser() {
+		this(false);
+	}
+
+	/**
+	 * @param reusePackets if true, one packet instance per packet type is
+	 * created and reused for every parsed datagram. Returned packets are then
+	 * only valid until the next call to {@link #parse(ByteBuffer, UDPDevice)},
+	 * so the parser must be owned by a single receiving thread that fully
+	 * processes each packet before parsing the next one.
+	 */
+	public UDPProtocolParser(boolean reusePackets) {
+		this.reusePackets = reusePackets;
+		this.packetsCache = reusePackets ? new UDPPacket[PACKET_PROTOCOL_CHANGE + 1] : null;
 	}
 
 	public UDPPacket parse(ByteBuffer buf, UDPDevice connection) throws IOException {
@@ -63,7 +79,7 @@ public class UDPProtocolParser {
 			}
 			connection.lastPacket = System.currentTimeMillis();
 		}
-		UDPPacket newPacket = getNewPacket(packetId);
+		UDPPacket newPacket = getPacket(packetId);
 		if (newPacket != null) {
 			newPacket.readData(buf);
 		} else {
@@ -95,6 +111,19 @@ public class UDPProtocolParser {
 		buf.put((byte) packet.sensorStatus);
 	}
 
+	protected UDPPacket getPacket(int packetId) {
+		if (!reusePackets)
+			return getNewPacket(packetId);
+		if (packetId < 0 || packetId >= packetsCache.length)
+			return null;
+		UDPPacket packet = packetsCache[packetId];
+		if (packet == null) {
+			packet = getNewPacket(packetId);
+			packetsCache[packetId] = packet;
+		}
+		return packet;
+	}
+
 	protected UDPPacket getNewPacket(int packetId) {
 		switch (packetId) {
 			case PACKET_HEARTBEAT:
@@ -143,6 +143,7 @@ public class WebSocketVRBridge extends WebsocketAPI implements Bridge {
 				);
 			internalHMDTracker.dataTick();
 			newHMDData.set(true);
+			server.newDataAvailable();
 
 			// Send tracker info in reply
 			for (int i = 0; i < internalTrackers.size(); ++i) {
@@ -0,0 +1,162 @@
+package dev.slimevr.unit;
+
+import com.jme3.math.Vector3f;
+import dev.slimevr.autobone.AutoBone;
+import dev.slimevr.autobone.AutoBoneGradient;
+import dev.slimevr.autobone.AutoBoneOptimizer;
+import dev.slimevr.autobone.LinearPoseModel;
+import dev.slimevr.autobone.errors.AutoBoneException;
+import dev.slimevr.autobone.errors.HeightError;
+import dev.slimevr.autobone.errors.SlideError;
+import dev.slimevr.poserecorder.PoseFrameSkeleton;
+import dev.slimevr.poserecorder.PoseFrames;
+import dev.slimevr.vr.processor.skeleton.BoneType;
+import dev.slimevr.vr.trackers.TrackerRole;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests the gradient based AutoBone optimizers and compares them to probing
+ * each bone. Recordings in the LoadRecordings directory are used if there are
+ * any, otherwise a synthetic one.
+ */
+public class AutoBoneOptimizerTests {
+
+	private static final float TARGET_HEIGHT = 1.7f;
+
+	@Test
+	public void linearModelMatchesSolvedSkeleton() {
+		PoseFrames frames = SyntheticPoseFrames.create(SyntheticPoseFrames.FULL_BODY, 40, 7);
+		AutoBone autoBone = new AutoBone();
+		BoneType[] bones = autoBone.offsets.keySet().toArray(new BoneType[0]);
+		LinearPoseModel model = new LinearPoseModel(autoBone, frames, bones, autoBone.offsets);
+
+		Random random = new Random(1);
+		float[] lengths = new float[bones.length];
+		EnumMap<BoneType, Float> offsets = new EnumMap<>(BoneType.class);
+		for (int b = 0; b < bones.length; ++b) {
+			lengths[b] = 0.05f + random.nextFloat() * 0.5f;
+			offsets.put(bones[b], lengths[b]);
+		}
+		PoseFrameSkeleton skeleton = new PoseFrameSkeleton(frames.getTrackers(), null);
+		autoBone.applyConfig(skeleton.skeletonConfig, offsets);
+
+		Vector3f modelled = new Vector3f();
+		for (int frame = 0; frame < 40; frame += 3) {
+			skeleton.setCursor(frame);
+			skeleton.updatePose();
+			for (TrackerRole role : new TrackerRole[] { TrackerRole.LEFT_FOOT,
+				TrackerRole.RIGHT_FOOT }) {
+				model.getPosition(frame, model.getRoleIndex(role), lengths, modelled);
+				Vector3f solved = skeleton.getComputedTracker(role).position;
+				assertEquals(0f, modelled.distance(solved), 1e-4f);
+			}
+		}
+	}
+
+	@Test
+	public void gradientMatchesFiniteDifferences() {
+		PoseFrames frames = SyntheticPoseFrames.create(SyntheticPoseFrames.FULL_BODY, 40, 8);
+		AutoBone autoBone = new AutoBone();
+		autoBone.slideErrorFactor = 1f;
+		autoBone.footHeightOffsetErrorFactor = 0.5f;
+		autoBone.heightErrorFactor = 0.3f;
+		BoneType[] bones = autoBone.offsets.keySet().toArray(new BoneType[0]);
+		LinearPoseModel model = new LinearPoseModel(autoBone, frames, bones, autoBone.offsets);
+		AutoBoneGradient gradient = new AutoBoneGradient(autoBone, model, frames, TARGET_HEIGHT);
+
+		float[] lengths = new float[bones.length];
+		for (int b = 0; b < bones.length; ++b)
+			lengths[b] = 0.2f + 0.03f * b;
+		float[] analytic = new float[bones.length];
+		float[] unused = new float[bones.length];
+		float step = 1e-3f;
+		for (int cursor = 0; cursor < 30; cursor += 10) {
+			gradient.evaluate(cursor, cursor + 5, lengths, analytic);
+			for (int b = 0; b < bones.length; ++b) {
+				float length = lengths[b];
+				lengths[b] = length + step;
+				float above = gradient.evaluate(cursor, cursor + 5, lengths, unused);
+				lengths[b] = length - step;
+				float below = gradient.evaluate(cursor, cursor + 5, lengths, unused);
+				lengths[b] = length;
+				assertEquals((above - below) / (2f * step), analytic[b], 0.02f, bones[b].name());
+			}
+		}
+	}
+
+	@Test
+	public void optimizerComparison() throws AutoBoneException {
+		for (Pair<String, PoseFrames> recording : loadRecordings()) {
+			PoseFrames frames = recording.getValue();
+			System.out.println(recording.getKey() + ":");
+			System.out.println("Optimizer    time       height error  slide error");
+			for (AutoBoneOptimizer optimizer : AutoBoneOptimizer.values()) {
+				AutoBone autoBone = new AutoBone();
+				autoBone.numEpochs = 10;
+				autoBone.randomizeFrameOrder = false;
+				autoBone.optimizer = optimizer;
+				long start = System.nanoTime();
+				autoBone.processFrames(frames, false, TARGET_HEIGHT, null);
+				long time = System.nanoTime() - start;
+
+				float height = autoBone.sumSelectConfigs(autoBone.heightOffsets, autoBone.offsets);
+				float heightError = new HeightError().getHeightError(height, TARGET_HEIGHT);
+				float slideError = getSlideError(autoBone, frames);
+				System.out
+					.printf(
+						"%-10s %6d ms  %12.4f  %11.5f%n",
+						optimizer,
+						time / 1_000_000,
+						heightError,
+						slideError
+					);
+				assertTrue(Float.isFinite(slideError));
+				for (float length : autoBone.offsets.values())
+					assertTrue(length >= 0.01f && Float.isFinite(length));
+			}
+		}
+	}
+
+	/**
+	 * Average slide error of consecutive frames with the trained lengths
+	 */
+	private static float getSlideError(AutoBone autoBone, PoseFrames frames) {
+		PoseFrameSkeleton skeleton1 = new PoseFrameSkeleton(frames.getTrackers(), null);
+		PoseFrameSkeleton skeleton2 = new PoseFrameSkeleton(frames.getTrackers(), null);
+		autoBone.applyConfig(skeleton1.skeletonConfig, autoBone.offsets);
+		autoBone.applyConfig(skeleton2.skeletonConfig, autoBone.offsets);
+		int frameCount = frames.getMaxFrameCount();
+		float sum = 0f;
+		for (int frame = 0; frame < frameCount - 1; ++frame) {
+			skeleton1.setCursor(frame);
+			skeleton2.setCursor(frame + 1);
+			skeleton1.updatePose();
+			skeleton2.updatePose();
+			sum += SlideError.getSlideError(skeleton1, skeleton2);
+		}
+		return sum / (frameCount - 1);
+	}
+
+	private static List<Pair<String, PoseFrames>> loadRecordings() {
+		List<Pair<String, PoseFrames>> recordings = new AutoBone().loadRecordings();
+		if (recordings.isEmpty()) {
+			recordings
+				.add(
+					Pair
+						.of(
+							"<Synthetic>",
+							SyntheticPoseFrames.create(SyntheticPoseFrames.LOWER_BODY, 1000, 4)
+						)
+				);
+		}
+		return recordings;
+	}
+}
@@ -0,0 +1,136 @@
+package dev.slimevr.unit;
+
+import dev.slimevr.autobone.sweep.AutoBoneSweep;
+import dev.slimevr.autobone.sweep.SweepParameter;
+import dev.slimevr.autobone.sweep.SweepSpace;
+import dev.slimevr.poserecorder.PoseFrames;
+import io.eiren.util.collections.FastList;
+import org.apache.commons.lang3.tuple.Pair;
+import org.json.JSONArray;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests {@link SweepSpace} and a small {@link AutoBoneSweep} on a synthetic
+ * recording.
+ */
+public class AutoBoneSweepTests {
+
+	@TempDir
+	File tempDir;
+
+	@Test
+	public void gridHasEveryCombination() {
+		SweepSpace space = SweepSpace
+			.parse(
+				Arrays.asList("numEpochs=5,10", "adjustRateMultiplier=0.99:0.999:3", "# comment")
+			);
+		List<EnumMap<SweepParameter, Double>> configs = space.grid();
+		assertEquals(6, configs.size());
+		assertEquals(5.0, configs.get(0).get(SweepParameter.NUM_EPOCHS));
+		assertEquals(0.99, configs.get(0).get(SweepParameter.ADJUST_RATE_MULTIPLIER), 1e-9);
+		assertEquals(0.999, configs.get(2).get(SweepParameter.ADJUST_RATE_MULTIPLIER), 1e-9);
+		assertEquals(10.0, configs.get(5).get(SweepParameter.NUM_EPOCHS));
+	}
+
+	@Test
+	public void randomStaysInRange() {
+		SweepSpace space = SweepSpace
+			.parse(
+				Arrays.asList("initialAdjustRate=1:20", "cursorIncrement=1:4", "numEpochs=5,50")
+			);
+		List<EnumMap<SweepParameter, Double>> configs = space.random(50, 3);
+		assertEquals(configs, space.random(50, 3));
+		for (EnumMap<SweepParameter, Double> config : configs) {
+			double rate = config.get(SweepParameter.INITIAL_ADJUST_RATE);
+			assertTrue(rate >= 1 && rate <= 20);
+			double increment = config.get(SweepParameter.CURSOR_INCREMENT);
+			assertEquals(Math.rint(increment), increment);
+			assertTrue(increment >= 1 && increment <= 4);
+			double epochs = config.get(SweepParameter.NUM_EPOCHS);
+			assertTrue(epochs == 5 || epochs == 50);
+		}
+	}
+
+	@Test
+	public void invalidSpecsAreRejected() {
+		assertThrows(
+			IllegalArgumentException.class,
+			() -> SweepSpace.parse(Arrays.asList("noSuchKnob=1,2"))
+		);
+		assertThrows(
+			IllegalArgumentException.class,
+			() -> SweepSpace.parse(Arrays.asList("numEpochs=5", "numEpochs=6"))
+		);
+		// A range needs a count for grid search
+		SweepSpace space = SweepSpace.parse(Arrays.asList("initialAdjustRate=1:20"));
+		assertThrows(IllegalArgumentException.class, space::grid);
+	}
+
+	@Test
+	public void sweepRanksConfigurationsAndWritesReports() throws Exception {
+		PoseFrames frames = SyntheticPoseFrames.create(SyntheticPoseFrames.LOWER_BODY, 100, 11);
+		List<Pair<String, PoseFrames>> recordings = new FastList<>();
+		recordings.add(Pair.of("synthetic", frames));
+		AutoBoneSweep sweep = new AutoBoneSweep(recordings, 1.7f, 2);
+		sweep.randomizeFrameOrder = false;
+
+		SweepSpace space = SweepSpace
+			.parse(Arrays.asList("numEpochs=1,3", "initialAdjustRate=5,10"));
+		List<AutoBoneSweep.Result> results = sweep.run(space.grid());
+		assertEquals(4, results.size());
+		for (int i = 1; i < results.size(); ++i)
+			assertTrue(results.get(i - 1).getScore() <= results.get(i).getScore());
+		for (AutoBoneSweep.Result result : results) {
+			assertNull(result.error);
+			assertTrue(result.runtimeNanos > 0);
+		}
+
+		List<SweepParameter> parameters = Arrays
+			.asList(SweepParameter.NUM_EPOCHS, SweepParameter.INITIAL_ADJUST_RATE);
+		File csv = new File(tempDir, "sweep.csv");
+		File json = new File(tempDir, "sweep.json");
+		AutoBoneSweep.writeCsv(results, parameters, csv);
+		AutoBoneSweep.writeJson(results, json);
+
+		List<String> lines = Files.readAllLines(csv.toPath(), StandardCharsets.UTF_8);
+		assertEquals(5, lines.size());
+		assertEquals(
+			"rank,score,slide_error,height_error,runtime_ms,numEpochs,initialAdjustRate,error",
+			lines.get(0)
+		);
+		assertTrue(lines.get(1).startsWith("1,"));
+		JSONArray array = new JSONArray(
+			new String(Files.readAllBytes(json.toPath()), StandardCharsets.UTF_8)
+		);
+		assertEquals(4, array.length());
+		assertEquals(1, array.getJSONObject(0).getInt("rank"));
+	}
+
+	@Test
+	public void shuffledRunsAreReproducible() {
+		PoseFrames frames = SyntheticPoseFrames.create(SyntheticPoseFrames.LOWER_BODY, 100, 12);
+		List<Pair<String, PoseFrames>> recordings = new FastList<>();
+		recordings.add(Pair.of("synthetic", frames));
+		AutoBoneSweep sweep = new AutoBoneSweep(recordings, 1.7f, 1);
+		sweep.seed = 5L;
+
+		EnumMap<SweepParameter, Double> config = new EnumMap<>(SweepParameter.class);
+		config.put(SweepParameter.NUM_EPOCHS, 2.0);
+		AutoBoneSweep.Result first = sweep.evaluate(config);
+		AutoBoneSweep.Result second = sweep.evaluate(config);
+		assertNull(first.error);
+		assertEquals(first.slideError, second.slideError);
+		assertEquals(first.heightError, second.heightError);
+	}
+}
@@ -0,0 +1,134 @@
+package dev.slimevr.unit;
+
+import dev.slimevr.autobone.AutoBone;
+import dev.slimevr.autobone.errors.AutoBoneException;
+import dev.slimevr.poserecorder.PoseFrameCache;
+import dev.slimevr.poserecorder.PoseFrameSkeleton;
+import dev.slimevr.poserecorder.PoseFrames;
+import dev.slimevr.vr.processor.skeleton.BoneType;
+import dev.slimevr.vr.trackers.TrackerRole;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests AutoBone training paths against each other. Recordings in the
+ * LoadRecordings directory are used if there are any, otherwise a synthetic
+ * one.
+ */
+public class AutoBoneTrainingTests {
+
+	private static final float TARGET_HEIGHT = 1.7f;
+
+	@Test
+	public void parallelTrainingIsDeterministic() throws AutoBoneException {
+		PoseFrames frames = SyntheticPoseFrames.create(SyntheticPoseFrames.LOWER_BODY, 200, 2);
+
+		EnumMap<BoneType, Float> twoWorkers = train(frames, 2).offsets;
+		EnumMap<BoneType, Float> fourWorkers = train(frames, 4).offsets;
+		assertEquals(twoWorkers, fourWorkers);
+		for (float length : twoWorkers.values())
+			assertTrue(length >= 0.01f && Float.isFinite(length));
+	}
+
+	@Test
+	public void poseCacheGivesSameResults() throws AutoBoneException {
+		PoseFrames frames = SyntheticPoseFrames.create(SyntheticPoseFrames.FULL_BODY, 200, 3);
+
+		AutoBone solved = newAutoBone(1);
+		solved.usePoseCache = false;
+		solved.processFrames(frames, false, TARGET_HEIGHT, null);
+		AutoBone cached = newAutoBone(1);
+		cached.processFrames(frames, false, TARGET_HEIGHT, null);
+		assertEquals(solved.offsets, cached.offsets);
+	}
+
+	@Test
+	public void poseCacheLoadsSolvedFrames() {
+		PoseFrames frames = SyntheticPoseFrames.create(SyntheticPoseFrames.FULL_BODY, 50, 6);
+		PoseFrameSkeleton solved = new PoseFrameSkeleton(frames.getTrackers(), null);
+		PoseFrameSkeleton cached = new PoseFrameSkeleton(frames.getTrackers(), null);
+		PoseFrameCache cache = cached.createPoseCache(frames.getMaxFrameCount());
+		cached.setPoseCache(cache);
+		assertEquals(50, cache.getFrameCount());
+
+		for (int frame = 0; frame < 50; frame += 7) {
+			solved.setCursor(frame);
+			cached.setCursor(frame);
+			solved.updatePose();
+			cached.updatePose();
+			for (TrackerRole role : new TrackerRole[] { TrackerRole.LEFT_FOOT,
+				TrackerRole.RIGHT_KNEE, TrackerRole.CHEST }) {
+				assertEquals(
+					solved.getComputedTracker(role).position,
+					cached.getComputedTracker(role).position
+				);
+			}
+		}
+	}
+
+	@Test
+	public void parallelSpeedup() throws AutoBoneException {
+		int workers = Math.max(2, Runtime.getRuntime().availableProcessors());
+		for (Pair<String, PoseFrames> recording : loadRecordings()) {
+			PoseFrames frames = recording.getValue();
+			long start = System.nanoTime();
+			AutoBone serial = train(frames, 1);
+			long serialTime = System.nanoTime() - start;
+			start = System.nanoTime();
+			AutoBone parallel = train(frames, workers);
+			long parallelTime = System.nanoTime() - start;
+
+			float serialHeight = serial.sumSelectConfigs(serial.heightOffsets, serial.offsets);
+			float parallelHeight = parallel
+				.sumSelectConfigs(parallel.heightOffsets, parallel.offsets);
+			System.out
+				.printf(
+					"%s: serial %d ms (height %.4f), %d workers %d ms (height %.4f), speedup %.2fx%n",
+					recording.getKey(),
+					serialTime / 1_000_000,
+					serialHeight,
+					workers,
+					parallelTime / 1_000_000,
+					parallelHeight,
+					serialTime / (double) parallelTime
+				);
+			assertTrue(Float.isFinite(parallelHeight));
+		}
+	}
+
+	private static List<Pair<String, PoseFrames>> loadRecordings() {
+		List<Pair<String, PoseFrames>> recordings = new AutoBone().loadRecordings();
+		if (recordings.isEmpty()) {
+			recordings
+				.add(
+					Pair
+						.of(
+							"<Synthetic>",
+							SyntheticPoseFrames.create(SyntheticPoseFrames.LOWER_BODY, 1000, 4)
+						)
+				);
+		}
+		return recordings;
+	}
+
+	private static AutoBone train(PoseFrames frames, int workers) throws AutoBoneException {
+		AutoBone autoBone = newAutoBone(workers);
+		autoBone.processFrames(frames, false, TARGET_HEIGHT, null);
+		return autoBone;
+	}
+
+	private static AutoBone newAutoBone(int workers) {
+		AutoBone autoBone = new AutoBone();
+		autoBone.numEpochs = 5;
+		autoBone.randomizeFrameOrder = false;
+		autoBone.parallelWorkers = workers;
+		autoBone.batchSize = 32;
+		return autoBone;
+	}
+}
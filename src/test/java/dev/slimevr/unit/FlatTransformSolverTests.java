@@ -0,0 +1,140 @@
+package dev.slimevr.unit;
+
+import com.jme3.math.Quaternion;
+import com.jme3.math.Transform;
+import com.jme3.math.Vector3f;
+import dev.slimevr.poserecorder.PoseFrameSkeleton;
+import dev.slimevr.poserecorder.PoseFrames;
+import dev.slimevr.vr.processor.FlatTransformSolver;
+import dev.slimevr.vr.processor.TransformNode;
+import dev.slimevr.vr.trackers.TrackerPosition;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+
+/**
+ * Checks that {@link FlatTransformSolver} gives bit for bit the same world
+ * transforms as {@link TransformNode#update()}
+ */
+public class FlatTransformSolverTests {
+
+	private static final int FRAMES = 200;
+
+	@Test
+	public void skeletonParityHmdOnly() {
+		testSkeletonParity(SyntheticPoseFrames.HMD_ONLY);
+	}
+
+	@Test
+	public void skeletonParityLowerBody() {
+		testSkeletonParity(SyntheticPoseFrames.LOWER_BODY);
+	}
+
+	@Test
+	public void skeletonParityFullBody() {
+		testSkeletonParity(SyntheticPoseFrames.FULL_BODY);
+	}
+
+	@Test
+	public void randomTreeParity() {
+		Random random = new Random(7);
+		TransformNode[] expected = new TransformNode[64];
+		TransformNode[] actual = new TransformNode[64];
+		for (int i = 0; i < expected.length; ++i) {
+			boolean localRotation = random.nextBoolean();
+			expected[i] = new TransformNode("Node-" + i, localRotation);
+			actual[i] = new TransformNode("Node-" + i, localRotation);
+			if (i > 0) {
+				int parent = random.nextInt(i);
+				expected[parent].attachChild(expected[i]);
+				actual[parent].attachChild(actual[i]);
+			}
+		}
+		FlatTransformSolver solver = new FlatTransformSolver(actual[0]);
+		assertEquals(expected.length, solver.getNodeCount());
+
+		for (int frame = 0; frame < 20; ++frame) {
+			for (int i = 0; i < expected.length; ++i) {
+				Quaternion rotation = new Quaternion()
+					.fromAngles(
+						random.nextFloat() * 6f - 3f,
+						random.nextFloat() * 6f - 3f,
+						random.nextFloat() * 6f - 3f
+					);
+				Vector3f translation = new Vector3f(
+					random.nextFloat() - 0.5f,
+					random.nextFloat() - 0.5f,
+					random.nextFloat() - 0.5f
+				);
+				Vector3f scale = new Vector3f(
+					0.5f + random.nextFloat(),
+					0.5f + random.nextFloat(),
+					0.5f + random.nextFloat()
+				);
+				setLocal(expected[i], rotation, translation, scale);
+				setLocal(actual[i], rotation, translation, scale);
+			}
+			expected[0].update();
+			solver.updateAll();
+			for (int i = 0; i < expected.length; ++i)
+				assertTransformEquals(expected[i], actual[i], "frame " + frame);
+		}
+	}
+
+	private static void testSkeletonParity(TrackerPosition[] trackers) {
+		PoseFrames frames = SyntheticPoseFrames.create(trackers, FRAMES, 3);
+		PoseFrameSkeleton expected = new PoseFrameSkeleton(frames.getTrackers(), null);
+		PoseFrameSkeleton actual = new PoseFrameSkeleton(frames.getTrackers(), null);
+		actual.setFlatSolverEnabled(true);
+
+		for (int frame = 0; frame < FRAMES; ++frame) {
+			expected.setCursor(frame);
+			actual.setCursor(frame);
+			expected.updatePose();
+			actual.updatePose();
+
+			TransformNode[] expectedNodes = expected.getAllNodes();
+			TransformNode[] actualNodes = actual.getAllNodes();
+			for (int i = 0; i < expectedNodes.length; ++i)
+				assertTransformEquals(expectedNodes[i], actualNodes[i], "frame " + frame);
+		}
+	}
+
+	private static void setLocal(
+		TransformNode node,
+		Quaternion rotation,
+		Vector3f translation,
+		Vector3f scale
+	) {
+		node.localTransform.setRotation(rotation);
+		node.localTransform.setTranslation(translation);
+		node.localTransform.setScale(scale);
+	}
+
+	private static void assertTransformEquals(
+		TransformNode expected,
+		TransformNode actual,
+		String when
+	) {
+		Transform e = expected.worldTransform;
+		Transform a = actual.worldTransform;
+		String message = expected.getName() + " at " + when;
+		assertBits(e.getRotation().getX(), a.getRotation().getX(), message);
+		assertBits(e.getRotation().getY(), a.getRotation().getY(), message);
+		assertBits(e.getRotation().getZ(), a.getRotation().getZ(), message);
+		assertBits(e.getRotation().getW(), a.getRotation().getW(), message);
+		assertBits(e.getTranslation().x, a.getTranslation().x, message);
+		assertBits(e.getTranslation().y, a.getTranslation().y, message);
+		assertBits(e.getTranslation().z, a.getTranslation().z, message);
+		assertBits(e.getScale().x, a.getScale().x, message);
+		assertBits(e.getScale().y, a.getScale().y, message);
+		assertBits(e.getScale().z, a.getScale().z, message);
+	}
+
+	private static void assertBits(float expected, float actual, String message) {
+		assertEquals(Float.floatToRawIntBits(expected), Float.floatToRawIntBits(actual), message);
+	}
+}
@@ -0,0 +1,126 @@
+package dev.slimevr.unit;
+
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+import dev.slimevr.poserecorder.PoseFrameSkeleton;
+import dev.slimevr.poserecorder.PoseFrames;
+import dev.slimevr.vr.processor.TransformNode;
+import dev.slimevr.vr.processor.skeleton.BoneInfo;
+import dev.slimevr.vr.processor.skeleton.BoneType;
+import dev.slimevr.vr.processor.skeleton.PoseSnapshot;
+import dev.slimevr.vr.processor.skeleton.PoseSnapshotPool;
+import dev.slimevr.vr.processor.skeleton.SkeletonConfigValue;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests that {@link PoseSnapshot}s copy the pose, don't change while they are
+ * referenced and are recycled afterwards
+ */
+public class PoseSnapshotTests {
+
+	private static PoseFrameSkeleton createSkeleton() {
+		PoseFrames frames = SyntheticPoseFrames.create(SyntheticPoseFrames.FULL_BODY, 50, 2);
+		PoseFrameSkeleton skeleton = new PoseFrameSkeleton(frames.getTrackers(), null);
+		skeleton.setCursor(0);
+		skeleton.updatePose();
+		return skeleton;
+	}
+
+	@Test
+	public void snapshotKeepsPose() {
+		PoseFrameSkeleton skeleton = createSkeleton();
+		PoseSnapshotPool pool = new PoseSnapshotPool();
+		pool.publish(skeleton, null);
+		PoseSnapshot snapshot = pool.acquire();
+
+		TransformNode[] nodes = skeleton.getAllNodes();
+		Vector3f[] positions = new Vector3f[nodes.length];
+		Quaternion[] rotations = new Quaternion[nodes.length];
+		assertEquals(nodes.length, snapshot.getNodeCount());
+		for (int i = 0; i < nodes.length; ++i) {
+			positions[i] = nodes[i].worldTransform.getTranslation().clone();
+			rotations[i] = nodes[i].worldTransform.getRotation().clone();
+			assertEquals(nodes[i].getName(), snapshot.getNodeName(i));
+		}
+
+		skeleton.setCursor(25);
+		skeleton.updatePose();
+		pool.publish(skeleton, null);
+		// The HMD bobs, so the pose must have changed
+		assertNotEquals(positions[0], nodes[0].worldTransform.getTranslation());
+
+		Vector3f position = new Vector3f();
+		Quaternion rotation = new Quaternion();
+		for (int i = 0; i < nodes.length; ++i) {
+			assertEquals(positions[i], snapshot.getNodePosition(i, position));
+			assertEquals(rotations[i], snapshot.getNodeRotation(i, rotation));
+		}
+		snapshot.release();
+	}
+
+	@Test
+	public void snapshotHasBones() {
+		PoseFrameSkeleton skeleton = createSkeleton();
+		PoseSnapshot snapshot = new PoseSnapshotPool().publish(skeleton, null);
+
+		assertEquals(skeleton.currentBoneInfo.size(), snapshot.getBoneCount());
+		Quaternion rotation = new Quaternion();
+		for (int i = 0; i < snapshot.getBoneCount(); ++i) {
+			BoneInfo bone = skeleton.currentBoneInfo.get(i);
+			assertEquals(bone.boneType, snapshot.getBoneType(i));
+			assertEquals(
+				bone.tailNode.localTransform.getTranslation().length(),
+				snapshot.getBoneLength(i)
+			);
+			assertEquals(bone.getGlobalRotation(), snapshot.getBoneRotation(i, rotation));
+		}
+	}
+
+	@Test
+	public void boneLengthsFollowConfig() {
+		PoseFrameSkeleton skeleton = createSkeleton();
+		BoneInfo chest = null;
+		for (BoneInfo bone : skeleton.currentBoneInfo) {
+			if (bone.boneType == BoneType.CHEST)
+				chest = bone;
+		}
+		assertNotNull(chest);
+
+		float oldLength = chest.length;
+		skeleton.getSkeletonConfig().setConfig(SkeletonConfigValue.CHEST, oldLength + 0.1f);
+		// Lengths are updated with the offsets, not by pose updates
+		assertNotEquals(oldLength, chest.length);
+		assertEquals(chest.tailNode.localTransform.getTranslation().length(), chest.length);
+
+		PoseSnapshot snapshot = new PoseSnapshotPool().publish(skeleton, null);
+		assertEquals(chest.length, snapshot.getBoneLength(skeleton.currentBoneInfo.indexOf(chest)));
+	}
+
+	@Test
+	public void snapshotsAreRecycled() {
+		PoseFrameSkeleton skeleton = createSkeleton();
+		PoseSnapshotPool pool = new PoseSnapshotPool();
+
+		PoseSnapshot first = pool.publish(skeleton, null);
+		PoseSnapshot second = pool.publish(skeleton, null);
+		assertNotSame(first, second);
+		assertTrue(second.getVersion() > first.getVersion());
+		// Nobody held the first one, so it's reused
+		assertSame(first, pool.publish(skeleton, null));
+
+		PoseSnapshot held = pool.acquire();
+		PoseSnapshot next = pool.publish(skeleton, null);
+		long heldVersion = held.getVersion();
+		PoseSnapshot afterNext = pool.publish(skeleton, null);
+		assertNotSame(held, afterNext);
+		assertEquals(heldVersion, held.getVersion());
+		assertNotSame(next, afterNext);
+
+		held.release();
+		pool.publish(skeleton, null);
+		assertSame(held, pool.publish(skeleton, null));
+	}
+}
@@ -0,0 +1,62 @@
+package dev.slimevr.unit;
+
+import dev.slimevr.vr.processor.PoseSolverPool;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests {@link PoseSolverPool} runs every task of a batch exactly once and
+ * only returns after all of them finished.
+ */
+public class PoseSolverPoolTests {
+
+	@Test
+	public void runsEveryIndexOncePerBatch() {
+		PoseSolverPool pool = new PoseSolverPool("Test solver", 3);
+		int count = 7;
+		AtomicIntegerArray runs = new AtomicIntegerArray(count);
+		// Plain array written by the tasks, must be visible after each batch
+		int[] results = new int[count];
+		for (int batch = 1; batch <= 200; ++batch) {
+			int expected = batch;
+			pool.run(count, i -> {
+				runs.incrementAndGet(i);
+				results[i] = expected;
+			});
+			for (int i = 0; i < count; ++i) {
+				assertEquals(batch, runs.get(i));
+				assertEquals(batch, results[i]);
+			}
+		}
+	}
+
+	@Test
+	public void failingTaskDoesNotBlockBatch() {
+		PoseSolverPool pool = new PoseSolverPool("Test solver", 2);
+		AtomicIntegerArray runs = new AtomicIntegerArray(4);
+		IntConsumer task = i -> {
+			runs.incrementAndGet(i);
+			if (i == 1)
+				throw new IllegalStateException("Test failure");
+		};
+		pool.run(4, task);
+		pool.run(4, task);
+		for (int i = 0; i < 4; ++i)
+			assertEquals(2, runs.get(i));
+	}
+
+	@Test
+	public void runsOnCallerWithoutThreads() {
+		PoseSolverPool pool = new PoseSolverPool("Test solver", 0);
+		Thread[] threads = new Thread[3];
+		pool.run(3, i -> threads[i] = Thread.currentThread());
+		for (Thread thread : threads)
+			assertSame(Thread.currentThread(), thread);
+		assertEquals(0, pool.getThreadCount());
+	}
+}
@@ -0,0 +1,236 @@
+package dev.slimevr.unit;
+
+import com.jme3.math.FastMath;
+import com.jme3.math.Quaternion;
+import dev.slimevr.poserecorder.PoseFrameIO;
+import dev.slimevr.poserecorder.PoseFrameTracker;
+import dev.slimevr.poserecorder.PoseFrames;
+import dev.slimevr.poserecorder.TrackerFrame;
+import dev.slimevr.vr.trackers.RotationInterpolator;
+import dev.slimevr.vr.trackers.RotationSampleHistory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests {@link RotationInterpolator} on its own and on a recording replayed
+ * with jittered packet arrival. A recording can be given with the
+ * slimevr.test.pfr system property, otherwise a synthetic one is used.
+ */
+public class RotationInterpolationTests {
+
+	private static final long MS = 1_000_000L;
+	// Tracker sample period and maximum network jitter of the replay
+	private static final long SAMPLE_PERIOD = 10 * MS;
+	private static final long MAX_JITTER = 8 * MS;
+	private static final long LATENCY = 10 * MS;
+	private static final int MAX_LAG_MS = 40;
+
+	@TempDir
+	File tempDir;
+
+	@Test
+	public void interpolatesBetweenSamples() {
+		RotationSampleHistory history = new RotationSampleHistory(4);
+		RotationSampleHistory.Samples samples = history.newSamples();
+		Quaternion a = new Quaternion().fromAngles(0, 0, 0);
+		Quaternion b = new Quaternion().fromAngles(0, 1f, 0);
+		history.write(a, 100 * MS);
+		history.write(b, 110 * MS);
+		history.read(samples);
+		assertEquals(2, samples.count);
+
+		RotationInterpolator interpolator = new RotationInterpolator(LATENCY, 5 * MS);
+		Quaternion result = new Quaternion();
+		// Halfway between the samples after subtracting the latency
+		assertTrue(interpolator.evaluate(samples, 115 * MS, result));
+		assertEquals(0.5f, result.getYaw(), 1e-4f);
+
+		// Extrapolation stops at the prediction limit
+		interpolator.evaluate(samples, 200 * MS, result);
+		assertEquals(1.5f, result.getYaw(), 1e-4f);
+
+		// Older than the history holds
+		interpolator.evaluate(samples, 50 * MS, result);
+		assertEquals(0f, result.getYaw(), 1e-4f);
+	}
+
+	@Test
+	public void historyDropsOldestSamples() {
+		RotationSampleHistory history = new RotationSampleHistory(3);
+		RotationSampleHistory.Samples samples = history.newSamples();
+		for (int i = 0; i < 5; ++i)
+			history.write(new Quaternion().fromAngles(0, i * 0.1f, 0), i * MS);
+		history.read(samples);
+		assertEquals(3, samples.count);
+		assertEquals(2 * MS, samples.times[0]);
+		assertEquals(4 * MS, samples.times[2]);
+
+		// Movement filter base, clamped to the oldest sample
+		Quaternion base = new Quaternion();
+		assertTrue(history.getRecent(1, base));
+		assertEquals(0.3f, base.getYaw(), 1e-4f);
+		history.getRecent(10, base);
+		assertEquals(0.2f, base.getYaw(), 1e-4f);
+
+		RotationSampleHistory.Samples newest = history.newSamples(2);
+		history.read(newest);
+		assertEquals(2, newest.count);
+		assertEquals(3 * MS, newest.times[0]);
+	}
+
+	@Test
+	public void recordingErrorAndLatency() {
+		PoseFrames frames = loadRecording();
+		Random random = new Random(11);
+
+		double[] steppedErrors = new double[MAX_LAG_MS + 1];
+		double[] interpolatedErrors = new double[MAX_LAG_MS + 1];
+		long ticks = 0;
+		for (PoseFrameTracker tracker : frames.getTrackers()) {
+			ticks += replay(tracker, random, steppedErrors, interpolatedErrors);
+		}
+		assertTrue(ticks > 0);
+
+		int steppedLag = bestLag(steppedErrors);
+		int interpolatedLag = bestLag(interpolatedErrors);
+		double steppedError = rmsDegrees(steppedErrors[steppedLag], ticks);
+		double interpolatedError = rmsDegrees(interpolatedErrors[interpolatedLag], ticks);
+		System.out
+			.printf(
+				"Latest sample: %.4f deg RMS at %d ms lag, interpolated: %.4f deg RMS at %d ms lag%n",
+				steppedError,
+				steppedLag,
+				interpolatedError,
+				interpolatedLag
+			);
+
+		// Smoother output for a predictable latency of the budget plus the
+		// average network delay
+		assertTrue(interpolatedError < steppedError);
+		assertTrue(interpolatedLag >= LATENCY / MS);
+		assertTrue(interpolatedLag <= (LATENCY + MAX_JITTER) / MS + 1);
+	}
+
+	private PoseFrames loadRecording() {
+		String path = System.getProperty("slimevr.test.pfr");
+		File file;
+		if (path != null) {
+			file = new File(path);
+		} else {
+			file = new File(tempDir, "synthetic.pfr");
+			PoseFrames synthetic = SyntheticPoseFrames
+				.create(SyntheticPoseFrames.FULL_BODY, 500, 8);
+			assertTrue(PoseFrameIO.writeToFile(file, synthetic));
+		}
+		PoseFrames frames = PoseFrameIO.readFromFile(file);
+		assertNotNull(frames);
+		return frames;
+	}
+
+	/**
+	 * Replays a tracker at one sample per period, each received after a
+	 * random delay, and evaluates it on 1 ms ticks. Adds the squared error
+	 * against the recording delayed by each lag to the arrays.
+	 *
+	 * @return number of evaluated ticks
+	 */
+	private static long replay(
+		PoseFrameTracker tracker,
+		Random random,
+		double[] steppedErrors,
+		double[] interpolatedErrors
+	) {
+		int frameCount = tracker.getFrameCount();
+		Quaternion[] rotations = new Quaternion[frameCount];
+		long[] arrivals = new long[frameCount];
+		for (int i = 0; i < frameCount; ++i) {
+			TrackerFrame frame = tracker.getFrame(i);
+			if (frame == null || frame.rotation == null)
+				return 0;
+			rotations[i] = frame.rotation;
+			long arrival = i * SAMPLE_PERIOD + (long) (random.nextFloat() * MAX_JITTER);
+			arrivals[i] = i > 0 ? Math.max(arrival, arrivals[i - 1]) : arrival;
+		}
+
+		RotationSampleHistory history = new RotationSampleHistory(16);
+		RotationSampleHistory.Samples samples = history.newSamples();
+		RotationInterpolator interpolator = new RotationInterpolator(LATENCY, SAMPLE_PERIOD);
+		Quaternion interpolated = new Quaternion();
+		Quaternion truth = new Quaternion();
+
+		long start = 50 * MS;
+		long end = (frameCount - 1) * SAMPLE_PERIOD;
+		int received = 0;
+		long ticks = 0;
+		for (long time = start; time < end; time += MS) {
+			while (received < frameCount && arrivals[received] <= time) {
+				history.write(rotations[received], arrivals[received]);
+				received++;
+			}
+			if (received == 0)
+				continue;
+			Quaternion stepped = rotations[received - 1];
+			history.read(samples);
+			interpolator.evaluate(samples, time, interpolated);
+			assertEquals(1f, interpolated.norm(), 1e-5f);
+
+			for (int lag = 0; lag <= MAX_LAG_MS; ++lag) {
+				sampleRecording(rotations, time - lag * MS, truth);
+				steppedErrors[lag] += square(angle(stepped, truth));
+				interpolatedErrors[lag] += square(angle(interpolated, truth));
+			}
+			ticks++;
+		}
+		return ticks;
+	}
+
+	private static void sampleRecording(Quaternion[] rotations, long time, Quaternion store) {
+		if (time <= 0) {
+			store.set(rotations[0]);
+			return;
+		}
+		int i = (int) (time / SAMPLE_PERIOD);
+		if (i >= rotations.length - 1) {
+			store.set(rotations[rotations.length - 1]);
+			return;
+		}
+		store
+			.slerp(
+				rotations[i],
+				rotations[i + 1],
+				(time - i * SAMPLE_PERIOD) / (float) SAMPLE_PERIOD
+			);
+	}
+
+	/**
+	 * Angle between a rotation and the reference, the slerped reference isn't
+	 * exactly unit length
+	 */
+	private static float angle(Quaternion a, Quaternion reference) {
+		float dot = Math.abs(a.dot(reference)) / FastMath.sqrt(reference.norm());
+		return 2f * FastMath.acos(Math.min(dot, 1f));
+	}
+
+	private static double square(double value) {
+		return value * value;
+	}
+
+	private static int bestLag(double[] errors) {
+		int best = 0;
+		for (int lag = 1; lag < errors.length; ++lag) {
+			if (errors[lag] < errors[best])
+				best = lag;
+		}
+		return best;
+	}
+
+	private static double rmsDegrees(double squaredErrorSum, long count) {
+		return Math.sqrt(squaredErrorSum / count) * FastMath.RAD_TO_DEG;
+	}
+}
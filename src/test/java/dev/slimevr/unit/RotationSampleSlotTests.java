@@ -0,0 +1,67 @@
+package dev.slimevr.unit;
+
+import com.jme3.math.Quaternion;
+import dev.slimevr.vr.trackers.IMUTracker;
+import dev.slimevr.vr.trackers.RotationSampleSlot;
+import dev.slimevr.vr.trackers.Tracker;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Checks that rotations published through {@link RotationSampleSlot} are
+ * never seen half written by {@link IMUTracker} readers on other threads.
+ */
+public class RotationSampleSlotTests {
+
+	@Test
+	public void concurrentReadersGetWholeSamples() throws Exception {
+		IMUTracker tracker = new IMUTracker(
+			null,
+			Tracker.getNextLocalTrackerId(),
+			0,
+			"concurrent",
+			"concurrent",
+			null,
+			null
+		);
+		Quaternion[] published = {
+			new Quaternion().fromAngles(0.5f, 0f, 0f),
+			new Quaternion().fromAngles(0f, 0f, 1.5f) };
+		tracker.rotQuaternion.set(published[0]);
+		tracker.dataTick();
+
+		// Two readers like the server and GUI threads, each must only ever
+		// see one of the published rotations
+		int reads = 200_000;
+		Thread[] readers = new Thread[2];
+		int[] torn = new int[readers.length];
+		for (int r = 0; r < readers.length; ++r) {
+			int reader = r;
+			readers[r] = new Thread(() -> {
+				Quaternion rotation = new Quaternion();
+				for (int i = 0; i < reads; ++i) {
+					if (reader == 0)
+						tracker.getRotation(rotation);
+					else
+						tracker.getRawRotation(rotation);
+					if (
+						Math.abs(rotation.dot(published[0])) < 0.9999f
+							&& Math.abs(rotation.dot(published[1])) < 0.9999f
+					)
+						torn[reader]++;
+				}
+			});
+			readers[r].start();
+		}
+		for (int i = 0; readers[0].isAlive() || readers[1].isAlive(); ++i) {
+			tracker.rotQuaternion.set(published[i & 1]);
+			tracker.dataTick();
+		}
+		for (Thread reader : readers)
+			reader.join();
+		assertEquals(0, torn[0]);
+		assertEquals(0, torn[1]);
+	}
+}
@@ -0,0 +1,154 @@
+package dev.slimevr.unit;
+
+import dev.slimevr.poserecorder.PoseFrameSkeleton;
+import dev.slimevr.poserecorder.PoseFrames;
+import dev.slimevr.vr.processor.ComputedHumanPoseTracker;
+import dev.slimevr.vr.processor.TransformNode;
+import dev.slimevr.vr.processor.skeleton.SkeletonConfigToggle;
+import dev.slimevr.vr.processor.skeleton.SkeletonPlan;
+import dev.slimevr.vr.trackers.TrackerPosition;
+import dev.slimevr.vr.trackers.TrackerRole;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Checks that the compiled {@link SkeletonPlan} poses the skeleton bit for bit
+ * like the hand written updates of the human skeleton
+ */
+public class SkeletonPlanTests {
+
+	private static final int FRAMES = 100;
+
+	private static final TrackerPosition[] KNEES_ONLY = { TrackerPosition.HMD,
+		TrackerPosition.LEFT_UPPER_LEG, TrackerPosition.RIGHT_UPPER_LEG };
+	private static final TrackerPosition[] CHEST_AND_LEGS = { TrackerPosition.HMD,
+		TrackerPosition.NECK, TrackerPosition.CHEST, TrackerPosition.LEFT_UPPER_LEG,
+		TrackerPosition.RIGHT_UPPER_LEG, TrackerPosition.LEFT_FOOT };
+	private static final TrackerPosition[] CONTROLLERS = { TrackerPosition.HMD,
+		TrackerPosition.WAIST, TrackerPosition.LEFT_CONTROLLER,
+		TrackerPosition.RIGHT_CONTROLLER, TrackerPosition.LEFT_LOWER_ARM,
+		TrackerPosition.RIGHT_UPPER_ARM, TrackerPosition.LEFT_SHOULDER,
+		TrackerPosition.RIGHT_HAND };
+	private static final TrackerPosition[] ARMS_FROM_HMD = { TrackerPosition.HMD,
+		TrackerPosition.HIP, TrackerPosition.LEFT_SHOULDER, TrackerPosition.LEFT_UPPER_ARM,
+		TrackerPosition.RIGHT_LOWER_ARM, TrackerPosition.LEFT_HAND,
+		TrackerPosition.RIGHT_HAND };
+
+	@Test
+	public void parityHmdOnly() {
+		testParity(SyntheticPoseFrames.HMD_ONLY);
+	}
+
+	@Test
+	public void parityLowerBody() {
+		testParity(SyntheticPoseFrames.LOWER_BODY);
+	}
+
+	@Test
+	public void parityFullBody() {
+		testParity(SyntheticPoseFrames.FULL_BODY);
+	}
+
+	@Test
+	public void parityKneesOnly() {
+		testParity(KNEES_ONLY);
+	}
+
+	@Test
+	public void parityChestAndLegs() {
+		testParity(CHEST_AND_LEGS);
+	}
+
+	@Test
+	public void parityControllers() {
+		testParity(CONTROLLERS);
+	}
+
+	@Test
+	public void parityArmsFromHmd() {
+		testParity(ARMS_FROM_HMD);
+	}
+
+	@Test
+	public void parityWithoutHmd() {
+		testParity(new TrackerPosition[] { TrackerPosition.LEFT_UPPER_LEG });
+	}
+
+	@Test
+	public void planIsRebuiltOnlyOnChanges() {
+		PoseFrames frames = SyntheticPoseFrames.create(SyntheticPoseFrames.FULL_BODY, 2, 4);
+		PoseFrameSkeleton skeleton = new PoseFrameSkeleton(frames.getTrackers(), null);
+		skeleton.setTopologyPlanEnabled(true);
+
+		SkeletonPlan plan = skeleton.getPlan();
+		skeleton.updatePose();
+		skeleton.setCursor(1);
+		skeleton.updatePose();
+		assertSame(plan, skeleton.getPlan());
+
+		skeleton
+			.getSkeletonConfig()
+			.setToggle(SkeletonConfigToggle.EXTENDED_KNEE_MODEL, false);
+		SkeletonPlan withoutKnees = skeleton.getPlan();
+		assertNotSame(plan, withoutKnees);
+		assertTrue(withoutKnees.getStepCount() < plan.getStepCount());
+
+		skeleton.setTrackersFromList(frames.getTrackers());
+		assertNotSame(withoutKnees, skeleton.getPlan());
+	}
+
+	private static void testParity(TrackerPosition[] trackers) {
+		PoseFrames frames = SyntheticPoseFrames.create(trackers, FRAMES, 6);
+		PoseFrameSkeleton expected = new PoseFrameSkeleton(frames.getTrackers(), null);
+		PoseFrameSkeleton actual = new PoseFrameSkeleton(frames.getTrackers(), null);
+		actual.setTopologyPlanEnabled(true);
+
+		for (int frame = 0; frame < FRAMES; ++frame) {
+			if (frame == FRAMES / 2) {
+				// Toggles change what the plan is compiled to
+				for (PoseFrameSkeleton skeleton : new PoseFrameSkeleton[] { expected, actual }) {
+					skeleton
+						.getSkeletonConfig()
+						.setToggle(SkeletonConfigToggle.EXTENDED_KNEE_MODEL, false);
+					skeleton
+						.getSkeletonConfig()
+						.setToggle(SkeletonConfigToggle.EXTENDED_PELVIS_MODEL, false);
+					skeleton
+						.getSkeletonConfig()
+						.setToggle(SkeletonConfigToggle.FORCE_ARMS_FROM_HMD, true);
+				}
+			}
+			expected.setCursor(frame);
+			actual.setCursor(frame);
+			expected.updatePose();
+			actual.updatePose();
+
+			String when = "frame " + frame;
+			TransformNode[] expectedNodes = expected.getAllNodes();
+			TransformNode[] actualNodes = actual.getAllNodes();
+			for (int i = 0; i < expectedNodes.length; ++i) {
+				String message = expectedNodes[i].getName() + " at " + when;
+				assertEquals(
+					expectedNodes[i].worldTransform.getTranslation(),
+					actualNodes[i].worldTransform.getTranslation(),
+					message
+				);
+				assertEquals(
+					expectedNodes[i].worldTransform.getRotation(),
+					actualNodes[i].worldTransform.getRotation(),
+					message
+				);
+			}
+			for (TrackerRole role : TrackerRole.values) {
+				ComputedHumanPoseTracker e = expected.getComputedTracker(role);
+				ComputedHumanPoseTracker a = actual.getComputedTracker(role);
+				if (e == null)
+					continue;
+				assertEquals(e.position, a.position, role + " at " + when);
+				assertEquals(e.rotation, a.rotation, role + " at " + when);
+			}
+		}
+	}
+}
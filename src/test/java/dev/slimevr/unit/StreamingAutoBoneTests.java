@@ -0,0 +1,115 @@
+package dev.slimevr.unit;
+
+import dev.slimevr.autobone.AutoBone;
+import dev.slimevr.autobone.AutoBone.AutoBoneResults;
+import dev.slimevr.autobone.AutoBone.Epoch;
+import dev.slimevr.autobone.StreamingAutoBone;
+import dev.slimevr.poserecorder.PoseFrames;
+import dev.slimevr.poserecorder.PoseRecorder.StreamedFrame;
+import dev.slimevr.poserecorder.TrackerFrame;
+import dev.slimevr.vr.processor.skeleton.BoneType;
+import io.eiren.util.collections.FastList;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests {@link StreamingAutoBone} by feeding a synthetic recording into its
+ * queue from another thread, like the pose recorder does.
+ */
+public class StreamingAutoBoneTests {
+
+	@Test
+	public void trainsOnEveryFrameUntilRecordingStops() throws Exception {
+		int frameCount = 300;
+		PoseFrames frames = SyntheticPoseFrames
+			.create(SyntheticPoseFrames.LOWER_BODY, frameCount, 9);
+		AutoBone autoBone = new AutoBone();
+		StreamingAutoBone streaming = new StreamingAutoBone(autoBone, 16);
+		streaming.publishInterval = 100;
+
+		CompletableFuture<Void> recording = new CompletableFuture<>();
+		Thread recorder = new Thread(() -> {
+			BlockingQueue<StreamedFrame> queue = streaming.getFrameQueue();
+			try {
+				for (int i = 0; i < frameCount; ++i)
+					queue.put(new StreamedFrame(i, frames.getFrames(i)));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			recording.complete(null);
+		});
+		recorder.start();
+
+		List<Epoch> epochs = new FastList<>();
+		AutoBoneResults results = streaming.train(recording, frameCount, 1.7f, epochs::add);
+		recorder.join();
+
+		assertNotNull(results);
+		assertEquals(frameCount, streaming.getFrameCount());
+		// One estimate every 100 frames and the final one
+		assertEquals(4, epochs.size());
+		assertEquals(4, epochs.get(3).epoch);
+		assertTrue(Float.isFinite(results.finalHeight));
+		for (float length : autoBone.offsets.values())
+			assertTrue(length >= 0.01f && Float.isFinite(length));
+	}
+
+	@Test
+	public void trainsWithoutTrackersThatHaveNoData() throws Exception {
+		int frameCount = 100;
+		PoseFrames frames = SyntheticPoseFrames
+			.create(SyntheticPoseFrames.LOWER_BODY, frameCount, 10);
+		StreamingAutoBone streaming = new StreamingAutoBone(new AutoBone(), frameCount);
+		BlockingQueue<StreamedFrame> queue = streaming.getFrameQueue();
+		for (int i = 0; i < frameCount; ++i) {
+			// A disconnected tracker is recorded but never has a frame
+			TrackerFrame[] frame = frames.getFrames(i);
+			TrackerFrame[] withDisconnected = new TrackerFrame[frame.length + 1];
+			System.arraycopy(frame, 0, withDisconnected, 0, frame.length);
+			queue.put(new StreamedFrame(i, withDisconnected));
+		}
+
+		CompletableFuture<Void> recording = CompletableFuture.completedFuture(null);
+		AutoBoneResults results = streaming.train(recording, frameCount, 1.7f, null);
+		assertNotNull(results);
+		assertEquals(frameCount, streaming.getFrameCount());
+		assertTrue(Float.isFinite(results.finalHeight));
+	}
+
+	@Test
+	public void neverPairsFramesAcrossDroppedOnes() throws Exception {
+		int frameCount = 100;
+		PoseFrames frames = SyntheticPoseFrames
+			.create(SyntheticPoseFrames.LOWER_BODY, frameCount, 13);
+		AutoBone autoBone = new AutoBone();
+		StreamingAutoBone streaming = new StreamingAutoBone(autoBone, frameCount);
+		BlockingQueue<StreamedFrame> queue = streaming.getFrameQueue();
+		// Every other frame is dropped, so no two streamed frames are one
+		// recorded frame apart
+		for (int i = 0; i < frameCount; i += 2)
+			queue.put(new StreamedFrame(i, frames.getFrames(i)));
+
+		EnumMap<BoneType, Float> initial = new EnumMap<>(autoBone.offsets);
+		CompletableFuture<Void> recording = CompletableFuture.completedFuture(null);
+		AutoBoneResults results = streaming.train(recording, frameCount, 1.7f, null);
+		assertNotNull(results);
+		assertEquals(frameCount / 2, streaming.getFrameCount());
+		// Without a valid pair nothing was trained
+		assertEquals(initial, autoBone.offsets);
+	}
+
+	@Test
+	public void noFramesGivesNoResults() throws Exception {
+		StreamingAutoBone streaming = new StreamingAutoBone(new AutoBone(), 4);
+		CompletableFuture<Void> recording = CompletableFuture.completedFuture(null);
+		assertNull(streaming.train(recording, 100, 1.7f, null));
+		assertEquals(0, streaming.getFrameCount());
+	}
+}
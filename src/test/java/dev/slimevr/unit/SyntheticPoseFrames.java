@@ -0,0 +1,82 @@
+package dev.slimevr.unit;
+
+import com.jme3.math.FastMath;
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+import dev.slimevr.poserecorder.PoseFrameTracker;
+import dev.slimevr.poserecorder.PoseFrames;
+import dev.slimevr.poserecorder.TrackerFrame;
+import dev.slimevr.vr.trackers.TrackerPosition;
+
+import java.util.Random;
+
+
+/**
+ * Deterministic recordings of a swaying body for tests and benchmarks that
+ * need pose frames without a real recording
+ */
+public final class SyntheticPoseFrames {
+
+	public static final TrackerPosition[] HMD_ONLY = { TrackerPosition.HMD };
+	public static final TrackerPosition[] LOWER_BODY = { TrackerPosition.HMD,
+		TrackerPosition.CHEST, TrackerPosition.HIP, TrackerPosition.LEFT_UPPER_LEG,
+		TrackerPosition.RIGHT_UPPER_LEG, TrackerPosition.LEFT_LOWER_LEG,
+		TrackerPosition.RIGHT_LOWER_LEG };
+	public static final TrackerPosition[] FULL_BODY = { TrackerPosition.HMD,
+		TrackerPosition.CHEST, TrackerPosition.WAIST, TrackerPosition.HIP,
+		TrackerPosition.LEFT_UPPER_LEG, TrackerPosition.RIGHT_UPPER_LEG,
+		TrackerPosition.LEFT_LOWER_LEG, TrackerPosition.RIGHT_LOWER_LEG,
+		TrackerPosition.LEFT_FOOT, TrackerPosition.RIGHT_FOOT,
+		TrackerPosition.LEFT_UPPER_ARM, TrackerPosition.RIGHT_UPPER_ARM,
+		TrackerPosition.LEFT_LOWER_ARM, TrackerPosition.RIGHT_LOWER_ARM };
+
+	private SyntheticPoseFrames() {
+	}
+
+	/**
+	 * @return the tracker set called name: HMD_ONLY, LOWER_BODY or FULL_BODY
+	 */
+	public static TrackerPosition[] getTrackerSet(String name) {
+		switch (name) {
+			case "HMD_ONLY":
+				return HMD_ONLY;
+			case "LOWER_BODY":
+				return LOWER_BODY;
+			case "FULL_BODY":
+				return FULL_BODY;
+		}
+		throw new IllegalArgumentException("Unknown tracker set " + name);
+	}
+
+	/**
+	 * Creates frameCount frames, 20 ms apart, of trackers at the given
+	 * positions. Every tracker sways with its own random amplitude and phase,
+	 * the HMD also bobs up and down.
+	 */
+	public static PoseFrames create(TrackerPosition[] positions, int frameCount, long seed) {
+		Random random = new Random(seed);
+		PoseFrames frames = new PoseFrames(positions.length);
+		for (TrackerPosition position : positions) {
+			PoseFrameTracker tracker = new PoseFrameTracker(position.name(), frameCount);
+			float amplitude = 0.1f + random.nextFloat() * 0.4f;
+			float phase = random.nextFloat() * FastMath.TWO_PI;
+			float yaw = (random.nextFloat() - 0.5f) * 0.5f;
+			for (int i = 0; i < frameCount; ++i) {
+				float t = i * 0.02f;
+				float sway = amplitude * FastMath.sin(FastMath.TWO_PI * 0.5f * t + phase);
+				Quaternion rotation = new Quaternion()
+					.fromAngles(sway, yaw + sway * 0.5f, sway * 0.25f);
+				Vector3f hmdPosition = null;
+				if (position == TrackerPosition.HMD)
+					hmdPosition = new Vector3f(
+						0f,
+						1.7f + 0.05f * FastMath.sin(FastMath.TWO_PI * t + phase),
+						0f
+					);
+				tracker.addFrame(new TrackerFrame(position, rotation, hmdPosition));
+			}
+			frames.addTracker(tracker);
+		}
+		return frames;
+	}
+}
@@ -0,0 +1,255 @@
+package dev.slimevr.unit;
+
+import com.jme3.math.FastMath;
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+import dev.slimevr.poserecorder.PoseFrameIO;
+import dev.slimevr.poserecorder.PoseFrameTracker;
+import dev.slimevr.poserecorder.PoseFrames;
+import dev.slimevr.poserecorder.TrackerFrame;
+import dev.slimevr.vr.trackers.IMUTracker;
+import dev.slimevr.vr.trackers.OneEuroRotationFilter;
+import dev.slimevr.vr.trackers.Tracker;
+import dev.slimevr.vr.trackers.TrackerFilters;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Replays a recording with added sensor noise through {@link IMUTracker} with
+ * each {@link TrackerFilters} type and reports lag against jitter. A recording
+ * can be given with the slimevr.test.pfr system property, otherwise a
+ * synthetic one is used.
+ */
+public class TrackerFilterEvaluationTests {
+
+	private static final long MS = 1_000_000L;
+	private static final long SAMPLE_PERIOD = 10 * MS;
+	private static final float NOISE = 0.5f * FastMath.DEG_TO_RAD;
+	private static final int MAX_LAG_MS = 100;
+	// Skip the filters settling on the first samples
+	private static final int WARMUP_SAMPLES = 20;
+
+	@TempDir
+	File tempDir;
+
+	@Test
+	public void oneEuroFilterStaysAtRest() {
+		OneEuroRotationFilter filter = OneEuroRotationFilter.fromIntensity(0.5f);
+		Quaternion rest = new Quaternion().fromAngles(0.1f, 0.2f, 0.3f);
+		Quaternion result = null;
+		for (int i = 0; i < 100; ++i)
+			result = filter.filter(rest, i * SAMPLE_PERIOD);
+		assertEquals(0f, filter.getSpeed(), 1e-3f);
+		assertEquals(1f, Math.abs(result.dot(rest)), 1e-5f);
+	}
+
+	@Test
+	public void oneEuroFilterFollowsFastMotionCloser() {
+		// Fast turns raise the cutoff, so the remaining error relative to
+		// the speed is lower than for slow turns
+		float slowError = followError(0.5f);
+		float fastError = followError(8f);
+		assertTrue(fastError / 8f < slowError / 0.5f);
+	}
+
+	@Test
+	public void lagAndJitter() {
+		PoseFrames frames = loadRecording();
+
+		Result none = evaluate(frames, TrackerFilters.NONE, 0.3f, 1);
+		Result interpolation = evaluate(frames, TrackerFilters.INTERPOLATION, 0.3f, 1);
+		Result extrapolation = evaluate(frames, TrackerFilters.EXTRAPOLATION, 0.3f, 1);
+		Result oneEuro = evaluate(frames, TrackerFilters.ONE_EURO, 0.3f, 1);
+		Result oneEuroHigh = evaluate(frames, TrackerFilters.ONE_EURO, 0.8f, 1);
+		System.out.println("Filter          lag      error     jitter");
+		none.print("NONE");
+		interpolation.print("INTERPOLATION");
+		extrapolation.print("EXTRAPOLATION");
+		oneEuro.print("ONE_EURO 30%");
+		oneEuroHigh.print("ONE_EURO 80%");
+
+		assertTrue(none.samples > 0);
+		assertTrue(oneEuro.jitter < none.jitter);
+		assertTrue(oneEuroHigh.jitter < oneEuro.jitter);
+		assertTrue(interpolation.jitter < none.jitter);
+		assertTrue(oneEuro.lagMs < MAX_LAG_MS);
+	}
+
+	private static float followError(float speed) {
+		OneEuroRotationFilter filter = OneEuroRotationFilter.fromIntensity(0.5f);
+		Quaternion rotation = new Quaternion();
+		Quaternion result = null;
+		for (int i = 0; i < 100; ++i) {
+			rotation.fromAngles(0, speed * i * SAMPLE_PERIOD / 1_000_000_000f, 0);
+			result = filter.filter(rotation, i * SAMPLE_PERIOD);
+		}
+		return angle(result, rotation);
+	}
+
+	private PoseFrames loadRecording() {
+		String path = System.getProperty("slimevr.test.pfr");
+		File file;
+		if (path != null) {
+			file = new File(path);
+		} else {
+			file = new File(tempDir, "synthetic.pfr");
+			PoseFrames synthetic = SyntheticPoseFrames
+				.create(SyntheticPoseFrames.FULL_BODY, 1000, 5);
+			assertTrue(PoseFrameIO.writeToFile(file, synthetic));
+		}
+		PoseFrames frames = PoseFrameIO.readFromFile(file);
+		assertNotNull(frames);
+		return frames;
+	}
+
+	/**
+	 * Replays every tracker of the recording with the same noise, one sample
+	 * per period, and reads the filtered rotation after each sample
+	 */
+	private static Result evaluate(
+		PoseFrames frames,
+		TrackerFilters filter,
+		float amount,
+		int ticks
+	) {
+		Random random = new Random(3);
+		Result result = new Result();
+		double[] lagErrors = new double[MAX_LAG_MS + 1];
+		for (PoseFrameTracker recorded : frames.getTrackers()) {
+			Quaternion[] rotations = getRotations(recorded);
+			if (rotations == null)
+				continue;
+			IMUTracker tracker = new IMUTracker(
+				null,
+				Tracker.getNextLocalTrackerId(),
+				0,
+				"replay/" + recorded.name,
+				"replay/" + recorded.name,
+				null,
+				null
+			);
+			tracker.setFilter(filter.name(), amount, ticks);
+			replay(tracker, rotations, random, lagErrors, result);
+		}
+		result.lagMs = 0;
+		for (int lag = 1; lag <= MAX_LAG_MS; ++lag) {
+			if (lagErrors[lag] < lagErrors[result.lagMs])
+				result.lagMs = lag;
+		}
+		result.error = rmsDegrees(lagErrors[result.lagMs], result.samples);
+		result.jitter = rmsDegrees(result.jitter, result.jitterSamples);
+		return result;
+	}
+
+	private static void replay(
+		IMUTracker tracker,
+		Quaternion[] rotations,
+		Random random,
+		double[] lagErrors,
+		Result result
+	) {
+		Quaternion noise = new Quaternion();
+		Quaternion truth = new Quaternion();
+		Quaternion midpoint = new Quaternion();
+		Quaternion[] outputs = { new Quaternion(), new Quaternion(), new Quaternion() };
+		Vector3f axis = new Vector3f();
+		for (int i = 0; i < rotations.length; ++i) {
+			axis
+				.set(
+					(float) random.nextGaussian(),
+					(float) random.nextGaussian(),
+					(float) random.nextGaussian()
+				)
+				.normalizeLocal();
+			noise.fromAngleAxis((float) random.nextGaussian() * NOISE, axis);
+			rotations[i].mult(noise, tracker.rotQuaternion);
+			long time = i * SAMPLE_PERIOD;
+			tracker.dataTick(time);
+
+			Quaternion output = outputs[i % 3];
+			tracker.getRotation(output);
+			if (i < WARMUP_SAMPLES)
+				continue;
+
+			for (int lag = 0; lag <= MAX_LAG_MS; ++lag) {
+				sampleRecording(rotations, time - lag * MS, truth);
+				lagErrors[lag] += square(angle(output, truth));
+			}
+			result.samples++;
+
+			// Deviation of the previous output from the middle of its
+			// neighbours, the smooth motion itself barely contributes
+			midpoint.slerp(outputs[(i + 1) % 3], output, 0.5f);
+			result.jitter += square(angle(outputs[(i + 2) % 3], midpoint));
+			result.jitterSamples++;
+		}
+	}
+
+	private static Quaternion[] getRotations(PoseFrameTracker tracker) {
+		int frameCount = tracker.getFrameCount();
+		if (frameCount <= WARMUP_SAMPLES)
+			return null;
+		Quaternion[] rotations = new Quaternion[frameCount];
+		for (int i = 0; i < frameCount; ++i) {
+			TrackerFrame frame = tracker.getFrame(i);
+			if (frame == null || frame.rotation == null)
+				return null;
+			rotations[i] = frame.rotation;
+		}
+		return rotations;
+	}
+
+	private static void sampleRecording(Quaternion[] rotations, long time, Quaternion store) {
+		if (time <= 0) {
+			store.set(rotations[0]);
+			return;
+		}
+		int i = (int) (time / SAMPLE_PERIOD);
+		if (i >= rotations.length - 1) {
+			store.set(rotations[rotations.length - 1]);
+			return;
+		}
+		store
+			.slerp(
+				rotations[i],
+				rotations[i + 1],
+				(time - i * SAMPLE_PERIOD) / (float) SAMPLE_PERIOD
+			);
+	}
+
+	/**
+	 * Angle between a rotation and the reference, the slerped reference isn't
+	 * exactly unit length
+	 */
+	private static float angle(Quaternion a, Quaternion reference) {
+		float dot = Math.abs(a.dot(reference)) / FastMath.sqrt(reference.norm());
+		return 2f * FastMath.acos(Math.min(dot, 1f));
+	}
+
+	private static double square(double value) {
+		return value * value;
+	}
+
+	private static double rmsDegrees(double squaredErrorSum, long count) {
+		return Math.sqrt(squaredErrorSum / count) * FastMath.RAD_TO_DEG;
+	}
+
+	private static class Result {
+
+		long samples = 0;
+		long jitterSamples = 0;
+		int lagMs;
+		double error;
+		double jitter = 0;
+
+		void print(String name) {
+			System.out.printf("%-14s %4d ms %7.4f deg %7.4f deg%n", name, lagMs, error, jitter);
+		}
+	}
+}
@@ -0,0 +1,106 @@
+package dev.slimevr.unit;
+
+import dev.slimevr.simulator.ProceduralMotion;
+import dev.slimevr.simulator.SimulatedDevice;
+import dev.slimevr.simulator.TrackerFleetSimulator;
+import dev.slimevr.vr.trackers.udp.*;
+import io.eiren.util.collections.FastList;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+
+/**
+ * Runs a small simulated fleet against an in-process {@link TrackersNIOUDPServer}
+ */
+public class TrackerFleetSimulatorTests {
+
+	private static final int DEVICES = 4;
+	private static final int SENSORS = 2;
+
+	@Test
+	public void fleetStreamsToServer() throws Exception {
+		try (
+			DatagramSocket socket = new DatagramSocket(
+				new InetSocketAddress(InetAddress.getByName("127.0.0.2"), 0)
+			)
+		) {
+		} catch (IOException e) {
+			assumeTrue(false, "Can't bind additional loopback addresses");
+		}
+
+		int port;
+		try (DatagramSocket s = new DatagramSocket(0)) {
+			port = s.getLocalPort();
+		}
+		AtomicLong rotations = new AtomicLong();
+		TrackersUDPServer server = new TrackersNIOUDPServer(port, "Simulator test", tracker -> {
+		}) {
+			@Override
+			protected void onPacketProcessed(UDPPacket packet, UDPDevice connection) {
+				if (packet.getPacketId() == UDPProtocolParser.PACKET_ROTATION_DATA)
+					rotations.incrementAndGet();
+			}
+
+			@Override
+			protected void onDataReceived() {
+			}
+
+			@Override
+			protected void onNewDevice(UDPDevice device) {
+			}
+		};
+		server.setDaemon(true);
+		server.start();
+		Thread.sleep(200L);
+
+		List<SimulatedDevice> devices = new FastList<>();
+		InetSocketAddress serverAddress = new InetSocketAddress(
+			InetAddress.getLoopbackAddress(),
+			port
+		);
+		for (int i = 0; i < DEVICES; ++i) {
+			devices
+				.add(
+					new SimulatedDevice(
+						i,
+						SENSORS,
+						i * SENSORS,
+						InetAddress.getByName("127.0.0." + (i + 2)),
+						serverAddress
+					)
+				);
+		}
+		TrackerFleetSimulator simulator = new TrackerFleetSimulator(
+			devices,
+			new ProceduralMotion(),
+			100,
+			2
+		);
+		simulator.start();
+		Thread.sleep(1000L);
+		simulator.stop();
+		Thread.sleep(100L);
+		for (SimulatedDevice device : devices)
+			device.close();
+
+		assertEquals(DEVICES, simulator.getConnectedDevices());
+		assertEquals(DEVICES, server.getConnections().size());
+		int trackers = 0;
+		for (UDPDevice connection : server.getConnections()) {
+			trackers += connection.getTrackers().size();
+			assertEquals(0, connection.outOfOrderPackets);
+		}
+		assertEquals(DEVICES * SENSORS, trackers);
+		assertTrue(rotations.get() > 0, "Server processed no rotations");
+	}
+}
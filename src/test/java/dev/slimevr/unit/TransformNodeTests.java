@@ -0,0 +1,90 @@
+package dev.slimevr.unit;
+
+import com.jme3.math.FastMath;
+import com.jme3.math.Quaternion;
+import dev.slimevr.poserecorder.PoseFrameSkeleton;
+import dev.slimevr.poserecorder.PoseFrames;
+import dev.slimevr.vr.processor.TransformNode;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * Tests skipping of unchanged subtrees in {@link TransformNode#update()}
+ */
+public class TransformNodeTests {
+
+	@Test
+	public void unchangedSubtreesAreSkipped() {
+		TransformNode root = new TransformNode("Root", false);
+		TransformNode child = new TransformNode("Child", false);
+		TransformNode leaf = new TransformNode("Leaf", false);
+		TransformNode sibling = new TransformNode("Sibling", false);
+		root.attachChild(child);
+		child.attachChild(leaf);
+		root.attachChild(sibling);
+		leaf.localTransform.setTranslation(0, -1f, 0);
+
+		TransformNode.UpdateStats stats = new TransformNode.UpdateStats();
+		root.update(stats);
+		assertEquals(4, stats.solved);
+		assertEquals(0, stats.skipped);
+
+		stats.reset();
+		root.update(stats);
+		assertEquals(0, stats.solved);
+		assertEquals(4, stats.skipped);
+
+		// Only the child and its leaf depend on the child's rotation
+		stats.reset();
+		child.localTransform.setRotation(new Quaternion().fromAngles(FastMath.HALF_PI, 0, 0));
+		root.update(stats);
+		assertEquals(2, stats.solved);
+		assertEquals(2, stats.skipped);
+		assertEquals(0f, leaf.worldTransform.getTranslation().y, 1e-6f);
+		assertEquals(-1f, leaf.worldTransform.getTranslation().z, 1e-6f);
+
+		// Moving the root moves everything
+		stats.reset();
+		root.localTransform.setTranslation(0, 1f, 0);
+		root.update(stats);
+		assertEquals(4, stats.solved);
+		assertEquals(1f, leaf.worldTransform.getTranslation().y, 1e-6f);
+	}
+
+	@Test
+	public void reattachedNodesAreUpdated() {
+		TransformNode root = new TransformNode("Root", false);
+		TransformNode other = new TransformNode("Other", false);
+		TransformNode child = new TransformNode("Child", false);
+		root.localTransform.setTranslation(1f, 0, 0);
+		other.localTransform.setTranslation(2f, 0, 0);
+		root.attachChild(child);
+		root.update();
+		other.update();
+		assertEquals(1f, child.worldTransform.getTranslation().x, 1e-6f);
+
+		root.detachWithChildren();
+		other.attachChild(child);
+		other.update();
+		assertEquals(2f, child.worldTransform.getTranslation().x, 1e-6f);
+	}
+
+	@Test
+	public void staticPoseHitRate() {
+		// Repeating the same frame must not recompute anything after the
+		// first update
+		PoseFrames frames = SyntheticPoseFrames.create(SyntheticPoseFrames.FULL_BODY, 1, 5);
+		PoseFrameSkeleton skeleton = new PoseFrameSkeleton(frames.getTrackers(), null);
+		skeleton.updatePose();
+		skeleton.getNodeUpdateStats().reset();
+		for (int i = 0; i < 10; ++i)
+			skeleton.updatePose();
+		TransformNode.UpdateStats stats = skeleton.getNodeUpdateStats();
+		assertEquals(0, stats.solved);
+		assertTrue(stats.skipped > 0);
+		assertEquals(1f, stats.getHitRate());
+	}
+}
@@ -0,0 +1,95 @@
+package dev.slimevr.unit;
+
+import dev.slimevr.vr.trackers.udp.UDPDevice;
+import dev.slimevr.vr.trackers.udp.UDPPacket;
+import dev.slimevr.vr.trackers.udp.UDPPacket17RotationData;
+import dev.slimevr.vr.trackers.udp.UDPProtocolParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests {@link UDPProtocolParser} in packet reusing mode
+ */
+public class UDPProtocolParserTests {
+
+	private static final int PACKETS = 100000;
+
+	private static void writeRotationData(ByteBuffer buf, long packetNumber, float w) {
+		buf.clear();
+		buf.putInt(UDPProtocolParser.PACKET_ROTATION_DATA);
+		buf.putLong(packetNumber);
+		buf.put((byte) 0); // Sensor id
+		buf.put((byte) UDPPacket17RotationData.DATA_TYPE_NORMAL);
+		buf.putFloat(0f);
+		buf.putFloat(0f);
+		buf.putFloat(0f);
+		buf.putFloat(w);
+		buf.put((byte) 3); // Calibration info
+		buf.flip();
+	}
+
+	@Test
+	public void reusesPacketInstances() throws IOException {
+		UDPProtocolParser parser = new UDPProtocolParser(true);
+		UDPDevice device = new UDPDevice(
+			new InetSocketAddress(InetAddress.getLoopbackAddress(), 6969),
+			InetAddress.getLoopbackAddress()
+		);
+		ByteBuffer buf = ByteBuffer.allocate(512).order(ByteOrder.BIG_ENDIAN);
+
+		writeRotationData(buf, 1, 1f);
+		UDPPacket first = parser.parse(buf, device);
+		writeRotationData(buf, 2, 0.5f);
+		UDPPacket second = parser.parse(buf, device);
+
+		assertSame(first, second);
+		assertEquals(0.5f, ((UDPPacket17RotationData) second).rotation.getW());
+	}
+
+	@Test
+	public void parsesRotationWithoutAllocation() throws IOException {
+		com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory
+			.getThreadMXBean();
+		if (!threadBean.isThreadAllocatedMemorySupported())
+			return;
+		threadBean.setThreadAllocatedMemoryEnabled(true);
+
+		UDPProtocolParser parser = new UDPProtocolParser(true);
+		UDPDevice device = new UDPDevice(
+			new InetSocketAddress(InetAddress.getLoopbackAddress(), 6969),
+			InetAddress.getLoopbackAddress()
+		);
+		ByteBuffer buf = ByteBuffer.allocate(512).order(ByteOrder.BIG_ENDIAN);
+		long packetNumber = 1;
+
+		// Warm up, first parse creates the cached packet instance
+		for (int i = 0; i < PACKETS; ++i) {
+			writeRotationData(buf, packetNumber++, 1f);
+			parser.parse(buf, device);
+		}
+
+		long threadId = Thread.currentThread().getId();
+		long before = threadBean.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < PACKETS; ++i) {
+			writeRotationData(buf, packetNumber++, 1f);
+			parser.parse(buf, device);
+		}
+		long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+		// Allow for a few bytes of measurement noise, but not a single object
+		// per packet
+		assertTrue(
+			allocated < PACKETS,
+			"Allocated " + allocated + " bytes for " + PACKETS + " packets"
+		);
+	}
+}
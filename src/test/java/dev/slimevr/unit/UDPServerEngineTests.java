@@ -0,0 +1,325 @@
+package dev.slimevr.unit;
+
+import dev.slimevr.vr.trackers.IMUTracker;
+import dev.slimevr.vr.trackers.Tracker;
+import dev.slimevr.vr.trackers.udp.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+
+/**
+ * Loopback tests for {@link TrackersUDPServer} and
+ * {@link TrackersNIOUDPServer}: a fake tracker connects, sets up a sensor and
+ * sends a fixed number of rotation packets, which must all be processed.
+ * <p>
+ * {@link TrackersShardedUDPServer} is tested the same way with a fleet of fake
+ * devices spread over its shards.
+ * <p>
+ * Throughput is measured with the tracker fleet simulator, e.g.
+ * {@code gradle runSimulator --args "--local --shards 4 -n 32 -r 200"}.
+ */
+public class UDPServerEngineTests {
+
+	private static final int ROTATIONS = 200;
+	private static final long TIMEOUT_MS = 5000L;
+	private static final int FLEET_DEVICES = 4;
+	private static final int SHARDS = 2;
+
+	private static int findFreePort() throws SocketException {
+		try (DatagramSocket s = new DatagramSocket(0)) {
+			return s.getLocalPort();
+		}
+	}
+
+	private static void send(DatagramSocket socket, ByteBuffer buf, SocketAddress address)
+		throws IOException {
+		socket.send(new DatagramPacket(buf.array(), buf.position(), address));
+	}
+
+	private static void writeHandshake(ByteBuffer buf) {
+		writeHandshake(buf, 1);
+	}
+
+	private static void writeHandshake(ByteBuffer buf, int macSuffix) {
+		buf.clear();
+		buf.putInt(UDPProtocolParser.PACKET_HANDSHAKE);
+		buf.putLong(0);
+		buf.putInt(0); // Board type
+		buf.putInt(0); // IMU type
+		buf.putInt(0); // MCU type
+		buf.putInt(0); // IMU info
+		buf.putInt(0);
+		buf.putInt(0);
+		buf.putInt(10); // Firmware build
+		byte[] firmware = "load-test".getBytes(StandardCharsets.US_ASCII);
+		buf.put((byte) firmware.length);
+		buf.put(firmware);
+		buf.put(new byte[] { 1, 2, 3, 4, 5, (byte) macSuffix });
+	}
+
+	private static void writeSensorInfo(ByteBuffer buf, long packetNumber) {
+		buf.clear();
+		buf.putInt(UDPProtocolParser.PACKET_SENSOR_INFO);
+		buf.putLong(packetNumber);
+		buf.put((byte) 0); // Sensor id
+		buf.put((byte) 1); // Status OK
+		buf.put((byte) 0); // Sensor type
+	}
+
+	private static void writeRotationData(ByteBuffer buf, long packetNumber) {
+		buf.clear();
+		buf.putInt(UDPProtocolParser.PACKET_ROTATION_DATA);
+		buf.putLong(packetNumber);
+		buf.put((byte) 0); // Sensor id
+		buf.put((byte) UDPPacket17RotationData.DATA_TYPE_NORMAL);
+		buf.putFloat(0f);
+		buf.putFloat(0f);
+		buf.putFloat(0f);
+		buf.putFloat(1f);
+		buf.put((byte) 3); // Calibration info
+	}
+
+	private static void waitFor(String what, BooleanSupplier condition) throws Exception {
+		long deadline = System.nanoTime() + TIMEOUT_MS * 1000000L;
+		while (!condition.getAsBoolean()) {
+			assertTrue(System.nanoTime() < deadline, "Timed out waiting for " + what);
+			Thread.sleep(10L);
+		}
+	}
+
+	/**
+	 * Sends the packet again until the condition is true, like trackers retry
+	 * handshakes, since the server may not be listening yet
+	 */
+	private static void sendUntil(
+		DatagramSocket socket,
+		ByteBuffer buf,
+		SocketAddress address,
+		BooleanSupplier condition
+	) throws Exception {
+		long deadline = System.nanoTime() + TIMEOUT_MS * 1000000L;
+		while (!condition.getAsBoolean()) {
+			assertTrue(System.nanoTime() < deadline, "Timed out waiting for the server");
+			send(socket, buf, address);
+			Thread.sleep(10L);
+		}
+	}
+
+	private static void streamRotations(
+		String engine,
+		TrackersUDPServer server,
+		AtomicLong processed
+	) throws Exception {
+		server.setDaemon(true);
+		server.start();
+		ByteBuffer buf = ByteBuffer.allocate(512).order(ByteOrder.BIG_ENDIAN);
+		try (DatagramSocket socket = new DatagramSocket()) {
+			InetSocketAddress serverAddress = new InetSocketAddress(
+				InetAddress.getLoopbackAddress(),
+				server.getPort()
+			);
+			writeHandshake(buf);
+			sendUntil(socket, buf, serverAddress, () -> server.getConnections().size() == 1);
+			UDPDevice device = server.getConnections().get(0);
+			writeSensorInfo(buf, 1);
+			sendUntil(socket, buf, serverAddress, () -> device.getTrackers().size() == 1);
+
+			for (int i = 0; i < ROTATIONS; ++i) {
+				writeRotationData(buf, i + 2);
+				send(socket, buf, serverAddress);
+			}
+			waitFor(engine + " rotations", () -> processed.get() >= ROTATIONS);
+			assertEquals(ROTATIONS, processed.get());
+			assertEquals(ROTATIONS, ((IMUTracker) device.getTrackers().get(0)).getSampleVersion());
+			assertEquals(0, device.outOfOrderPackets);
+		} finally {
+			server.shutdown();
+			server.join(TIMEOUT_MS);
+		}
+		assertFalse(server.isAlive(), engine + " server didn't stop");
+	}
+
+	@Test
+	public void blockingEngine() throws Exception {
+		AtomicLong processed = new AtomicLong();
+		TrackersUDPServer server = new TrackersUDPServer(
+			findFreePort(),
+			"Blocking engine test",
+			tracker -> {
+			}
+		) {
+			@Override
+			protected void onPacketProcessed(UDPPacket packet, UDPDevice connection) {
+				if (packet.getPacketId() == UDPProtocolParser.PACKET_ROTATION_DATA)
+					processed.incrementAndGet();
+			}
+
+			@Override
+			protected void onDataReceived() {
+			}
+
+			@Override
+			protected void onNewDevice(UDPDevice device) {
+			}
+		};
+		streamRotations("blocking", server, processed);
+	}
+
+	@Test
+	public void nioEngine() throws Exception {
+		AtomicLong processed = new AtomicLong();
+		TrackersUDPServer server = new TrackersNIOUDPServer(
+			findFreePort(),
+			"NIO engine test",
+			tracker -> {
+			}
+		) {
+			@Override
+			protected void onPacketProcessed(UDPPacket packet, UDPDevice connection) {
+				if (packet.getPacketId() == UDPProtocolParser.PACKET_ROTATION_DATA)
+					processed.incrementAndGet();
+			}
+
+			@Override
+			protected void onDataReceived() {
+			}
+
+			@Override
+			protected void onNewDevice(UDPDevice device) {
+			}
+		};
+		streamRotations("nio", server, processed);
+	}
+
+	private static long processedRotations(TrackersUDPServer server) {
+		long total = 0;
+		for (UDPDevice device : server.getConnections()) {
+			for (Tracker tracker : device.getTrackers())
+				total += ((IMUTracker) tracker).getSampleVersion();
+		}
+		return total;
+	}
+
+	private static UDPDevice findConnection(TrackersUDPServer server, InetAddress address) {
+		for (UDPDevice device : server.getConnections()) {
+			if (device.ipAddress.equals(address))
+				return device;
+		}
+		return null;
+	}
+
+	/**
+	 * Every device sends rotations to the port of the shard it was assigned
+	 * to, all of them must be processed
+	 */
+	private static void streamFleet(TrackersShardedUDPServer.ShardMode mode) throws Exception {
+		int port = findFreePort();
+		TrackersShardedUDPServer server = new TrackersShardedUDPServer(
+			port,
+			"Sharded engine test",
+			tracker -> {
+			},
+			TrackersNIOUDPServer.DEFAULT_BATCH_SIZE,
+			SHARDS,
+			mode
+		) {
+			@Override
+			protected void onDataReceived() {
+			}
+
+			@Override
+			protected void onNewDevice(UDPDevice device) {
+				assignShard(device);
+			}
+		};
+		server.setDaemon(true);
+		server.start();
+
+		InetSocketAddress serverAddress = new InetSocketAddress(
+			InetAddress.getLoopbackAddress(),
+			port
+		);
+		DatagramSocket[] sockets = new DatagramSocket[FLEET_DEVICES];
+		try {
+			ByteBuffer buf = ByteBuffer.allocate(512).order(ByteOrder.BIG_ENDIAN);
+			for (int i = 0; i < FLEET_DEVICES; ++i) {
+				// Every device needs its own address, connections are keyed
+				// by it
+				InetAddress address = InetAddress.getByName("127.0.0." + (i + 2));
+				sockets[i] = new DatagramSocket(new InetSocketAddress(address, 0));
+				writeHandshake(buf, i);
+				sendUntil(
+					sockets[i],
+					buf,
+					serverAddress,
+					() -> findConnection(server, address) != null
+				);
+				UDPDevice device = findConnection(server, address);
+				// With SO_REUSEPORT all shards share the port
+				int shardPort = mode == TrackersShardedUDPServer.ShardMode.PORTS
+					? port + device.shard
+					: port;
+				InetSocketAddress shardAddress = new InetSocketAddress(
+					serverAddress.getAddress(),
+					shardPort
+				);
+				writeSensorInfo(buf, 1);
+				sendUntil(sockets[i], buf, shardAddress, () -> device.getTrackers().size() == 1);
+				for (int r = 0; r < ROTATIONS; ++r) {
+					writeRotationData(buf, r + 2);
+					send(sockets[i], buf, shardAddress);
+				}
+			}
+			waitFor(
+				mode + " rotations",
+				() -> processedRotations(server) >= FLEET_DEVICES * ROTATIONS
+			);
+			assertEquals(FLEET_DEVICES * ROTATIONS, processedRotations(server));
+		} finally {
+			for (DatagramSocket socket : sockets) {
+				if (socket != null)
+					socket.close();
+			}
+			server.shutdown();
+			server.join(TIMEOUT_MS);
+		}
+		assertFalse(server.isAlive(), mode + " server didn't stop");
+	}
+
+	private static void assumeLoopbackAddresses() {
+		try (
+			DatagramSocket socket = new DatagramSocket(
+				new InetSocketAddress(InetAddress.getByName("127.0.0.2"), 0)
+			)
+		) {
+		} catch (IOException e) {
+			assumeTrue(false, "Can't bind additional loopback addresses");
+		}
+	}
+
+	@Test
+	public void shardedEngineReusePort() throws Exception {
+		assumeTrue(
+			TrackersShardedUDPServer.isReusePortSupported(),
+			"SO_REUSEPORT is not supported"
+		);
+		assumeLoopbackAddresses();
+		streamFleet(TrackersShardedUDPServer.ShardMode.REUSEPORT);
+	}
+
+	@Test
+	public void shardedEnginePorts() throws Exception {
+		assumeLoopbackAddresses();
+		streamFleet(TrackersShardedUDPServer.ShardMode.PORTS);
+	}
+}